@@ -1,5 +1,6 @@
 package com.chaosgame;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -10,16 +11,37 @@ import javafx.stage.Stage;
  */
 public class App extends Application {
 
+  private ViewManager viewManager;
+
   @Override
   public void start(Stage primaryStage) {
     // The Stage is the main window of our application
     primaryStage.setTitle("Chaos Game");
 
     // We delegate the responsibility of showing views to the ViewManager
-    ViewManager viewManager = new ViewManager(primaryStage);
+    viewManager = new ViewManager(primaryStage);
     viewManager.showMainMenu(); // Start by showing the main menu
 
     primaryStage.show();
+
+    // The first pulse after show() is the first frame the player can see
+    new AnimationTimer() {
+      @Override
+      public void handle(long now) {
+        stop();
+        StartupMetrics.menuShown();
+        if (StartupMetrics.PROBE) {
+          viewManager.whenGameViewPreloaded(viewManager::showGameView);
+        }
+      }
+    }.start();
+  }
+
+  @Override
+  public void stop() {
+    if (viewManager != null) {
+      viewManager.shutdown();
+    }
   }
 
   public static void main(String[] args) {
@@ -0,0 +1,58 @@
+package com.chaosgame;
+
+import javafx.application.Platform;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the two startup timings a player notices: launch to main menu, and
+ * clicking "Start Game" to the first gameplay frame. Each is printed when it
+ * happens if -Dchaosgame.startupMetrics=true, or in a probe run.
+ *
+ * Launching with -Dchaosgame.startupProbe=true starts the game as soon as the
+ * menu is up and the first level is preloaded, then exits after the first
+ * gameplay frame. This collects both timings unattended, and it is also the
+ * training run used to build the runtime image's AppCDS archive.
+ */
+public final class StartupMetrics {
+
+  public static final boolean PROBE = Boolean.getBoolean("chaosgame.startupProbe");
+  private static final boolean REPORT = PROBE || Boolean.getBoolean("chaosgame.startupMetrics");
+
+  private static boolean menuRecorded = false;
+  private static long gameRequestedAt = -1; // System.nanoTime() of the last "Start Game"
+
+  private StartupMetrics() {
+  }
+
+  /**
+   * Called on the first pulse after the main menu is shown.
+   */
+  public static void menuShown() {
+    if (menuRecorded || !REPORT) {
+      return;
+    }
+    menuRecorded = true;
+    long launchedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+    System.out.println("[startup] time-to-menu: " + (System.currentTimeMillis() - launchedAt) + " ms");
+  }
+
+  public static void gameRequested() {
+    gameRequestedAt = System.nanoTime();
+  }
+
+  /**
+   * Called by the game loop on its first frame.
+   */
+  public static void firstGameplayFrame() {
+    if (gameRequestedAt < 0 || !REPORT) {
+      return;
+    }
+    long elapsed = (System.nanoTime() - gameRequestedAt) / 1_000_000;
+    gameRequestedAt = -1;
+    System.out.println("[startup] time-to-first-gameplay-frame: " + elapsed + " ms");
+    if (PROBE) {
+      Platform.exit();
+    }
+  }
+}
@@ -1,29 +1,136 @@
 package com.chaosgame;
 
+import com.chaosgame.physics.PhysicsWarmup;
+import com.chaosgame.view.AbstractPlayableLevelView;
 import com.chaosgame.view.GameView;
 import com.chaosgame.view.MainMenuView;
+import com.chaosgame.view.ManagedView;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Manages switching between different scenes (views) in the application.
+ *
+ * While the menu is showing, the first level is built and the physics code is
+ * warmed up on a background thread, so that "Start Game" only has to swap in
+ * a ready-made scene.
+ *
+ * Views go through the ManagedView lifecycle: the one leaving the stage is
+ * paused, the one arriving is entered or resumed. There is only one level, so
+ * it stays built, paused, while the menu is up and going back to it is
+ * instant; it is disposed when the application shuts down.
  */
 public class ViewManager {
+
   private Stage stage;
+  private ManagedView current;
+  private MainMenuView mainMenu; // Built once and reused; it holds nothing worth releasing
+  private final Set<ManagedView> entered = Collections.newSetFromMap(new IdentityHashMap<>());
+  private AbstractPlayableLevelView gameLevel; // Null until first shown
+
+  // A single daemon thread, so preloading never keeps the application alive
+  private final ExecutorService preloader = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "level-preloader");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private CompletableFuture<GameView> preloadedGameView;
 
   public ViewManager(Stage stage) {
     this.stage = stage;
   }
 
   public void showMainMenu() {
-    MainMenuView menuView = new MainMenuView(this);
-    stage.setScene(menuView.getScene());
+    if (mainMenu == null) {
+      mainMenu = new MainMenuView(this);
+    }
+    show(mainMenu);
+    preloadGameView();
   }
 
+  /**
+   * Shows the game level: the one already built, where the player left it, or a
+   * new one, preloaded if possible.
+   */
   public void showGameView() {
-    GameView gameView = new GameView(this);
-    stage.setScene(gameView.getScene());
-    gameView.start();
-    // We will later need to start the game loop here
+    StartupMetrics.gameRequested();
+    if (gameLevel == null) {
+      gameLevel = takePreloadedGameView();
+    }
+    show(gameLevel);
+  }
+
+  private void show(ManagedView next) {
+    if (next == current) {
+      return;
+    }
+    if (current != null) {
+      current.pause();
+    }
+    stage.setScene(next.getScene());
+    current = next;
+    if (entered.add(next)) {
+      next.enter();
+    } else {
+      next.resume();
+    }
+  }
+
+  /**
+   * Disposes every view that holds anything, for when the application exits.
+   */
+  public void shutdown() {
+    if (gameLevel != null) {
+      gameLevel.dispose();
+      entered.remove(gameLevel);
+      gameLevel = null;
+    }
+    current = null;
+    preloader.shutdown();
+  }
+
+  /**
+   * Runs an action on the JavaFX Application Thread once the preloaded level is
+   * ready (or has failed, in which case showGameView builds it directly, or is
+   * not needed because the level is already built).
+   */
+  public void whenGameViewPreloaded(Runnable action) {
+    preloadGameView();
+    if (preloadedGameView == null) {
+      Platform.runLater(action); // The level is already built
+      return;
+    }
+    preloadedGameView.whenComplete((gameView, error) -> Platform.runLater(action));
+  }
+
+  private void preloadGameView() {
+    if (preloadedGameView != null || gameLevel != null) {
+      return;
+    }
+    preloadedGameView = CompletableFuture.supplyAsync(() -> new GameView(this), preloader);
+    // Queued behind the level build so it never delays the level itself
+    preloader.execute(PhysicsWarmup::run);
+  }
+
+  private GameView takePreloadedGameView() {
+    CompletableFuture<GameView> pending = preloadedGameView;
+    preloadedGameView = null;
+    if (pending != null) {
+      try {
+        // Normally already done; if not, waiting is no slower than building here
+        return pending.join();
+      } catch (RuntimeException e) {
+        System.err.println("Level preload failed, building on the FX thread: " + e);
+      }
+    }
+    return new GameView(this);
   }
 
   // We will add showLobbyView() here later
@@ -0,0 +1,214 @@
+package com.chaosgame.ai;
+
+import java.util.Arrays;
+
+/**
+ * For one goal cell, the direction to step from every cell of a
+ * NavigationGrid to follow a shortest path to the goal. Agents steer by
+ * looking up their cell; the cost of a lookup does not depend on how far
+ * away the goal is or how many agents share the field.
+ *
+ * The field is built by a Dijkstra search outward from the goal (8-way moves,
+ * no cutting corners past blocked cells), followed by a pass that points each
+ * cell at its cheapest neighbour. Both phases can be spread over several
+ * frames by calling compute() with a budget until it returns true.
+ */
+public class FlowField {
+
+  public static final byte NO_DIRECTION = -1;
+
+  // The 8 neighbours, orthogonal first; diagonals cost 14 against 10 (about sqrt 2)
+  static final int[] DX = { 1, -1, 0, 0, 1, 1, -1, -1 };
+  static final int[] DY = { 0, 0, 1, -1, 1, -1, 1, -1 };
+  private static final int[] COST = { 10, 10, 10, 10, 14, 14, 14, 14 };
+  // Unit vectors for each direction, so steering is a table lookup
+  static final double[] UNIT_X = new double[8];
+  static final double[] UNIT_Y = new double[8];
+  static {
+    for (int d = 0; d < 8; d++) {
+      double length = Math.sqrt(DX[d] * DX[d] + DY[d] * DY[d]);
+      UNIT_X[d] = DX[d] / length;
+      UNIT_Y[d] = DY[d] / length;
+    }
+  }
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  private final NavigationGrid grid;
+  private final int goal;
+  private final int gridVersion; // The grid version this field was built from
+  private final int[] cost;
+  private final byte[] direction;
+
+  // --- Search state while computing ---
+  private long[] heap; // Packed (cost << 32 | cell), with stale entries skipped on pop
+  private int heapSize = 0;
+  private int directionsDone = 0; // Cells given a direction so far
+  private boolean complete = false;
+
+  public FlowField(NavigationGrid grid, int goal) {
+    this.grid = grid;
+    this.goal = goal;
+    this.gridVersion = grid.getVersion();
+    this.cost = new int[grid.getCellCount()];
+    this.direction = new byte[grid.getCellCount()];
+    Arrays.fill(cost, UNREACHED);
+    Arrays.fill(direction, NO_DIRECTION);
+    this.heap = new long[Math.max(16, grid.getCellCount() / 4)];
+    if (goal >= 0 && !grid.isBlocked(goal)) {
+      cost[goal] = 0;
+      push(0, goal);
+    }
+  }
+
+  public int getGoal() {
+    return goal;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Whether the grid has changed since the field was built.
+   */
+  public boolean isStale() {
+    return grid.getVersion() != gridVersion;
+  }
+
+  /**
+   * Continues building the field.
+   *
+   * @param budget Roughly how many cells to process before returning.
+   * @return true once the field is complete.
+   */
+  public boolean compute(int budget) {
+    // --- Phase 1: Dijkstra outward from the goal ---
+    while (heapSize > 0 && budget > 0) {
+      long entry = pop();
+      int cellCost = (int) (entry >>> 32);
+      int cell = (int) entry;
+      if (cellCost > cost[cell]) {
+        continue; // Superseded by a cheaper path found later
+      }
+      budget--;
+      int column = grid.columnOf(cell);
+      int row = grid.rowOf(cell);
+      for (int d = 0; d < 8; d++) {
+        int neighbour = neighbour(column, row, d);
+        if (neighbour < 0) {
+          continue;
+        }
+        int newCost = cellCost + COST[d];
+        if (newCost < cost[neighbour]) {
+          cost[neighbour] = newCost;
+          push(newCost, neighbour);
+        }
+      }
+    }
+    if (heapSize > 0) {
+      return false;
+    }
+    heap = null; // Not needed once the search is done
+
+    // --- Phase 2: Point every reached cell at its cheapest neighbour ---
+    int cells = grid.getCellCount();
+    while (directionsDone < cells && budget > 0) {
+      int cell = directionsDone++;
+      budget--;
+      if (cost[cell] == UNREACHED || cell == goal) {
+        continue;
+      }
+      int column = grid.columnOf(cell);
+      int row = grid.rowOf(cell);
+      int best = cost[cell];
+      for (int d = 0; d < 8; d++) {
+        int neighbour = neighbour(column, row, d);
+        if (neighbour >= 0 && cost[neighbour] < best) {
+          best = cost[neighbour];
+          direction[cell] = (byte) d;
+        }
+      }
+    }
+    complete = directionsDone == cells;
+    return complete;
+  }
+
+  /**
+   * The direction index (into UNIT_X/UNIT_Y) to move from a cell, or
+   * NO_DIRECTION at the goal, for unreachable cells or while incomplete.
+   */
+  public byte directionAt(int cell) {
+    return cell < 0 ? NO_DIRECTION : direction[cell];
+  }
+
+  /**
+   * The path cost from a cell to the goal (10 per straight step), or -1 if
+   * the goal cannot be reached from it.
+   */
+  public int costAt(int cell) {
+    return cell < 0 || cost[cell] == UNREACHED ? -1 : cost[cell];
+  }
+
+  // The neighbour in direction d, or -1 if it is off the grid, blocked, or a
+  // diagonal that would clip a blocked corner
+  private int neighbour(int column, int row, int d) {
+    int nc = column + DX[d];
+    int nr = row + DY[d];
+    if (nc < 0 || nr < 0 || nc >= grid.getColumns() || nr >= grid.getRows()) {
+      return -1;
+    }
+    int columns = grid.getColumns();
+    int cell = nr * columns + nc;
+    if (grid.isBlocked(cell)) {
+      return -1;
+    }
+    if (d >= 4 && (grid.isBlocked(row * columns + nc) || grid.isBlocked(nr * columns + column))) {
+      return -1;
+    }
+    return cell;
+  }
+
+  // --- A binary min-heap of packed longs ---
+
+  private void push(int entryCost, int cell) {
+    if (heapSize == heap.length) {
+      heap = Arrays.copyOf(heap, heapSize * 2);
+    }
+    long entry = ((long) entryCost << 32) | cell;
+    int i = heapSize++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heap[parent] <= entry) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = entry;
+  }
+
+  private long pop() {
+    long top = heap[0];
+    long last = heap[--heapSize];
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (heap[child] >= last) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    if (heapSize > 0) {
+      heap[i] = last;
+    }
+    return top;
+  }
+}
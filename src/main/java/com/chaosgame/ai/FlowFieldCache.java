@@ -0,0 +1,149 @@
+package com.chaosgame.ai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares flow fields between all agents chasing the same goal, such as the
+ * player.
+ *
+ * Fields are cached by goal cell, so a goal that stays in one cell costs
+ * nothing after the first frame, and a goal moving back and forth between a
+ * few cells reuses their fields. A field is only rebuilt when the goal
+ * enters a cell with no cached field, or when the NavigationGrid changes.
+ * The rebuild is spread over frames by update(budget), and the previous field
+ * keeps steering agents until the new one is ready.
+ */
+public class FlowFieldCache {
+
+  private final NavigationGrid grid;
+  private final Map<Integer, FlowField> fields;
+  private FlowField current; // The field agents steer by
+  private FlowField pending; // Being built
+  private int wantedGoal = -1; // The goal cell agents should be heading for
+  private int cachedVersion;
+
+  // --- Counters ---
+  private long fieldsBuilt;
+  private long cacheHits;
+
+  /**
+   * @param capacity How many goal cells to keep fields for; the least recently
+   *                 used is evicted first.
+   */
+  public FlowFieldCache(NavigationGrid grid, int capacity) {
+    this.grid = grid;
+    this.cachedVersion = grid.getVersion();
+    this.fields = new LinkedHashMap<Integer, FlowField>(capacity * 2, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public NavigationGrid getGrid() {
+    return grid;
+  }
+
+  public FlowField getField() {
+    return current;
+  }
+
+  public long getFieldsBuilt() {
+    return fieldsBuilt;
+  }
+
+  public long getCacheHits() {
+    return cacheHits;
+  }
+
+  /**
+   * Points the shared field at a new goal position. Cheap when the goal stays
+   * in the same cell.
+   */
+  public void setGoal(double x, double y) {
+    if (grid.getVersion() != cachedVersion) {
+      // The geometry changed: every cached field is wrong now
+      fields.clear();
+      pending = null;
+      cachedVersion = grid.getVersion();
+    }
+    int goal = freeCellNear(grid.cellAt(x, y));
+    if (goal >= 0) {
+      wantedGoal = goal; // Otherwise off the grid or walled in; keep the last goal
+    }
+  }
+
+  /**
+   * Switches to the field for the newest goal, from the cache if possible,
+   * and otherwise continues building it.
+   *
+   * A build in progress is always finished, even if the goal has moved on in
+   * the meantime: restarting would starve a goal that changes cell faster
+   * than a field can be built. The newest goal gets its field next.
+   *
+   * @param budget Roughly how many cells to process this frame.
+   */
+  public void update(int budget) {
+    if (pending == null && wantedGoal >= 0 && (current == null || current.getGoal() != wantedGoal
+        || current.isStale())) {
+      FlowField cached = fields.get(wantedGoal);
+      if (cached != null) {
+        current = cached;
+        cacheHits++;
+      } else {
+        pending = new FlowField(grid, wantedGoal);
+      }
+    }
+    if (pending != null && pending.compute(budget)) {
+      fields.put(pending.getGoal(), pending);
+      current = pending;
+      pending = null;
+      fieldsBuilt++;
+    }
+  }
+
+  /**
+   * Looks up which way to go from a world position.
+   *
+   * @param out Receives the unit direction in out[0], out[1].
+   * @return false if there is no direction here: no field yet, the goal cell
+   *         itself, off the grid or unreachable. Agents should then head
+   *         straight for the goal.
+   */
+  public boolean steer(double x, double y, double[] out) {
+    if (current == null) {
+      return false;
+    }
+    byte direction = current.directionAt(grid.cellAt(x, y));
+    if (direction == FlowField.NO_DIRECTION) {
+      return false;
+    }
+    out[0] = FlowField.UNIT_X[direction];
+    out[1] = FlowField.UNIT_Y[direction];
+    return true;
+  }
+
+  // A goal hugging a wall can sit in a blocked (grown) cell; use a free neighbour instead
+  private int freeCellNear(int cell) {
+    if (cell < 0 || !grid.isBlocked(cell)) {
+      return cell;
+    }
+    int column = grid.columnOf(cell);
+    int row = grid.rowOf(cell);
+    for (int radius = 1; radius <= 2; radius++) {
+      for (int dy = -radius; dy <= radius; dy++) {
+        for (int dx = -radius; dx <= radius; dx++) {
+          int c = column + dx;
+          int r = row + dy;
+          if (c >= 0 && r >= 0 && c < grid.getColumns() && r < grid.getRows()
+              && !grid.isBlocked(r * grid.getColumns() + c)) {
+            return r * grid.getColumns() + c;
+          }
+        }
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,132 @@
+package com.chaosgame.ai;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.physics.CollisionLayers;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the level that records which cells an agent can stand
+ * in. Cells are blocked by rasterizing the static walls, grown by the agent's
+ * radius so that a path through free cells keeps the agent's whole body clear
+ * of the walls.
+ *
+ * Every change to the blocked cells bumps the version, which is how cached
+ * flow fields know they are out of date.
+ */
+public class NavigationGrid {
+
+  private final double originX, originY;
+  private final double cellSize;
+  private final int columns, rows;
+  private final boolean[] blocked;
+  private int version = 0;
+
+  /**
+   * Covers the rectangle from (minX, minY) to (maxX, maxY) with square cells.
+   */
+  public NavigationGrid(double minX, double minY, double maxX, double maxY, double cellSize) {
+    this.originX = minX;
+    this.originY = minY;
+    this.cellSize = cellSize;
+    this.columns = Math.max(1, (int) Math.ceil((maxX - minX) / cellSize));
+    this.rows = Math.max(1, (int) Math.ceil((maxY - minY) / cellSize));
+    this.blocked = new boolean[columns * rows];
+  }
+
+  public int getColumns() {
+    return columns;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public int getCellCount() {
+    return blocked.length;
+  }
+
+  public double getCellSize() {
+    return cellSize;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * Clears the grid and blocks every cell that a wall, grown by agentRadius,
+   * overlaps.
+   */
+  public void rasterize(List<Entity> entities, double agentRadius) {
+    Arrays.fill(blocked, false);
+    double[] bounds = new double[4];
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      if ((entity.getCollisionCategory() & CollisionLayers.WALL) == 0) {
+        continue;
+      }
+      entity.getBounds(bounds);
+      blockRegion(bounds[0] - agentRadius, bounds[1] - agentRadius, bounds[2] + agentRadius,
+          bounds[3] + agentRadius);
+    }
+    version++;
+  }
+
+  /**
+   * Blocks every cell overlapping a world-space rectangle, e.g. for a wall
+   * added after the level was built.
+   */
+  public void blockRegion(double minX, double minY, double maxX, double maxY) {
+    int firstColumn = Math.max(0, (int) Math.floor((minX - originX) / cellSize));
+    int lastColumn = Math.min(columns - 1, (int) Math.floor((maxX - originX) / cellSize));
+    int firstRow = Math.max(0, (int) Math.floor((minY - originY) / cellSize));
+    int lastRow = Math.min(rows - 1, (int) Math.floor((maxY - originY) / cellSize));
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        blocked[row * columns + column] = true;
+      }
+    }
+    version++;
+  }
+
+  public void setBlocked(int cell, boolean isBlocked) {
+    if (blocked[cell] != isBlocked) {
+      blocked[cell] = isBlocked;
+      version++;
+    }
+  }
+
+  public boolean isBlocked(int cell) {
+    return blocked[cell];
+  }
+
+  /**
+   * @return The cell containing a world point, or -1 if it is off the grid.
+   */
+  public int cellAt(double x, double y) {
+    int column = (int) Math.floor((x - originX) / cellSize);
+    int row = (int) Math.floor((y - originY) / cellSize);
+    if (column < 0 || row < 0 || column >= columns || row >= rows) {
+      return -1;
+    }
+    return row * columns + column;
+  }
+
+  public int columnOf(int cell) {
+    return cell % columns;
+  }
+
+  public int rowOf(int cell) {
+    return cell / columns;
+  }
+
+  public double centerX(int cell) {
+    return originX + (columnOf(cell) + 0.5) * cellSize;
+  }
+
+  public double centerY(int cell) {
+    return originY + (rowOf(cell) + 0.5) * cellSize;
+  }
+}
@@ -0,0 +1,138 @@
+package com.chaosgame.bench;
+
+import com.chaosgame.net.GameClient;
+import com.chaosgame.net.GameServer;
+import com.chaosgame.net.NetworkConditions;
+import javafx.scene.input.KeyCode;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Runs a GameServer and several scripted GameClients in one process over
+ * loopback UDP, with simulated loss and latency on every packet, and reports
+ * bandwidth, snapshot delivery and prediction error.
+ *
+ * Time is simulated: each tick advances a shared clock by exactly 1/60 s, so
+ * a minute of play takes only as long as the simulation itself.
+ *
+ * Usage:
+ *
+ * <pre>
+ * MultiplayerLoopback [--clients N] [--crates N] [--ticks N] [--loss F] [--latency MS] [--jitter MS]
+ *                     [--budget BYTES]
+ * </pre>
+ */
+public class MultiplayerLoopback {
+
+  private static final double TICK = 1.0 / GameServer.TICK_RATE;
+
+  private static long now = 0; // The simulated clock, in nanoseconds
+
+  public static void main(String[] args) throws IOException {
+    int clientCount = 8;
+    int crates = 2000;
+    int ticks = 600;
+    double loss = 0.05;
+    double latency = 50;
+    double jitter = 10;
+    int budget = 1200;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--clients":
+          clientCount = Integer.parseInt(value);
+          break;
+        case "--crates":
+          crates = Integer.parseInt(value);
+          break;
+        case "--ticks":
+          ticks = Integer.parseInt(value);
+          break;
+        case "--loss":
+          loss = Double.parseDouble(value);
+          break;
+        case "--latency":
+          latency = Double.parseDouble(value);
+          break;
+        case "--jitter":
+          jitter = Double.parseDouble(value);
+          break;
+        case "--budget":
+          budget = Integer.parseInt(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    NetworkConditions conditions = new NetworkConditions(loss, latency, jitter);
+    InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    List<GameClient> clients = new ArrayList<>();
+    long[] serverTickNanos = new long[ticks];
+    try (GameServer server = new GameServer(loopback, conditions, () -> now, 100, 100)) {
+      server.setSnapshotBudget(budget);
+      server.buildArena(crates, 42);
+      InetSocketAddress serverAddress = server.getLocalAddress();
+      for (int i = 0; i < clientCount; i++) {
+        clients.add(new GameClient(serverAddress, conditions, () -> now, 1000 + i));
+      }
+
+      Set<KeyCode> keys = EnumSet.noneOf(KeyCode.class);
+      for (int tick = 0; tick < ticks; tick++) {
+        for (int i = 0; i < clients.size(); i++) {
+          GameClient client = clients.get(i);
+          scriptInput(tick, i, keys);
+          double px = client.getPredictedPlayer().getX();
+          double py = client.getPredictedPlayer().getY();
+          double aim = tick * 0.1 + i;
+          client.tick(TICK, keys, px + Math.cos(aim) * 100, py + Math.sin(aim) * 100, (tick / 45 + i) % 3 == 0);
+        }
+        long start = System.nanoTime();
+        server.tick(TICK);
+        serverTickNanos[tick] = System.nanoTime() - start;
+        now += (long) (TICK * 1_000_000_000L);
+      }
+
+      double seconds = ticks * TICK;
+      Arrays.sort(serverTickNanos);
+      System.out.println(String.format(Locale.ROOT,
+          "clients=%d entities=%d ticks=%d conditions=[%s] budget=%dB/snapshot", clientCount,
+          server.getEntities().size(), ticks, conditions, budget));
+      System.out.println(String.format(Locale.ROOT,
+          "server: p50_tick_ms=%.2f p99_tick_ms=%.2f down_kbps_per_client=%.1f packets_dropped=%d pending_entries=%d",
+          serverTickNanos[ticks / 2] / 1e6, serverTickNanos[(int) (0.99 * (ticks - 1))] / 1e6,
+          server.getChannel().getBytesSent() * 8 / 1000.0 / seconds / Math.max(1, clientCount),
+          server.getChannel().getPacketsDropped(), server.getLastEntriesPending()));
+      for (int i = 0; i < clients.size(); i++) {
+        GameClient client = clients.get(i);
+        System.out.println(String.format(Locale.ROOT,
+            "client %d: connected=%b snapshots=%d rejected=%d up_kbps=%.1f mean_correction_px=%.2f world=%d",
+            i, client.isConnected(), client.getSnapshotsReceived(), client.getSnapshotsRejected(),
+            client.getChannel().getBytesSent() * 8 / 1000.0 / seconds, client.getMeanCorrection(),
+            client.getWorld().count));
+      }
+    } finally {
+      for (GameClient client : clients) {
+        client.close();
+      }
+    }
+  }
+
+  // Each client walks a different square, dashing now and then
+  private static void scriptInput(int tick, int client, Set<KeyCode> keys) {
+    keys.clear();
+    int leg = ((tick + client * 37) / 90) % 4;
+    keys.add(leg == 0 ? KeyCode.D : leg == 1 ? KeyCode.S : leg == 2 ? KeyCode.A : KeyCode.W);
+    if ((tick + client * 13) % 200 == 0) {
+      keys.add(KeyCode.SPACE);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package com.chaosgame.bench;
+
+import com.chaosgame.Vector2D;
+import com.chaosgame.entity.Entity;
+import com.chaosgame.physics.Gjk;
+import com.chaosgame.physics.PhysicsEngine;
+import com.chaosgame.physics.Sat;
+import com.chaosgame.physics.Separation;
+import javafx.scene.Group;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Times the two narrow phases the engine uses, SAT (the allocation-free Sat)
+ * and GJK/EPA, on pairs of regular polygons of growing vertex count, and
+ * reports where GJK starts to win. The engine switches to GJK for pairs with at least
+ * PhysicsEngine.GJK_MIN_VERTICES vertices between them; this is the
+ * measurement that number comes from.
+ *
+ * Each vertex count is measured over a set of pairs ranging from clearly
+ * overlapping to clearly apart. "Warm" moves every pair slightly between
+ * rounds and starts GJK from the pair's previous simplex, as the engine does
+ * from frame to frame.
+ *
+ * It also checks that Sat gives exactly Entity.computeSeparation's answers,
+ * and that GJK agrees with SAT: penetration depths must match, and gaps must
+ * be at least SAT's (SAT only measures along edge normals, so it
+ * underestimates vertex-to-vertex gaps).
+ *
+ * Usage: NarrowPhaseBenchmark [--pairs N] [--millis N] [--seed N]
+ */
+public class NarrowPhaseBenchmark {
+
+  private static final int[] SIDES = { 3, 4, 6, 8, 12, 16, 24, 32, 48, 64 };
+  private static final double RADIUS = 20;
+
+  public static void main(String[] args) {
+    int pairs = 256;
+    long millis = 200; // Measured time per mode and vertex count
+    long seed = 42;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--pairs":
+          pairs = Integer.parseInt(args[i + 1]);
+          break;
+        case "--millis":
+          millis = Long.parseLong(args[i + 1]);
+          break;
+        case "--seed":
+          seed = Long.parseLong(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    System.out.println("sides,total_vertices,sat_ns,gjk_cold_ns,gjk_warm_ns,warm_iterations,mismatches");
+    int crossover = -1;
+    for (int sides : SIDES) {
+      Random random = new Random(seed);
+      Entity[] a = new Entity[pairs];
+      Entity[] b = new Entity[pairs];
+      for (int i = 0; i < pairs; i++) {
+        a[i] = new Polygon(sides);
+        b[i] = new Polygon(sides);
+        place(a[i], b[i], random);
+      }
+
+      int mismatches = validate(a, b);
+
+      // Timing uses random angles too; correctness does not matter here
+      for (int i = 0; i < pairs; i++) {
+        a[i].angle = random.nextDouble() * 2 * Math.PI;
+        b[i].angle = random.nextDouble() * 2 * Math.PI;
+      }
+      Gjk gjk = new Gjk();
+      Sat sat = new Sat();
+      long[] simplices = new long[pairs];
+      for (int round = 0; round < 3; round++) { // Warm-up for all three paths
+        time(a, b, sat, gjk, simplices, Mode.SAT, millis / 4);
+        time(a, b, sat, gjk, simplices, Mode.GJK_COLD, millis / 4);
+        time(a, b, sat, gjk, simplices, Mode.GJK_WARM, millis / 4);
+      }
+      double satNanos = time(a, b, sat, gjk, simplices, Mode.SAT, millis);
+      double coldNanos = time(a, b, sat, gjk, simplices, Mode.GJK_COLD, millis);
+      double warmNanos = time(a, b, sat, gjk, simplices, Mode.GJK_WARM, millis);
+      double warmIterations = iterations;
+
+      System.out.println(String.format(Locale.ROOT, "%d,%d,%.0f,%.0f,%.0f,%.2f,%d", sides, 2 * sides, satNanos,
+          coldNanos, warmNanos, warmIterations, mismatches));
+      if (warmNanos < satNanos && crossover < 0) {
+        crossover = 2 * sides;
+      } else if (warmNanos >= satNanos) {
+        crossover = -1; // Only count a crossover that holds for every larger shape
+      }
+    }
+    System.out.println(String.format(Locale.ROOT, "crossover_total_vertices=%s engine_gjk_min_vertices=%d",
+        crossover < 0 ? "none" : Integer.toString(crossover), PhysicsEngine.GJK_MIN_VERTICES));
+  }
+
+  private enum Mode {
+    SAT, GJK_COLD, GJK_WARM
+  }
+
+  private static double blackhole;
+  private static double iterations; // Average GJK iterations in the last timed run
+
+  /**
+   * @return Nanoseconds per pair.
+   */
+  private static double time(Entity[] a, Entity[] b, Sat sat, Gjk gjk, long[] simplices, Mode mode,
+      long millis) {
+    long deadline = System.nanoTime() + millis * 1_000_000L;
+    long queries = 0;
+    long totalIterations = 0;
+    long elapsed = 0;
+    double sum = 0;
+    int round = 0;
+    while (System.nanoTime() < deadline) {
+      if (mode == Mode.GJK_WARM) {
+        jiggle(b, round++); // Between frames, outside the timed part
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < a.length; i++) {
+        Separation separation;
+        if (mode == Mode.SAT) {
+          separation = sat.separation(a[i], b[i]);
+        } else {
+          separation = gjk.separation(a[i], b[i], mode == Mode.GJK_WARM ? simplices[i] : Gjk.NO_SIMPLEX);
+          simplices[i] = gjk.getSimplex();
+          totalIterations += gjk.getIterations();
+        }
+        sum += separation == null ? 0 : separation.distance;
+      }
+      elapsed += System.nanoTime() - start;
+      queries += a.length;
+    }
+    blackhole += sum;
+    iterations = (double) totalIterations / queries;
+    return (double) elapsed / queries;
+  }
+
+  /**
+   * Checks the pairs unrotated, where this tree's SAT is exact, so GJK can be
+   * compared with it.
+   *
+   * @return How many pairs disagree.
+   */
+  public static int validate(Entity[] a, Entity[] b) {
+    Gjk gjk = new Gjk();
+    Sat fast = new Sat();
+    int mismatches = 0;
+    for (int i = 0; i < a.length; i++) {
+      a[i].angle = 0;
+      b[i].angle = 0;
+      Separation sat = a[i].computeSeparation(b[i]);
+      Separation inPlace = fast.separation(a[i], b[i]);
+      if (inPlace.distance != sat.distance || inPlace.axisIndex != sat.axisIndex
+          || inPlace.normal.x != sat.normal.x || inPlace.normal.y != sat.normal.y) {
+        mismatches++;
+        continue;
+      }
+      Separation separation = gjk.separation(a[i], b[i], Gjk.NO_SIMPLEX);
+      if (separation == null) {
+        mismatches++;
+        continue;
+      }
+      boolean agrees = sat.distance < 0
+          ? Math.abs(separation.distance - sat.distance) < 1e-6
+              && separation.normal.dot(sat.normal) > 1 - 1e-6
+          : separation.distance >= sat.distance - 1e-6;
+      if (!agrees) {
+        mismatches++;
+      }
+    }
+    return mismatches;
+  }
+
+  // From clearly overlapping to clearly apart, in every direction
+  private static void place(Entity a, Entity b, Random random) {
+    double direction = random.nextDouble() * 2 * Math.PI;
+    double distance = RADIUS * (1.2 + random.nextDouble() * 1.6);
+    a.reset(0, 0);
+    b.reset(Math.cos(direction) * distance, Math.sin(direction) * distance);
+  }
+
+  // Back and forth, so the pairs stay where they were placed
+  private static void jiggle(Entity[] entities, int round) {
+    double step = round % 2 == 0 ? 0.25 : -0.25;
+    for (Entity entity : entities) {
+      entity.x += step;
+      entity.y -= step;
+      entity.angle += step * 0.02;
+    }
+  }
+
+  private static class Polygon extends Entity {
+    Polygon(int sides) {
+      super(new Group(), 1.0, createVertices(sides));
+    }
+
+    private static Vector2D[] createVertices(int sides) {
+      Vector2D[] vertices = new Vector2D[sides];
+      for (int i = 0; i < sides; i++) {
+        double angle = 2 * Math.PI * i / sides;
+        vertices[i] = new Vector2D(RADIUS * Math.cos(angle), RADIUS * Math.sin(angle));
+      }
+      return vertices;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.chaosgame.bench;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.Wall;
+import com.chaosgame.particle.ParticleEmitter;
+import com.chaosgame.particle.ParticleKind;
+import com.chaosgame.particle.ParticleSystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times ParticleSystem.update with the system kept full, against the 2 ms
+ * budget for 50k live particles.
+ *
+ * Usage: ParticleBenchmark [--particles N] [--ticks N] [--warmup N]
+ */
+public class ParticleBenchmark {
+
+  private static final double TICK = 1.0 / 60.0;
+  private static final double BUDGET_MS = 2.0;
+
+  public static void main(String[] args) {
+    int capacity = 50_000;
+    int ticks = 600;
+    int warmup = 300;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--particles":
+          capacity = Integer.parseInt(args[i + 1]);
+          break;
+        case "--ticks":
+          ticks = Integer.parseInt(args[i + 1]);
+          break;
+        case "--warmup":
+          warmup = Integer.parseInt(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    // The same kind of static geometry as a level: a floor, a ceiling and some pillars
+    List<Entity> geometry = new ArrayList<>();
+    geometry.add(new Wall(0, 50, 2560, 10));
+    geometry.add(new Wall(0, 600, 2560, 250));
+    for (int i = 0; i < 8; i++) {
+      geometry.add(new Wall(150 + i * 140, 300, 20, 300));
+    }
+    ParticleSystem particles = new ParticleSystem(capacity);
+    particles.setStaticGeometry(geometry);
+    ParticleEmitter emitter = new ParticleEmitter(particles);
+
+    long[] updateNanos = new long[ticks];
+    ParticleKind[] kinds = ParticleKind.values();
+    for (int tick = -warmup; tick < ticks; tick++) {
+      // Top the system back up to capacity with bursts all over the level
+      int burst = 0;
+      while (particles.getCount() < capacity) {
+        double x = 40 + (burst * 97) % 1200;
+        double y = 80 + (burst * 53) % 500;
+        emitter.burst(kinds[burst % kinds.length], x, y, 0, -1, 40);
+        burst++;
+      }
+      particles.update(TICK);
+      if (tick >= 0) {
+        updateNanos[tick] = particles.getUpdateNanos();
+      }
+    }
+
+    Arrays.sort(updateNanos);
+    double p50 = updateNanos[ticks / 2] / 1_000_000.0;
+    double p99 = updateNanos[(int) Math.round(0.99 * (ticks - 1))] / 1_000_000.0;
+    System.out.println(String.format(Locale.ROOT, "particles=%d p50_update_ms=%.3f p99_update_ms=%.3f budget_ms=%.1f",
+        capacity, p50, p99, BUDGET_MS));
+    if (p50 > BUDGET_MS) {
+      System.err.println("Particle update exceeds its budget");
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package com.chaosgame.bench;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Limits that a scenario run must stay under, read from a properties file.
+ * There are two kinds.
+ *
+ * Absolute limits have keys of the form {@code <scenario>.<metric>}, with
+ * {@code default.<metric>} used for any scenario without its own value, e.g.
+ *
+ * <pre>
+ * default.p99StepMs=16.6
+ * crate-pile.allocBytesPerTick=65536
+ * </pre>
+ *
+ * Step times depend on the machine, so absolute limits on them only suit a
+ * build that always runs on the same one.
+ *
+ * Relative limits compare a result against a baseline recorded earlier with
+ * the same seed and tick counts (see recordBaseline), and allow it to exceed
+ * the baseline by a fraction plus an optional absolute slack:
+ *
+ * <pre>
+ * tolerance.narrowPhasePairsPerTick=0.10
+ * tolerance.allocBytesPerTick=0.50
+ * slack.allocBytesPerTick=4096
+ * </pre>
+ *
+ * The baseline metrics (BASELINE_METRICS) count work rather than time it, so a
+ * baseline recorded on one machine holds on any other. Supported metrics are
+ * those of ScenarioResult.get. A metric with no limit is not checked.
+ */
+public class RegressionThresholds {
+
+  /**
+   * The metrics a baseline records.
+   */
+  public static final List<String> BASELINE_METRICS = List.of("broadPhasePairsPerTick", "narrowPhasePairsPerTick",
+      "gjkPairsPerTick", "subStepsPerTick", "allocBytesPerTick");
+
+  private static final List<String> ABSOLUTE_METRICS = List.of("p50StepMs", "p99StepMs", "maxStepMs",
+      "allocBytesPerTick", "broadPhasePairsPerTick", "narrowPhasePairsPerTick", "gjkPairsPerTick",
+      "subStepsPerTick");
+
+  private final Properties limits;
+  private final Properties baseline;
+
+  private RegressionThresholds(Properties limits, Properties baseline) {
+    this.limits = limits;
+    this.baseline = baseline;
+  }
+
+  /**
+   * Thresholds that never fail, for runs that only want the report.
+   */
+  public static RegressionThresholds none() {
+    return new RegressionThresholds(new Properties(), new Properties());
+  }
+
+  public static RegressionThresholds load(Path file) throws IOException {
+    return new RegressionThresholds(read(file), new Properties());
+  }
+
+  /**
+   * The same limits, with relative ones measured against the baseline in the
+   * given file.
+   */
+  public RegressionThresholds withBaseline(Path file) throws IOException {
+    return new RegressionThresholds(limits, read(file));
+  }
+
+  /**
+   * Whether the baseline was recorded with these run settings. Work counts
+   * follow the scenario as it evolves, so a baseline only holds for the run
+   * it came from. Without a baseline this is always true.
+   */
+  public boolean baselineMatches(long seed, int ticks, int warmupTicks) {
+    if (baseline.isEmpty()) {
+      return true;
+    }
+    return String.valueOf(seed).equals(baseline.getProperty("seed"))
+        && String.valueOf(ticks).equals(baseline.getProperty("ticks"))
+        && String.valueOf(warmupTicks).equals(baseline.getProperty("warmup"));
+  }
+
+  /**
+   * Writes the baseline metrics of the results to a properties file that
+   * withBaseline can read.
+   */
+  public static void recordBaseline(List<ScenarioResult> results, long seed, int ticks, int warmupTicks, Path file)
+      throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      writer.write("# Recorded by ScenarioRunner --record-baseline; compared against with --baseline.\n");
+      writer.write("# Keys are <scenario>.<mode>.<metric>, valid only for the seed and tick counts below.\n");
+      writer.write("seed=" + seed + "\n");
+      writer.write("ticks=" + ticks + "\n");
+      writer.write("warmup=" + warmupTicks + "\n");
+      for (ScenarioResult result : results) {
+        writer.write("\n");
+        for (String metric : BASELINE_METRICS) {
+          writer.write(String.format(Locale.ROOT, "%s.%s.%s=%.1f%n", result.scenario, result.mode, metric,
+              result.get(metric)));
+        }
+      }
+    }
+  }
+
+  private static Properties read(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    return properties;
+  }
+
+  /**
+   * Compares a result against its limits.
+   *
+   * @return A description of every limit the result exceeded; empty if it
+   *         passed.
+   */
+  public List<String> check(ScenarioResult result) {
+    List<String> failures = new ArrayList<>();
+    for (String metric : ABSOLUTE_METRICS) {
+      checkAbsolute(result, metric, failures);
+    }
+    for (String metric : BASELINE_METRICS) {
+      checkRelative(result, metric, failures);
+    }
+    return failures;
+  }
+
+  private void checkAbsolute(ScenarioResult result, String metric, List<String> failures) {
+    String limit = limits.getProperty(result.scenario + "." + metric, limits.getProperty("default." + metric));
+    if (limit == null) {
+      return;
+    }
+    double max = Double.parseDouble(limit.trim());
+    double value = result.get(metric);
+    if (value > max) {
+      failures.add(String.format(Locale.ROOT, "%s [%s]: %s = %.3f exceeds limit %.3f", result.scenario,
+          result.mode, metric, value, max));
+    }
+  }
+
+  private void checkRelative(ScenarioResult result, String metric, List<String> failures) {
+    String recorded = baseline.getProperty(result.scenario + "." + result.mode + "." + metric);
+    String tolerance = limits.getProperty("tolerance." + metric);
+    if (recorded == null || tolerance == null) {
+      return;
+    }
+    double base = Double.parseDouble(recorded.trim());
+    double fraction = Double.parseDouble(tolerance.trim());
+    double slack = Double.parseDouble(limits.getProperty("slack." + metric, "0").trim());
+    double max = base * (1 + fraction) + slack;
+    double value = result.get(metric);
+    if (value > max) {
+      failures.add(String.format(Locale.ROOT, "%s [%s]: %s = %.1f exceeds baseline %.1f by more than %.0f%%%s",
+          result.scenario, result.mode, metric, value, base, fraction * 100,
+          slack > 0 ? String.format(Locale.ROOT, " + %.0f", slack) : ""));
+    }
+  }
+}
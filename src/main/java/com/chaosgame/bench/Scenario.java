@@ -0,0 +1,68 @@
+package com.chaosgame.bench;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A reproducible load scenario for the headless stress harness.
+ *
+ * Like a playable level, a scenario builds its world in setupLevel() using the
+ * normal entity constructors. Since there is no keyboard or mouse, it also
+ * drives its players itself, once per tick, in beforeTick(). All randomness
+ * comes from the seeded Random, so the same seed always builds and plays out
+ * the same scenario.
+ */
+public abstract class Scenario {
+
+  protected final List<Entity> entities = new ArrayList<>();
+  protected final List<Player> players = new ArrayList<>();
+  protected final Random random;
+  private final String name;
+
+  protected Scenario(String name, long seed) {
+    this.name = name;
+    this.random = new Random(seed);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public List<Entity> getEntities() {
+    return entities;
+  }
+
+  /**
+   * Builds the world. Called once by the runner before the first tick.
+   */
+  public void build() {
+    setupLevel();
+  }
+
+  /**
+   * Subclasses add their walls, crates and players here, the same way
+   * GameView.setupLevel does.
+   */
+  protected abstract void setupLevel();
+
+  /**
+   * Feeds input to the players for the coming tick and runs their per-frame
+   * updates, mirroring what AbstractPlayableLevelView does before it steps
+   * the physics.
+   */
+  public abstract void beforeTick(int tick, double delta);
+
+  protected void addEntity(Entity entity) {
+    entities.add(entity);
+  }
+
+  protected void addPlayer(Player player) {
+    players.add(player);
+    addEntity(player);
+    addEntity(player.getHand());
+  }
+}
@@ -0,0 +1,126 @@
+package com.chaosgame.bench;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The measurements from one headless scenario run.
+ */
+public class ScenarioResult {
+  public final String scenario;
+  public final String mode;
+  public final long seed;
+  public final int ticks;
+  public final int entities;
+  public final double p50StepMs;
+  public final double p99StepMs;
+  public final double maxStepMs;
+  public final double allocBytesPerTick;
+  public final double allocMbPerSecond;
+  public final long resolvedContacts;
+  public final long speculativeContacts;
+  public final long subSteps;
+  // Work done per tick. Unlike step times these do not depend on the machine,
+  // so they can be compared against a recorded baseline anywhere
+  public final double broadPhasePairsPerTick;
+  public final double narrowPhasePairsPerTick;
+  public final double gjkPairsPerTick;
+  public final double subStepsPerTick;
+
+  public static final String CSV_HEADER = "scenario,mode,seed,ticks,entities,p50_step_ms,p99_step_ms,max_step_ms,"
+      + "alloc_bytes_per_tick,alloc_mb_per_s,resolved_contacts,speculative_contacts,sub_steps,"
+      + "broad_phase_pairs_per_tick,narrow_phase_pairs_per_tick,gjk_pairs_per_tick";
+
+  /**
+   * @param stepNanos       Wall-clock time of every measured tick.
+   * @param allocatedBytes  Bytes allocated by the simulation thread over all
+   *                        measured ticks.
+   * @param broadPhasePairs Pair counts from PhysicsStats, summed over all
+   *                        measured ticks, as are the contacts and sub-steps.
+   */
+  public ScenarioResult(String scenario, String mode, long seed, int entities, long[] stepNanos,
+      long allocatedBytes, long resolvedContacts, long speculativeContacts, long subSteps, long broadPhasePairs,
+      long narrowPhasePairs, long gjkPairs) {
+    this.scenario = scenario;
+    this.mode = mode;
+    this.seed = seed;
+    this.ticks = stepNanos.length;
+    this.entities = entities;
+    this.resolvedContacts = resolvedContacts;
+    this.speculativeContacts = speculativeContacts;
+    this.subSteps = subSteps;
+
+    long[] sorted = stepNanos.clone();
+    Arrays.sort(sorted);
+    this.p50StepMs = percentile(sorted, 0.50) / 1_000_000.0;
+    this.p99StepMs = percentile(sorted, 0.99) / 1_000_000.0;
+    this.maxStepMs = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+
+    long totalNanos = 0;
+    for (long nanos : stepNanos) {
+      totalNanos += nanos;
+    }
+    this.allocBytesPerTick = ticks == 0 ? 0 : (double) allocatedBytes / ticks;
+    this.allocMbPerSecond = totalNanos == 0 ? 0 : (allocatedBytes / 1_048_576.0) / (totalNanos / 1e9);
+    this.broadPhasePairsPerTick = perTick(broadPhasePairs);
+    this.narrowPhasePairsPerTick = perTick(narrowPhasePairs);
+    this.gjkPairsPerTick = perTick(gjkPairs);
+    this.subStepsPerTick = perTick(subSteps);
+  }
+
+  private double perTick(long total) {
+    return ticks == 0 ? 0 : (double) total / ticks;
+  }
+
+  /**
+   * A metric by the name used in thresholds and baselines.
+   */
+  public double get(String metric) {
+    switch (metric) {
+      case "p50StepMs":
+        return p50StepMs;
+      case "p99StepMs":
+        return p99StepMs;
+      case "maxStepMs":
+        return maxStepMs;
+      case "allocBytesPerTick":
+        return allocBytesPerTick;
+      case "broadPhasePairsPerTick":
+        return broadPhasePairsPerTick;
+      case "narrowPhasePairsPerTick":
+        return narrowPhasePairsPerTick;
+      case "gjkPairsPerTick":
+        return gjkPairsPerTick;
+      case "subStepsPerTick":
+        return subStepsPerTick;
+      default:
+        throw new IllegalArgumentException("Unknown metric: " + metric);
+    }
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[(int) Math.round(p * (sorted.length - 1))];
+  }
+
+  public String toCsvRow() {
+    return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.3f,%.3f,%.3f,%.0f,%.2f,%d,%d,%d,%.1f,%.1f,%.1f", scenario,
+        mode, seed, ticks, entities, p50StepMs, p99StepMs, maxStepMs, allocBytesPerTick, allocMbPerSecond,
+        resolvedContacts, speculativeContacts, subSteps, broadPhasePairsPerTick, narrowPhasePairsPerTick,
+        gjkPairsPerTick);
+  }
+
+  public String toJson() {
+    return String.format(Locale.ROOT,
+        "{\"scenario\":\"%s\",\"mode\":\"%s\",\"seed\":%d,\"ticks\":%d,\"entities\":%d,"
+            + "\"p50StepMs\":%.3f,\"p99StepMs\":%.3f,\"maxStepMs\":%.3f,"
+            + "\"allocBytesPerTick\":%.0f,\"allocMbPerSecond\":%.2f,"
+            + "\"resolvedContacts\":%d,\"speculativeContacts\":%d,\"subSteps\":%d,"
+            + "\"broadPhasePairsPerTick\":%.1f,\"narrowPhasePairsPerTick\":%.1f,\"gjkPairsPerTick\":%.1f}",
+        scenario, mode, seed, ticks, entities, p50StepMs, p99StepMs, maxStepMs, allocBytesPerTick,
+        allocMbPerSecond, resolvedContacts, speculativeContacts, subSteps, broadPhasePairsPerTick,
+        narrowPhasePairsPerTick, gjkPairsPerTick);
+  }
+}
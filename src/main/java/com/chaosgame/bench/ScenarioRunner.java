@@ -0,0 +1,223 @@
+package com.chaosgame.bench;
+
+import com.chaosgame.inspect.StateExporter;
+import com.chaosgame.physics.PhysicsEngine;
+import com.chaosgame.physics.PhysicsStats;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs load scenarios headless for a fixed number of ticks and reports step
+ * time percentiles, allocation rate and contact counts as CSV or JSON.
+ *
+ * Usage:
+ *
+ * <pre>
+ * ScenarioRunner [--scenario all|NAME[,NAME...]] [--seed N] [--ticks N] [--warmup N]
+ *                [--mode SUB_STEPPED|EVENT_DRIVEN] [--format csv|json] [--out FILE]
+ *                [--thresholds FILE] [--baseline FILE] [--record-baseline FILE] [--export FILE]
+ * </pre>
+ *
+ * --baseline compares the work counts against a baseline that
+ * --record-baseline wrote from an earlier run with the same seed and ticks;
+ * the thresholds file says how far they may exceed it.
+ *
+ * With --export, every measured tick is also published to a live state file
+ * (see StateExporter), outside the timed part of the tick, so that
+ * StateInspector can watch the scenarios run.
+ *
+ * Exits with status 1 if any result exceeds the regression thresholds, so it
+ * can gate a build.
+ */
+public class ScenarioRunner {
+
+  private static final double TICK = 1.0 / 60.0; // Fixed step, as at 60 FPS
+  private static final int EXPORT_CAPACITY = 8192; // Bodies; more than the largest scenario
+
+  private final PhysicsEngine.ContinuousMode mode;
+  private final int ticks;
+  private final int warmupTicks;
+  private StateExporter exporter = null;
+
+  private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+      .getThreadMXBean();
+
+  public ScenarioRunner(PhysicsEngine.ContinuousMode mode, int ticks, int warmupTicks) {
+    this.mode = mode;
+    this.ticks = ticks;
+    this.warmupTicks = warmupTicks;
+  }
+
+  public void setExporter(StateExporter exporter) {
+    this.exporter = exporter;
+  }
+
+  /**
+   * Builds and runs one scenario. Warm-up ticks are simulated but not
+   * measured, so the JIT has compiled the hot paths before timing starts.
+   */
+  public ScenarioResult run(String name, long seed) {
+    Scenario scenario = Scenarios.create(name, seed);
+    scenario.build();
+    PhysicsEngine physicsEngine = new PhysicsEngine();
+    physicsEngine.setContinuousMode(mode);
+    PhysicsStats stats = physicsEngine.getStats();
+
+    for (int tick = 0; tick < warmupTicks; tick++) {
+      scenario.beforeTick(tick, TICK);
+      physicsEngine.update(scenario.getEntities(), TICK);
+    }
+
+    long[] stepNanos = new long[ticks];
+    long resolvedContacts = 0;
+    long speculativeContacts = 0;
+    long subSteps = 0;
+    long broadPhasePairs = 0;
+    long narrowPhasePairs = 0;
+    long gjkPairs = 0;
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+    for (int tick = 0; tick < ticks; tick++) {
+      long start = System.nanoTime();
+      scenario.beforeTick(warmupTicks + tick, TICK);
+      physicsEngine.update(scenario.getEntities(), TICK);
+      stepNanos[tick] = System.nanoTime() - start;
+      if (exporter != null) {
+        exporter.publish(warmupTicks + tick, scenario.getEntities(), stats);
+      }
+
+      resolvedContacts += stats.resolvedContacts;
+      speculativeContacts += stats.speculativeContacts;
+      subSteps += stats.subSteps;
+      broadPhasePairs += stats.broadPhasePairs;
+      narrowPhasePairs += stats.narrowPhasePairs;
+      gjkPairs += stats.gjkPairs;
+    }
+
+    long allocatedBytes = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    return new ScenarioResult(name, mode.name(), seed, scenario.getEntities().size(), stepNanos, allocatedBytes,
+        resolvedContacts, speculativeContacts, subSteps, broadPhasePairs, narrowPhasePairs, gjkPairs);
+  }
+
+  public static void main(String[] args) throws IOException {
+    List<String> names = Scenarios.NAMES;
+    long seed = 42;
+    int ticks = 600;
+    int warmup = 120;
+    PhysicsEngine.ContinuousMode mode = PhysicsEngine.ContinuousMode.SUB_STEPPED;
+    String format = "csv";
+    Path out = null;
+    RegressionThresholds thresholds = RegressionThresholds.none();
+    Path export = null;
+    Path baseline = null;
+    Path recordBaseline = null;
+
+    for (int i = 0; i < args.length; i++) {
+      String value = i + 1 < args.length ? args[i + 1] : null;
+      switch (args[i]) {
+        case "--scenario":
+          names = "all".equals(value) ? Scenarios.NAMES : List.of(value.split(","));
+          break;
+        case "--seed":
+          seed = Long.parseLong(value);
+          break;
+        case "--ticks":
+          ticks = Integer.parseInt(value);
+          break;
+        case "--warmup":
+          warmup = Integer.parseInt(value);
+          break;
+        case "--mode":
+          mode = PhysicsEngine.ContinuousMode.valueOf(value);
+          break;
+        case "--format":
+          format = value;
+          break;
+        case "--out":
+          out = Path.of(value);
+          break;
+        case "--thresholds":
+          thresholds = RegressionThresholds.load(Path.of(value));
+          break;
+        case "--baseline":
+          baseline = Path.of(value);
+          break;
+        case "--record-baseline":
+          recordBaseline = Path.of(value);
+          break;
+        case "--export":
+          export = Path.of(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+      i++;
+    }
+
+    if (baseline != null) {
+      RegressionThresholds withBaseline = thresholds.withBaseline(baseline);
+      if (withBaseline.baselineMatches(seed, ticks, warmup)) {
+        thresholds = withBaseline;
+      } else {
+        System.err.println("Baseline " + baseline + " was recorded with another seed or tick count; not comparing");
+      }
+    }
+
+    ScenarioRunner runner = new ScenarioRunner(mode, ticks, warmup);
+    StateExporter exporter = export == null ? null : new StateExporter(export, EXPORT_CAPACITY);
+    runner.setExporter(exporter);
+    List<ScenarioResult> results = new ArrayList<>();
+    List<String> failures = new ArrayList<>();
+    try {
+      for (String name : names) {
+        System.err.println("Running " + name + " (" + mode + ", seed " + seed + ")...");
+        ScenarioResult result = runner.run(name, seed);
+        results.add(result);
+        failures.addAll(thresholds.check(result));
+      }
+    } finally {
+      if (exporter != null) {
+        exporter.close();
+      }
+    }
+
+    PrintStream output = out == null ? System.out : new PrintStream(Files.newOutputStream(out));
+    try {
+      if ("json".equals(format)) {
+        output.println("[");
+        for (int i = 0; i < results.size(); i++) {
+          output.println("  " + results.get(i).toJson() + (i + 1 < results.size() ? "," : ""));
+        }
+        output.println("]");
+      } else {
+        output.println(ScenarioResult.CSV_HEADER);
+        for (ScenarioResult result : results) {
+          output.println(result.toCsvRow());
+        }
+      }
+    } finally {
+      if (out != null) {
+        output.close();
+      }
+    }
+
+    if (recordBaseline != null) {
+      RegressionThresholds.recordBaseline(results, seed, ticks, warmup, recordBaseline);
+      System.err.println("Recorded baseline in " + recordBaseline);
+    }
+
+    if (!failures.isEmpty()) {
+      for (String failure : failures) {
+        System.err.println("REGRESSION: " + failure);
+      }
+      System.exit(1);
+    }
+  }
+}
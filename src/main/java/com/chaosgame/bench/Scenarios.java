@@ -0,0 +1,349 @@
+package com.chaosgame.bench;
+
+import com.chaosgame.ai.FlowFieldCache;
+import com.chaosgame.ai.NavigationGrid;
+import com.chaosgame.entity.Crate;
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.Guard;
+import com.chaosgame.entity.Hand;
+import com.chaosgame.entity.Player;
+import com.chaosgame.entity.Wall;
+import javafx.scene.input.KeyCode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The procedural scenarios the stress harness knows how to build.
+ */
+public final class Scenarios {
+
+  public static final List<String> NAMES = List.of("crate-pile", "wall-maze", "dash-through-crates",
+      "grab-and-throw", "guard-swarm");
+
+  private Scenarios() {
+  }
+
+  /**
+   * Creates a scenario by name.
+   *
+   * @param name One of NAMES.
+   * @param seed The seed for all of the scenario's randomness.
+   * @throws IllegalArgumentException if the name is unknown.
+   */
+  public static Scenario create(String name, long seed) {
+    switch (name) {
+      case "crate-pile":
+        return new CratePile(seed);
+      case "wall-maze":
+        return new WallMaze(seed);
+      case "dash-through-crates":
+        return new DashThroughCrates(seed);
+      case "grab-and-throw":
+        return new GrabAndThrow(seed);
+      case "guard-swarm":
+        return new GuardSwarm(seed);
+      default:
+        throw new IllegalArgumentException("Unknown scenario '" + name + "', expected one of " + NAMES);
+    }
+  }
+
+  // Four walls around a rectangle whose top-left corner is (x, y)
+  private static void addPen(Scenario scenario, double x, double y, double width, double height) {
+    double thickness = 20;
+    scenario.addEntity(new Wall(x - thickness, y - thickness, width + 2 * thickness, thickness));
+    scenario.addEntity(new Wall(x - thickness, y + height, width + 2 * thickness, thickness));
+    scenario.addEntity(new Wall(x - thickness, y, thickness, height));
+    scenario.addEntity(new Wall(x + width, y, thickness, height));
+  }
+
+  /**
+   * A densely packed pen of crates, all jostling with random velocities.
+   */
+  static class CratePile extends Scenario {
+    private static final int CRATES = 1500;
+
+    CratePile(long seed) {
+      super("crate-pile", seed);
+    }
+
+    @Override
+    protected void setupLevel() {
+      int columns = 50;
+      double spacing = 22;
+      for (int i = 0; i < CRATES; i++) {
+        int x = (int) (100 + (i % columns) * spacing);
+        int y = (int) (100 + (i / columns) * spacing);
+        Crate crate = new Crate(x, y, 15 + random.nextInt(10));
+        crate.setVx(random.nextGaussian() * 150);
+        crate.setVy(random.nextGaussian() * 150);
+        addEntity(crate);
+      }
+      addPen(this, 80, 80, columns * spacing + 40, (CRATES / columns) * spacing + 40);
+    }
+
+    @Override
+    public void beforeTick(int tick, double delta) {
+    }
+  }
+
+  /**
+   * A randomly generated maze of walls with crates bouncing along its
+   * corridors, which stresses crate-versus-static-geometry contacts.
+   */
+  static class WallMaze extends Scenario {
+    private static final int CELLS = 24;
+    private static final double CELL_SIZE = 80;
+    private static final double WALL_THICKNESS = 8;
+    private static final int CRATES = 400;
+
+    WallMaze(long seed) {
+      super("wall-maze", seed);
+    }
+
+    @Override
+    protected void setupLevel() {
+      // Carve a perfect maze with a randomised depth-first search
+      boolean[][] visited = new boolean[CELLS][CELLS];
+      boolean[][] openEast = new boolean[CELLS][CELLS];
+      boolean[][] openSouth = new boolean[CELLS][CELLS];
+      Deque<int[]> stack = new ArrayDeque<>();
+      stack.push(new int[] { 0, 0 });
+      visited[0][0] = true;
+      int[][] directions = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+      while (!stack.isEmpty()) {
+        int[] cell = stack.peek();
+        List<int[]> options = new ArrayList<>();
+        for (int[] d : directions) {
+          int nx = cell[0] + d[0];
+          int ny = cell[1] + d[1];
+          if (nx >= 0 && ny >= 0 && nx < CELLS && ny < CELLS && !visited[nx][ny]) {
+            options.add(d);
+          }
+        }
+        if (options.isEmpty()) {
+          stack.pop();
+          continue;
+        }
+        int[] d = options.get(random.nextInt(options.size()));
+        int nx = cell[0] + d[0];
+        int ny = cell[1] + d[1];
+        if (d[0] == 1) {
+          openEast[cell[0]][cell[1]] = true;
+        } else if (d[0] == -1) {
+          openEast[nx][ny] = true;
+        } else if (d[1] == 1) {
+          openSouth[cell[0]][cell[1]] = true;
+        } else {
+          openSouth[nx][ny] = true;
+        }
+        visited[nx][ny] = true;
+        stack.push(new int[] { nx, ny });
+      }
+
+      // Turn every closed cell side into a wall
+      for (int cx = 0; cx < CELLS; cx++) {
+        for (int cy = 0; cy < CELLS; cy++) {
+          double x = cx * CELL_SIZE;
+          double y = cy * CELL_SIZE;
+          if (cx < CELLS - 1 && !openEast[cx][cy]) {
+            addEntity(new Wall(x + CELL_SIZE, y, WALL_THICKNESS, CELL_SIZE));
+          }
+          if (cy < CELLS - 1 && !openSouth[cx][cy]) {
+            addEntity(new Wall(x, y + CELL_SIZE, CELL_SIZE, WALL_THICKNESS));
+          }
+        }
+      }
+      addPen(this, 0, 0, CELLS * CELL_SIZE + WALL_THICKNESS, CELLS * CELL_SIZE + WALL_THICKNESS);
+
+      for (int i = 0; i < CRATES; i++) {
+        int cx = random.nextInt(CELLS);
+        int cy = random.nextInt(CELLS);
+        int x = (int) (cx * CELL_SIZE + CELL_SIZE / 2);
+        int y = (int) (cy * CELL_SIZE + CELL_SIZE / 2);
+        Crate crate = new Crate(x, y, 12);
+        crate.setVx(random.nextGaussian() * 400);
+        crate.setVy(random.nextGaussian() * 400);
+        addEntity(crate);
+      }
+    }
+
+    @Override
+    public void beforeTick(int tick, double delta) {
+    }
+  }
+
+  /**
+   * A single player repeatedly dashing through a field of 5000 crates, which
+   * is the worst case for continuous collision detection.
+   */
+  static class DashThroughCrates extends Scenario {
+    private static final int CRATES = 5000;
+    private final Set<KeyCode> keys = EnumSet.of(KeyCode.D, KeyCode.SPACE);
+    private double mouseX, mouseY;
+
+    DashThroughCrates(long seed) {
+      super("dash-through-crates", seed);
+    }
+
+    @Override
+    protected void setupLevel() {
+      Player player = new Player(40, 1100, new Hand());
+      addPlayer(player);
+
+      int columns = 100;
+      double spacing = 24;
+      for (int i = 0; i < CRATES; i++) {
+        int x = (int) (100 + (i % columns) * spacing + random.nextInt(4));
+        int y = (int) (800 + (i / columns) * spacing + random.nextInt(4));
+        addEntity(new Crate(x, y, 16));
+      }
+      addPen(this, 0, 750, columns * spacing + 200, (CRATES / columns) * spacing + 100);
+    }
+
+    @Override
+    public void beforeTick(int tick, double delta) {
+      Player player = players.get(0);
+      mouseX = player.getX() + 100;
+      mouseY = player.getY();
+      // Zig-zag so the player keeps ploughing into fresh crates
+      keys.remove(KeyCode.W);
+      keys.remove(KeyCode.S);
+      keys.add((tick / 120) % 2 == 0 ? KeyCode.W : KeyCode.S);
+      player.handleInput(keys);
+      player.updateHand(mouseX, mouseY);
+      player.updatePhysics(delta);
+    }
+  }
+
+  /**
+   * Many players at once grabbing nearby crates, swinging them around on the
+   * grab spring and flinging them, over and over.
+   */
+  static class GrabAndThrow extends Scenario {
+    private static final int PLAYERS = 40;
+    private static final int CRATES_PER_PLAYER = 6;
+    private static final int CYCLE_TICKS = 90;
+    private static final int RELEASE_TICK = 60;
+    private final Set<KeyCode> noKeys = Collections.emptySet();
+
+    GrabAndThrow(long seed) {
+      super("grab-and-throw", seed);
+    }
+
+    @Override
+    protected void setupLevel() {
+      int columns = 8;
+      double spacing = 160;
+      for (int i = 0; i < PLAYERS; i++) {
+        int px = (int) (120 + (i % columns) * spacing);
+        int py = (int) (120 + (i / columns) * spacing);
+        addPlayer(new Player(px, py, new Hand()));
+        for (int c = 0; c < CRATES_PER_PLAYER; c++) {
+          double angle = 2 * Math.PI * c / CRATES_PER_PLAYER;
+          addEntity(new Crate((int) (px + 55 * Math.cos(angle)), (int) (py + 55 * Math.sin(angle)),
+              14 + random.nextInt(8)));
+        }
+      }
+      addPen(this, 20, 20, columns * spacing + 40, (PLAYERS / columns) * spacing + 40);
+    }
+
+    @Override
+    public void beforeTick(int tick, double delta) {
+      for (int i = 0; i < players.size(); i++) {
+        Player player = players.get(i);
+        // Each player swings its hand round in a circle, out of phase with the others
+        double angle = tick * 0.15 + i;
+        player.handleInput(noKeys);
+        player.updateHand(player.getX() + Math.cos(angle) * 100, player.getY() + Math.sin(angle) * 100);
+
+        int phase = (tick + i * 7) % CYCLE_TICKS;
+        if (phase == 0) {
+          player.startGrabbing();
+          Entity nearest = nearestCrate(player.getHand());
+          if (nearest != null) {
+            player.grabObject(nearest);
+          }
+        } else if (phase == RELEASE_TICK) {
+          player.releaseObject();
+        }
+        player.updatePhysics(delta);
+      }
+    }
+
+    private Entity nearestCrate(Hand hand) {
+      Entity nearest = null;
+      double bestDistance = Double.POSITIVE_INFINITY;
+      for (Entity entity : entities) {
+        if (!(entity instanceof Crate)) {
+          continue;
+        }
+        double dx = entity.getX() - hand.getX();
+        double dy = entity.getY() - hand.getY();
+        double distance = dx * dx + dy * dy;
+        if (distance < bestDistance) {
+          bestDistance = distance;
+          nearest = entity;
+        }
+      }
+      return nearest;
+    }
+  }
+
+  /**
+   * Hundreds of guards chasing one player round a field of pillars, all
+   * steering by the same flow field.
+   */
+  static class GuardSwarm extends Scenario {
+    private static final int GUARDS = 300;
+    private static final double SIZE = 1600;
+    private final List<Guard> guards = new ArrayList<>();
+    private final Set<KeyCode> keys = EnumSet.noneOf(KeyCode.class);
+    private FlowFieldCache flowFields;
+
+    GuardSwarm(long seed) {
+      super("guard-swarm", seed);
+    }
+
+    @Override
+    protected void setupLevel() {
+      addPen(this, 0, 0, SIZE, SIZE);
+      for (int i = 0; i < 12; i++) {
+        addEntity(new Wall(150 + random.nextInt((int) SIZE - 400), 150 + random.nextInt((int) SIZE - 400),
+            20 + random.nextInt(200), 20 + random.nextInt(200)));
+      }
+      addPlayer(new Player((int) (SIZE / 2), (int) (SIZE / 2), new Hand()));
+      for (int i = 0; i < GUARDS; i++) {
+        Guard guard = new Guard(40 + random.nextInt(200), 40 + random.nextInt((int) SIZE - 80));
+        guards.add(guard);
+        addEntity(guard);
+      }
+      NavigationGrid grid = new NavigationGrid(-20, -20, SIZE + 20, SIZE + 20, 16);
+      grid.rasterize(entities, Guard.RADIUS);
+      flowFields = new FlowFieldCache(grid, 16);
+    }
+
+    @Override
+    public void beforeTick(int tick, double delta) {
+      Player player = players.get(0);
+      // The player circles the middle of the arena
+      keys.clear();
+      int leg = (tick / 60) % 4;
+      keys.add(leg == 0 ? KeyCode.D : leg == 1 ? KeyCode.S : leg == 2 ? KeyCode.A : KeyCode.W);
+      player.handleInput(keys);
+      player.updateHand(player.getX() + 50, player.getY());
+      player.updatePhysics(delta);
+
+      flowFields.setGoal(player.getX(), player.getY());
+      flowFields.update(4096);
+      for (int i = 0; i < guards.size(); i++) {
+        guards.get(i).chase(flowFields, player.getX(), player.getY(), delta);
+      }
+    }
+  }
+}
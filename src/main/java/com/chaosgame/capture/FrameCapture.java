@@ -0,0 +1,329 @@
+package com.chaosgame.capture;
+
+import javafx.scene.Scene;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records gameplay frames to disk, for bug reports and trailers, without
+ * letting the recording slow the game down.
+ *
+ * The only work left on the JavaFX Application Thread is the snapshot itself
+ * and copying its pixels into a buffer from a fixed pool. Encoding and
+ * writing happen on background threads. A frame is only captured if a buffer
+ * is free: when the encoders fall behind, every buffer is still queued or in
+ * use, and frames are dropped (and counted) instead of making the game wait
+ * or letting memory grow. Frame numbers in the file names keep counting
+ * through drops, so gaps show where they were.
+ *
+ * Two formats are written:
+ * <ul>
+ * <li>PNG: one numbered file per frame, encoded on several threads.</li>
+ * <li>RAW: every frame appended to a single file of 32-bit BGRA pixels, by
+ * one thread so frames stay in order. It costs far less CPU than PNG but
+ * much more disk bandwidth. Convert it with e.g.
+ * {@code ffmpeg -f rawvideo -pix_fmt bgra -s 1280x720 -r 60 -i frames_1280x720.bgra out.mp4}.</li>
+ * </ul>
+ *
+ * start(), capture() and stop() belong to the JavaFX Application Thread.
+ */
+public class FrameCapture {
+
+  private static final int OPAQUE_BLACK = 0xFF000000;
+
+  public enum Format {
+    PNG, RAW
+  }
+
+  private final Format format;
+  private final int width;
+  private final int height;
+  private final int bufferCount;
+  private final int encoderThreads;
+
+  // Snapshot target, reused for every frame; only touched on the FX thread
+  private final WritableImage image;
+  // Pixel buffers not currently queued or being encoded. Its capacity bounds
+  // both the work queue and the memory a recording can use.
+  private final ArrayBlockingQueue<int[]> freeBuffers;
+
+  /**
+   * What one start()..stop() writes to. Frames still being written after a
+   * stop hold on to theirs, so a quick restart cannot mix them up.
+   */
+  private static final class Recording {
+    final Path directory;
+    final ExecutorService encoders;
+    // PNG only: one per encoder thread, ended once the last frame is written
+    final ArrayBlockingQueue<PngEncoder> pngEncoders;
+    final FileChannel rawChannel; // RAW only, used by the single encoder thread
+    final ByteBuffer rawBytes;
+    volatile IOException failure; // The first write error; ends the recording
+
+    Recording(Path directory, ExecutorService encoders, ArrayBlockingQueue<PngEncoder> pngEncoders,
+        FileChannel rawChannel, ByteBuffer rawBytes) {
+      this.directory = directory;
+      this.encoders = encoders;
+      this.pngEncoders = pngEncoders;
+      this.rawChannel = rawChannel;
+      this.rawBytes = rawBytes;
+    }
+  }
+
+  private Recording recording; // Null while not recording
+  private int frame = 0; // Frames offered since start, dropped ones included
+
+  // --- Counters, for the current recording ---
+  private int capturedFrames;
+  private int droppedFrames;
+  private long lastCaptureNanos; // FX thread time the last captured frame cost
+  private double smoothedCaptureNanos;
+  private final AtomicInteger writtenFrames = new AtomicInteger();
+  private final AtomicLong encodeNanos = new AtomicLong(); // Summed over written frames
+
+  /**
+   * @param bufferCount    How many frames may be waiting for or being encoded
+   *                       at once. Each costs width * height * 4 bytes.
+   * @param encoderThreads Threads encoding PNG frames in parallel; RAW always
+   *                       uses one.
+   */
+  public FrameCapture(Format format, int width, int height, int bufferCount, int encoderThreads) {
+    this.format = format;
+    this.width = width;
+    this.height = height;
+    this.bufferCount = bufferCount;
+    this.encoderThreads = format == Format.RAW ? 1 : Math.max(1, Math.min(encoderThreads, bufferCount));
+    this.image = new WritableImage(width, height);
+    this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+    for (int i = 0; i < bufferCount; i++) {
+      freeBuffers.offer(new int[width * height]);
+    }
+  }
+
+  /**
+   * Starts recording into the given directory, which is created if needed.
+   */
+  public void start(Path directory) throws IOException {
+    if (recording != null) {
+      return;
+    }
+    Files.createDirectories(directory);
+    FileChannel rawChannel = null;
+    ByteBuffer rawBytes = null;
+    if (format == Format.RAW) {
+      rawChannel = FileChannel.open(directory.resolve("frames_" + width + "x" + height + ".bgra"),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      // Little-endian ints of 0xAARRGGBB are laid out as B, G, R, A bytes
+      rawBytes = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ArrayBlockingQueue<PngEncoder> pngEncoders = null;
+    if (format == Format.PNG) {
+      pngEncoders = new ArrayBlockingQueue<>(encoderThreads);
+      for (int i = 0; i < encoderThreads; i++) {
+        pngEncoders.offer(new PngEncoder());
+      }
+    }
+    ArrayBlockingQueue<PngEncoder> endOnTermination = pngEncoders;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    // Never more tasks than buffers (plus closing the file), so the bounded
+    // queue cannot overflow
+    ExecutorService encoders = new ThreadPoolExecutor(encoderThreads, encoderThreads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(bufferCount + 1), runnable -> {
+          Thread thread = new Thread(runnable, "frame-encoder-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          thread.setPriority(Thread.MIN_PRIORITY); // The game comes first
+          return thread;
+        }) {
+      // After stop(), once every queued frame has been written
+      @Override
+      protected void terminated() {
+        if (endOnTermination != null) {
+          endOnTermination.forEach(PngEncoder::close);
+        }
+      }
+    };
+
+    frame = 0;
+    capturedFrames = 0;
+    droppedFrames = 0;
+    lastCaptureNanos = 0;
+    smoothedCaptureNanos = 0;
+    writtenFrames.set(0);
+    encodeNanos.set(0);
+    recording = new Recording(directory, encoders, pngEncoders, rawChannel, rawBytes);
+  }
+
+  /**
+   * Stops recording. Frames already captured are still written, in the
+   * background; this does not wait for them. The counters keep the totals of
+   * the recording until the next start().
+   */
+  public void stop() {
+    if (recording == null) {
+      return;
+    }
+    Recording stopped = recording;
+    recording = null;
+    if (stopped.rawChannel != null) {
+      stopped.encoders.execute(() -> close(stopped)); // Runs after the queued frames
+    }
+    stopped.encoders.shutdown();
+  }
+
+  /**
+   * Captures the scene as it is now, if recording and a buffer is free. Call
+   * once per frame, after the frame's updates.
+   */
+  public void capture(Scene scene) {
+    if (recording == null) {
+      return;
+    }
+    if (recording.failure != null) {
+      System.err.println("[capture] Stopped, could not write frames: " + recording.failure);
+      stop();
+      return;
+    }
+    frame++;
+
+    // No free buffer means the encoders are behind: drop before paying for the snapshot
+    int[] pixels = freeBuffers.poll();
+    if (pixels == null) {
+      droppedFrames++;
+      return;
+    }
+
+    long start = System.nanoTime();
+    WritableImage snapshot = scene.snapshot(image);
+    int snapshotWidth = Math.min(width, (int) snapshot.getWidth());
+    int snapshotHeight = Math.min(height, (int) snapshot.getHeight());
+    if (snapshotWidth < width || snapshotHeight < height) {
+      // The buffer still holds an older frame where the scene does not reach
+      Arrays.fill(pixels, OPAQUE_BLACK);
+    }
+    snapshot.getPixelReader().getPixels(0, 0, snapshotWidth, snapshotHeight, PixelFormat.getIntArgbInstance(),
+        pixels, 0, width);
+    int index = frame;
+    Recording target = recording;
+    target.encoders.execute(() -> write(target, pixels, index));
+    lastCaptureNanos = System.nanoTime() - start;
+
+    smoothedCaptureNanos = capturedFrames == 0 ? lastCaptureNanos
+        : smoothedCaptureNanos + (lastCaptureNanos - smoothedCaptureNanos) * 0.1;
+    capturedFrames++;
+  }
+
+  // On an encoder thread
+  private void write(Recording target, int[] pixels, int index) {
+    long start = System.nanoTime();
+    try {
+      if (target.failure != null) {
+        return;
+      }
+      if (format == Format.PNG) {
+        Path file = target.directory.resolve(String.format(Locale.ROOT, "frame_%06d.png", index));
+        // There are as many encoders as threads, so one is always free
+        PngEncoder encoder = target.pngEncoders.poll();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+          encoder.encode(pixels, width, height, out);
+        } finally {
+          target.pngEncoders.offer(encoder);
+        }
+      } else {
+        ByteBuffer bytes = target.rawBytes;
+        bytes.clear();
+        bytes.asIntBuffer().put(pixels);
+        while (bytes.hasRemaining()) {
+          target.rawChannel.write(bytes);
+        }
+      }
+      encodeNanos.addAndGet(System.nanoTime() - start);
+      writtenFrames.incrementAndGet();
+    } catch (IOException e) {
+      target.failure = e;
+    } finally {
+      freeBuffers.offer(pixels);
+    }
+  }
+
+  // The recording has been stopped, so nothing would see a failure left on it
+  private void close(Recording target) {
+    try {
+      target.rawChannel.close();
+    } catch (IOException e) {
+      System.err.println("[capture] Could not finish " + target.directory + ": " + e);
+    }
+  }
+
+  public boolean isRecording() {
+    return recording != null;
+  }
+
+  public Format getFormat() {
+    return format;
+  }
+
+  public int getCapturedFrames() {
+    return capturedFrames;
+  }
+
+  /**
+   * Frames skipped because every buffer was still waiting to be encoded.
+   */
+  public int getDroppedFrames() {
+    return droppedFrames;
+  }
+
+  /**
+   * Frames the encoders have finished writing.
+   */
+  public int getWrittenFrames() {
+    return writtenFrames.get();
+  }
+
+  /**
+   * Frames captured but not yet written.
+   */
+  public int getQueuedFrames() {
+    return bufferCount - freeBuffers.size();
+  }
+
+  /**
+   * The time the last captured frame took on the FX thread (snapshot and
+   * pixel copy): the overhead recording adds to a frame.
+   */
+  public double getLastCaptureMs() {
+    return lastCaptureNanos / 1_000_000.0;
+  }
+
+  public double getAverageCaptureMs() {
+    return smoothedCaptureNanos / 1_000_000.0;
+  }
+
+  /**
+   * The average time to encode and write one frame, on an encoder thread.
+   */
+  public double getAverageEncodeMs() {
+    int written = writtenFrames.get();
+    return written == 0 ? 0 : encodeNanos.get() / 1_000_000.0 / written;
+  }
+}
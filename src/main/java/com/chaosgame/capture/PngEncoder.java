@@ -0,0 +1,115 @@
+package com.chaosgame.capture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A minimal PNG writer for opaque 8-bit RGB frames, so capturing does not
+ * have to pull in java.desktop (ImageIO) and AWT just to save screenshots.
+ *
+ * Rows use the Sub filter, which suits flat game graphics well, and the
+ * fastest deflate level: frames are encoded while the game is running, so
+ * speed matters more than file size. Buffers grow to the frame size once and
+ * are reused, so one instance per encoding thread does not allocate per frame.
+ * close() frees the deflater's native memory.
+ */
+public class PngEncoder implements AutoCloseable {
+
+  private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+  private static final int BYTES_PER_PIXEL = 3;
+
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  private final CRC32 crc = new CRC32();
+  private final byte[] header = new byte[13];
+  private final byte[] word = new byte[4];
+  private final byte[] chunkType = new byte[4];
+  private byte[] scanlines = new byte[0];
+  private byte[] compressed = new byte[0];
+
+  /**
+   * Writes one frame as a complete PNG file. Alpha is ignored.
+   *
+   * @param argb Pixels as 0xAARRGGBB, row by row.
+   */
+  public void encode(int[] argb, int width, int height, OutputStream out) throws IOException {
+    // --- Step 1: Filtered scanlines, each prefixed with its filter type ---
+    int stride = 1 + width * BYTES_PER_PIXEL;
+    int rawSize = stride * height;
+    if (scanlines.length < rawSize) {
+      scanlines = new byte[rawSize];
+      compressed = new byte[rawSize + rawSize / 1000 + 64]; // Deflate's worst case, plus a little
+    }
+    for (int y = 0; y < height; y++) {
+      int row = y * stride;
+      scanlines[row] = 1; // Sub: each byte minus the same channel of the pixel to its left
+      int previous = 0;
+      for (int x = 0; x < width; x++) {
+        int pixel = argb[y * width + x];
+        int i = row + 1 + x * BYTES_PER_PIXEL;
+        scanlines[i] = (byte) ((pixel >> 16) - (previous >> 16));
+        scanlines[i + 1] = (byte) ((pixel >> 8) - (previous >> 8));
+        scanlines[i + 2] = (byte) (pixel - previous);
+        previous = pixel;
+      }
+    }
+
+    // --- Step 2: Compress ---
+    deflater.reset();
+    deflater.setInput(scanlines, 0, rawSize);
+    deflater.finish();
+    int compressedSize = 0;
+    while (!deflater.finished()) {
+      if (compressedSize == compressed.length) {
+        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+      }
+      compressedSize += deflater.deflate(compressed, compressedSize, compressed.length - compressedSize);
+    }
+
+    // --- Step 3: Chunks ---
+    out.write(SIGNATURE);
+    writeInt(header, 0, width);
+    writeInt(header, 4, height);
+    header[8] = 8; // Bits per channel
+    header[9] = 2; // Truecolour
+    header[10] = 0; // Deflate
+    header[11] = 0; // Adaptive filtering
+    header[12] = 0; // Not interlaced
+    writeChunk(out, "IHDR", header, header.length);
+    writeChunk(out, "IDAT", compressed, compressedSize);
+    writeChunk(out, "IEND", header, 0);
+  }
+
+  private void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+    for (int i = 0; i < 4; i++) {
+      chunkType[i] = (byte) type.charAt(i);
+    }
+    writeInt(word, 0, length);
+    out.write(word);
+    out.write(chunkType);
+    out.write(data, 0, length);
+    crc.reset();
+    crc.update(chunkType);
+    crc.update(data, 0, length);
+    writeInt(word, 0, (int) crc.getValue());
+    out.write(word);
+  }
+
+  private static void writeInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+
+  /**
+   * Frees the native memory of the deflater. The encoder cannot be used
+   * afterwards.
+   */
+  @Override
+  public void close() {
+    deflater.end();
+  }
+}
@@ -1,8 +1,8 @@
 package com.chaosgame.entity;
 
 import com.chaosgame.Vector2D;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.sprite.Sprites;
 
 public class Crate extends Entity {
 
@@ -12,9 +12,10 @@ public class Crate extends Entity {
 
   public Crate(int x, int y, double side) {
     // The super() call is now much easier to read.
-    super(createCenteredRect(side), calculateMass(side), createBoxVertices(side, side));
+    super(Sprites.CACHE.createView(Sprites.crate(side)), calculateMass(side), createBoxVertices(side, side));
     this.x = x;
     this.y = y;
+    setCollisionCategory(CollisionLayers.CRATE);
   }
 
   /**
@@ -27,17 +28,6 @@ public class Crate extends Entity {
     return area * DENSITY;
   }
 
-  /**
-   * Creates a Rectangle view for the crate, centered at its origin (0,0).
-   * The parameter name is changed from 'mass' to 'side' to be more accurate.
-   */
-  private static Rectangle createCenteredRect(double side) {
-    Rectangle rect = new Rectangle(side, side, Color.SADDLEBROWN);
-    rect.setX(-side / 2);
-    rect.setY(-side / 2);
-    return rect;
-  }
-
   // A helper to define the vertices for a box shape
   private static Vector2D[] createBoxVertices(double width, double height) {
     double halfWidth = width / 2;
@@ -2,13 +2,23 @@ package com.chaosgame.entity;
 
 import com.chaosgame.Vector2D;
 import com.chaosgame.Projection;
+import com.chaosgame.physics.BodyType;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.physics.CollisionMatrix;
 import com.chaosgame.physics.CollisionResult;
+import com.chaosgame.physics.Separation;
 import javafx.scene.Node;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Entity {
+  // A stable identity for per-pair caches; unlike the registry handle it is
+  // assigned once, at construction, and never changes
+  private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+  public final int id = NEXT_ID.getAndIncrement();
+
   public double x, y; // Position
   protected double vx, vy; // Velocity
 
@@ -18,16 +28,81 @@ public abstract class Entity {
   protected double angularVelocity = 0; // in radians per second
   private static final double ROTATIONAL_FRICTION = 0.95;
 
+  // Below these speeds a body counts as resting for diagnostics
+  private static final double AWAKE_SPEED = 1.0;
+  private static final double AWAKE_ANGULAR_SPEED = 0.01;
+
   public double mass;
   protected Vector2D[] vertices;
   public boolean isPhysical;
+
+  // Static and kinematic bodies have an inverse mass of 0, so the solver never
+  // moves them
+  private BodyType bodyType = BodyType.DYNAMIC;
+  private double inverseMass;
+
+  // Collision filtering: the category this entity belongs to, and the
+  // categories it collides with
+  private int collisionCategory = CollisionLayers.CRATE;
+  private int collisionMask = CollisionLayers.ALL;
+
+  // The rules every entity starts with; levels can apply their own matrix
+  protected static final CollisionMatrix DEFAULT_COLLISION_MATRIX = CollisionMatrix.createDefault();
   protected Node view;
 
+  // Registry bookkeeping: the entity's current handle, and the pool it returns to
+  long handle = EntityRegistry.NULL_HANDLE;
+  EntityPool<?> pool;
+
+  // Cached shape metrics; the vertices are in local space so these never change
+  private double boundingRadius = -1;
+  private double thickness = -1;
+  private double[] edgeNormals; // x, y per edge, as getAxis computes them
+
+  // cos and sin of the angle they were computed for, refreshed when it changes
+  private double trigAngle = 0;
+  private double cosAngle = 1;
+  private double sinAngle = 0;
+
   public Entity(Node view, double mass, Vector2D[] vertices) {
     this.view = view;
     this.mass = mass;
     this.vertices = vertices;
     this.isPhysical = true;
+    this.inverseMass = mass > 0 ? 1.0 / mass : 0;
+  }
+
+  /**
+   * A regular polygon around the origin, standing in for a circle of the given
+   * radius.
+   */
+  protected static Vector2D[] createCircleVertices(double radius, int sides) {
+    Vector2D[] vertices = new Vector2D[sides];
+    for (int i = 0; i < sides; i++) {
+      double angle = 2 * Math.PI * i / sides;
+      vertices[i] = new Vector2D(radius * Math.cos(angle), radius * Math.sin(angle));
+    }
+    return vertices;
+  }
+
+  public BodyType getBodyType() {
+    return bodyType;
+  }
+
+  /**
+   * Changes how the engine treats this body. Only call between physics steps;
+   * the engine sorts its bodies by type at the start of every update.
+   */
+  public void setBodyType(BodyType bodyType) {
+    this.bodyType = bodyType;
+    this.inverseMass = bodyType == BodyType.DYNAMIC && mass > 0 ? 1.0 / mass : 0;
+  }
+
+  /**
+   * 1 / mass for dynamic bodies, and 0 for anything the solver must not move.
+   */
+  public double getInverseMass() {
+    return inverseMass;
   }
 
   public void applyForce(Vector2D force, Vector2D pointOfApplication, double delta) {
@@ -55,6 +130,114 @@ public abstract class Entity {
     this.angularVelocity += angularAcceleration * delta;
   }
 
+  /**
+   * Puts the entity back at rest at a new position, ready to be reused.
+   */
+  public void reset(double x, double y) {
+    this.x = x;
+    this.y = y;
+    this.vx = 0;
+    this.vy = 0;
+    this.angle = 0;
+    this.angularVelocity = 0;
+  }
+
+  /**
+   * Turns this entity into a physical stand-in for another: same shape, mass,
+   * body type, collision filter, position and motion. The view is not touched.
+   * The vertex array is shared rather than copied, as shapes never change
+   * once built.
+   */
+  public void copyBodyFrom(Entity other) {
+    this.x = other.x;
+    this.y = other.y;
+    this.vx = other.vx;
+    this.vy = other.vy;
+    this.angle = other.angle;
+    this.angularVelocity = other.angularVelocity;
+    this.mass = other.mass;
+    this.isPhysical = other.isPhysical;
+    this.collisionCategory = other.collisionCategory;
+    this.collisionMask = other.collisionMask;
+    if (this.vertices != other.vertices) {
+      this.vertices = other.vertices;
+      this.boundingRadius = other.getBoundingRadius();
+      this.thickness = other.getThickness();
+      this.edgeNormals = other.getEdgeNormals();
+    }
+    setBodyType(other.bodyType);
+  }
+
+  /**
+   * The handle this entity was given by its EntityRegistry, or
+   * EntityRegistry.NULL_HANDLE if it is not in one.
+   */
+  public long getHandle() {
+    return handle;
+  }
+
+  public int getCollisionCategory() {
+    return collisionCategory;
+  }
+
+  /**
+   * Moves the entity into a category and gives it that category's mask from
+   * the default collision matrix.
+   */
+  public void setCollisionCategory(int collisionCategory) {
+    this.collisionCategory = collisionCategory;
+    this.collisionMask = DEFAULT_COLLISION_MATRIX.maskFor(collisionCategory);
+  }
+
+  public int getCollisionMask() {
+    return collisionMask;
+  }
+
+  public void setCollisionMask(int collisionMask) {
+    this.collisionMask = collisionMask;
+  }
+
+  /**
+   * The collision filter: both entities must be in a category the other one
+   * accepts.
+   */
+  public boolean canCollideWith(Entity other) {
+    return (collisionCategory & other.collisionMask) != 0 && (other.collisionCategory & collisionMask) != 0;
+  }
+
+  /**
+   * Tests whether a world-space point lies inside the entity's shape.
+   */
+  public boolean containsPoint(double px, double py) {
+    // Bring the point into local space by undoing the translation and rotation
+    double dx = px - x;
+    double dy = py - y;
+    double cos = Math.cos(-angle);
+    double sin = Math.sin(-angle);
+    double localX = dx * cos - dy * sin;
+    double localY = dx * sin + dy * cos;
+
+    // Inside a convex polygon means on the same side of every edge
+    int side = 0;
+    for (int i = 0; i < vertices.length; i++) {
+      Vector2D p1 = vertices[i];
+      Vector2D p2 = vertices[i + 1 == vertices.length ? 0 : i + 1];
+      double cross = (p2.x - p1.x) * (localY - p1.y) - (p2.y - p1.y) * (localX - p1.x);
+      int sign = cross > 0 ? 1 : (cross < 0 ? -1 : 0);
+      if (sign != 0) {
+        if (side != 0 && sign != side) {
+          return false;
+        }
+        side = sign;
+      }
+    }
+    return true;
+  }
+
+  public boolean isPooled() {
+    return pool != null;
+  }
+
   // Getters and Setters
   public double getX() {
     return x;
@@ -92,19 +275,29 @@ public abstract class Entity {
     return vertices;
   }
 
+  /**
+   * Damps the body's motion by one frame of friction. The physics engine never
+   * calls this, and only the player is updated through it, by an override
+   * that does not come here, so crates are slowed by their contacts alone.
+   */
   public void updatePhysics(double delta) {
-    if (!(this instanceof Player)) {
-      vx *= GLOBAL_FRICTION;
-      vy *= GLOBAL_FRICTION;
-      angularVelocity *= ROTATIONAL_FRICTION; // Apply rotational friction
-    }
+    vx *= GLOBAL_FRICTION;
+    vy *= GLOBAL_FRICTION;
+    angularVelocity *= ROTATIONAL_FRICTION; // Apply rotational friction
   }
 
   public void updatePosition(double delta) {
     x += vx * delta;
     y += vy * delta;
     angle += angularVelocity * delta;
+  }
 
+  /**
+   * Copies the simulated position and angle onto the view. Kept apart from
+   * updatePosition so that only entities that are actually on screen pay for
+   * scene graph updates.
+   */
+  public void syncView() {
     view.setTranslateX(x);
     view.setTranslateY(y);
     view.setRotate(Math.toDegrees(angle));
@@ -114,6 +307,134 @@ public abstract class Entity {
     return view;
   }
 
+  /**
+   * Fills bounds with the world-space axis-aligned box around the entity's
+   * current shape: minX, minY, maxX, maxY.
+   */
+  public void getBounds(double[] bounds) {
+    double cos = Math.cos(angle);
+    double sin = Math.sin(angle);
+    bounds[0] = bounds[1] = Double.POSITIVE_INFINITY;
+    bounds[2] = bounds[3] = Double.NEGATIVE_INFINITY;
+    for (Vector2D v : vertices) {
+      double wx = v.x * cos - v.y * sin + x;
+      double wy = v.x * sin + v.y * cos + y;
+      bounds[0] = Math.min(bounds[0], wx);
+      bounds[1] = Math.min(bounds[1], wy);
+      bounds[2] = Math.max(bounds[2], wx);
+      bounds[3] = Math.max(bounds[3], wy);
+    }
+  }
+
+  /**
+   * The GJK support function: the index of the vertex furthest along a
+   * world-space direction. The direction is rotated into local space once,
+   * rather than every vertex into world space.
+   */
+  public int support(double directionX, double directionY) {
+    updateTrig();
+    double localX = directionX * cosAngle + directionY * sinAngle;
+    double localY = -directionX * sinAngle + directionY * cosAngle;
+    int best = 0;
+    double bestDot = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < vertices.length; i++) {
+      double dot = vertices[i].x * localX + vertices[i].y * localY;
+      if (dot > bestDot) {
+        bestDot = dot;
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * World x of a vertex at the entity's current position and angle.
+   */
+  public double getWorldVertexX(int index) {
+    updateTrig();
+    return vertices[index].x * cosAngle - vertices[index].y * sinAngle + x;
+  }
+
+  public double getWorldVertexY(int index) {
+    updateTrig();
+    return vertices[index].x * sinAngle + vertices[index].y * cosAngle + y;
+  }
+
+  private void updateTrig() {
+    if (angle != trigAngle) {
+      trigAngle = angle;
+      cosAngle = Math.cos(angle);
+      sinAngle = Math.sin(angle);
+    }
+  }
+
+  /**
+   * The radius of the smallest circle around the entity's origin that contains
+   * every vertex. Since rotation happens about the origin, this bound holds for
+   * any angle and can be used to cheaply reject pairs before running SAT.
+   */
+  public double getBoundingRadius() {
+    if (boundingRadius < 0) {
+      double max = 0;
+      for (Vector2D vertex : vertices) {
+        max = Math.max(max, vertex.magnitude());
+      }
+      boundingRadius = max;
+    }
+    return boundingRadius;
+  }
+
+  /**
+   * The thinnest width of the shape, measured across its own edge normals.
+   * This is how far the entity can move in one step before it risks passing
+   * straight through something.
+   */
+  public double getThickness() {
+    if (thickness < 0) {
+      double min = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < vertices.length; i++) {
+        Vector2D p1 = vertices[i];
+        Vector2D p2 = vertices[i + 1 == vertices.length ? 0 : i + 1];
+        Vector2D axis = p1.subtract(p2).normal().normalize();
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (Vector2D vertex : vertices) {
+          double projection = vertex.dot(axis);
+          lo = Math.min(lo, projection);
+          hi = Math.max(hi, projection);
+        }
+        min = Math.min(min, hi - lo);
+      }
+      thickness = min;
+    }
+    return thickness;
+  }
+
+  public double getSpeed() {
+    return Math.sqrt(vx * vx + vy * vy);
+  }
+
+  /**
+   * Whether the entity is still noticeably moving or spinning.
+   */
+  public boolean isAwake() {
+    return bodyType == BodyType.DYNAMIC && isPhysical
+        && (getSpeed() > AWAKE_SPEED || Math.abs(angularVelocity) > AWAKE_ANGULAR_SPEED);
+  }
+
+  /**
+   * Decides whether this entity needs continuous collision detection for the
+   * coming step, i.e. whether it moves further than the given fraction of its
+   * own thickness and could therefore tunnel through thin geometry.
+   *
+   * @param delta    The length of the step.
+   * @param fraction The fraction of the thickness that may be covered safely.
+   * @return true if the entity is moving fast enough to require swept tests.
+   */
+  public boolean isFastMoving(double delta, double fraction) {
+    return getSpeed() * delta > fraction * getThickness();
+  }
+
   /**
    * Gathers the unique separating axes (edge normals) from this entity and
    * another.
@@ -123,23 +444,74 @@ public abstract class Entity {
    */
   private List<Vector2D> getAxes(Entity other) {
     List<Vector2D> axes = new ArrayList<>();
-    // Get axes from this entity
-    for (int i = 0; i < this.vertices.length; i++) {
-      Vector2D p1 = this.vertices[i];
-      Vector2D p2 = this.vertices[i + 1 == this.vertices.length ? 0 : i + 1];
-      Vector2D edge = p1.subtract(p2);
-      axes.add(edge.normal().normalize());
-    }
-    // Get axes from the other entity
-    for (int i = 0; i < other.vertices.length; i++) {
-      Vector2D p1 = other.vertices[i];
-      Vector2D p2 = other.vertices[i + 1 == other.vertices.length ? 0 : i + 1];
-      Vector2D edge = p1.subtract(p2);
-      axes.add(edge.normal().normalize());
+    // This entity's axes come first, then the other entity's
+    for (int i = 0; i < getAxisCount(other); i++) {
+      axes.add(getAxis(other, i));
     }
     return axes;
   }
 
+  /**
+   * The number of SAT axes between this entity and another: one per edge of
+   * each shape.
+   */
+  public int getAxisCount(Entity other) {
+    return this.vertices.length + other.vertices.length;
+  }
+
+  public int getEdgeCount() {
+    return this.vertices.length;
+  }
+
+  /**
+   * Returns a single SAT axis by index, in the same order that collide,
+   * checkCollision and computeSeparation test them: this entity's edge normals
+   * first, then the other entity's.
+   */
+  public Vector2D getAxis(Entity other, int index) {
+    Vector2D[] source = index < this.vertices.length ? this.vertices : other.vertices;
+    int i = index < this.vertices.length ? index : index - this.vertices.length;
+    Vector2D p1 = source[i];
+    Vector2D p2 = source[i + 1 == source.length ? 0 : i + 1];
+    Vector2D edge = p1.subtract(p2);
+    return edge.normal().normalize();
+  }
+
+  /**
+   * The local-space unit normal of one edge, the same axis getAxis returns
+   * for it, without allocating. Edge normals are computed once per shape.
+   */
+  public double getEdgeNormalX(int edge) {
+    return getEdgeNormals()[2 * edge];
+  }
+
+  public double getEdgeNormalY(int edge) {
+    return getEdgeNormals()[2 * edge + 1];
+  }
+
+  private double[] getEdgeNormals() {
+    if (edgeNormals == null) {
+      double[] normals = new double[2 * vertices.length];
+      for (int i = 0; i < vertices.length; i++) {
+        Vector2D axis = getAxis(this, i);
+        normals[2 * i] = axis.x;
+        normals[2 * i + 1] = axis.y;
+      }
+      edgeNormals = normals;
+    }
+    return edgeNormals;
+  }
+
+  /**
+   * The signed gap between this entity and another along one axis: positive if
+   * the axis separates them, negative (the overlap) if not.
+   */
+  public double gapAlong(Entity other, Vector2D axis) {
+    Projection p1 = this.project(axis);
+    Projection p2 = other.project(axis);
+    return Math.max(p2.min - p1.max, p1.min - p2.max);
+  }
+
   /**
    * Projects the entity's vertices onto a given axis to find the min/max
    * interval.
@@ -185,6 +557,18 @@ public abstract class Entity {
    *         an existing overlap at the start of the frame.
    */
   public double collide(Entity other, double delta) {
+    return collide(other, delta, null);
+  }
+
+  /**
+   * Swept SAT, as collide(other, delta), that also reports which axis ruled
+   * out a collision so that callers can try it first next time.
+   *
+   * @param separatingAxis If not null and no collision is possible, receives
+   *                       the index (see getAxis) of the separating axis in
+   *                       element 0.
+   */
+  public double collide(Entity other, double delta, int[] separatingAxis) {
     // 1. Get all potential separating axes
     List<Vector2D> axes = this.getAxes(other);
 
@@ -193,7 +577,8 @@ public abstract class Entity {
     double t_leave = delta;
 
     // 3. Loop through each axis
-    for (Vector2D axis : axes) {
+    for (int axisIndex = 0; axisIndex < axes.size(); axisIndex++) {
+      Vector2D axis = axes.get(axisIndex);
       // 4. Project both shapes onto the axis
       Projection p1 = this.project(axis);
       Projection p2 = other.project(axis);
@@ -234,6 +619,9 @@ public abstract class Entity {
         // this axis
         // unless they are already overlapping.
         if (dist_enter > 0) { // There is a gap, and it's not closing.
+          if (separatingAxis != null) {
+            separatingAxis[0] = axisIndex;
+          }
           return delta + 1; // No collision will ever occur.
         }
         // They are overlapping and not moving apart. The collision interval is the
@@ -260,6 +648,9 @@ public abstract class Entity {
       // 9. Check for an early exit
       // If the collision window is invalid, there is a separating axis in time.
       if (t_enter > t_leave) {
+        if (separatingAxis != null) {
+          separatingAxis[0] = axisIndex;
+        }
         return delta + 1; // No collision possible
       }
     }
@@ -324,4 +715,41 @@ public abstract class Entity {
 
     return new CollisionResult(true, mtv);
   }
+
+  /**
+   * Measures the signed distance between this entity and another at the
+   * current instant using the same axes as SAT. Unlike checkCollision, it does
+   * not stop at the first separating axis, so it also reports how large the gap
+   * is, which is what speculative contacts need.
+   *
+   * @param other The entity to measure against.
+   * @return A Separation whose distance is the gap (positive) or the
+   *         penetration depth (negative), along a normal pointing from this
+   *         entity towards the other.
+   */
+  public Separation computeSeparation(Entity other) {
+    double maxDistance = Double.NEGATIVE_INFINITY;
+    Vector2D bestNormal = null;
+    int bestAxis = -1;
+
+    List<Vector2D> axes = this.getAxes(other);
+    for (int axisIndex = 0; axisIndex < axes.size(); axisIndex++) {
+      Vector2D axis = axes.get(axisIndex);
+      Projection p1 = this.project(axis);
+      Projection p2 = other.project(axis);
+
+      // The gap on either side of p1; at most one of these can be positive.
+      double gapAhead = p2.min - p1.max; // other lies along +axis
+      double gapBehind = p1.min - p2.max; // other lies along -axis
+      double distance = Math.max(gapAhead, gapBehind);
+
+      if (distance > maxDistance) {
+        maxDistance = distance;
+        bestNormal = gapAhead >= gapBehind ? axis : axis.scale(-1);
+        bestAxis = axisIndex;
+      }
+    }
+
+    return new Separation(maxDistance, bestNormal, bestAxis);
+  }
 }
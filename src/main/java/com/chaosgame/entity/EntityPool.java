@@ -0,0 +1,69 @@
+package com.chaosgame.entity;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * A free list of interchangeable entities, e.g. debris crates of one size.
+ *
+ * Reused entities keep their JavaFX node, so a burst of spawns and despawns
+ * allocates neither entities nor views once the pool has warmed up. Entities
+ * find their way back here automatically when the EntityRegistry despawns
+ * them.
+ */
+public class EntityPool<T extends Entity> {
+
+  private final Supplier<T> factory;
+  private final ArrayDeque<T> free = new ArrayDeque<>();
+  private final Class<T> type;
+  private int created = 0;
+
+  /**
+   * @param type    The class of entity this pool holds.
+   * @param factory Creates a new entity when the pool is empty. Its position
+   *                is overwritten on every acquire.
+   */
+  public EntityPool(Class<T> type, Supplier<T> factory) {
+    this.type = type;
+    this.factory = factory;
+  }
+
+  /**
+   * Creates entities up front so that the first burst does not allocate.
+   */
+  public void prefill(int count) {
+    for (int i = 0; i < count; i++) {
+      free.push(create());
+    }
+  }
+
+  /**
+   * Takes an entity from the pool (or creates one) and resets it to rest at the
+   * given position. It still has to be spawned into a registry.
+   */
+  public T acquire(double x, double y) {
+    T entity = free.isEmpty() ? create() : free.pop();
+    entity.reset(x, y);
+    return entity;
+  }
+
+  public int getFreeCount() {
+    return free.size();
+  }
+
+  public int getCreatedCount() {
+    return created;
+  }
+
+  // Called by the registry once the entity has left the level
+  void recycle(Entity entity) {
+    free.push(type.cast(entity));
+  }
+
+  private T create() {
+    T entity = factory.get();
+    entity.pool = this;
+    created++;
+    return entity;
+  }
+}
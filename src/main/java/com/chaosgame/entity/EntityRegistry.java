@@ -0,0 +1,231 @@
+package com.chaosgame.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Owns the live entities of a level and hands out generational handles for
+ * them.
+ *
+ * A handle packs a slot index and that slot's generation into a long. When an
+ * entity is despawned its slot's generation is bumped, so any handle still
+ * held elsewhere simply stops resolving instead of silently pointing at
+ * whatever reuses the slot.
+ *
+ * Live entities are kept densely packed in one list, which is what the physics
+ * engine iterates. Despawning swaps the last entity into the freed position,
+ * so removal is O(1). Spawns and despawns are only queued when requested and
+ * are applied together in flush(), which the game loop calls between steps;
+ * the dense list therefore never changes while physics is iterating it.
+ *
+ * Entities that came from an EntityPool are returned to it when despawned.
+ */
+public class EntityRegistry {
+
+  public static final long NULL_HANDLE = 0;
+
+  /**
+   * Notified from flush() as entities enter and leave the live list, e.g. so
+   * the view can attach or hide their nodes.
+   */
+  public interface Listener {
+    void onSpawned(Entity entity);
+
+    void onDespawned(Entity entity);
+  }
+
+  // --- Slots (sparse, addressed by handle) ---
+  private int[] generations = new int[64];
+  private int[] denseIndexOfSlot = new int[64]; // -1 while pending or free
+  private Entity[] entityOfSlot = new Entity[64];
+  private int[] freeSlots = new int[64];
+  private int freeCount = 0;
+  private int slotCount = 0;
+
+  // --- Dense live list ---
+  private final ArrayList<Entity> live = new ArrayList<>();
+  private final List<Entity> liveView = Collections.unmodifiableList(live);
+  private int[] slotOfDense = new int[64];
+
+  // --- Changes waiting for the next flush ---
+  private long[] pendingSpawns = new long[64];
+  private int pendingSpawnCount = 0;
+  private long[] pendingDespawns = new long[64];
+  private int pendingDespawnCount = 0;
+
+  private Listener listener;
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * The live entities, densely packed. Only changes inside flush(); do not
+   * hold on to indices across a flush.
+   */
+  public List<Entity> getEntities() {
+    return liveView;
+  }
+
+  public int size() {
+    return live.size();
+  }
+
+  /**
+   * Queues an entity to join the level at the next flush.
+   *
+   * @return A handle that resolves to the entity until it is despawned.
+   */
+  public long spawn(Entity entity) {
+    int slot;
+    if (freeCount > 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      slot = slotCount++;
+      ensureSlotCapacity(slotCount);
+      generations[slot] = 1; // Generation 0 is never used, so NULL_HANDLE never resolves
+    }
+    denseIndexOfSlot[slot] = -1;
+    entityOfSlot[slot] = entity;
+
+    long handle = makeHandle(slot, generations[slot]);
+    entity.handle = handle;
+    if (pendingSpawnCount == pendingSpawns.length) {
+      pendingSpawns = Arrays.copyOf(pendingSpawns, pendingSpawnCount * 2);
+    }
+    pendingSpawns[pendingSpawnCount++] = handle;
+    return handle;
+  }
+
+  /**
+   * Queues an entity to leave the level at the next flush. Stale or repeated
+   * handles are ignored.
+   */
+  public void despawn(long handle) {
+    if (get(handle) == null) {
+      return;
+    }
+    if (pendingDespawnCount == pendingDespawns.length) {
+      pendingDespawns = Arrays.copyOf(pendingDespawns, pendingDespawnCount * 2);
+    }
+    pendingDespawns[pendingDespawnCount++] = handle;
+  }
+
+  public void despawn(Entity entity) {
+    despawn(entity.handle);
+  }
+
+  /**
+   * Resolves a handle.
+   *
+   * @return The entity, or null if the handle is stale or was never valid.
+   *         Entities spawned since the last flush already resolve.
+   */
+  public Entity get(long handle) {
+    int slot = handleSlot(handle);
+    if (handle == NULL_HANDLE || slot < 0 || slot >= slotCount || generations[slot] != handleGeneration(handle)) {
+      return null;
+    }
+    return entityOfSlot[slot];
+  }
+
+  public boolean isAlive(long handle) {
+    return get(handle) != null;
+  }
+
+  /**
+   * Applies all queued despawns, then all queued spawns. Call only at step
+   * boundaries, never while something is iterating getEntities().
+   */
+  public void flush() {
+    for (int i = 0; i < pendingDespawnCount; i++) {
+      remove(pendingDespawns[i]);
+    }
+    pendingDespawnCount = 0;
+
+    for (int i = 0; i < pendingSpawnCount; i++) {
+      Entity entity = get(pendingSpawns[i]);
+      // Spawned and despawned within the same step: never went live
+      if (entity == null) {
+        continue;
+      }
+      int slot = handleSlot(pendingSpawns[i]);
+      int denseIndex = live.size();
+      live.add(entity);
+      if (slotOfDense.length <= denseIndex) {
+        slotOfDense = Arrays.copyOf(slotOfDense, slotOfDense.length * 2);
+      }
+      slotOfDense[denseIndex] = slot;
+      denseIndexOfSlot[slot] = denseIndex;
+      if (listener != null) {
+        listener.onSpawned(entity);
+      }
+    }
+    pendingSpawnCount = 0;
+  }
+
+  private void remove(long handle) {
+    Entity entity = get(handle);
+    if (entity == null) {
+      return; // Despawned twice in one step
+    }
+    int slot = handleSlot(handle);
+    int denseIndex = denseIndexOfSlot[slot];
+
+    if (denseIndex >= 0) {
+      // Swap-remove: move the last live entity into the hole
+      int lastIndex = live.size() - 1;
+      Entity last = live.remove(lastIndex);
+      if (denseIndex != lastIndex) {
+        live.set(denseIndex, last);
+        int lastSlot = slotOfDense[lastIndex];
+        slotOfDense[denseIndex] = lastSlot;
+        denseIndexOfSlot[lastSlot] = denseIndex;
+      }
+      if (listener != null) {
+        listener.onDespawned(entity);
+      }
+    }
+
+    // Retire the slot; bumping the generation invalidates outstanding handles
+    generations[slot]++;
+    if (generations[slot] == 0) {
+      generations[slot] = 1;
+    }
+    denseIndexOfSlot[slot] = -1;
+    entityOfSlot[slot] = null;
+    freeSlots[freeCount++] = slot;
+    if (entity.handle == handle) {
+      entity.handle = NULL_HANDLE;
+    }
+
+    if (entity.pool != null) {
+      entity.pool.recycle(entity);
+    }
+  }
+
+  private void ensureSlotCapacity(int capacity) {
+    if (capacity <= generations.length) {
+      return;
+    }
+    int newLength = Math.max(capacity, generations.length * 2);
+    generations = Arrays.copyOf(generations, newLength);
+    denseIndexOfSlot = Arrays.copyOf(denseIndexOfSlot, newLength);
+    entityOfSlot = Arrays.copyOf(entityOfSlot, newLength);
+    freeSlots = Arrays.copyOf(freeSlots, newLength);
+  }
+
+  private static long makeHandle(int slot, int generation) {
+    return ((long) generation << 32) | (slot & 0xffffffffL);
+  }
+
+  private static int handleSlot(long handle) {
+    return (int) handle;
+  }
+
+  private static int handleGeneration(long handle) {
+    return (int) (handle >>> 32);
+  }
+}
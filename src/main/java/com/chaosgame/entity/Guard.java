@@ -0,0 +1,68 @@
+package com.chaosgame.entity;
+
+import com.chaosgame.ai.FlowFieldCache;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.sprite.SpriteRegion;
+import com.chaosgame.sprite.Sprites;
+
+import javafx.scene.Group;
+
+/**
+ * An enemy that chases a target through the level by following a shared flow
+ * field.
+ *
+ * Guards come in crowds, so they are drawn onto a Canvas by a SpriteBatch
+ * rather than each by an ImageView. The view is an empty placeholder that
+ * only carries the camera's visibility.
+ */
+public class Guard extends Entity {
+
+  public static final double RADIUS = 12;
+  private static final double MAX_SPEED = 160;
+  private static final double STEERING = 6; // How quickly velocity turns toward the desired one, per second
+
+  private static final SpriteRegion SPRITE = Sprites.guard(RADIUS);
+
+  private final double[] direction = new double[2]; // Reused steering lookup
+
+  public Guard(int x, int y) {
+    super(new Group(), 8.0, createCircleVertices(RADIUS, 8));
+    this.x = x;
+    this.y = y;
+    setCollisionCategory(CollisionLayers.GUARD);
+  }
+
+  /**
+   * Steers toward the target: along the flow field where it has a direction,
+   * and straight at the target in the goal cell or where the field has none.
+   */
+  public void chase(FlowFieldCache flowFields, double targetX, double targetY, double delta) {
+    double dirX, dirY;
+    if (flowFields.steer(x, y, direction)) {
+      dirX = direction[0];
+      dirY = direction[1];
+    } else {
+      dirX = targetX - x;
+      dirY = targetY - y;
+      double length = Math.sqrt(dirX * dirX + dirY * dirY);
+      if (length < 1) {
+        dirX = 0;
+        dirY = 0;
+      } else {
+        dirX /= length;
+        dirY /= length;
+      }
+    }
+    double blend = Math.min(1, STEERING * delta);
+    vx += (dirX * MAX_SPEED - vx) * blend;
+    vy += (dirY * MAX_SPEED - vy) * blend;
+  }
+
+  public String toString() {
+    return "Guard";
+  }
+
+  public SpriteRegion getSprite() {
+    return SPRITE;
+  }
+}
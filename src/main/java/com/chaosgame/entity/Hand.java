@@ -1,28 +1,27 @@
 package com.chaosgame.entity;
 
 import com.chaosgame.Vector2D;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
+import com.chaosgame.physics.BodyType;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.sprite.Sprites;
+import javafx.scene.image.ImageView;
 
 public class Hand extends Entity {
 
+  private static final double SIZE = 10;
+
   public Hand() {
     // A simple 10x10 square for the hand
-    super(new Rectangle(10, 10, Color.LIGHTGRAY), 1.0, createBoxVertices(10, 10));
-    Rectangle rect = (Rectangle) this.view;
-    rect.setX(-5);
-    rect.setY(-5);
+    super(Sprites.CACHE.createView(Sprites.hand(SIZE, false)), 1.0, createBoxVertices(SIZE, SIZE));
 
-    this.isPhysical = false;
+    // The player places the hand directly; the engine only syncs its view
+    setBodyType(BodyType.KINEMATIC);
+    setCollisionCategory(CollisionLayers.HAND);
   }
 
   public void setGrabbing(boolean isGrabbing) {
-    Rectangle rect = (Rectangle) this.view;
-    if (isGrabbing) {
-      rect.setFill(Color.LIGHTGREEN); // The color when trying to grab
-    } else {
-      rect.setFill(Color.LIGHTGRAY); // The default color
-    }
+    // Green when trying to grab; both sprites share a page, so this only moves the viewport
+    Sprites.CACHE.show((ImageView) this.view, Sprites.hand(SIZE, isGrabbing));
   }
 
   // Helper to define the vertices for the hand's collision shape
@@ -2,10 +2,10 @@ package com.chaosgame.entity;
 
 import com.chaosgame.Vector2D;
 import com.chaosgame.entity.Hand;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.sprite.Sprites;
 
 import javafx.scene.input.KeyCode;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
 import java.util.Set;
 
 public class Player extends Entity {
@@ -36,10 +36,11 @@ public class Player extends Entity {
   private double inputAy = 0; // Acceleration from input on Y axis
 
   public Player(int x, int y, Hand hand) {
-    super(new Circle(15, Color.WHITE), 10.0, createCircleVertices(15, 8));
+    super(Sprites.CACHE.createView(Sprites.player(15)), 10.0, createCircleVertices(15, 8));
     this.x = x;
     this.y = y;
     this.hand = hand;
+    setCollisionCategory(CollisionLayers.PLAYER);
   }
 
   public Hand getHand() {
@@ -90,15 +91,6 @@ public class Player extends Entity {
     this.hand.setY(this.y + HAND_ORBIT_RADIUS * Math.sin(angle));
   }
 
-  private static Vector2D[] createCircleVertices(double radius, int sides) {
-    Vector2D[] vertices = new Vector2D[sides];
-    for (int i = 0; i < sides; i++) {
-      double angle = 2 * Math.PI * i / sides;
-      vertices[i] = new Vector2D(radius * Math.cos(angle), radius * Math.sin(angle));
-    }
-    return vertices;
-  }
-
   public void handleInput(Set<KeyCode> keys) {
     // --- Dashing ---
     // We only allow a dash to start if we aren't already in one
@@ -1,26 +1,22 @@
 package com.chaosgame.entity;
 
 import com.chaosgame.Vector2D;
+import com.chaosgame.physics.BodyType;
+import com.chaosgame.physics.CollisionLayers;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
 public class Wall extends Entity {
 
   public Wall(double x, double y, double width, double height) {
-    // We pass a very large mass to simulate an immovable object.
-    super(new Rectangle(width, height, Color.DARKSLATEGRAY), Double.MAX_VALUE, createBoxVertices(width, height));
+    super(new Rectangle(width, height, Color.DARKSLATEGRAY), 0, createBoxVertices(width, height));
     this.x = x;
     this.y = y;
     this.view.setTranslateX(this.x);
     this.view.setTranslateY(this.y);
-  }
-
-  // Walls should never move, so we override the update method to do nothing.
-  @Override
-  public void updatePhysics(double delta) {
-  }
-
-  public void updatePosition(double delta) {
+    setCollisionCategory(CollisionLayers.WALL);
+    // Walls never move; the engine neither integrates nor syncs them
+    setBodyType(BodyType.STATIC);
   }
 
   // A helper to define the vertices for a box shape
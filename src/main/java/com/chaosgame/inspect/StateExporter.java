@@ -0,0 +1,149 @@
+package com.chaosgame.inspect;
+
+import com.chaosgame.Vector2D;
+import com.chaosgame.entity.Entity;
+import com.chaosgame.physics.PhysicsStats;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Publishes every tick's bodies and physics counters into a memory-mapped
+ * file (see StateLayout), where a StateReader in another process can watch
+ * them live.
+ *
+ * Writing is a seqlock: the sequence word is made odd, the tick is written in
+ * place, and the sequence is made even again. The writer never waits for a
+ * reader, and nothing crosses a socket or a system call; a reader that caught
+ * a tick half written notices the sequence moved and reads again. Publishing
+ * costs the game loop a few plain stores per body.
+ *
+ * Bodies past the file's capacity are left out, and the header says how many
+ * there were. The mapping is released when the exporter is garbage collected;
+ * close() only closes the file.
+ */
+public class StateExporter implements AutoCloseable {
+
+  private final Path file;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final int capacity;
+  private long sequence;
+
+  /**
+   * Maps the file, creating it if need be, and writes the header.
+   *
+   * @param capacity How many bodies each tick may hold.
+   */
+  public StateExporter(Path file, int capacity) throws IOException {
+    this.file = file;
+    this.capacity = capacity;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    // The file is never shrunk: a reader still mapping a larger file from an
+    // earlier run would fault on the pages cut off
+    long size = StateLayout.fileSize(StateLayout.HEADER_SIZE, StateLayout.RECORD_SIZE, capacity);
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    buffer.order(StateLayout.ORDER);
+
+    // A previous writer's sequence is continued rather than reset, so a
+    // reader that outlived it never sees the sequence go back to a value it
+    // already read
+    long previous = (long) StateLayout.SEQUENCE.getVolatile(buffer, StateLayout.SEQUENCE_OFFSET);
+    this.sequence = (previous + 1) & ~1L;
+    StateLayout.SEQUENCE.setVolatile(buffer, StateLayout.SEQUENCE_OFFSET, sequence + 1);
+    buffer.putShort(StateLayout.MAJOR_OFFSET, StateLayout.MAJOR_VERSION);
+    buffer.putShort(StateLayout.MINOR_OFFSET, StateLayout.MINOR_VERSION);
+    buffer.putInt(StateLayout.HEADER_SIZE_OFFSET, StateLayout.HEADER_SIZE);
+    buffer.putInt(StateLayout.RECORD_SIZE_OFFSET, StateLayout.RECORD_SIZE);
+    buffer.putInt(StateLayout.CAPACITY_OFFSET, capacity);
+    buffer.putLong(StateLayout.WRITER_PID_OFFSET, ProcessHandle.current().pid());
+    buffer.putLong(StateLayout.EPOCH_MILLIS_OFFSET, 0); // Nothing published yet
+    buffer.putInt(StateLayout.RECORD_COUNT_OFFSET, 0);
+    buffer.putInt(StateLayout.BODY_COUNT_OFFSET, 0);
+    // The magic goes in last, so a reader never accepts a half written header
+    VarHandle.storeStoreFence();
+    buffer.putInt(StateLayout.MAGIC_OFFSET, StateLayout.MAGIC);
+    sequence += 2;
+    StateLayout.SEQUENCE.setRelease(buffer, StateLayout.SEQUENCE_OFFSET, sequence);
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Writes one tick. Call once the step is over, from the thread that ran it.
+   */
+  public void publish(long tick, List<Entity> entities, PhysicsStats stats) {
+    // --- Step 1: Odd sequence; readers that see it, or see it change, retry ---
+    StateLayout.SEQUENCE.setOpaque(buffer, StateLayout.SEQUENCE_OFFSET, sequence + 1);
+    VarHandle.storeStoreFence();
+
+    // --- Step 2: The tick, in place ---
+    buffer.putLong(StateLayout.TICK_OFFSET, tick);
+    buffer.putLong(StateLayout.TIME_NANOS_OFFSET, System.nanoTime());
+    buffer.putLong(StateLayout.EPOCH_MILLIS_OFFSET, System.currentTimeMillis());
+    buffer.putLong(StateLayout.STEP_NANOS_OFFSET, stats.stepNanos);
+    buffer.putInt(StateLayout.SUB_STEPS_OFFSET, stats.subSteps);
+    buffer.putInt(StateLayout.BROAD_PHASE_PAIRS_OFFSET, stats.broadPhasePairs);
+    buffer.putInt(StateLayout.NARROW_PHASE_PAIRS_OFFSET, stats.narrowPhasePairs);
+    buffer.putInt(StateLayout.AXIS_CACHE_HITS_OFFSET, stats.axisCacheHits);
+    buffer.putInt(StateLayout.GJK_PAIRS_OFFSET, stats.gjkPairs);
+    buffer.putInt(StateLayout.FAR_PAIRS_SKIPPED_OFFSET, stats.farPairsSkipped);
+    buffer.putInt(StateLayout.RESOLVED_CONTACTS_OFFSET, stats.resolvedContacts);
+    buffer.putInt(StateLayout.SPECULATIVE_CONTACTS_OFFSET, stats.speculativeContacts);
+    buffer.putInt(StateLayout.AWAKE_BODIES_OFFSET, stats.awakeBodies);
+
+    int count = Math.min(entities.size(), capacity);
+    for (int i = 0; i < count; i++) {
+      writeRecord(StateLayout.HEADER_SIZE + i * StateLayout.RECORD_SIZE, entities.get(i));
+    }
+    buffer.putInt(StateLayout.RECORD_COUNT_OFFSET, count);
+    buffer.putInt(StateLayout.BODY_COUNT_OFFSET, entities.size());
+
+    // --- Step 3: Even again, after everything above ---
+    sequence += 2;
+    StateLayout.SEQUENCE.setRelease(buffer, StateLayout.SEQUENCE_OFFSET, sequence);
+  }
+
+  private void writeRecord(int offset, Entity entity) {
+    int flags = entity.getBodyType().ordinal() << StateLayout.FLAG_BODY_TYPE_SHIFT;
+    if (entity.isAwake()) {
+      flags |= StateLayout.FLAG_AWAKE;
+    }
+    float minX = 0, minY = 0, maxX = 0, maxY = 0;
+    for (Vector2D v : entity.getVertices()) {
+      minX = Math.min(minX, (float) v.x);
+      minY = Math.min(minY, (float) v.y);
+      maxX = Math.max(maxX, (float) v.x);
+      maxY = Math.max(maxY, (float) v.y);
+    }
+    buffer.putInt(offset + StateLayout.ID_OFFSET, entity.id);
+    buffer.putInt(offset + StateLayout.CATEGORY_OFFSET, entity.getCollisionCategory());
+    buffer.putInt(offset + StateLayout.FLAGS_OFFSET, flags);
+    buffer.putDouble(offset + StateLayout.X_OFFSET, entity.getX());
+    buffer.putDouble(offset + StateLayout.Y_OFFSET, entity.getY());
+    buffer.putDouble(offset + StateLayout.ANGLE_OFFSET, entity.angle);
+    buffer.putDouble(offset + StateLayout.VX_OFFSET, entity.getVx());
+    buffer.putDouble(offset + StateLayout.VY_OFFSET, entity.getVy());
+    buffer.putFloat(offset + StateLayout.MIN_X_OFFSET, minX);
+    buffer.putFloat(offset + StateLayout.MIN_Y_OFFSET, minY);
+    buffer.putFloat(offset + StateLayout.MAX_X_OFFSET, maxX);
+    buffer.putFloat(offset + StateLayout.MAX_Y_OFFSET, maxY);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,78 @@
+package com.chaosgame.inspect;
+
+import java.util.Arrays;
+
+/**
+ * One tick as read by a StateReader. The arrays hold one entry per record
+ * and only grow, so reading into the same frame over and over allocates
+ * nothing once it has seen the largest tick.
+ */
+public class StateFrame {
+
+  public long sequence;
+  public long tick;
+  public long timeNanos; // The writer's System.nanoTime(); only differences mean anything
+  public long epochMillis;
+  public int recordCount;
+  public int bodyCount;
+
+  // --- PhysicsStats of the tick ---
+  public long stepNanos;
+  public int subSteps;
+  public int broadPhasePairs;
+  public int narrowPhasePairs;
+  public int axisCacheHits;
+  public int gjkPairs;
+  public int farPairsSkipped;
+  public int resolvedContacts;
+  public int speculativeContacts;
+  public int awakeBodies;
+
+  // --- Records ---
+  public int[] ids = new int[0];
+  public int[] categories = new int[0];
+  public int[] flags = new int[0];
+  public double[] x = new double[0];
+  public double[] y = new double[0];
+  public double[] angle = new double[0];
+  public double[] vx = new double[0];
+  public double[] vy = new double[0];
+  public float[] minX = new float[0];
+  public float[] minY = new float[0];
+  public float[] maxX = new float[0];
+  public float[] maxY = new float[0];
+
+  void ensureCapacity(int count) {
+    if (ids.length >= count) {
+      return;
+    }
+    int size = Math.max(count, ids.length * 2);
+    ids = Arrays.copyOf(ids, size);
+    categories = Arrays.copyOf(categories, size);
+    flags = Arrays.copyOf(flags, size);
+    x = Arrays.copyOf(x, size);
+    y = Arrays.copyOf(y, size);
+    angle = Arrays.copyOf(angle, size);
+    vx = Arrays.copyOf(vx, size);
+    vy = Arrays.copyOf(vy, size);
+    minX = Arrays.copyOf(minX, size);
+    minY = Arrays.copyOf(minY, size);
+    maxX = Arrays.copyOf(maxX, size);
+    maxY = Arrays.copyOf(maxY, size);
+  }
+
+  public boolean isAwake(int i) {
+    return (flags[i] & StateLayout.FLAG_AWAKE) != 0;
+  }
+
+  /**
+   * The BodyType ordinal of record i.
+   */
+  public int bodyType(int i) {
+    return flags[i] >>> StateLayout.FLAG_BODY_TYPE_SHIFT;
+  }
+
+  public double getStepMs() {
+    return stepNanos / 1_000_000.0;
+  }
+}
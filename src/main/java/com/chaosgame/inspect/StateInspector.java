@@ -0,0 +1,149 @@
+package com.chaosgame.inspect;
+
+import com.chaosgame.physics.BodyType;
+import com.chaosgame.physics.CollisionLayers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Watches a live state file from outside the game, e.g. while chasing a
+ * timing bug that a debugger or extra logging in the game would hide.
+ *
+ * Usage:
+ *
+ * <pre>
+ * StateInspector FILE [--interval MS] [--bodies N] [--once] [--view]
+ * </pre>
+ *
+ * Prints one line per interval with the tick, step time, pair and contact
+ * counts, and how far behind the writer the reading is, followed by the first
+ * N bodies if --bodies is given. --once prints a single reading and exits
+ * with status 1 if there was none; --view opens StateViewer instead.
+ *
+ * The game publishes when started with -Dchaosgame.stateExport=FILE, and
+ * ScenarioRunner with --export FILE.
+ */
+public class StateInspector {
+
+  private static final BodyType[] BODY_TYPES = BodyType.values();
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Path file = null;
+    long interval = 500;
+    int bodies = 0;
+    boolean once = false;
+    boolean view = false;
+
+    for (int i = 0; i < args.length; i++) {
+      String value = i + 1 < args.length ? args[i + 1] : null;
+      switch (args[i]) {
+        case "--interval":
+          interval = Long.parseLong(value);
+          i++;
+          break;
+        case "--bodies":
+          bodies = Integer.parseInt(value);
+          i++;
+          break;
+        case "--once":
+          once = true;
+          break;
+        case "--view":
+          view = true;
+          break;
+        default:
+          if (args[i].startsWith("--") || file != null) {
+            throw new IllegalArgumentException("Unknown option: " + args[i]);
+          }
+          file = Path.of(args[i]);
+      }
+    }
+    if (file == null) {
+      throw new IllegalArgumentException("No state file given");
+    }
+
+    if (view) {
+      StateViewer.show(file);
+      return;
+    }
+
+    // The inspector may well be started before the game
+    if (!Files.exists(file)) {
+      if (once) {
+        System.err.println("[inspect] " + file + " does not exist");
+        System.exit(1);
+      }
+      System.err.println("[inspect] Waiting for " + file + "...");
+      while (!Files.exists(file) || Files.size(file) < StateLayout.HEADER_SIZE) {
+        Thread.sleep(interval);
+      }
+    }
+
+    try (StateReader reader = new StateReader(file)) {
+      System.out.println("[inspect] " + file + ", layout " + StateLayout.MAJOR_VERSION + "."
+          + reader.getMinorVersion() + ", writer pid " + reader.getWriterPid());
+      StateFrame frame = new StateFrame();
+      long lastTick = -1;
+      long lastTimeNanos = 0;
+      while (true) {
+        boolean read = reader.read(frame);
+        if (read) {
+          double ticksPerSecond = lastTick < 0 || frame.timeNanos == lastTimeNanos ? 0
+              : (frame.tick - lastTick) * 1e9 / (frame.timeNanos - lastTimeNanos);
+          System.out.println(summary(frame, ticksPerSecond, reader.getRetries()));
+          for (int i = 0; i < Math.min(bodies, frame.recordCount); i++) {
+            System.out.println(body(frame, i));
+          }
+          lastTick = frame.tick;
+          lastTimeNanos = frame.timeNanos;
+        } else {
+          System.out.println("[inspect] No complete tick"
+              + (reader.isWriterAlive() ? "" : "; the writer is not running"));
+        }
+        if (once) {
+          System.exit(read ? 0 : 1);
+        }
+        Thread.sleep(interval);
+      }
+    }
+  }
+
+  private static String summary(StateFrame frame, double ticksPerSecond, long retries) {
+    return String.format(Locale.ROOT,
+        "tick %d  bodies %d%s  step %.3f ms (%d sub)  pairs %d/%d (%d cached, %d gjk, %d skipped)"
+            + "  contacts %d+%d  awake %d  %.1f ticks/s  age %d ms  retries %d",
+        frame.tick, frame.bodyCount, frame.recordCount < frame.bodyCount ? " (" + frame.recordCount + " shown)" : "",
+        frame.getStepMs(), frame.subSteps, frame.narrowPhasePairs, frame.broadPhasePairs, frame.axisCacheHits,
+        frame.gjkPairs, frame.farPairsSkipped, frame.resolvedContacts, frame.speculativeContacts,
+        frame.awakeBodies, ticksPerSecond, System.currentTimeMillis() - frame.epochMillis, retries);
+  }
+
+  private static String body(StateFrame frame, int i) {
+    int type = frame.bodyType(i);
+    return String.format(Locale.ROOT, "  #%-6d %-7s %-9s %s  pos %9.2f %9.2f  angle %6.3f  vel %8.2f %8.2f",
+        frame.ids[i], categoryName(frame.categories[i]), type < BODY_TYPES.length ? BODY_TYPES[type] : "?",
+        frame.isAwake(i) ? "awake " : "asleep", frame.x[i], frame.y[i], frame.angle[i], frame.vx[i], frame.vy[i]);
+  }
+
+  static String categoryName(int category) {
+    switch (category) {
+      case CollisionLayers.PLAYER:
+        return "player";
+      case CollisionLayers.CRATE:
+        return "crate";
+      case CollisionLayers.WALL:
+        return "wall";
+      case CollisionLayers.DEBRIS:
+        return "debris";
+      case CollisionLayers.GUARD:
+        return "guard";
+      case CollisionLayers.HAND:
+        return "hand";
+      default:
+        return Integer.toHexString(category);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.chaosgame.inspect;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The layout of a live state file: a fixed header followed by one record per
+ * body, all little-endian.
+ *
+ * <pre>
+ * Header (HEADER_SIZE bytes)
+ *   0  int    magic, "CGST"
+ *   4  short  major version; readers refuse any other
+ *   6  short  minor version; only ever appends fields
+ *   8  int    header size, where the first record starts
+ *  12  int    record size
+ *  16  int    capacity, in records
+ *  24  long   writer's process id
+ *  64  long   sequence: odd while a tick is being written, even once it is done
+ *  72  long   tick
+ *  80  long   writer's System.nanoTime() at the tick, for rates
+ *  88  long   wall clock millis at the tick, for age; 0 until the first tick
+ *  96  int    records written this tick
+ * 100  int    bodies in the world; more than the records if over capacity
+ * 104  long   PhysicsStats.stepNanos
+ * 112  int    subSteps, broadPhasePairs, narrowPhasePairs, axisCacheHits,
+ *             gjkPairs, farPairsSkipped, resolvedContacts,
+ *             speculativeContacts, awakeBodies (one int each)
+ *
+ * Record (RECORD_SIZE bytes)
+ *   0  int    entity id
+ *   4  int    collision category
+ *   8  int    flags: FLAG_AWAKE, and the BodyType ordinal shifted by
+ *             FLAG_BODY_TYPE_SHIFT
+ *  16  double x, y, angle, vx, vy
+ *  56  float  local shape bounds: minX, minY, maxX, maxY
+ * </pre>
+ *
+ * A new minor version may only use the reserved header bytes or grow the
+ * record, and readers step by the sizes in the header rather than these
+ * constants, so a reader keeps working with files from newer writers of the
+ * same major version.
+ */
+public final class StateLayout {
+
+  public static final int MAGIC = 'C' | 'G' << 8 | 'S' << 16 | 'T' << 24;
+  public static final short MAJOR_VERSION = 1;
+  public static final short MINOR_VERSION = 0;
+  public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  // --- Header ---
+  public static final int MAGIC_OFFSET = 0;
+  public static final int MAJOR_OFFSET = 4;
+  public static final int MINOR_OFFSET = 6;
+  public static final int HEADER_SIZE_OFFSET = 8;
+  public static final int RECORD_SIZE_OFFSET = 12;
+  public static final int CAPACITY_OFFSET = 16;
+  public static final int WRITER_PID_OFFSET = 24;
+  public static final int SEQUENCE_OFFSET = 64; // On its own cache line from the fields above
+  public static final int TICK_OFFSET = 72;
+  public static final int TIME_NANOS_OFFSET = 80;
+  public static final int EPOCH_MILLIS_OFFSET = 88;
+  public static final int RECORD_COUNT_OFFSET = 96;
+  public static final int BODY_COUNT_OFFSET = 100;
+  public static final int STEP_NANOS_OFFSET = 104;
+  public static final int SUB_STEPS_OFFSET = 112;
+  public static final int BROAD_PHASE_PAIRS_OFFSET = 116;
+  public static final int NARROW_PHASE_PAIRS_OFFSET = 120;
+  public static final int AXIS_CACHE_HITS_OFFSET = 124;
+  public static final int GJK_PAIRS_OFFSET = 128;
+  public static final int FAR_PAIRS_SKIPPED_OFFSET = 132;
+  public static final int RESOLVED_CONTACTS_OFFSET = 136;
+  public static final int SPECULATIVE_CONTACTS_OFFSET = 140;
+  public static final int AWAKE_BODIES_OFFSET = 144;
+  public static final int HEADER_SIZE = 256;
+
+  // --- Record ---
+  public static final int ID_OFFSET = 0;
+  public static final int CATEGORY_OFFSET = 4;
+  public static final int FLAGS_OFFSET = 8;
+  public static final int X_OFFSET = 16;
+  public static final int Y_OFFSET = 24;
+  public static final int ANGLE_OFFSET = 32;
+  public static final int VX_OFFSET = 40;
+  public static final int VY_OFFSET = 48;
+  public static final int MIN_X_OFFSET = 56;
+  public static final int MIN_Y_OFFSET = 60;
+  public static final int MAX_X_OFFSET = 64;
+  public static final int MAX_Y_OFFSET = 68;
+  public static final int RECORD_SIZE = 72;
+
+  public static final int FLAG_AWAKE = 1;
+  public static final int FLAG_BODY_TYPE_SHIFT = 1;
+
+  /**
+   * Ordered access to the sequence word of a mapped file, which plain
+   * ByteBuffer reads and writes do not give.
+   */
+  static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ORDER);
+
+  private StateLayout() {
+  }
+
+  /**
+   * The size of a file holding the given number of records.
+   */
+  public static long fileSize(int headerSize, int recordSize, int capacity) {
+    return headerSize + (long) recordSize * capacity;
+  }
+}
@@ -0,0 +1,191 @@
+package com.chaosgame.inspect;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the live state a StateExporter publishes, from another process.
+ *
+ * The file is mapped read-only, so reading never touches the game: no lock,
+ * no socket, no system call, and the writer cannot tell it is being watched.
+ * read() copies the current tick into a StateFrame and checks the sequence
+ * word before and after; if the writer was in the middle of a tick, the copy
+ * is thrown away and taken again.
+ */
+public class StateReader implements AutoCloseable {
+
+  // A writer publishes in microseconds, so a read that keeps colliding with
+  // it has usually found a writer that died between the two sequence stores
+  private static final int MAX_ATTEMPTS = 64;
+
+  private final Path file;
+  private final FileChannel channel;
+  private MappedByteBuffer buffer;
+  private final int headerSize;
+  private final int recordSize;
+  private final int minorVersion;
+  private int mappedCapacity;
+  private long retries = 0;
+
+  /**
+   * @throws IOException If the file cannot be mapped or was not written by a
+   *                     compatible StateExporter.
+   */
+  public StateReader(Path file) throws IOException {
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      if (channel.size() < StateLayout.HEADER_SIZE) {
+        throw new IOException(file + " is too short to be a state file");
+      }
+      map();
+      if (buffer.getInt(StateLayout.MAGIC_OFFSET) != StateLayout.MAGIC) {
+        throw new IOException(file + " is not a state file");
+      }
+      int major = buffer.getShort(StateLayout.MAJOR_OFFSET);
+      if (major != StateLayout.MAJOR_VERSION) {
+        throw new IOException(file + " has layout version " + major + ", expected "
+            + StateLayout.MAJOR_VERSION);
+      }
+      this.minorVersion = buffer.getShort(StateLayout.MINOR_OFFSET);
+      this.headerSize = buffer.getInt(StateLayout.HEADER_SIZE_OFFSET);
+      this.recordSize = buffer.getInt(StateLayout.RECORD_SIZE_OFFSET);
+      if (headerSize < StateLayout.HEADER_SIZE || recordSize < StateLayout.RECORD_SIZE) {
+        throw new IOException(file + " has a header or record smaller than version "
+            + StateLayout.MAJOR_VERSION + " allows");
+      }
+      mappedCapacity = (int) Math.min(Integer.MAX_VALUE, (channel.size() - headerSize) / recordSize);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private void map() throws IOException {
+    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    buffer.order(StateLayout.ORDER);
+  }
+
+  /**
+   * Copies the latest complete tick into frame.
+   *
+   * @return false if no complete tick could be read, because nothing has been
+   *         published yet or the writer stopped halfway through a tick; frame
+   *         is left holding partial data.
+   */
+  public boolean read(StateFrame frame) throws IOException {
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      if (attempt > 0) {
+        retries++;
+        Thread.onSpinWait();
+      }
+      // --- Step 1: An even sequence; the loads below cannot move above it ---
+      long before = (long) StateLayout.SEQUENCE.getAcquire(buffer, StateLayout.SEQUENCE_OFFSET);
+      if ((before & 1) != 0) {
+        continue;
+      }
+
+      // --- Step 2: Copy, trusting nothing until the sequence is checked ---
+      int capacity = buffer.getInt(StateLayout.CAPACITY_OFFSET);
+      if (capacity > mappedCapacity && !remap(capacity)) {
+        continue;
+      }
+      frame.tick = buffer.getLong(StateLayout.TICK_OFFSET);
+      frame.timeNanos = buffer.getLong(StateLayout.TIME_NANOS_OFFSET);
+      frame.epochMillis = buffer.getLong(StateLayout.EPOCH_MILLIS_OFFSET);
+      frame.stepNanos = buffer.getLong(StateLayout.STEP_NANOS_OFFSET);
+      frame.subSteps = buffer.getInt(StateLayout.SUB_STEPS_OFFSET);
+      frame.broadPhasePairs = buffer.getInt(StateLayout.BROAD_PHASE_PAIRS_OFFSET);
+      frame.narrowPhasePairs = buffer.getInt(StateLayout.NARROW_PHASE_PAIRS_OFFSET);
+      frame.axisCacheHits = buffer.getInt(StateLayout.AXIS_CACHE_HITS_OFFSET);
+      frame.gjkPairs = buffer.getInt(StateLayout.GJK_PAIRS_OFFSET);
+      frame.farPairsSkipped = buffer.getInt(StateLayout.FAR_PAIRS_SKIPPED_OFFSET);
+      frame.resolvedContacts = buffer.getInt(StateLayout.RESOLVED_CONTACTS_OFFSET);
+      frame.speculativeContacts = buffer.getInt(StateLayout.SPECULATIVE_CONTACTS_OFFSET);
+      frame.awakeBodies = buffer.getInt(StateLayout.AWAKE_BODIES_OFFSET);
+      frame.bodyCount = buffer.getInt(StateLayout.BODY_COUNT_OFFSET);
+      // A torn count must not send the copy past the mapping
+      int count = Math.max(0, Math.min(buffer.getInt(StateLayout.RECORD_COUNT_OFFSET),
+          Math.min(capacity, mappedCapacity)));
+      frame.ensureCapacity(count);
+      for (int i = 0; i < count; i++) {
+        readRecord(headerSize + i * recordSize, frame, i);
+      }
+
+      // --- Step 3: Keep the copy only if no tick was written meanwhile ---
+      VarHandle.loadLoadFence();
+      long after = (long) StateLayout.SEQUENCE.getOpaque(buffer, StateLayout.SEQUENCE_OFFSET);
+      if (after == before) {
+        if (buffer.getInt(StateLayout.MAGIC_OFFSET) != StateLayout.MAGIC || frame.epochMillis == 0) {
+          return false; // The header is still being written, or no tick has been
+        }
+        frame.sequence = before;
+        frame.recordCount = count;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean remap(int capacity) throws IOException {
+    long size = StateLayout.fileSize(headerSize, recordSize, capacity);
+    if (channel.size() < size) {
+      return false; // A new writer has not grown the file yet
+    }
+    map();
+    mappedCapacity = capacity;
+    return true;
+  }
+
+  private void readRecord(int offset, StateFrame frame, int i) {
+    frame.ids[i] = buffer.getInt(offset + StateLayout.ID_OFFSET);
+    frame.categories[i] = buffer.getInt(offset + StateLayout.CATEGORY_OFFSET);
+    frame.flags[i] = buffer.getInt(offset + StateLayout.FLAGS_OFFSET);
+    frame.x[i] = buffer.getDouble(offset + StateLayout.X_OFFSET);
+    frame.y[i] = buffer.getDouble(offset + StateLayout.Y_OFFSET);
+    frame.angle[i] = buffer.getDouble(offset + StateLayout.ANGLE_OFFSET);
+    frame.vx[i] = buffer.getDouble(offset + StateLayout.VX_OFFSET);
+    frame.vy[i] = buffer.getDouble(offset + StateLayout.VY_OFFSET);
+    frame.minX[i] = buffer.getFloat(offset + StateLayout.MIN_X_OFFSET);
+    frame.minY[i] = buffer.getFloat(offset + StateLayout.MIN_Y_OFFSET);
+    frame.maxX[i] = buffer.getFloat(offset + StateLayout.MAX_X_OFFSET);
+    frame.maxY[i] = buffer.getFloat(offset + StateLayout.MAX_Y_OFFSET);
+  }
+
+  /**
+   * Whether the process that last opened the file for writing is still
+   * running.
+   */
+  public boolean isWriterAlive() {
+    long pid = buffer.getLong(StateLayout.WRITER_PID_OFFSET);
+    return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+  }
+
+  public long getWriterPid() {
+    return buffer.getLong(StateLayout.WRITER_PID_OFFSET);
+  }
+
+  /**
+   * How many copies were thrown away because the writer was busy.
+   */
+  public long getRetries() {
+    return retries;
+  }
+
+  public int getMinorVersion() {
+    return minorVersion;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,155 @@
+package com.chaosgame.inspect;
+
+import com.chaosgame.physics.CollisionLayers;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * A window that draws the bodies in a live state file as they move, fitted
+ * to the window: each body is its local bounding box, rotated and placed
+ * where the file says, and coloured by collision category. Sleeping bodies
+ * are drawn dimmed.
+ *
+ * It runs in its own process, so it can be watched at any frame rate without
+ * costing the game one.
+ */
+public class StateViewer {
+
+  private static final double WIDTH = 960;
+  private static final double HEIGHT = 640;
+  private static final double PADDING = 20;
+
+  private final StateReader reader;
+  private final StateFrame frame = new StateFrame();
+  private final Canvas canvas = new Canvas(WIDTH, HEIGHT);
+  private boolean hasFrame = false;
+
+  private StateViewer(StateReader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Starts JavaFX and opens a viewer on the file. Returns at once; the
+   * process exits when the window is closed.
+   */
+  public static void show(Path file) throws IOException {
+    StateReader reader = new StateReader(file);
+    Platform.startup(() -> new StateViewer(reader).open());
+  }
+
+  private void open() {
+    Pane root = new Pane(canvas);
+    canvas.widthProperty().bind(root.widthProperty());
+    canvas.heightProperty().bind(root.heightProperty());
+
+    Stage stage = new Stage();
+    stage.setTitle("Chaos Game state - " + reader.getFile());
+    stage.setScene(new Scene(root, WIDTH, HEIGHT));
+    stage.setOnHidden(e -> {
+      try {
+        reader.close();
+      } catch (IOException ex) {
+        System.err.println("[inspect] Could not close " + reader.getFile() + ": " + ex.getMessage());
+      }
+      Platform.exit();
+    });
+    stage.show();
+
+    new AnimationTimer() {
+      @Override
+      public void handle(long now) {
+        try {
+          hasFrame |= reader.read(frame); // On a miss, the last tick stays up
+        } catch (IOException e) {
+          System.err.println("[inspect] Could not read " + reader.getFile() + ": " + e.getMessage());
+          stop();
+        }
+        draw();
+      }
+    }.start();
+  }
+
+  private void draw() {
+    GraphicsContext gc = canvas.getGraphicsContext2D();
+    double width = canvas.getWidth();
+    double height = canvas.getHeight();
+    gc.setFill(Color.rgb(24, 24, 28));
+    gc.fillRect(0, 0, width, height);
+    if (!hasFrame) {
+      gc.setFill(Color.WHITE);
+      gc.fillText("Waiting for " + reader.getFile() + "...", 10, 20);
+      return;
+    }
+
+    // --- Step 1: Fit everything in the frame to the window ---
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < frame.recordCount; i++) {
+      minX = Math.min(minX, frame.x[i] + frame.minX[i]);
+      minY = Math.min(minY, frame.y[i] + frame.minY[i]);
+      maxX = Math.max(maxX, frame.x[i] + frame.maxX[i]);
+      maxY = Math.max(maxY, frame.y[i] + frame.maxY[i]);
+    }
+    double scale = 1;
+    if (frame.recordCount > 0 && maxX > minX && maxY > minY) {
+      scale = Math.min((width - 2 * PADDING) / (maxX - minX), (height - 2 * PADDING) / (maxY - minY));
+    } else {
+      minX = 0;
+      minY = 0;
+    }
+
+    // --- Step 2: The bodies ---
+    for (int i = 0; i < frame.recordCount; i++) {
+      gc.save();
+      gc.translate(PADDING + (frame.x[i] - minX) * scale, PADDING + (frame.y[i] - minY) * scale);
+      gc.rotate(Math.toDegrees(frame.angle[i]));
+      gc.scale(scale, scale);
+      Color color = categoryColor(frame.categories[i]);
+      gc.setFill(frame.isAwake(i) ? color : color.deriveColor(0, 0.5, 0.5, 1));
+      gc.fillRect(frame.minX[i], frame.minY[i], frame.maxX[i] - frame.minX[i], frame.maxY[i] - frame.minY[i]);
+      gc.restore();
+    }
+
+    // --- Step 3: The numbers ---
+    gc.setFill(Color.rgb(0, 0, 0, 0.7));
+    gc.fillRect(0, 0, width, 40);
+    gc.setFill(Color.WHITE);
+    gc.fillText(String.format(Locale.ROOT, "tick %d  bodies %d  awake %d  step %.3f ms  contacts %d+%d",
+        frame.tick, frame.bodyCount, frame.awakeBodies, frame.getStepMs(), frame.resolvedContacts,
+        frame.speculativeContacts), 10, 16);
+    gc.fillText(String.format(Locale.ROOT, "pairs %d/%d  age %d ms  retries %d%s", frame.narrowPhasePairs,
+        frame.broadPhasePairs, System.currentTimeMillis() - frame.epochMillis, reader.getRetries(),
+        reader.isWriterAlive() ? "" : "  (writer stopped)"), 10, 32);
+  }
+
+  private static Color categoryColor(int category) {
+    switch (category) {
+      case CollisionLayers.PLAYER:
+        return Color.DODGERBLUE;
+      case CollisionLayers.CRATE:
+        return Color.BURLYWOOD;
+      case CollisionLayers.WALL:
+        return Color.SLATEGRAY;
+      case CollisionLayers.DEBRIS:
+        return Color.SANDYBROWN;
+      case CollisionLayers.GUARD:
+        return Color.CRIMSON;
+      case CollisionLayers.HAND:
+        return Color.LIGHTGREEN;
+      default:
+        return Color.WHITE;
+    }
+  }
+}
@@ -0,0 +1,302 @@
+package com.chaosgame.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One frame's work, declared as stages and the stages each one has to wait
+ * for. The graph is built once and then run every frame:
+ *
+ * <pre>
+ * FrameGraph graph = new FrameGraph(jobs);
+ * FrameGraph.Stage input = graph.stage("input", this::readInput);
+ * FrameGraph.Stage ai = graph.stage("ai", this::steerGuards);
+ * graph.stage("physics", this::stepWorld, input, ai);
+ *
+ * graph.start(); // Returns at once
+ * // ... anything that does not touch what the stages write ...
+ * graph.join();
+ * </pre>
+ *
+ * Stages with nothing left to wait for run on the JobSystem's workers, so
+ * independent stages (input and AI above) run at the same time, and a stage
+ * may split its own work further with JobSystem.parallelFor. Each stage is
+ * timed; the timings of the last frame can be read once join() returns.
+ *
+ * The stage objects are reused every frame, so running the graph allocates
+ * nothing.
+ */
+public class FrameGraph {
+
+  private static final double SMOOTHING = 0.1; // Weight of the newest frame
+
+  /**
+   * A named piece of the frame and its timings from the last run.
+   */
+  public static final class Stage extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // Stages are never serialized; RecursiveAction just happens to be Serializable
+    private final transient FrameGraph graph;
+    private final String name;
+    private final transient Runnable work;
+    private final transient List<Stage> dependents = new ArrayList<>();
+    private int dependencyCount;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // --- Timings, written by the worker that ran the stage ---
+    private long startNanos; // Since the frame started
+    private long nanos;
+    private double smoothedNanos;
+    private long criticalPathNanos; // Filled in by join()
+
+    private Stage(FrameGraph graph, String name, Runnable work) {
+      this.graph = graph;
+      this.name = name;
+      this.work = work;
+    }
+
+    @Override
+    protected void compute() {
+      long begin = System.nanoTime();
+      startNanos = begin - graph.frameStart;
+      // After a failure the rest of the frame is skipped, but still released
+      // so that join() returns
+      if (graph.failure.get() == null) {
+        try {
+          work.run();
+        } catch (Throwable t) {
+          graph.failure.compareAndSet(null, new IllegalStateException("Frame stage " + name + " failed", t));
+        }
+      }
+      nanos = System.nanoTime() - begin;
+      smoothedNanos += (nanos - smoothedNanos) * SMOOTHING;
+
+      for (int i = 0; i < dependents.size(); i++) {
+        Stage dependent = dependents.get(i);
+        if (dependent.pending.decrementAndGet() == 0) {
+          dependent.fork(); // Onto this worker's own deque, where others can steal it
+        }
+      }
+      graph.stageFinished();
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * How long the stage ran in the last frame.
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * When the stage started in the last frame, counted from start().
+     */
+    public long getStartNanos() {
+      return startNanos;
+    }
+
+    public double getSmoothedMs() {
+      return smoothedNanos / 1_000_000.0;
+    }
+
+    /**
+     * The longest chain of stages ending with this one in the last frame,
+     * counting only their run times.
+     */
+    public long getCriticalPathNanos() {
+      return criticalPathNanos;
+    }
+  }
+
+  private final JobSystem jobs;
+  private final List<Stage> stages = new ArrayList<>(); // In the order added, which dependencies respect
+  private final List<Stage> stagesView = Collections.unmodifiableList(stages);
+  private final List<Stage> roots = new ArrayList<>();
+  private final AtomicInteger remaining = new AtomicInteger();
+  private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+  private boolean running = false; // Guarded by this
+  private boolean started = false; // Whether the last start() has not been joined yet
+  private boolean sealed = false;
+
+  // --- Timings of the last frame ---
+  private volatile long frameStart;
+  private long frameNanos;
+  private long workNanos;
+  private long criticalPathNanos;
+  private long waitNanos;
+
+  public FrameGraph(JobSystem jobs) {
+    this.jobs = jobs;
+  }
+
+  /**
+   * Adds a stage that runs once every stage in dependsOn has finished. Stages
+   * can only depend on stages added before them, so the graph cannot have
+   * cycles. All stages must be added before the first start().
+   */
+  public Stage stage(String name, Runnable work, Stage... dependsOn) {
+    if (sealed) {
+      throw new IllegalStateException("Stages cannot be added once the graph has run");
+    }
+    Stage stage = new Stage(this, name, work);
+    for (Stage dependency : dependsOn) {
+      if (dependency.graph != this) {
+        throw new IllegalArgumentException("Stage " + dependency.name + " belongs to another graph");
+      }
+      dependency.dependents.add(stage);
+      stage.dependencyCount++;
+    }
+    if (stage.dependencyCount == 0) {
+      roots.add(stage);
+    }
+    stages.add(stage);
+    return stage;
+  }
+
+  /**
+   * Starts running a frame on the workers and returns at once. A frame must
+   * be joined before the next one is started.
+   */
+  public void start() {
+    synchronized (this) {
+      if (running) {
+        throw new IllegalStateException("The previous frame has not been joined");
+      }
+      running = stages.size() > 0;
+    }
+    sealed = true;
+    if (stages.isEmpty()) {
+      return;
+    }
+    started = true;
+    for (int i = 0; i < stages.size(); i++) {
+      Stage stage = stages.get(i);
+      stage.reinitialize();
+      stage.pending.set(stage.dependencyCount);
+    }
+    remaining.set(stages.size());
+    failure.set(null);
+    frameStart = System.nanoTime();
+    for (int i = 0; i < roots.size(); i++) {
+      jobs.execute(roots.get(i));
+    }
+  }
+
+  /**
+   * Waits for the running frame, if there is one, to finish. Rethrows the
+   * first exception a stage threw.
+   */
+  public void join() {
+    long begin = System.nanoTime();
+    boolean interrupted = false;
+    synchronized (this) {
+      while (running) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true; // The frame is still using the world, so keep waiting
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (!started) {
+      return;
+    }
+    started = false;
+    // The last stage lets join() go just before the pool marks its task
+    // done; the tasks must be done before start() can reuse them
+    for (int i = 0; i < stages.size(); i++) {
+      stages.get(i).quietlyJoin();
+    }
+    waitNanos = System.nanoTime() - begin;
+
+    // --- Summaries of the frame ---
+    for (int i = 0; i < stages.size(); i++) {
+      stages.get(i).criticalPathNanos = 0;
+    }
+    workNanos = 0;
+    criticalPathNanos = 0;
+    for (int i = 0; i < stages.size(); i++) {
+      Stage stage = stages.get(i);
+      stage.criticalPathNanos += stage.nanos; // Dependencies came first and raised it to their longest chain
+      workNanos += stage.nanos;
+      criticalPathNanos = Math.max(criticalPathNanos, stage.criticalPathNanos);
+      for (int j = 0; j < stage.dependents.size(); j++) {
+        Stage dependent = stage.dependents.get(j);
+        dependent.criticalPathNanos = Math.max(dependent.criticalPathNanos, stage.criticalPathNanos);
+      }
+    }
+
+    RuntimeException exception = failure.getAndSet(null);
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private void stageFinished() {
+    if (remaining.decrementAndGet() == 0) {
+      frameNanos = System.nanoTime() - frameStart;
+      synchronized (this) {
+        running = false;
+        notifyAll();
+      }
+    }
+  }
+
+  public synchronized boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * The stages in the order they were added.
+   */
+  public List<Stage> getStages() {
+    return stagesView;
+  }
+
+  /**
+   * Wall-clock time from start() until the last stage finished.
+   */
+  public long getFrameNanos() {
+    return frameNanos;
+  }
+
+  /**
+   * The run times of all stages added up: what the frame would take on one
+   * thread. Divided by getFrameNanos(), it is how well the frame spread
+   * across the workers.
+   */
+  public long getWorkNanos() {
+    return workNanos;
+  }
+
+  /**
+   * The longest chain of dependent stages in the last frame; no number of
+   * workers could run the frame faster than this.
+   */
+  public long getCriticalPathNanos() {
+    return criticalPathNanos;
+  }
+
+  /**
+   * How long the last join() blocked: the part of the frame that did not
+   * overlap with whatever the caller did in the meantime.
+   */
+  public long getWaitNanos() {
+    return waitNanos;
+  }
+
+  public JobSystem getJobSystem() {
+    return jobs;
+  }
+}
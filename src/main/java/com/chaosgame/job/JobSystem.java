@@ -0,0 +1,130 @@
+package com.chaosgame.job;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A work-stealing pool for per-frame jobs: the stages of a FrameGraph, and
+ * loops split into chunks with parallelFor.
+ *
+ * Every worker has its own deque of tasks. Chunks a worker splits off go onto
+ * its own deque, and idle workers steal from the other end of a busy worker's
+ * deque, so uneven chunks (a batch of sleeping bodies next to a batch of busy
+ * ones) even out without any central queue.
+ *
+ * The pool has one worker per core but one, as the JavaFX Application Thread
+ * needs a core to render on, unless set with -Dchaosgame.jobThreads=N.
+ */
+public class JobSystem {
+
+  /**
+   * The body of a parallel loop, run once per chunk over [from, to).
+   */
+  @FunctionalInterface
+  public interface RangeTask {
+    void run(int from, int to);
+  }
+
+  private final ForkJoinPool pool;
+
+  public JobSystem() {
+    this(Integer.getInteger("chaosgame.jobThreads", Math.max(1, Runtime.getRuntime().availableProcessors() - 1)));
+  }
+
+  /**
+   * @param threads How many workers the pool has.
+   */
+  public JobSystem(int threads) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.pool = new ForkJoinPool(Math.max(1, threads), forkJoinPool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+      thread.setName("frame-job-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, null, false);
+  }
+
+  public int getThreadCount() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * How many tasks idle workers have taken from busy ones so far.
+   */
+  public long getStealCount() {
+    return pool.getStealCount();
+  }
+
+  /**
+   * Runs task over [0, count) in chunks of at most grain items, and returns
+   * once every chunk is done. Loops no longer than one chunk run inline on the
+   * calling thread, so small worlds pay nothing for the pool. Chunks must not
+   * write anything another chunk reads.
+   */
+  public void parallelFor(int count, int grain, RangeTask task) {
+    if (count <= grain) {
+      if (count > 0) {
+        task.run(0, count);
+      }
+      return;
+    }
+    Chunk root = new Chunk(task, 0, count, Math.max(1, grain));
+    if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+      root.invoke();
+    } else {
+      pool.invoke(root);
+    }
+  }
+
+  /**
+   * Queues a task to run on the pool. Used by FrameGraph for the stages that
+   * are ready when a frame starts.
+   */
+  void execute(ForkJoinTask<?> task) {
+    pool.execute(task);
+  }
+
+  /**
+   * Stops the workers once the tasks already queued have run.
+   */
+  public void shutdown() {
+    pool.shutdown();
+    try {
+      pool.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Halves its range until it is one chunk, running one half itself and
+  // leaving the other on its deque for a thief
+  private static final class Chunk extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient RangeTask task;
+    private final int from;
+    private final int to;
+    private final int grain;
+
+    Chunk(RangeTask task, int from, int to, int grain) {
+      this.task = task;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        task.run(from, to);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new Chunk(task, from, middle, grain), new Chunk(task, middle, to, grain));
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package com.chaosgame.net;
+
+import com.chaosgame.entity.Hand;
+import com.chaosgame.entity.Player;
+import javafx.scene.input.KeyCode;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Connects to a GameServer, sends it inputs and rebuilds the world from its
+ * snapshots.
+ *
+ * The client's own Player is predicted: every input is applied locally as soon
+ * as it is made, instead of waiting a round trip for the server. When a
+ * snapshot arrives, the predicted player is moved to the server's state for
+ * the last input the server had processed, and every newer input is replayed
+ * on top (reconciliation). Prediction only covers the player's own movement;
+ * pushes from other bodies show up as corrections.
+ */
+public class GameClient implements AutoCloseable {
+
+  private static final int HISTORY = 64; // Received snapshots kept as delta baselines
+  private static final int PENDING = 128; // Inputs kept for replay
+  private static final long HELLO_INTERVAL_NANOS = 250_000_000L;
+  private static final int REDUNDANT_INPUTS = 3; // Inputs repeated in each packet
+
+  private final PacketChannel channel;
+  private final SocketAddress server;
+  private final LongSupplier clock;
+
+  private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_BYTES);
+  private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_BYTES);
+  private final SnapshotCodec codec = new SnapshotCodec();
+  private final WorldSnapshot[] history = new WorldSnapshot[HISTORY];
+  private final WorldSnapshot emptyBaseline = new WorldSnapshot();
+  private WorldSnapshot world = emptyBaseline; // The newest complete snapshot
+  private int newestTick = Protocol.NO_TICK;
+
+  // --- Prediction ---
+  private final Player predicted = new Player(0, 0, new Hand());
+  private final Set<KeyCode> keys = EnumSet.noneOf(KeyCode.class);
+  private final PlayerInput[] pending = new PlayerInput[PENDING];
+  private final double[] pendingDelta = new double[PENDING];
+  private final double[] predictedX = new double[PENDING]; // Where prediction put the player after each input
+  private final double[] predictedY = new double[PENDING];
+  private int nextSequence = 0;
+  private int playerId = -1;
+  private boolean positioned = false; // Whether the predicted player has had its first server state
+  private boolean helloSent = false;
+  private long lastHelloNanos;
+
+  // --- Counters ---
+  private long snapshotsReceived;
+  private long snapshotsRejected; // Baseline no longer held, or malformed
+  private double lastCorrection; // Distance between prediction and server, in pixels
+  private double totalCorrection;
+  private long corrections;
+
+  /**
+   * @param server     The server's address.
+   * @param conditions Simulated impairment of this client's outgoing packets.
+   */
+  public GameClient(InetSocketAddress server, NetworkConditions conditions, LongSupplier clock, long seed)
+      throws IOException {
+    this.channel = new PacketChannel(new InetSocketAddress(server.getAddress(), 0), conditions, clock, seed);
+    this.server = server;
+    this.clock = clock;
+    for (int i = 0; i < HISTORY; i++) {
+      history[i] = new WorldSnapshot();
+    }
+    for (int i = 0; i < PENDING; i++) {
+      pending[i] = new PlayerInput();
+    }
+  }
+
+  public boolean isConnected() {
+    return playerId >= 0;
+  }
+
+  /**
+   * The locally predicted player. Its position is only meaningful once the
+   * first snapshot containing it has arrived.
+   */
+  public Player getPredictedPlayer() {
+    return predicted;
+  }
+
+  public int getPlayerId() {
+    return playerId;
+  }
+
+  /**
+   * The newest world state from the server, for drawing everything except the
+   * predicted player.
+   */
+  public WorldSnapshot getWorld() {
+    return world;
+  }
+
+  public PacketChannel getChannel() {
+    return channel;
+  }
+
+  public long getSnapshotsReceived() {
+    return snapshotsReceived;
+  }
+
+  public long getSnapshotsRejected() {
+    return snapshotsRejected;
+  }
+
+  public double getLastCorrection() {
+    return lastCorrection;
+  }
+
+  public double getMeanCorrection() {
+    return corrections == 0 ? 0 : totalCorrection / corrections;
+  }
+
+  /**
+   * Runs one client tick: read snapshots, predict this tick's input locally
+   * and send it.
+   *
+   * @param aimX     World x of the mouse.
+   * @param aimY     World y of the mouse.
+   * @param grabbing Whether the grab button is held.
+   */
+  public void tick(double delta, Set<KeyCode> pressedKeys, double aimX, double aimY, boolean grabbing)
+      throws IOException {
+    SocketAddress sender;
+    while ((sender = channel.receive(receiveBuffer)) != null) {
+      if (sender.equals(server)) {
+        handlePacket(receiveBuffer);
+      }
+    }
+
+    if (!isConnected()) {
+      long now = clock.getAsLong();
+      if (!helloSent || now - lastHelloNanos >= HELLO_INTERVAL_NANOS) {
+        helloSent = true;
+        lastHelloNanos = now;
+        sendBuffer.clear();
+        sendBuffer.put(Protocol.HELLO);
+        sendBuffer.flip();
+        channel.send(sendBuffer, server);
+      }
+      channel.flush();
+      return;
+    }
+
+    // --- Predict: apply the input locally right away ---
+    int slot = nextSequence % PENDING;
+    PlayerInput input = pending[slot];
+    input.set(nextSequence++, PlayerInput.buttonsFor(pressedKeys, grabbing), aimX, aimY);
+    pendingDelta[slot] = delta;
+    if (positioned) {
+      step(input, delta);
+    }
+    predictedX[slot] = predicted.getX();
+    predictedY[slot] = predicted.getY();
+
+    sendBuffer.clear();
+    sendBuffer.put(Protocol.INPUT);
+    sendBuffer.putInt(newestTick);
+    int count = Math.min(REDUNDANT_INPUTS, nextSequence);
+    sendBuffer.put((byte) count);
+    for (int sequence = nextSequence - count; sequence < nextSequence; sequence++) {
+      pending[sequence % PENDING].write(sendBuffer);
+    }
+    sendBuffer.flip();
+    channel.send(sendBuffer, server);
+    channel.flush();
+  }
+
+  private void handlePacket(ByteBuffer packet) {
+    if (!packet.hasRemaining()) {
+      return;
+    }
+    try {
+      switch (packet.get()) {
+        case Protocol.WELCOME:
+          playerId = Protocol.getVarUInt(packet);
+          break;
+        case Protocol.SNAPSHOT:
+          readSnapshot(packet);
+          break;
+        case Protocol.BYE:
+          playerId = -1;
+          positioned = false;
+          break;
+        default:
+          break;
+      }
+    } catch (RuntimeException e) {
+      snapshotsRejected++; // Truncated or malformed
+    }
+  }
+
+  private void readSnapshot(ByteBuffer packet) {
+    int tick = packet.getInt();
+    int baselineTick = packet.getInt();
+    int lastProcessedInput = packet.getInt();
+    if (tick <= newestTick) {
+      return; // Arrived out of order; a newer state is already applied
+    }
+
+    WorldSnapshot baseline = emptyBaseline;
+    if (baselineTick != Protocol.NO_TICK) {
+      baseline = history[baselineTick % HISTORY];
+      if (baseline.tick != baselineTick) {
+        snapshotsRejected++; // We no longer have the state it is relative to
+        return;
+      }
+    }
+    WorldSnapshot result = history[tick % HISTORY];
+    if (result == baseline || !codec.decode(packet, baseline, result)) {
+      snapshotsRejected++;
+      result.clear();
+      return;
+    }
+    result.tick = tick;
+    world = result;
+    newestTick = tick;
+    snapshotsReceived++;
+    reconcile(lastProcessedInput);
+  }
+
+  /**
+   * Moves the predicted player to the server's state after the given input,
+   * then replays every input the server has not seen yet.
+   */
+  private void reconcile(int lastProcessedInput) {
+    int index = world.indexOf(playerId);
+    if (index < 0 || lastProcessedInput < 0 && positioned) {
+      return;
+    }
+    double serverX = Protocol.dequantize(world.xs[index], Protocol.POSITION_SCALE);
+    double serverY = Protocol.dequantize(world.ys[index], Protocol.POSITION_SCALE);
+
+    // How far off the prediction was for that input
+    if (positioned && lastProcessedInput >= 0 && nextSequence - lastProcessedInput <= PENDING) {
+      int slot = lastProcessedInput % PENDING;
+      lastCorrection = Math.hypot(predictedX[slot] - serverX, predictedY[slot] - serverY);
+      totalCorrection += lastCorrection;
+      corrections++;
+    }
+
+    predicted.setX(serverX);
+    predicted.setY(serverY);
+    predicted.setVx(Protocol.dequantize(world.vxs[index], Protocol.VELOCITY_SCALE));
+    predicted.setVy(Protocol.dequantize(world.vys[index], Protocol.VELOCITY_SCALE));
+    positioned = true;
+
+    int first = Math.max(lastProcessedInput + 1, nextSequence - PENDING);
+    for (int sequence = first; sequence < nextSequence; sequence++) {
+      int slot = sequence % PENDING;
+      step(pending[slot], pendingDelta[slot]);
+      predictedX[slot] = predicted.getX();
+      predictedY[slot] = predicted.getY();
+    }
+  }
+
+  // The same per-player work as the server's tick, minus collisions
+  private void step(PlayerInput input, double delta) {
+    input.applyTo(predicted, keys);
+    predicted.updatePhysics(delta);
+    predicted.updatePosition(delta);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (isConnected()) {
+      sendBuffer.clear();
+      sendBuffer.put(Protocol.BYE);
+      sendBuffer.flip();
+      channel.send(sendBuffer, server);
+      channel.flush();
+    }
+    channel.close();
+  }
+}
@@ -0,0 +1,450 @@
+package com.chaosgame.net;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.EntityRegistry;
+import com.chaosgame.entity.Hand;
+import com.chaosgame.entity.Player;
+import com.chaosgame.entity.Crate;
+import com.chaosgame.entity.Wall;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.physics.CollisionMatrix;
+import com.chaosgame.physics.PhysicsEngine;
+import javafx.scene.input.KeyCode;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * The authoritative, headless simulation for a networked game.
+ *
+ * Each tick mirrors AbstractPlayableLevelView.update(): apply the queued
+ * spawns, feed every player its latest input, handle grabbing, then step the
+ * PhysicsEngine. Clients only send inputs; everything they see comes from
+ * snapshots.
+ *
+ * Every SNAPSHOT_INTERVAL ticks each client is sent one snapshot packet. It is
+ * delta-compressed against the newest snapshot that client has acknowledged
+ * and capped at its byte budget, so bandwidth per client stays fixed however
+ * many bodies are moving (see SnapshotCodec). Sockets are non-blocking and
+ * only touched from tick(), so the whole server runs on one thread.
+ */
+public class GameServer implements AutoCloseable {
+
+  public static final int TICK_RATE = 60;
+  public static final int SNAPSHOT_INTERVAL = 3; // 20 snapshots per second
+  public static final int MAX_CLIENTS = 16;
+  private static final int HISTORY = 64; // Sent snapshots kept per client, as delta baselines
+  private static final long CLIENT_TIMEOUT_NANOS = 5_000_000_000L;
+  private static final int INPUT_QUEUE = 32; // Must exceed the client's redundancy
+  private static final int MAX_INPUT_BACKLOG = 4; // Queued inputs beyond this are skipped to catch up
+
+  /**
+   * A connected client and the player it controls.
+   */
+  private static class Connection {
+    final SocketAddress address;
+    final Player player;
+    final PlayerInput input = new PlayerInput(); // The input being applied this tick
+    final PlayerInput[] queue = new PlayerInput[INPUT_QUEUE]; // Received inputs, by sequence
+    int newestReceived = -1;
+    final Set<KeyCode> keys = EnumSet.noneOf(KeyCode.class);
+    final WorldSnapshot[] history = new WorldSnapshot[HISTORY];
+    int lastProcessedInput = -1;
+    int ackedTick = Protocol.NO_TICK;
+    long lastHeardNanos;
+    boolean grabHeld;
+
+    Connection(SocketAddress address, Player player) {
+      this.address = address;
+      this.player = player;
+      for (int i = 0; i < HISTORY; i++) {
+        history[i] = new WorldSnapshot();
+      }
+      for (int i = 0; i < INPUT_QUEUE; i++) {
+        queue[i] = new PlayerInput();
+        queue[i].sequence = -1;
+      }
+    }
+
+    /**
+     * Takes the next input in sequence, so each client input is simulated for
+     * exactly one tick, as the client predicted it. If none has arrived the
+     * previous input is held; if too many are queued, the oldest are skipped
+     * so lag does not build up.
+     */
+    void nextInput() {
+      int first = Math.max(lastProcessedInput + 1, newestReceived - MAX_INPUT_BACKLOG);
+      for (int sequence = first; sequence <= newestReceived; sequence++) {
+        PlayerInput queued = queue[sequence % INPUT_QUEUE];
+        if (queued.sequence == sequence) {
+          input.copyFrom(queued);
+          lastProcessedInput = sequence;
+          return;
+        }
+      }
+    }
+  }
+
+  private final PacketChannel channel;
+  private final LongSupplier clock;
+  private final EntityRegistry registry = new EntityRegistry();
+  private final List<Entity> entities = registry.getEntities();
+  private final PhysicsEngine physicsEngine = new PhysicsEngine();
+  private final CollisionMatrix collisionMatrix = CollisionMatrix.createDefault();
+  private final Map<SocketAddress, Connection> connections = new HashMap<>();
+  private final List<Connection> connectionList = new ArrayList<>();
+  private final List<Entity> grabCandidates = new ArrayList<>();
+
+  // --- Reused per tick ---
+  private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_BYTES);
+  private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(Protocol.MAX_PACKET_BYTES);
+  private final PlayerInput scratchInput = new PlayerInput();
+  private final WorldSnapshot current = new WorldSnapshot();
+  private final WorldSnapshot emptyBaseline = new WorldSnapshot();
+  private final SnapshotCodec codec = new SnapshotCodec();
+
+  private int snapshotBudget = Protocol.MAX_PACKET_BYTES;
+  private int tick = 0;
+  private final double spawnX, spawnY;
+
+  /**
+   * Binds the server socket.
+   *
+   * @param bindAddress Where to listen; port 0 picks a free port.
+   * @param conditions  Simulated impairment of the server's outgoing packets.
+   * @param clock       Nanosecond clock for timeouts and simulated latency.
+   */
+  public GameServer(InetSocketAddress bindAddress, NetworkConditions conditions, LongSupplier clock, double spawnX,
+      double spawnY) throws IOException {
+    this.channel = new PacketChannel(bindAddress, conditions, clock, 1);
+    this.clock = clock;
+    this.spawnX = spawnX;
+    this.spawnY = spawnY;
+    registry.setListener(new EntityRegistry.Listener() {
+      @Override
+      public void onSpawned(Entity entity) {
+        collisionMatrix.apply(entity);
+      }
+
+      @Override
+      public void onDespawned(Entity entity) {
+      }
+    });
+  }
+
+  public InetSocketAddress getLocalAddress() throws IOException {
+    return channel.getLocalAddress();
+  }
+
+  /**
+   * Adds an entity to the world at the next tick; used to build the level.
+   */
+  public long addEntity(Entity entity) {
+    return registry.spawn(entity);
+  }
+
+  /**
+   * Limits each snapshot packet, and therefore each client's download, to this
+   * many bytes per SNAPSHOT_INTERVAL ticks.
+   */
+  public void setSnapshotBudget(int bytes) {
+    this.snapshotBudget = Math.max(64, Math.min(bytes, Protocol.MAX_PACKET_BYTES));
+  }
+
+  public int getTick() {
+    return tick;
+  }
+
+  public int getClientCount() {
+    return connectionList.size();
+  }
+
+  public List<Entity> getEntities() {
+    return entities;
+  }
+
+  public PhysicsEngine getPhysicsEngine() {
+    return physicsEngine;
+  }
+
+  public PacketChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Changed entities that did not fit in the last snapshot sent.
+   */
+  public int getLastEntriesPending() {
+    return codec.getLastEntriesPending();
+  }
+
+  /**
+   * Runs one simulation tick: network in, simulate, network out.
+   */
+  public void tick(double delta) throws IOException {
+    // --- Step 1: Read everything the clients sent ---
+    SocketAddress sender;
+    while ((sender = channel.receive(receiveBuffer)) != null) {
+      handlePacket(sender, receiveBuffer);
+    }
+    dropTimedOutClients();
+
+    // --- Step 2: Simulate, exactly as the local game loop does ---
+    registry.flush();
+    for (int i = 0; i < connectionList.size(); i++) {
+      Connection connection = connectionList.get(i);
+      connection.nextInput();
+      connection.input.applyTo(connection.player, connection.keys);
+      handleGrabbing(connection);
+      connection.player.updatePhysics(delta);
+    }
+    physicsEngine.update(entities, delta);
+    tick++;
+
+    // --- Step 3: Snapshots ---
+    if (tick % SNAPSHOT_INTERVAL == 0 && !connectionList.isEmpty()) {
+      current.capture(tick, entities);
+      for (int i = 0; i < connectionList.size(); i++) {
+        sendSnapshot(connectionList.get(i));
+      }
+    }
+    channel.flush();
+  }
+
+  /**
+   * Runs the server in real time until the thread is interrupted.
+   */
+  public void run() throws IOException {
+    long tickNanos = 1_000_000_000L / TICK_RATE;
+    long next = System.nanoTime();
+    while (!Thread.currentThread().isInterrupted()) {
+      tick(1.0 / TICK_RATE);
+      next += tickNanos;
+      long sleep = next - System.nanoTime();
+      if (sleep > 0) {
+        try {
+          Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      } else {
+        next = System.nanoTime(); // Running behind: don't try to catch up in a burst
+      }
+    }
+  }
+
+  private void handlePacket(SocketAddress sender, ByteBuffer packet) throws IOException {
+    if (!packet.hasRemaining()) {
+      return;
+    }
+    byte type = packet.get();
+    Connection connection = connections.get(sender);
+    try {
+      switch (type) {
+        case Protocol.HELLO:
+          if (connection == null) {
+            connection = connect(sender);
+            if (connection == null) {
+              return; // Full
+            }
+          }
+          sendWelcome(connection); // Again, if the first welcome was lost
+          break;
+        case Protocol.INPUT:
+          if (connection != null) {
+            readInput(connection, packet);
+          }
+          break;
+        case Protocol.BYE:
+          if (connection != null) {
+            disconnect(connection);
+          }
+          break;
+        default:
+          break; // Unknown packets are ignored
+      }
+    } catch (RuntimeException e) {
+      // A malformed packet must never take the server down
+    }
+    if (connection != null) {
+      connection.lastHeardNanos = clock.getAsLong();
+    }
+  }
+
+  private Connection connect(SocketAddress address) {
+    if (connectionList.size() >= MAX_CLIENTS) {
+      return null;
+    }
+    Hand hand = new Hand();
+    int slot = connectionList.size();
+    Player player = new Player((int) (spawnX + (slot % 4) * 60), (int) (spawnY + (slot / 4) * 60), hand);
+    registry.spawn(player);
+    registry.spawn(hand);
+    Connection connection = new Connection(address, player);
+    connection.lastHeardNanos = clock.getAsLong();
+    connections.put(address, connection);
+    connectionList.add(connection);
+    return connection;
+  }
+
+  private void disconnect(Connection connection) {
+    connection.player.releaseObject();
+    registry.despawn(connection.player);
+    registry.despawn(connection.player.getHand());
+    connections.remove(connection.address);
+    connectionList.remove(connection);
+  }
+
+  private void dropTimedOutClients() {
+    long now = clock.getAsLong();
+    for (int i = connectionList.size() - 1; i >= 0; i--) {
+      Connection connection = connectionList.get(i);
+      if (now - connection.lastHeardNanos > CLIENT_TIMEOUT_NANOS) {
+        disconnect(connection);
+      }
+    }
+  }
+
+  private void sendWelcome(Connection connection) throws IOException {
+    sendBuffer.clear();
+    sendBuffer.put(Protocol.WELCOME);
+    Protocol.putVarUInt(sendBuffer, connection.player.id);
+    Protocol.putVarUInt(sendBuffer, connection.player.getHand().id);
+    sendBuffer.putInt(tick);
+    sendBuffer.flip();
+    channel.send(sendBuffer, connection.address);
+  }
+
+  // Each packet repeats the client's last few inputs, so one lost packet
+  // loses no input
+  private void readInput(Connection connection, ByteBuffer packet) {
+    int ackedTick = packet.getInt();
+    if (ackedTick > connection.ackedTick) {
+      connection.ackedTick = ackedTick;
+    }
+    int count = packet.get() & 0xff;
+    for (int i = 0; i < count; i++) {
+      scratchInput.read(packet);
+      int sequence = scratchInput.sequence;
+      if (sequence <= connection.lastProcessedInput || sequence < connection.newestReceived - INPUT_QUEUE + 1) {
+        continue; // Already simulated, or too old to queue
+      }
+      connection.queue[sequence % INPUT_QUEUE].copyFrom(scratchInput);
+      connection.newestReceived = Math.max(connection.newestReceived, sequence);
+    }
+  }
+
+  private void handleGrabbing(Connection connection) {
+    Player player = connection.player;
+    boolean grab = (connection.input.buttons & PlayerInput.GRAB) != 0;
+    if (grab && !connection.grabHeld) {
+      player.startGrabbing();
+    } else if (!grab && connection.grabHeld) {
+      player.releaseObject();
+    }
+    connection.grabHeld = grab;
+    if (player.isGrabbing() && !player.isHoldingObject()) {
+      Hand hand = player.getHand();
+      grabCandidates.clear();
+      physicsEngine.queryPoint(entities, hand.getX(), hand.getY(), CollisionLayers.GRABBABLE, grabCandidates);
+      if (!grabCandidates.isEmpty()) {
+        player.grabObject(grabCandidates.get(0));
+      }
+    }
+  }
+
+  private void sendSnapshot(Connection connection) throws IOException {
+    // Delta against the newest snapshot the client has confirmed, if we still have it
+    WorldSnapshot baseline = emptyBaseline;
+    if (connection.ackedTick != Protocol.NO_TICK) {
+      WorldSnapshot acked = connection.history[connection.ackedTick % HISTORY];
+      if (acked.tick == connection.ackedTick) {
+        baseline = acked;
+      }
+    }
+
+    sendBuffer.clear();
+    sendBuffer.limit(snapshotBudget);
+    WorldSnapshot sent = connection.history[tick % HISTORY];
+    if (sent == baseline) {
+      baseline = emptyBaseline; // The ack is so old that its slot is being reused
+    }
+    sendBuffer.put(Protocol.SNAPSHOT);
+    sendBuffer.putInt(tick);
+    sendBuffer.putInt(baseline.tick);
+    sendBuffer.putInt(connection.lastProcessedInput);
+    codec.encode(current, baseline, connection.player.id, sendBuffer, sent);
+    sendBuffer.flip();
+    channel.send(sendBuffer, connection.address);
+  }
+
+  @Override
+  public void close() throws IOException {
+    sendBuffer.clear();
+    sendBuffer.put(Protocol.BYE);
+    sendBuffer.flip();
+    for (int i = 0; i < connectionList.size(); i++) {
+      sendBuffer.rewind();
+      channel.send(sendBuffer, connectionList.get(i).address);
+    }
+    channel.flush();
+    channel.close();
+  }
+
+  /**
+   * Builds an arena of the given number of crates inside four walls, for the
+   * stand-alone server and for loopback tests.
+   */
+  public void buildArena(int crates, long seed) {
+    Random random = new Random(seed);
+    int columns = (int) Math.ceil(Math.sqrt(crates * 2.0));
+    double spacing = 40;
+    double width = columns * spacing + 200;
+    double height = Math.ceil((double) crates / columns) * spacing + 300;
+    addEntity(new Wall(-20, -20, width + 40, 20));
+    addEntity(new Wall(-20, height, width + 40, 20));
+    addEntity(new Wall(-20, 0, 20, height));
+    addEntity(new Wall(width, 0, 20, height));
+    for (int i = 0; i < crates; i++) {
+      int x = (int) (100 + (i % columns) * spacing + random.nextInt(8));
+      int y = (int) (250 + (i / columns) * spacing + random.nextInt(8));
+      addEntity(new Crate(x, y, 14 + random.nextInt(10)));
+    }
+  }
+
+  /**
+   * Runs a stand-alone server: GameServer [--port N] [--crates N].
+   */
+  public static void main(String[] args) throws IOException {
+    int port = Protocol.DEFAULT_PORT;
+    int crates = 1000;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--port":
+          port = Integer.parseInt(args[i + 1]);
+          break;
+        case "--crates":
+          crates = Integer.parseInt(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    try (GameServer server = new GameServer(new InetSocketAddress(port), NetworkConditions.NONE, System::nanoTime,
+        100, 100)) {
+      server.buildArena(crates, 42);
+      System.err.println("Listening on " + server.getLocalAddress() + " with " + crates + " crates");
+      server.run();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.chaosgame.net;
+
+/**
+ * Simulated network impairment applied to outgoing packets by PacketChannel,
+ * so loss and latency can be tested over loopback.
+ */
+public class NetworkConditions {
+
+  public static final NetworkConditions NONE = new NetworkConditions(0, 0, 0);
+
+  public final double lossRate; // Fraction of packets silently dropped, 0..1
+  public final double latencyMillis; // One-way delay added to every packet
+  public final double jitterMillis; // Extra random delay, uniform in 0..jitter
+
+  public NetworkConditions(double lossRate, double latencyMillis, double jitterMillis) {
+    if (lossRate < 0 || lossRate > 1 || latencyMillis < 0 || jitterMillis < 0) {
+      throw new IllegalArgumentException(
+          "Invalid network conditions: loss " + lossRate + ", latency " + latencyMillis + ", jitter " + jitterMillis);
+    }
+    this.lossRate = lossRate;
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+  }
+
+  public boolean isPerfect() {
+    return lossRate == 0 && latencyMillis == 0 && jitterMillis == 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("loss %.0f%%, latency %.0f ms, jitter %.0f ms", lossRate * 100, latencyMillis,
+        jitterMillis);
+  }
+}
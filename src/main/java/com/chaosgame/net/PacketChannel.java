@@ -0,0 +1,157 @@
+package com.chaosgame.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * A non-blocking UDP socket that can impair its own outgoing traffic according
+ * to NetworkConditions. With perfect conditions packets go straight to the
+ * DatagramChannel; otherwise they may be dropped, or are copied and held back
+ * until their delivery time and sent by flush().
+ *
+ * Time comes from a supplied nanosecond clock, so a test can run a whole
+ * session on a simulated clock much faster than real time.
+ */
+public class PacketChannel implements AutoCloseable {
+
+  private static class DelayedPacket implements Comparable<DelayedPacket> {
+    final long dueNanos;
+    final long order; // Keeps packets due at the same instant in send order
+    final byte[] data;
+    final SocketAddress target;
+
+    DelayedPacket(long dueNanos, long order, byte[] data, SocketAddress target) {
+      this.dueNanos = dueNanos;
+      this.order = order;
+      this.data = data;
+      this.target = target;
+    }
+
+    @Override
+    public int compareTo(DelayedPacket other) {
+      int byTime = Long.compare(dueNanos, other.dueNanos);
+      return byTime != 0 ? byTime : Long.compare(order, other.order);
+    }
+  }
+
+  private final DatagramChannel channel;
+  private final NetworkConditions conditions;
+  private final LongSupplier clock;
+  private final Random random;
+  private final PriorityQueue<DelayedPacket> delayed = new PriorityQueue<>();
+  private long sendOrder = 0;
+
+  // --- Counters ---
+  private long packetsSent;
+  private long packetsDropped;
+  private long bytesSent;
+  private long packetsReceived;
+  private long bytesReceived;
+
+  /**
+   * Opens a non-blocking socket bound to the given local address (port 0 for
+   * any free port).
+   */
+  public PacketChannel(InetSocketAddress bindAddress, NetworkConditions conditions, LongSupplier clock, long seed)
+      throws IOException {
+    this.channel = DatagramChannel.open(StandardProtocolFamily.INET);
+    this.channel.configureBlocking(false);
+    this.channel.bind(bindAddress);
+    this.conditions = conditions;
+    this.clock = clock;
+    this.random = new Random(seed);
+  }
+
+  public InetSocketAddress getLocalAddress() throws IOException {
+    return (InetSocketAddress) channel.getLocalAddress();
+  }
+
+  /**
+   * Sends the buffer's remaining bytes, subject to the simulated conditions.
+   * Counts toward bytesSent even if the simulation drops it, as a real
+   * network would.
+   */
+  public void send(ByteBuffer packet, SocketAddress target) throws IOException {
+    int size = packet.remaining();
+    packetsSent++;
+    bytesSent += size;
+    if (conditions.isPerfect()) {
+      channel.send(packet, target);
+      return;
+    }
+    if (random.nextDouble() < conditions.lossRate) {
+      packetsDropped++;
+      packet.position(packet.limit());
+      return;
+    }
+    double delayMillis = conditions.latencyMillis + random.nextDouble() * conditions.jitterMillis;
+    if (delayMillis <= 0) {
+      channel.send(packet, target);
+      return;
+    }
+    byte[] data = new byte[size];
+    packet.get(data);
+    delayed.add(new DelayedPacket(clock.getAsLong() + (long) (delayMillis * 1_000_000), sendOrder++, data, target));
+  }
+
+  /**
+   * Sends every delayed packet whose delivery time has come. Call once per
+   * tick.
+   */
+  public void flush() throws IOException {
+    long now = clock.getAsLong();
+    while (!delayed.isEmpty() && delayed.peek().dueNanos <= now) {
+      DelayedPacket packet = delayed.poll();
+      channel.send(ByteBuffer.wrap(packet.data), packet.target);
+    }
+  }
+
+  /**
+   * Reads one waiting packet into the buffer, which is cleared first and
+   * flipped afterwards.
+   *
+   * @return The sender, or null if nothing is waiting.
+   */
+  public SocketAddress receive(ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    SocketAddress sender = channel.receive(buffer);
+    buffer.flip();
+    if (sender != null) {
+      packetsReceived++;
+      bytesReceived += buffer.remaining();
+    }
+    return sender;
+  }
+
+  public long getPacketsSent() {
+    return packetsSent;
+  }
+
+  public long getPacketsDropped() {
+    return packetsDropped;
+  }
+
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  public long getPacketsReceived() {
+    return packetsReceived;
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
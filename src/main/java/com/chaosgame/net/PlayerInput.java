@@ -0,0 +1,94 @@
+package com.chaosgame.net;
+
+import com.chaosgame.entity.Player;
+import javafx.scene.input.KeyCode;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * One tick of a player's input, numbered so the server can tell the client
+ * which inputs its snapshots already include.
+ */
+public class PlayerInput {
+  public static final int UP = 1;
+  public static final int DOWN = 1 << 1;
+  public static final int LEFT = 1 << 2;
+  public static final int RIGHT = 1 << 3;
+  public static final int DASH = 1 << 4;
+  public static final int GRAB = 1 << 5;
+
+  public static final int WIRE_BYTES = 4 + 1 + 4 + 4;
+
+  public int sequence;
+  public int buttons;
+  public float aimX, aimY; // World position of the mouse
+
+  public void set(int sequence, int buttons, double aimX, double aimY) {
+    this.sequence = sequence;
+    this.buttons = buttons;
+    this.aimX = (float) aimX;
+    this.aimY = (float) aimY;
+  }
+
+  public void copyFrom(PlayerInput other) {
+    set(other.sequence, other.buttons, other.aimX, other.aimY);
+  }
+
+  /**
+   * Packs the keyboard state the way the game reads it into button bits.
+   */
+  public static int buttonsFor(Set<KeyCode> keys, boolean grabbing) {
+    int buttons = 0;
+    if (keys.contains(KeyCode.W))
+      buttons |= UP;
+    if (keys.contains(KeyCode.S))
+      buttons |= DOWN;
+    if (keys.contains(KeyCode.A))
+      buttons |= LEFT;
+    if (keys.contains(KeyCode.D))
+      buttons |= RIGHT;
+    if (keys.contains(KeyCode.SPACE))
+      buttons |= DASH;
+    if (grabbing)
+      buttons |= GRAB;
+    return buttons;
+  }
+
+  /**
+   * Feeds this input to a player exactly as the local game loop would: movement
+   * keys, then hand position. Grabbing is left to the caller, since only the
+   * server can decide what was grabbed.
+   *
+   * @param keys Scratch set, cleared and refilled.
+   */
+  public void applyTo(Player player, Set<KeyCode> keys) {
+    keys.clear();
+    if ((buttons & UP) != 0)
+      keys.add(KeyCode.W);
+    if ((buttons & DOWN) != 0)
+      keys.add(KeyCode.S);
+    if ((buttons & LEFT) != 0)
+      keys.add(KeyCode.A);
+    if ((buttons & RIGHT) != 0)
+      keys.add(KeyCode.D);
+    if ((buttons & DASH) != 0)
+      keys.add(KeyCode.SPACE);
+    player.handleInput(keys);
+    player.updateHand(aimX, aimY);
+  }
+
+  public void write(ByteBuffer buffer) {
+    buffer.putInt(sequence);
+    buffer.put((byte) buttons);
+    buffer.putFloat(aimX);
+    buffer.putFloat(aimY);
+  }
+
+  public void read(ByteBuffer buffer) {
+    sequence = buffer.getInt();
+    buttons = buffer.get() & 0xff;
+    aimX = buffer.getFloat();
+    aimY = buffer.getFloat();
+  }
+}
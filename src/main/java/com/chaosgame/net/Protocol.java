@@ -0,0 +1,95 @@
+package com.chaosgame.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire constants and encoding helpers shared by GameServer and GameClient.
+ *
+ * Every packet starts with a one-byte type:
+ *
+ * <pre>
+ * HELLO     client -> server  (nothing else)
+ * WELCOME   server -> client  varint playerId, varint handId, int serverTick
+ * INPUT     client -> server  int ackedSnapshotTick, byte n, n x PlayerInput (oldest first)
+ * SNAPSHOT  server -> client  int tick, int baselineTick, int lastProcessedInput, then SnapshotEncoder entries
+ * BYE       either way        (nothing else)
+ * </pre>
+ *
+ * Multi-byte fixed-size fields are big-endian, as ByteBuffer writes them.
+ */
+public final class Protocol {
+
+  public static final byte HELLO = 1;
+  public static final byte WELCOME = 2;
+  public static final byte INPUT = 3;
+  public static final byte SNAPSHOT = 4;
+  public static final byte BYE = 5;
+
+  public static final int DEFAULT_PORT = 27960;
+  // Small enough to never be fragmented on a typical path
+  public static final int MAX_PACKET_BYTES = 1200;
+  public static final int NO_TICK = -1;
+
+  // --- Quantization: everything on the wire is an integer in these units ---
+  public static final double POSITION_SCALE = 8; // 1/8 pixel
+  public static final double VELOCITY_SCALE = 4; // 1/4 pixel per second
+  public static final double ANGLE_SCALE = 4096 / (2 * Math.PI); // 4096 steps per turn
+  public static final double SIZE_SCALE = 8;
+
+  private Protocol() {
+  }
+
+  public static int quantize(double value, double scale) {
+    return (int) Math.round(value * scale);
+  }
+
+  public static double dequantize(int value, double scale) {
+    return value / scale;
+  }
+
+  /**
+   * Quantizes an angle after wrapping it into [-pi, pi), so bodies that have
+   * spun many times still encode in a small number of bytes.
+   */
+  public static int quantizeAngle(double angle) {
+    double wrapped = angle - 2 * Math.PI * Math.floor((angle + Math.PI) / (2 * Math.PI));
+    return quantize(wrapped, ANGLE_SCALE);
+  }
+
+  /**
+   * Writes an unsigned LEB128 varint: seven bits per byte, high bit set on all
+   * but the last.
+   */
+  public static void putVarUInt(ByteBuffer buffer, int value) {
+    while ((value & ~0x7f) != 0) {
+      buffer.put((byte) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  public static int getVarUInt(ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0 && shift < 35);
+    return value;
+  }
+
+  /**
+   * Writes a signed varint using zig-zag encoding, so small negative deltas
+   * are as short as small positive ones.
+   */
+  public static void putVarInt(ByteBuffer buffer, int value) {
+    putVarUInt(buffer, (value << 1) ^ (value >> 31));
+  }
+
+  public static int getVarInt(ByteBuffer buffer) {
+    int raw = getVarUInt(buffer);
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+}
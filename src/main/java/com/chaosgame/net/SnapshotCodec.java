@@ -0,0 +1,302 @@
+package com.chaosgame.net;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Delta-compresses WorldSnapshots against a baseline the receiver is known to
+ * have, within a byte budget.
+ *
+ * Only entities that differ from the baseline are written, each as:
+ *
+ * <pre>
+ * varint id, byte flags,
+ * [varint kind, varint width, varint height]   if NEW
+ * zig-zag varint delta per field flagged as changed (x, y, angle, vx, vy)
+ * </pre>
+ *
+ * New entities are deltas against zero and removed ones carry no fields. The
+ * entry count goes first as an unsigned short.
+ *
+ * When not everything fits, the most important entries go first: additions
+ * and removals, then the receiver's own player, then the rest by how far they
+ * have moved. Whatever is left out simply keeps its baseline value, so the
+ * snapshot the receiver reconstructs is "baseline plus what fitted". encode()
+ * returns exactly that state, and the sender stores it as the baseline for
+ * this tick. The next delta then carries whatever is still out of date.
+ */
+public class SnapshotCodec {
+
+  private static final int NEW = 1;
+  private static final int REMOVED = 1 << 1;
+  private static final int X = 1 << 2;
+  private static final int Y = 1 << 3;
+  private static final int ANGLE = 1 << 4;
+  private static final int VX = 1 << 5;
+  private static final int VY = 1 << 6;
+
+  private static final int MAX_ENTRY_BYTES = 64; // id, flags and 8 varints, generously
+
+  // --- Encoder scratch: the merge of current and baseline, in id order ---
+  private int[] mergedCurrent = new int[256]; // Index in current, or -1 if removed
+  private int[] mergedBaseline = new int[256]; // Index in baseline, or -1 if new
+  private boolean[] written = new boolean[256];
+  private long[] order = new long[256]; // Packed (inverted priority, merged index)
+  private final ByteBuffer entry = ByteBuffer.allocate(MAX_ENTRY_BYTES);
+
+  // --- Decoder scratch: entries as read, in wire order ---
+  private int[] entryIds = new int[256];
+  private int[] entryFlags = new int[256];
+  private int[][] entryValues = new int[256][];
+  private long[] entryOrder = new long[256];
+
+  private int lastEntriesWritten;
+  private int lastEntriesPending;
+
+  public SnapshotCodec() {
+    for (int i = 0; i < entryValues.length; i++) {
+      entryValues[i] = new int[8];
+    }
+  }
+
+  /**
+   * Writes the changes from baseline to current into out, using no more than
+   * out.remaining() bytes.
+   *
+   * @param baseline   The state the receiver already has; an empty snapshot
+   *                   for a full update.
+   * @param priorityId An entity id to send before other moving entities (the
+   *                   receiver's player), or -1.
+   * @param sent       Receives the state the receiver will reconstruct.
+   */
+  public void encode(WorldSnapshot current, WorldSnapshot baseline, int priorityId, ByteBuffer out,
+      WorldSnapshot sent) {
+    int merged = merge(current, baseline);
+
+    // --- Step 1: Rank the entries that differ from the baseline ---
+    int changed = 0;
+    for (int m = 0; m < merged; m++) {
+      written[m] = false;
+      int c = mergedCurrent[m];
+      int b = mergedBaseline[m];
+      long priority;
+      if (c < 0 || b < 0 || current.ids[c] == priorityId) {
+        priority = Integer.MAX_VALUE;
+      } else {
+        long motion = (long) Math.abs(current.xs[c] - baseline.xs[b]) + Math.abs(current.ys[c] - baseline.ys[b])
+            + Math.abs(current.angles[c] - baseline.angles[b]) + Math.abs(current.vxs[c] - baseline.vxs[b])
+            + Math.abs(current.vys[c] - baseline.vys[b]);
+        if (motion == 0) {
+          continue;
+        }
+        priority = Math.min(motion, Integer.MAX_VALUE - 1);
+      }
+      order[changed++] = ((Integer.MAX_VALUE - priority) << 32) | m;
+    }
+    Arrays.sort(order, 0, changed);
+
+    // --- Step 2: Write entries, most important first, while they fit ---
+    int countPosition = out.position();
+    out.putShort((short) 0);
+    int entries = 0;
+    for (int k = 0; k < changed && entries < 0xffff; k++) {
+      int m = (int) order[k];
+      entry.clear();
+      writeEntry(current, mergedCurrent[m], baseline, mergedBaseline[m]);
+      entry.flip();
+      if (entry.remaining() > out.remaining()) {
+        break;
+      }
+      out.put(entry);
+      written[m] = true;
+      entries++;
+    }
+    out.putShort(countPosition, (short) entries);
+    lastEntriesWritten = entries;
+    lastEntriesPending = changed - entries;
+
+    // --- Step 3: What the receiver ends up with ---
+    sent.clear();
+    sent.tick = current.tick;
+    for (int m = 0; m < merged; m++) {
+      int c = mergedCurrent[m];
+      int b = mergedBaseline[m];
+      if (written[m]) {
+        if (c >= 0) {
+          sent.addFrom(current, c); // Removals written are simply left out
+        }
+      } else if (b >= 0) {
+        sent.addFrom(baseline, b);
+      }
+    }
+  }
+
+  /**
+   * Entries written by the last encode().
+   */
+  public int getLastEntriesWritten() {
+    return lastEntriesWritten;
+  }
+
+  /**
+   * Changed entries the last encode() had to leave for a later snapshot
+   * because the budget ran out.
+   */
+  public int getLastEntriesPending() {
+    return lastEntriesPending;
+  }
+
+  private void writeEntry(WorldSnapshot current, int c, WorldSnapshot baseline, int b) {
+    if (c < 0) {
+      Protocol.putVarUInt(entry, baseline.ids[b]);
+      entry.put((byte) REMOVED);
+      return;
+    }
+    int flags = b < 0 ? NEW : 0;
+    int dx = current.xs[c] - (b < 0 ? 0 : baseline.xs[b]);
+    int dy = current.ys[c] - (b < 0 ? 0 : baseline.ys[b]);
+    int dAngle = current.angles[c] - (b < 0 ? 0 : baseline.angles[b]);
+    int dvx = current.vxs[c] - (b < 0 ? 0 : baseline.vxs[b]);
+    int dvy = current.vys[c] - (b < 0 ? 0 : baseline.vys[b]);
+    flags |= (dx != 0 ? X : 0) | (dy != 0 ? Y : 0) | (dAngle != 0 ? ANGLE : 0) | (dvx != 0 ? VX : 0)
+        | (dvy != 0 ? VY : 0);
+
+    Protocol.putVarUInt(entry, current.ids[c]);
+    entry.put((byte) flags);
+    if (b < 0) {
+      Protocol.putVarUInt(entry, current.kinds[c]);
+      Protocol.putVarUInt(entry, current.widths[c]);
+      Protocol.putVarUInt(entry, current.heights[c]);
+    }
+    if (dx != 0)
+      Protocol.putVarInt(entry, dx);
+    if (dy != 0)
+      Protocol.putVarInt(entry, dy);
+    if (dAngle != 0)
+      Protocol.putVarInt(entry, dAngle);
+    if (dvx != 0)
+      Protocol.putVarInt(entry, dvx);
+    if (dvy != 0)
+      Protocol.putVarInt(entry, dvy);
+  }
+
+  // Walks both id-sorted snapshots together, filling the merged arrays
+  private int merge(WorldSnapshot current, WorldSnapshot baseline) {
+    int capacity = current.count + baseline.count;
+    if (mergedCurrent.length < capacity) {
+      int newLength = Math.max(capacity, mergedCurrent.length * 2);
+      mergedCurrent = new int[newLength];
+      mergedBaseline = new int[newLength];
+      written = new boolean[newLength];
+      order = new long[newLength];
+    }
+    int m = 0;
+    int c = 0;
+    int b = 0;
+    while (c < current.count || b < baseline.count) {
+      int currentId = c < current.count ? current.ids[c] : Integer.MAX_VALUE;
+      int baselineId = b < baseline.count ? baseline.ids[b] : Integer.MAX_VALUE;
+      if (currentId == baselineId) {
+        mergedCurrent[m] = c++;
+        mergedBaseline[m] = b++;
+      } else if (currentId < baselineId) {
+        mergedCurrent[m] = c++;
+        mergedBaseline[m] = -1;
+      } else {
+        mergedCurrent[m] = -1;
+        mergedBaseline[m] = b++;
+      }
+      m++;
+    }
+    return m;
+  }
+
+  /**
+   * Reads entries written by encode() and applies them to the baseline.
+   *
+   * @param baseline The snapshot the sender used as its baseline.
+   * @param result   Receives the reconstructed snapshot; its tick is left for
+   *                 the caller to set.
+   * @return false if the entries are malformed or do not match the baseline,
+   *         in which case result is unspecified.
+   */
+  public boolean decode(ByteBuffer in, WorldSnapshot baseline, WorldSnapshot result) {
+    int entries;
+    try {
+      entries = in.getShort() & 0xffff;
+      ensureEntryCapacity(entries);
+      for (int e = 0; e < entries; e++) {
+        int id = Protocol.getVarUInt(in);
+        int flags = in.get() & 0xff;
+        int[] values = entryValues[e];
+        entryIds[e] = id;
+        entryFlags[e] = flags;
+        entryOrder[e] = ((long) id << 32) | e;
+        if ((flags & REMOVED) != 0) {
+          continue;
+        }
+        int b = -1;
+        if ((flags & NEW) != 0) {
+          values[0] = Protocol.getVarUInt(in);
+          values[1] = Protocol.getVarUInt(in);
+          values[2] = Protocol.getVarUInt(in);
+        } else {
+          b = baseline.indexOf(id);
+          if (b < 0) {
+            return false;
+          }
+          values[0] = baseline.kinds[b];
+          values[1] = baseline.widths[b];
+          values[2] = baseline.heights[b];
+        }
+        values[3] = (b < 0 ? 0 : baseline.xs[b]) + ((flags & X) != 0 ? Protocol.getVarInt(in) : 0);
+        values[4] = (b < 0 ? 0 : baseline.ys[b]) + ((flags & Y) != 0 ? Protocol.getVarInt(in) : 0);
+        values[5] = (b < 0 ? 0 : baseline.angles[b]) + ((flags & ANGLE) != 0 ? Protocol.getVarInt(in) : 0);
+        values[6] = (b < 0 ? 0 : baseline.vxs[b]) + ((flags & VX) != 0 ? Protocol.getVarInt(in) : 0);
+        values[7] = (b < 0 ? 0 : baseline.vys[b]) + ((flags & VY) != 0 ? Protocol.getVarInt(in) : 0);
+      }
+    } catch (BufferUnderflowException | BufferOverflowException e) {
+      return false;
+    }
+    Arrays.sort(entryOrder, 0, entries);
+
+    // Merge the id-sorted entries into the baseline
+    result.clear();
+    int b = 0;
+    for (int k = 0; k < entries; k++) {
+      int e = (int) entryOrder[k];
+      int id = entryIds[e];
+      while (b < baseline.count && baseline.ids[b] < id) {
+        result.addFrom(baseline, b++);
+      }
+      if (b < baseline.count && baseline.ids[b] == id) {
+        b++; // Replaced or removed by the entry
+      }
+      if ((entryFlags[e] & REMOVED) == 0) {
+        int[] v = entryValues[e];
+        result.add(id, v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7]);
+      }
+    }
+    while (b < baseline.count) {
+      result.addFrom(baseline, b++);
+    }
+    return true;
+  }
+
+  private void ensureEntryCapacity(int entries) {
+    if (entries <= entryIds.length) {
+      return;
+    }
+    int newLength = Math.max(entries, entryIds.length * 2);
+    int oldLength = entryValues.length;
+    entryIds = Arrays.copyOf(entryIds, newLength);
+    entryFlags = Arrays.copyOf(entryFlags, newLength);
+    entryOrder = Arrays.copyOf(entryOrder, newLength);
+    entryValues = Arrays.copyOf(entryValues, newLength);
+    for (int i = oldLength; i < newLength; i++) {
+      entryValues[i] = new int[8];
+    }
+  }
+}
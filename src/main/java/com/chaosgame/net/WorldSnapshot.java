@@ -0,0 +1,161 @@
+package com.chaosgame.net;
+
+import com.chaosgame.Vector2D;
+import com.chaosgame.entity.Entity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The quantized state of every replicated entity at one server tick, held in
+ * parallel int arrays sorted by entity id. Instances are reused: the arrays
+ * only grow.
+ *
+ * An entity's kind is its collision category, which is enough for a client to
+ * know how to draw it; width and height are the extents of its local shape.
+ */
+public class WorldSnapshot {
+  public int tick = Protocol.NO_TICK;
+  public int count = 0;
+
+  public int[] ids = new int[0];
+  public int[] kinds = new int[0];
+  public int[] widths = new int[0];
+  public int[] heights = new int[0];
+  public int[] xs = new int[0];
+  public int[] ys = new int[0];
+  public int[] angles = new int[0];
+  public int[] vxs = new int[0];
+  public int[] vys = new int[0];
+
+  public void clear() {
+    tick = Protocol.NO_TICK;
+    count = 0;
+  }
+
+  /**
+   * Appends an entity. Callers must add in ascending id order, or call
+   * sortById() afterwards.
+   */
+  public void add(int id, int kind, int width, int height, int x, int y, int angle, int vx, int vy) {
+    ensureCapacity(count + 1);
+    int i = count++;
+    ids[i] = id;
+    kinds[i] = kind;
+    widths[i] = width;
+    heights[i] = height;
+    xs[i] = x;
+    ys[i] = y;
+    angles[i] = angle;
+    vxs[i] = vx;
+    vys[i] = vy;
+  }
+
+  /**
+   * Appends entry i of another snapshot.
+   */
+  public void addFrom(WorldSnapshot other, int i) {
+    add(other.ids[i], other.kinds[i], other.widths[i], other.heights[i], other.xs[i], other.ys[i], other.angles[i],
+        other.vxs[i], other.vys[i]);
+  }
+
+  public void copyFrom(WorldSnapshot other) {
+    ensureCapacity(other.count);
+    tick = other.tick;
+    count = other.count;
+    System.arraycopy(other.ids, 0, ids, 0, count);
+    System.arraycopy(other.kinds, 0, kinds, 0, count);
+    System.arraycopy(other.widths, 0, widths, 0, count);
+    System.arraycopy(other.heights, 0, heights, 0, count);
+    System.arraycopy(other.xs, 0, xs, 0, count);
+    System.arraycopy(other.ys, 0, ys, 0, count);
+    System.arraycopy(other.angles, 0, angles, 0, count);
+    System.arraycopy(other.vxs, 0, vxs, 0, count);
+    System.arraycopy(other.vys, 0, vys, 0, count);
+  }
+
+  /**
+   * Quantizes the current state of the entities, which need not be in id
+   * order.
+   */
+  public void capture(int tick, List<Entity> entities) {
+    clear();
+    this.tick = tick;
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      double minX = 0, minY = 0, maxX = 0, maxY = 0;
+      for (Vector2D v : entity.getVertices()) {
+        minX = Math.min(minX, v.x);
+        minY = Math.min(minY, v.y);
+        maxX = Math.max(maxX, v.x);
+        maxY = Math.max(maxY, v.y);
+      }
+      add(entity.id, entity.getCollisionCategory(), Protocol.quantize(maxX - minX, Protocol.SIZE_SCALE),
+          Protocol.quantize(maxY - minY, Protocol.SIZE_SCALE), Protocol.quantize(entity.getX(), Protocol.POSITION_SCALE),
+          Protocol.quantize(entity.getY(), Protocol.POSITION_SCALE), Protocol.quantizeAngle(entity.angle),
+          Protocol.quantize(entity.getVx(), Protocol.VELOCITY_SCALE),
+          Protocol.quantize(entity.getVy(), Protocol.VELOCITY_SCALE));
+    }
+    sortById();
+  }
+
+  /**
+   * Insertion sort across all the arrays. The live entity list is nearly in id
+   * order already (only swap-removes disturb it), so this is close to linear.
+   */
+  public void sortById() {
+    for (int i = 1; i < count; i++) {
+      if (ids[i - 1] <= ids[i]) {
+        continue;
+      }
+      int id = ids[i], kind = kinds[i], width = widths[i], height = heights[i];
+      int x = xs[i], y = ys[i], angle = angles[i], vx = vxs[i], vy = vys[i];
+      int j = i - 1;
+      while (j >= 0 && ids[j] > id) {
+        ids[j + 1] = ids[j];
+        kinds[j + 1] = kinds[j];
+        widths[j + 1] = widths[j];
+        heights[j + 1] = heights[j];
+        xs[j + 1] = xs[j];
+        ys[j + 1] = ys[j];
+        angles[j + 1] = angles[j];
+        vxs[j + 1] = vxs[j];
+        vys[j + 1] = vys[j];
+        j--;
+      }
+      ids[j + 1] = id;
+      kinds[j + 1] = kind;
+      widths[j + 1] = width;
+      heights[j + 1] = height;
+      xs[j + 1] = x;
+      ys[j + 1] = y;
+      angles[j + 1] = angle;
+      vxs[j + 1] = vx;
+      vys[j + 1] = vy;
+    }
+  }
+
+  /**
+   * @return The index of the entity with the given id, or -1.
+   */
+  public int indexOf(int id) {
+    int index = Arrays.binarySearch(ids, 0, count, id);
+    return index >= 0 ? index : -1;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= ids.length) {
+      return;
+    }
+    int newLength = Math.max(capacity, Math.max(64, ids.length * 2));
+    ids = Arrays.copyOf(ids, newLength);
+    kinds = Arrays.copyOf(kinds, newLength);
+    widths = Arrays.copyOf(widths, newLength);
+    heights = Arrays.copyOf(heights, newLength);
+    xs = Arrays.copyOf(xs, newLength);
+    ys = Arrays.copyOf(ys, newLength);
+    angles = Arrays.copyOf(angles, newLength);
+    vxs = Arrays.copyOf(vxs, newLength);
+    vys = Arrays.copyOf(vys, newLength);
+  }
+}
@@ -0,0 +1,78 @@
+package com.chaosgame.particle;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.physics.CollisionBatch;
+import com.chaosgame.physics.CollisionEventBus;
+
+/**
+ * Spawns bursts of particles, either on request or automatically from the
+ * impacts published on a CollisionEventBus: sparks where something hits a wall,
+ * splinters where crates hit each other and dust for everything else. Harder
+ * impacts throw more particles.
+ */
+public class ParticleEmitter implements CollisionEventBus.Subscriber {
+
+  private static final double MIN_IMPACT_SPEED = 60; // Gentler touches make no particles
+  private static final double PARTICLES_PER_SPEED = 0.05; // Per unit of closing speed
+  private static final int MAX_BURST = 40;
+  private static final double SPREAD = Math.PI / 2; // Total cone angle around the normal
+
+  private final ParticleSystem particles;
+  private long seed = 0x9E3779B97F4A7C15L; // xorshift state; java.util.Random is needlessly heavy here
+
+  public ParticleEmitter(ParticleSystem particles) {
+    this.particles = particles;
+  }
+
+  @Override
+  public void onCollisions(CollisionBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      double speed = batch.getSpeed(i);
+      if (speed < MIN_IMPACT_SPEED) {
+        continue;
+      }
+      int count = (int) Math.min(MAX_BURST, (speed - MIN_IMPACT_SPEED) * PARTICLES_PER_SPEED + 2);
+      burst(kindFor(batch.getA(i), batch.getB(i)), batch.getX(i), batch.getY(i), batch.getNormalX(i),
+          batch.getNormalY(i), count);
+    }
+  }
+
+  private static ParticleKind kindFor(Entity a, Entity b) {
+    int categories = a.getCollisionCategory() | b.getCollisionCategory();
+    if ((categories & CollisionLayers.WALL) != 0) {
+      return ParticleKind.SPARKS;
+    }
+    if (a.getCollisionCategory() == CollisionLayers.CRATE && b.getCollisionCategory() == CollisionLayers.CRATE) {
+      return ParticleKind.SPLINTERS;
+    }
+    return ParticleKind.DUST;
+  }
+
+  /**
+   * Emits particles in a cone around a direction. Particles that do not fit in
+   * the system are dropped.
+   *
+   * @param directionX Unit direction of the centre of the cone.
+   * @param directionY See directionX.
+   */
+  public void burst(ParticleKind kind, double x, double y, double directionX, double directionY, int count) {
+    double baseAngle = Math.atan2(directionY, directionX);
+    for (int i = 0; i < count; i++) {
+      double angle = baseAngle + (nextDouble() - 0.5) * SPREAD;
+      double speed = kind.minSpeed + nextDouble() * (kind.maxSpeed - kind.minSpeed);
+      double life = kind.minLife + nextDouble() * (kind.maxLife - kind.minLife);
+      if (!particles.spawn(kind, x, y, Math.cos(angle) * speed, Math.sin(angle) * speed, life)) {
+        return;
+      }
+    }
+  }
+
+  // Uniform in [0, 1)
+  private double nextDouble() {
+    seed ^= seed << 13;
+    seed ^= seed >>> 7;
+    seed ^= seed << 17;
+    return (seed >>> 11) * 0x1.0p-53;
+  }
+}
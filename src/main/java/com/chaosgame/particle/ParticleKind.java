@@ -0,0 +1,33 @@
+package com.chaosgame.particle;
+
+import javafx.scene.paint.Color;
+
+/**
+ * The looks and behaviour of each kind of particle. Particles only store their
+ * kind's ordinal, so everything shared lives here.
+ */
+public enum ParticleKind {
+  // color, min speed, max speed, min life, max life, size, drag, bounciness
+  DUST(Color.rgb(170, 160, 140), 20, 80, 0.4, 0.9, 3, 3.0, 0.2),
+  SPLINTERS(Color.rgb(181, 129, 66), 80, 260, 0.5, 1.2, 2, 1.5, 0.4),
+  SPARKS(Color.rgb(255, 210, 90), 200, 500, 0.15, 0.45, 2, 0.8, 0.6);
+
+  public final Color color;
+  public final double minSpeed, maxSpeed;
+  public final double minLife, maxLife; // Seconds
+  public final double size; // Pixels at full life; particles shrink as they age
+  public final double drag; // Fraction of velocity lost per second
+  public final double bounciness; // Restitution against static geometry
+
+  ParticleKind(Color color, double minSpeed, double maxSpeed, double minLife, double maxLife, double size,
+      double drag, double bounciness) {
+    this.color = color;
+    this.minSpeed = minSpeed;
+    this.maxSpeed = maxSpeed;
+    this.minLife = minLife;
+    this.maxLife = maxLife;
+    this.size = size;
+    this.drag = drag;
+    this.bounciness = bounciness;
+  }
+}
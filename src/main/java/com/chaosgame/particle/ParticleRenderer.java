@@ -0,0 +1,81 @@
+package com.chaosgame.particle;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Draws a whole ParticleSystem onto one Canvas, so tens of thousands of
+ * particles cost a single node in the scene graph. Particles are drawn as
+ * small squares, one pass per kind so the fill colour is set only once per
+ * kind, and shrink as they age.
+ */
+public class ParticleRenderer {
+
+  private static final ParticleKind[] KINDS = ParticleKind.values();
+
+  private final Canvas canvas;
+  private final GraphicsContext gc;
+  private double renderedOriginX; // The viewport the canvas was last drawn from
+  private double renderedOriginY;
+
+  public ParticleRenderer(double width, double height) {
+    this.canvas = new Canvas(width, height);
+    this.canvas.setMouseTransparent(true);
+    this.gc = canvas.getGraphicsContext2D();
+  }
+
+  public Canvas getCanvas() {
+    return canvas;
+  }
+
+  /**
+   * Redraws the particles as seen from a scrolled viewport the size of the
+   * canvas. Particles outside it are skipped.
+   *
+   * @param originX World x of the canvas's left edge.
+   * @param originY World y of the canvas's top edge.
+   */
+  public void render(ParticleSystem particles, double originX, double originY) {
+    double width = canvas.getWidth();
+    double height = canvas.getHeight();
+    gc.clearRect(0, 0, width, height);
+    renderedOriginX = originX;
+    renderedOriginY = originY;
+    canvas.setTranslateX(0);
+    canvas.setTranslateY(0);
+    int count = particles.getCount();
+    float[] x = particles.x;
+    float[] y = particles.y;
+    float[] life = particles.life;
+    float[] lifeScale = particles.lifeScale;
+    byte[] kind = particles.kind;
+
+    for (int k = 0; k < KINDS.length; k++) {
+      gc.setFill(KINDS[k].color);
+      double fullSize = KINDS[k].size;
+      for (int i = 0; i < count; i++) {
+        if (kind[i] != k) {
+          continue;
+        }
+        double sx = x[i] - originX;
+        double sy = y[i] - originY;
+        if (sx < -fullSize || sy < -fullSize || sx > width + fullSize || sy > height + fullSize) {
+          continue;
+        }
+        // Shrink from full size to half size over the particle's life
+        double size = fullSize * (0.5 + 0.5 * life[i] * lifeScale[i]);
+        gc.fillRect(sx - size / 2, sy - size / 2, size, size);
+      }
+    }
+  }
+
+  /**
+   * Keeps the last drawing in place in the world when the viewport scrolls
+   * without a redraw, by shifting the canvas instead. The next render
+   * undoes the shift.
+   */
+  public void scrollTo(double originX, double originY) {
+    canvas.setTranslateX(renderedOriginX - originX);
+    canvas.setTranslateY(renderedOriginY - originY);
+  }
+}
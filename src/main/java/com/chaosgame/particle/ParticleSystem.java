@@ -0,0 +1,193 @@
+package com.chaosgame.particle;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.physics.CollisionLayers;
+
+import java.util.List;
+
+/**
+ * Cosmetic particles (dust, splinters, sparks) kept in parallel primitive
+ * arrays rather than as entities. A particle has no node, no vertices and no
+ * mass: it is a point that drifts, slows down and dies, and that can
+ * optionally bounce off static geometry. Particles never affect entities.
+ *
+ * Live particles are densely packed at the front of the arrays; a dead one is
+ * replaced by the last live one, so updating touches only live data, in order,
+ * and nothing is allocated once the system is created.
+ */
+public class ParticleSystem {
+
+  private final int capacity;
+  private int count = 0;
+
+  // --- Per-particle state, indexed 0..count-1 ---
+  final float[] x, y;
+  final float[] vx, vy;
+  final float[] life; // Seconds left
+  final float[] lifeScale; // 1 / initial life, so age fraction is one multiply
+  final byte[] kind; // ParticleKind ordinal
+
+  private static final ParticleKind[] KINDS = ParticleKind.values();
+  private final float[] damping = new float[KINDS.length]; // Per kind, refilled each update
+
+  // --- Static geometry as axis-aligned boxes ---
+  private float[] boxMinX = new float[0], boxMinY = new float[0];
+  private float[] boxMaxX = new float[0], boxMaxY = new float[0];
+  private int boxCount = 0;
+  private boolean collideWithStatic = true;
+
+  private long updateNanos; // Time spent in the last update
+
+  public ParticleSystem(int capacity) {
+    this.capacity = capacity;
+    this.x = new float[capacity];
+    this.y = new float[capacity];
+    this.vx = new float[capacity];
+    this.vy = new float[capacity];
+    this.life = new float[capacity];
+    this.lifeScale = new float[capacity];
+    this.kind = new byte[capacity];
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getUpdateNanos() {
+    return updateNanos;
+  }
+
+  public void setCollideWithStatic(boolean collideWithStatic) {
+    this.collideWithStatic = collideWithStatic;
+  }
+
+  /**
+   * Takes the bounding boxes of the walls among the given entities as the
+   * geometry particles bounce off. Walls never move, so call this once after
+   * the level is built (and again if walls are added or removed).
+   */
+  public void setStaticGeometry(List<Entity> entities) {
+    int walls = 0;
+    for (int i = 0; i < entities.size(); i++) {
+      if ((entities.get(i).getCollisionCategory() & CollisionLayers.WALL) != 0) {
+        walls++;
+      }
+    }
+    boxMinX = new float[walls];
+    boxMinY = new float[walls];
+    boxMaxX = new float[walls];
+    boxMaxY = new float[walls];
+    boxCount = 0;
+    double[] bounds = new double[4];
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      if ((entity.getCollisionCategory() & CollisionLayers.WALL) == 0) {
+        continue;
+      }
+      entity.getBounds(bounds);
+      boxMinX[boxCount] = (float) bounds[0];
+      boxMinY[boxCount] = (float) bounds[1];
+      boxMaxX[boxCount] = (float) bounds[2];
+      boxMaxY[boxCount] = (float) bounds[3];
+      boxCount++;
+    }
+  }
+
+  /**
+   * Adds one particle.
+   *
+   * @return false if the system is full and the particle was dropped.
+   */
+  public boolean spawn(ParticleKind particleKind, double px, double py, double pvx, double pvy, double lifetime) {
+    if (count == capacity || lifetime <= 0) {
+      return false;
+    }
+    int i = count++;
+    x[i] = (float) px;
+    y[i] = (float) py;
+    vx[i] = (float) pvx;
+    vy[i] = (float) pvy;
+    life[i] = (float) lifetime;
+    lifeScale[i] = (float) (1.0 / lifetime);
+    kind[i] = (byte) particleKind.ordinal();
+    return true;
+  }
+
+  public void clear() {
+    count = 0;
+  }
+
+  /**
+   * Advances every particle by one step: ages it, applies drag, moves it and
+   * bounces it out of any static box it ended up in. Dead particles are
+   * removed by moving the last live particle into their place.
+   */
+  public void update(double delta) {
+    long startTime = System.nanoTime();
+    float dt = (float) delta;
+
+    // Drag as a per-step multiplier for each kind, computed once per update
+    for (int k = 0; k < KINDS.length; k++) {
+      damping[k] = (float) Math.max(0, 1 - KINDS[k].drag * delta);
+    }
+
+    int i = 0;
+    while (i < count) {
+      float remaining = life[i] - dt;
+      if (remaining <= 0) {
+        removeAt(i);
+        continue; // The particle moved into slot i still needs updating
+      }
+      life[i] = remaining;
+
+      byte k = kind[i];
+      float nvx = vx[i] * damping[k];
+      float nvy = vy[i] * damping[k];
+      float nx = x[i] + nvx * dt;
+      float ny = y[i] + nvy * dt;
+
+      if (collideWithStatic) {
+        for (int b = 0; b < boxCount; b++) {
+          if (nx <= boxMinX[b] || nx >= boxMaxX[b] || ny <= boxMinY[b] || ny >= boxMaxY[b]) {
+            continue;
+          }
+          // Push out through the nearest face and reflect that velocity component
+          float bounce = (float) KINDS[k].bounciness;
+          float left = nx - boxMinX[b], right = boxMaxX[b] - nx;
+          float top = ny - boxMinY[b], bottom = boxMaxY[b] - ny;
+          float minXPen = Math.min(left, right);
+          float minYPen = Math.min(top, bottom);
+          if (minXPen < minYPen) {
+            nx = left < right ? boxMinX[b] : boxMaxX[b];
+            nvx = -nvx * bounce;
+          } else {
+            ny = top < bottom ? boxMinY[b] : boxMaxY[b];
+            nvy = -nvy * bounce;
+          }
+        }
+      }
+
+      x[i] = nx;
+      y[i] = ny;
+      vx[i] = nvx;
+      vy[i] = nvy;
+      i++;
+    }
+    updateNanos = System.nanoTime() - startTime;
+  }
+
+  private void removeAt(int i) {
+    int last = --count;
+    x[i] = x[last];
+    y[i] = y[last];
+    vx[i] = vx[last];
+    vy[i] = vy[last];
+    life[i] = life[last];
+    lifeScale[i] = lifeScale[last];
+    kind[i] = kind[last];
+  }
+}
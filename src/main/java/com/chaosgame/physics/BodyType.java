@@ -0,0 +1,21 @@
+package com.chaosgame.physics;
+
+/**
+ * How the physics engine treats a body.
+ */
+public enum BodyType {
+  /**
+   * Never moves and has infinite mass, e.g. walls. Only collided against.
+   */
+  STATIC,
+  /**
+   * Moved by its owner (by setting its position or velocity) rather than by
+   * the solver. Other bodies bounce off it as if it had infinite mass, e.g.
+   * the hand.
+   */
+  KINEMATIC,
+  /**
+   * Integrated and pushed around by collisions.
+   */
+  DYNAMIC
+}
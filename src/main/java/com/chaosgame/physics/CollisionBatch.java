@@ -0,0 +1,141 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.entity.Entity;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity batch of collision events, stored as parallel arrays so
+ * that filling and reusing it never allocates. The physics step records into
+ * one of these, and each subscriber of a CollisionEventBus is handed its own.
+ *
+ * Events past the capacity are dropped and counted rather than growing the
+ * arrays in the middle of a step.
+ */
+public class CollisionBatch {
+
+  private final Entity[] a;
+  private final Entity[] b;
+  private final double[] x;
+  private final double[] y;
+  private final double[] normalX;
+  private final double[] normalY;
+  private final double[] speed;
+  private final double[] impulse;
+  private final double[] time;
+  private int size = 0;
+  private int dropped = 0;
+
+  public CollisionBatch(int capacity) {
+    this.a = new Entity[capacity];
+    this.b = new Entity[capacity];
+    this.x = new double[capacity];
+    this.y = new double[capacity];
+    this.normalX = new double[capacity];
+    this.normalY = new double[capacity];
+    this.speed = new double[capacity];
+    this.impulse = new double[capacity];
+    this.time = new double[capacity];
+  }
+
+  void add(Entity first, Entity second, double contactX, double contactY, double nx, double ny,
+      double closingSpeed, double impulseMagnitude, double timeOfImpact) {
+    if (size == a.length) {
+      dropped++;
+      return;
+    }
+    a[size] = first;
+    b[size] = second;
+    x[size] = contactX;
+    y[size] = contactY;
+    normalX[size] = nx;
+    normalY[size] = ny;
+    speed[size] = closingSpeed;
+    impulse[size] = impulseMagnitude;
+    time[size] = timeOfImpact;
+    size++;
+  }
+
+  void copy(CollisionBatch from, int index) {
+    add(from.a[index], from.b[index], from.x[index], from.y[index], from.normalX[index], from.normalY[index],
+        from.speed[index], from.impulse[index], from.time[index]);
+  }
+
+  /**
+   * Empties the batch. Entity references are cleared too, so a batch sitting
+   * in a pool does not keep despawned entities alive.
+   */
+  void clear() {
+    Arrays.fill(a, 0, size, null);
+    Arrays.fill(b, 0, size, null);
+    size = 0;
+    dropped = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return a.length;
+  }
+
+  /**
+   * Events that arrived after the batch was full.
+   */
+  public int getDropped() {
+    return dropped;
+  }
+
+  public Entity getA(int index) {
+    return a[index];
+  }
+
+  public Entity getB(int index) {
+    return b[index];
+  }
+
+  /**
+   * World x of the approximate contact point.
+   */
+  public double getX(int index) {
+    return x[index];
+  }
+
+  public double getY(int index) {
+    return y[index];
+  }
+
+  /**
+   * Unit normal of the impact, pointing away from the surface that was hit.
+   */
+  public double getNormalX(int index) {
+    return normalX[index];
+  }
+
+  public double getNormalY(int index) {
+    return normalY[index];
+  }
+
+  /**
+   * The closing speed before the impact.
+   */
+  public double getSpeed(int index) {
+    return speed[index];
+  }
+
+  /**
+   * The magnitude of the impulse the resolver applied (mass times change in
+   * velocity of the body that moved).
+   */
+  public double getImpulse(int index) {
+    return impulse[index];
+  }
+
+  /**
+   * When within the step the impact was resolved, in seconds from its start.
+   */
+  public double getTime(int index) {
+    return time[index];
+  }
+}
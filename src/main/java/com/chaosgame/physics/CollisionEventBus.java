@@ -0,0 +1,245 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers the collisions of each physics step to gameplay code (sound,
+ * damage, breaking crates, particles) without running that code inside the
+ * step.
+ *
+ * While the engine steps, every impact the resolver handles is only copied
+ * into a preallocated CollisionBatch. Once the step is over, the game loop
+ * calls publish(), which hands each subscriber a batch holding just the
+ * events that pass its filter. Subscribers either run right there, on the
+ * simulation thread, or are given an Executor: their batches then go through
+ * a lock-free queue and are processed on the executor's threads while the
+ * simulation carries on.
+ *
+ * Impacts that no subscriber's category mask covers are not even recorded.
+ *
+ * Subscribing, unsubscribing and publish() belong to the simulation thread.
+ */
+public class CollisionEventBus {
+
+  public static final int DEFAULT_CAPACITY = 4096;
+  // Batches an asynchronous subscriber may fall behind by before new ones are
+  // dropped instead of queued
+  private static final int MAX_PENDING_BATCHES = 8;
+
+  /**
+   * Receives the events of one step that passed the subscription's filter.
+   * The batch is only valid during the call; it is reused afterwards.
+   * Asynchronous subscribers must treat the entities in it as read-only, as
+   * the simulation is moving them at the same time.
+   */
+  public interface Subscriber {
+    void onCollisions(CollisionBatch batch);
+  }
+
+  /**
+   * One subscriber with its filter and delivery state, returned by subscribe
+   * so it can be cancelled.
+   */
+  public static final class Subscription {
+    private final int categoryMask;
+    private final Class<? extends Entity> entityType;
+    private final Executor executor;
+    private final Subscriber subscriber;
+
+    // Inline delivery reuses a single batch
+    private final CollisionBatch inlineBatch;
+
+    // Asynchronous delivery: filled batches waiting for the executor, and
+    // delivered ones ready for reuse
+    private final ConcurrentLinkedQueue<CollisionBatch> pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CollisionBatch> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicInteger droppedBatches = new AtomicInteger();
+
+    private Subscription(int categoryMask, Class<? extends Entity> entityType, Executor executor,
+        Subscriber subscriber, int capacity) {
+      this.categoryMask = categoryMask;
+      this.entityType = entityType;
+      this.executor = executor;
+      this.subscriber = subscriber;
+      this.inlineBatch = executor == null ? new CollisionBatch(capacity) : null;
+    }
+
+    private boolean matches(Entity a, Entity b) {
+      if (((a.getCollisionCategory() | b.getCollisionCategory()) & categoryMask) == 0) {
+        return false;
+      }
+      return entityType == null || entityType.isInstance(a) || entityType.isInstance(b);
+    }
+
+    /**
+     * Batches thrown away because the executor had fallen too far behind.
+     */
+    public int getDroppedBatches() {
+      return droppedBatches.get();
+    }
+  }
+
+  private final int capacity;
+  private final CollisionBatch recorded;
+  private final List<Subscription> subscriptions = new ArrayList<>();
+  private int interestMask = CollisionLayers.NONE; // Union of every subscription's categories
+  private double time; // Within the current step, stamped onto recorded events
+
+  public CollisionEventBus() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param capacity The most events one step can record, and one batch can
+   *                 hold; later ones are dropped.
+   */
+  public CollisionEventBus(int capacity) {
+    this.capacity = capacity;
+    this.recorded = new CollisionBatch(capacity);
+  }
+
+  /**
+   * Subscribes to be called from publish(), on the simulation thread.
+   *
+   * @param categoryMask Only events where either entity is in one of these
+   *                     categories are delivered, e.g. CollisionLayers.CRATE.
+   * @param entityType   If not null, only events where either entity is an
+   *                     instance of this class are delivered.
+   */
+  public Subscription subscribe(int categoryMask, Class<? extends Entity> entityType, Subscriber subscriber) {
+    return subscribe(categoryMask, entityType, null, subscriber);
+  }
+
+  /**
+   * Subscribes as subscribe(categoryMask, entityType, subscriber), but with
+   * batches processed on the given executor. If it falls more than a few
+   * batches behind, further batches are dropped until it catches up.
+   */
+  public Subscription subscribe(int categoryMask, Class<? extends Entity> entityType, Executor executor,
+      Subscriber subscriber) {
+    Subscription subscription = new Subscription(categoryMask, entityType, executor, subscriber, capacity);
+    subscriptions.add(subscription);
+    interestMask |= categoryMask;
+    return subscription;
+  }
+
+  public void unsubscribe(Subscription subscription) {
+    subscriptions.remove(subscription);
+    interestMask = CollisionLayers.NONE;
+    for (int i = 0; i < subscriptions.size(); i++) {
+      interestMask |= subscriptions.get(i).categoryMask;
+    }
+  }
+
+  /**
+   * Events recorded by the last step that did not fit in the buffer.
+   */
+  public int getDroppedEvents() {
+    return recorded.getDropped();
+  }
+
+  // --- Recording, called by the engine and resolver during the step ---
+
+  void beginStep() {
+    recorded.clear();
+    time = 0;
+  }
+
+  void setTime(double time) {
+    this.time = time;
+  }
+
+  /**
+   * A couple of field reads and a mask test, so the resolver can skip building
+   * an event nobody listens for.
+   */
+  boolean wants(Entity a, Entity b) {
+    return ((a.getCollisionCategory() | b.getCollisionCategory()) & interestMask) != 0;
+  }
+
+  void record(Entity a, Entity b, double x, double y, double normalX, double normalY, double speed,
+      double impulse) {
+    recorded.add(a, b, x, y, normalX, normalY, speed, impulse, time);
+  }
+
+  // --- Delivery, called by the game loop after the step ---
+
+  /**
+   * Delivers the events recorded by the last step. Inline subscribers have
+   * run by the time this returns; asynchronous ones have been queued.
+   */
+  public void publish() {
+    if (recorded.size() == 0) {
+      return;
+    }
+    for (int s = 0; s < subscriptions.size(); s++) {
+      Subscription subscription = subscriptions.get(s);
+      CollisionBatch batch = subscription.executor == null ? subscription.inlineBatch : acquire(subscription);
+      for (int i = 0; i < recorded.size(); i++) {
+        if (subscription.matches(recorded.getA(i), recorded.getB(i))) {
+          batch.copy(recorded, i);
+        }
+      }
+
+      if (subscription.executor == null) {
+        if (batch.size() > 0) {
+          subscription.subscriber.onCollisions(batch);
+        }
+        batch.clear();
+      } else if (batch.size() == 0) {
+        subscription.free.offer(batch);
+      } else if (subscription.pendingCount.get() >= MAX_PENDING_BATCHES) {
+        subscription.droppedBatches.incrementAndGet();
+        batch.clear();
+        subscription.free.offer(batch);
+      } else {
+        subscription.pendingCount.incrementAndGet();
+        subscription.pending.offer(batch);
+        scheduleDrain(subscription);
+      }
+    }
+  }
+
+  private CollisionBatch acquire(Subscription subscription) {
+    CollisionBatch batch = subscription.free.poll();
+    return batch != null ? batch : new CollisionBatch(capacity);
+  }
+
+  // At most one drain task per subscription is in flight, so its batches are
+  // delivered in order and never concurrently
+  private static void scheduleDrain(Subscription subscription) {
+    if (subscription.draining.compareAndSet(false, true)) {
+      subscription.executor.execute(() -> drain(subscription));
+    }
+  }
+
+  private static void drain(Subscription subscription) {
+    while (true) {
+      CollisionBatch batch;
+      while ((batch = subscription.pending.poll()) != null) {
+        subscription.pendingCount.decrementAndGet();
+        try {
+          subscription.subscriber.onCollisions(batch);
+        } finally {
+          batch.clear();
+          subscription.free.offer(batch);
+        }
+      }
+      subscription.draining.set(false);
+      // A batch queued between the last poll and the reset would otherwise wait
+      // for the next publish
+      if (subscription.pending.isEmpty() || !subscription.draining.compareAndSet(false, true)) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.chaosgame.physics;
+
+/**
+ * Collision categories, one bit each. An entity belongs to one category and
+ * carries a mask of the categories it collides with.
+ */
+public final class CollisionLayers {
+
+  public static final int PLAYER = 1 << 0;
+  public static final int CRATE = 1 << 1;
+  public static final int WALL = 1 << 2;
+  public static final int DEBRIS = 1 << 3;
+  public static final int GUARD = 1 << 4;
+  public static final int HAND = 1 << 5;
+
+  public static final int NONE = 0;
+  public static final int ALL = ~0;
+
+  // Things the player can pick up
+  public static final int GRABBABLE = CRATE | DEBRIS;
+
+  private CollisionLayers() {
+  }
+}
@@ -0,0 +1,82 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.entity.Entity;
+
+import java.util.Arrays;
+
+/**
+ * A symmetric table of which collision categories collide with which.
+ * Applying it to an entity writes the row for the entity's category into its
+ * collision mask, so the broad phase only ever has to AND bitmasks.
+ */
+public class CollisionMatrix {
+
+  private final int[] masks = new int[Integer.SIZE]; // Indexed by category bit
+
+  /**
+   * A matrix where every category collides with every other.
+   */
+  public CollisionMatrix() {
+    Arrays.fill(masks, CollisionLayers.ALL);
+  }
+
+  /**
+   * The game's standard rules: walls never test against each other, and
+   * debris is purely cosmetic for players and guards and ignores other debris.
+   * The hand never collides; it is only used for grab queries.
+   */
+  public static CollisionMatrix createDefault() {
+    CollisionMatrix matrix = new CollisionMatrix();
+    matrix.setCollides(CollisionLayers.WALL, CollisionLayers.WALL, false);
+    matrix.setCollides(CollisionLayers.DEBRIS, CollisionLayers.DEBRIS, false);
+    matrix.setCollides(CollisionLayers.DEBRIS, CollisionLayers.PLAYER, false);
+    matrix.setCollides(CollisionLayers.DEBRIS, CollisionLayers.GUARD, false);
+    for (int bit = 0; bit < Integer.SIZE; bit++) {
+      matrix.setCollides(CollisionLayers.HAND, 1 << bit, false);
+    }
+    return matrix;
+  }
+
+  /**
+   * Sets whether two categories collide, in both directions.
+   *
+   * @param categoryA A single category bit.
+   * @param categoryB A single category bit.
+   */
+  public void setCollides(int categoryA, int categoryB, boolean collides) {
+    int a = index(categoryA);
+    int b = index(categoryB);
+    if (collides) {
+      masks[a] |= categoryB;
+      masks[b] |= categoryA;
+    } else {
+      masks[a] &= ~categoryB;
+      masks[b] &= ~categoryA;
+    }
+  }
+
+  public boolean collides(int categoryA, int categoryB) {
+    return (masks[index(categoryA)] & categoryB) != 0;
+  }
+
+  /**
+   * The mask of every category that the given category collides with.
+   */
+  public int maskFor(int category) {
+    return masks[index(category)];
+  }
+
+  /**
+   * Gives an entity the mask this matrix defines for its category.
+   */
+  public void apply(Entity entity) {
+    entity.setCollisionMask(maskFor(entity.getCollisionCategory()));
+  }
+
+  private static int index(int category) {
+    if (Integer.bitCount(category) != 1) {
+      throw new IllegalArgumentException("Expected a single category bit, got " + Integer.toBinaryString(category));
+    }
+    return Integer.numberOfTrailingZeros(category);
+  }
+}
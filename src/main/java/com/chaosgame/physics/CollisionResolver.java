@@ -3,21 +3,57 @@ package com.chaosgame.physics;
 
 import com.chaosgame.Vector2D;
 import com.chaosgame.entity.Entity;
-import com.chaosgame.entity.Wall;
 
 public class CollisionResolver {
 
   private static final double RESTITUTION = 0.6; // Bounciness
 
+  private CollisionEventBus events;
+
+  /**
+   * Records every impact resolveVelocity handles into the bus, or stops
+   * recording if null.
+   */
+  public void setEventBus(CollisionEventBus events) {
+    this.events = events;
+  }
+
   /**
    * Adjusts the positions of two colliding entities to no longer overlap.
    */
   public void resolvePosition(Entity e1, Entity e2, Vector2D mtv) {
-    double totalMass = e1.mass + e2.mass;
-    e1.setX(e1.getX() - mtv.x * (e2.mass / totalMass));
-    e1.setY(e1.getY() - mtv.y * (e2.mass / totalMass));
-    e2.setX(e2.getX() + mtv.x * (e1.mass / totalMass));
-    e2.setY(e2.getY() + mtv.y * (e1.mass / totalMass));
+    double totalInverseMass = e1.getInverseMass() + e2.getInverseMass();
+    if (totalInverseMass == 0) {
+      return;
+    }
+    double e1Share = e1.getInverseMass() / totalInverseMass;
+    double e2Share = e2.getInverseMass() / totalInverseMass;
+    e1.setX(e1.getX() - mtv.x * e1Share);
+    e1.setY(e1.getY() - mtv.y * e1Share);
+    e2.setX(e2.getX() + mtv.x * e2Share);
+    e2.setY(e2.getY() + mtv.y * e2Share);
+  }
+
+  /**
+   * Removes just enough of the approach velocity along a speculative contact's
+   * normal for the two entities to meet, rather than pass through each other,
+   * by the end of the step. The correction is split by inverse mass like
+   * resolvePosition, so a static or kinematic body absorbs none of it.
+   *
+   * @param normal      Unit normal pointing from e1 towards e2.
+   * @param excessSpeed The closing speed along the normal that must be removed.
+   */
+  public void resolveSpeculative(Entity e1, Entity e2, Vector2D normal, double excessSpeed) {
+    double totalInverseMass = e1.getInverseMass() + e2.getInverseMass();
+    if (totalInverseMass == 0) {
+      return;
+    }
+    double e1Share = e1.getInverseMass() / totalInverseMass;
+    double e2Share = e2.getInverseMass() / totalInverseMass;
+    e1.setVx(e1.getVx() - normal.x * excessSpeed * e1Share);
+    e1.setVy(e1.getVy() - normal.y * excessSpeed * e1Share);
+    e2.setVx(e2.getVx() + normal.x * excessSpeed * e2Share);
+    e2.setVy(e2.getVy() + normal.y * excessSpeed * e2Share);
   }
 
   /**
@@ -28,17 +64,21 @@ public class CollisionResolver {
     // A value of 1 is a perfect bounce.
     final double restitution = 0.6;
 
-    // --- Special case for wall collisions ---
-    if (a instanceof Wall) {
-      // 'a' is the wall, so we only modify 'b'
+    // --- Special case for immovable bodies (inverse mass 0) ---
+    if (a.getInverseMass() == 0 && b.getInverseMass() == 0) {
+      return;
+    } else if (a.getInverseMass() == 0) {
+      // 'a' is immovable, so we only modify 'b'
       // We reflect b's velocity and apply restitution
       b.setVx(b.getVx() * -restitution);
       b.setVy(b.getVy() * -restitution);
+      recordImmovableImpact(a, b, b);
       return;
-    } else if (b instanceof Wall) {
-      // 'b' is the wall, so we only modify 'a'
+    } else if (b.getInverseMass() == 0) {
+      // 'b' is immovable, so we only modify 'a'
       a.setVx(a.getVx() * -restitution);
       a.setVy(a.getVy() * -restitution);
+      recordImmovableImpact(a, b, a);
       return;
     }
 
@@ -62,5 +102,30 @@ public class CollisionResolver {
     a.setVy(a.getVy() + (newP1 - p1) * normalY);
     b.setVx(b.getVx() + (newP2 - p2) * normalX);
     b.setVy(b.getVy() + (newP2 - p2) * normalY);
+
+    if (events != null && p1 > p2 && events.wants(a, b)) {
+      // The contact is taken halfway between the surfaces along the centre line
+      double contact = a.getThickness() / 2 + (distance - a.getThickness() / 2 - b.getThickness() / 2) / 2;
+      events.record(a, b, a.getX() + normalX * contact, a.getY() + normalY * contact, normalX, normalY, p1 - p2,
+          a.mass * Math.abs(newP1 - p1));
+    }
+  }
+
+  // The mover has already bounced, so its new velocity points away from the
+  // wall, and it changed by (1 + RESTITUTION) times its speed before
+  private void recordImmovableImpact(Entity a, Entity b, Entity mover) {
+    if (events == null || !events.wants(a, b)) {
+      return;
+    }
+    double speed = mover.getSpeed();
+    if (speed == 0) {
+      return;
+    }
+    double normalX = mover.getVx() / speed;
+    double normalY = mover.getVy() / speed;
+    double offset = mover.getThickness() / 2;
+    double speedBefore = speed / RESTITUTION;
+    events.record(a, b, mover.getX() - normalX * offset, mover.getY() - normalY * offset, normalX, normalY,
+        speedBefore, mover.mass * (speedBefore + speed));
   }
 }
@@ -0,0 +1,129 @@
+package com.chaosgame.physics;
+
+/**
+ * Keeps each frame's work inside a time budget by trading away fidelity when
+ * frames run long, and giving it back once there is headroom again.
+ *
+ * The game loop brackets its work with beginFrame() and endFrame(). The
+ * scheduler keeps a smoothed work time; while that sits near the budget it
+ * steps down one level of detail tier at a time, and while it sits well below
+ * it steps back up. Tiers change at most every few frames, so a single spike
+ * does not make the simulation flicker between them.
+ */
+public class FrameBudgetScheduler {
+
+  /**
+   * Levels of detail, from full fidelity down. Each one keeps the savings of
+   * the tiers above it.
+   */
+  public enum Tier {
+    /** Everything runs every frame. */
+    FULL(PhysicsEngine.MAX_SUB_STEPS, 1, 1),
+    /** Fewer sub-steps per frame for fast bodies. */
+    REDUCED_STEPS(3, 1, 1),
+    /** Contacts between far bodies are solved every other frame. */
+    MULTI_RATE(3, 2, 1),
+    /**
+     * Far contacts every fourth frame, and non-critical work (particles, path
+     * finding) only every other frame.
+     */
+    DEFERRED(2, 4, 2);
+
+    public final int maxSubSteps;
+    public final int farContactInterval;
+    public final int deferredWorkInterval;
+
+    Tier(int maxSubSteps, int farContactInterval, int deferredWorkInterval) {
+      this.maxSubSteps = maxSubSteps;
+      this.farContactInterval = farContactInterval;
+      this.deferredWorkInterval = deferredWorkInterval;
+    }
+  }
+
+  private static final Tier[] TIERS = Tier.values();
+
+  // Smoothed work time above this fraction of the budget degrades a tier...
+  private static final double DEGRADE_FRACTION = 0.85;
+  // ...and below this one restores a tier
+  private static final double RESTORE_FRACTION = 0.5;
+  private static final double SMOOTHING = 0.1; // Weight of the newest frame
+  // Frames a tier must hold before the next change; restoring is more cautious
+  private static final int DEGRADE_HOLD_FRAMES = 10;
+  private static final int RESTORE_HOLD_FRAMES = 60;
+
+  private final long budgetNanos;
+  private Tier tier = Tier.FULL;
+  private double smoothedNanos = 0;
+  private long lastFrameNanos = 0;
+  private long frameStart;
+  private int framesInTier = 0;
+  private int frame = 0;
+
+  /**
+   * @param budgetNanos How long the work bracketed by beginFrame and endFrame
+   *                    may take, leaving the rest of the frame for rendering.
+   */
+  public FrameBudgetScheduler(long budgetNanos) {
+    this.budgetNanos = budgetNanos;
+  }
+
+  public void beginFrame() {
+    frameStart = System.nanoTime();
+    frame++;
+  }
+
+  /**
+   * Measures the frame and picks the tier for the next one.
+   */
+  public void endFrame() {
+    lastFrameNanos = System.nanoTime() - frameStart;
+    smoothedNanos += (lastFrameNanos - smoothedNanos) * SMOOTHING;
+    framesInTier++;
+
+    int index = tier.ordinal();
+    if (smoothedNanos > budgetNanos * DEGRADE_FRACTION && framesInTier >= DEGRADE_HOLD_FRAMES
+        && index < TIERS.length - 1) {
+      tier = TIERS[index + 1];
+      framesInTier = 0;
+    } else if (smoothedNanos < budgetNanos * RESTORE_FRACTION && framesInTier >= RESTORE_HOLD_FRAMES
+        && index > 0) {
+      tier = TIERS[index - 1];
+      framesInTier = 0;
+    }
+  }
+
+  /**
+   * Configures the engine for the current tier. Call before its update.
+   */
+  public void apply(PhysicsEngine physicsEngine) {
+    physicsEngine.setMaxSubSteps(tier.maxSubSteps);
+    physicsEngine.setFarContactInterval(tier.farContactInterval);
+  }
+
+  /**
+   * Whether non-critical work should run this frame. Work that is skipped
+   * should accumulate its delta and catch up on the next frame it runs.
+   */
+  public boolean shouldRunDeferredWork() {
+    return frame % tier.deferredWorkInterval == 0;
+  }
+
+  /**
+   * The tier in effect for the current frame.
+   */
+  public Tier getTier() {
+    return tier;
+  }
+
+  public long getBudgetNanos() {
+    return budgetNanos;
+  }
+
+  public long getLastFrameNanos() {
+    return lastFrameNanos;
+  }
+
+  public double getSmoothedMs() {
+    return smoothedNanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,398 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.Vector2D;
+import com.chaosgame.entity.Entity;
+
+/**
+ * GJK distance and EPA penetration between two convex entities, an
+ * alternative narrow phase to SAT.
+ *
+ * Both algorithms only touch the shapes through their support functions
+ * (Entity.support), which cost one pass over the vertices each. GJK walks a
+ * simplex of up to three points of the Minkowski difference A - B towards the
+ * origin: if it reaches the origin the shapes overlap and EPA expands the
+ * simplex into a polygon to find the penetration depth, otherwise the closest
+ * point of the simplex gives the distance. Either way the cost grows with
+ * (iterations) * (n + m) rather than SAT's (n + m)^2.
+ *
+ * The final simplex can be packed into a long (getSimplex) and passed back in
+ * on the next query for the same pair. Bodies move little between frames, so
+ * starting from last frame's simplex usually converges in one or two
+ * iterations.
+ *
+ * An instance holds scratch space and is not thread-safe.
+ */
+public class Gjk {
+
+  public static final long NO_SIMPLEX = 0;
+
+  private static final int MAX_ITERATIONS = 32;
+  private static final int MAX_EPA_ITERATIONS = 32;
+  private static final double RELATIVE_TOLERANCE = 1e-9;
+  private static final double EPA_TOLERANCE = 1e-6;
+  private static final double TOUCHING_SQUARED = 1e-18;
+  // Packing: 2 bits of count, then 10 bits per vertex index, two per point
+  private static final int INDEX_BITS = 10;
+  private static final int MAX_PACKED_INDEX = (1 << INDEX_BITS) - 1;
+
+  // --- The simplex: Minkowski points and the vertex indices they came from ---
+  private final double[] simplexX = new double[3];
+  private final double[] simplexY = new double[3];
+  private final int[] simplexA = new int[3];
+  private final int[] simplexB = new int[3];
+  private int count;
+
+  // The closest point of the simplex to the origin, from the last solve
+  private double closestX;
+  private double closestY;
+
+  // --- EPA polygon, wound counter-clockwise ---
+  private final double[] polygonX = new double[3 + MAX_EPA_ITERATIONS];
+  private final double[] polygonY = new double[3 + MAX_EPA_ITERATIONS];
+
+  private int iterations;
+
+  // Results of solve()
+  private static final int SEPARATE = 0;
+  private static final int INSIDE = 1;
+  private static final int DEGENERATE = 2;
+
+  /**
+   * Measures the signed distance from a to b, in the same form as
+   * Entity.computeSeparation.
+   *
+   * @param warmStart A simplex from getSimplex() for the same (a, b) pair, or
+   *                  NO_SIMPLEX.
+   * @return The separation (its axisIndex is always -1), or null in the rare
+   *         case that EPA cannot make progress, when the caller should fall
+   *         back to SAT.
+   */
+  public Separation separation(Entity a, Entity b, long warmStart) {
+    iterations = 0;
+    count = 0;
+    loadSimplex(a, b, warmStart);
+    if (count == 0) {
+      double directionX = a.getX() - b.getX();
+      double directionY = a.getY() - b.getY();
+      if (directionX == 0 && directionY == 0) {
+        directionX = 1;
+      }
+      addSupport(a, b, directionX, directionY);
+    }
+
+    while (iterations++ < MAX_ITERATIONS) {
+      int result = solve();
+      if (result == INSIDE) {
+        return penetration(a, b);
+      }
+      if (result == DEGENERATE) {
+        // The last point is in line with the other two and adds nothing;
+        // carry on from the segment, which already holds the closest feature
+        count = 2;
+        solveSegment();
+      }
+      double closestSquared = closestX * closestX + closestY * closestY;
+      if (closestSquared < TOUCHING_SQUARED) {
+        // The origin is on the simplex itself, so the shapes touch or overlap;
+        // only EPA can tell how deep
+        return completeSimplex(a, b) ? penetration(a, b) : null;
+      }
+
+      // Look for a point of A - B further towards the origin
+      int indexA = a.support(-closestX, -closestY);
+      int indexB = b.support(closestX, closestY);
+      double pointX = a.getWorldVertexX(indexA) - b.getWorldVertexX(indexB);
+      double pointY = a.getWorldVertexY(indexA) - b.getWorldVertexY(indexB);
+      double progress = closestSquared - (closestX * pointX + closestY * pointY);
+      if (progress <= RELATIVE_TOLERANCE * closestSquared || contains(indexA, indexB)) {
+        break; // Converged: the simplex already holds the closest feature
+      }
+      add(indexA, indexB, pointX, pointY);
+    }
+
+    double distance = Math.sqrt(closestX * closestX + closestY * closestY);
+    return new Separation(distance, new Vector2D(-closestX / distance, -closestY / distance), -1);
+  }
+
+  /**
+   * The final simplex of the last query, packed for warm-starting the next
+   * one, or NO_SIMPLEX if the shapes have too many vertices to pack.
+   */
+  public long getSimplex() {
+    long packed = count;
+    for (int i = 0; i < count; i++) {
+      if (simplexA[i] > MAX_PACKED_INDEX || simplexB[i] > MAX_PACKED_INDEX) {
+        return NO_SIMPLEX;
+      }
+      int shift = 2 + i * 2 * INDEX_BITS;
+      packed |= (long) simplexA[i] << shift;
+      packed |= (long) simplexB[i] << (shift + INDEX_BITS);
+    }
+    return packed;
+  }
+
+  /**
+   * The same simplex as seen from the other side, i.e. for the (b, a) pair.
+   */
+  public static long swapSides(long packed) {
+    int pointCount = (int) (packed & 3);
+    long swapped = pointCount;
+    for (int i = 0; i < pointCount; i++) {
+      int shift = 2 + i * 2 * INDEX_BITS;
+      long indexA = (packed >>> shift) & MAX_PACKED_INDEX;
+      long indexB = (packed >>> (shift + INDEX_BITS)) & MAX_PACKED_INDEX;
+      swapped |= indexB << shift;
+      swapped |= indexA << (shift + INDEX_BITS);
+    }
+    return swapped;
+  }
+
+  /**
+   * GJK iterations taken by the last query, including any warm-start points.
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  private void loadSimplex(Entity a, Entity b, long packed) {
+    int pointCount = (int) (packed & 3);
+    int edgesA = a.getEdgeCount();
+    int edgesB = b.getEdgeCount();
+    for (int i = 0; i < pointCount; i++) {
+      int shift = 2 + i * 2 * INDEX_BITS;
+      int indexA = (int) ((packed >>> shift) & MAX_PACKED_INDEX);
+      int indexB = (int) ((packed >>> (shift + INDEX_BITS)) & MAX_PACKED_INDEX);
+      if (indexA >= edgesA || indexB >= edgesB) {
+        count = 0; // Cached for a different shape; start cold
+        return;
+      }
+      if (!contains(indexA, indexB)) {
+        add(indexA, indexB, a.getWorldVertexX(indexA) - b.getWorldVertexX(indexB),
+            a.getWorldVertexY(indexA) - b.getWorldVertexY(indexB));
+      }
+    }
+  }
+
+  private void addSupport(Entity a, Entity b, double directionX, double directionY) {
+    int indexA = a.support(directionX, directionY);
+    int indexB = b.support(-directionX, -directionY);
+    add(indexA, indexB, a.getWorldVertexX(indexA) - b.getWorldVertexX(indexB),
+        a.getWorldVertexY(indexA) - b.getWorldVertexY(indexB));
+  }
+
+  private void add(int indexA, int indexB, double x, double y) {
+    simplexA[count] = indexA;
+    simplexB[count] = indexB;
+    simplexX[count] = x;
+    simplexY[count] = y;
+    count++;
+  }
+
+  private boolean contains(int indexA, int indexB) {
+    return contains(indexA, indexB, count);
+  }
+
+  // Whether any of the first `points` simplex points came from these vertices
+  private boolean contains(int indexA, int indexB, int points) {
+    for (int i = 0; i < points; i++) {
+      if (simplexA[i] == indexA && simplexB[i] == indexB) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void keep(int from, int to) {
+    simplexA[to] = simplexA[from];
+    simplexB[to] = simplexB[from];
+    simplexX[to] = simplexX[from];
+    simplexY[to] = simplexY[from];
+  }
+
+  /**
+   * Finds the point of the simplex closest to the origin and drops the points
+   * that do not support it (Voronoi regions, after Ericson's
+   * closest-point-on-triangle).
+   */
+  private int solve() {
+    if (count == 1) {
+      closestX = simplexX[0];
+      closestY = simplexY[0];
+      return SEPARATE;
+    }
+    if (count == 2) {
+      return solveSegment();
+    }
+
+    double ax = simplexX[0], ay = simplexY[0];
+    double bx = simplexX[1], by = simplexY[1];
+    double cx = simplexX[2], cy = simplexY[2];
+    double abx = bx - ax, aby = by - ay;
+    double acx = cx - ax, acy = cy - ay;
+    if (Math.abs(triangleArea()) < 1e-12) {
+      return DEGENERATE;
+    }
+
+    double d1 = -(abx * ax + aby * ay);
+    double d2 = -(acx * ax + acy * ay);
+    if (d1 <= 0 && d2 <= 0) {
+      count = 1;
+      return solve();
+    }
+    double d3 = -(abx * bx + aby * by);
+    double d4 = -(acx * bx + acy * by);
+    if (d3 >= 0 && d4 <= d3) {
+      keep(1, 0);
+      count = 1;
+      return solve();
+    }
+    double vc = d1 * d4 - d3 * d2;
+    if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+      count = 2; // Edge ab
+      return solveSegment();
+    }
+    double d5 = -(abx * cx + aby * cy);
+    double d6 = -(acx * cx + acy * cy);
+    if (d6 >= 0 && d5 <= d6) {
+      keep(2, 0);
+      count = 1;
+      return solve();
+    }
+    double vb = d5 * d2 - d1 * d6;
+    if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+      keep(2, 1); // Edge ac
+      count = 2;
+      return solveSegment();
+    }
+    double va = d3 * d6 - d5 * d4;
+    if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+      keep(1, 0); // Edge bc
+      keep(2, 1);
+      count = 2;
+      return solveSegment();
+    }
+    closestX = 0;
+    closestY = 0;
+    return INSIDE;
+  }
+
+  private int solveSegment() {
+    double ax = simplexX[0], ay = simplexY[0];
+    double ex = simplexX[1] - ax, ey = simplexY[1] - ay;
+    double lengthSquared = ex * ex + ey * ey;
+    double t = lengthSquared < 1e-18 ? 0 : -(ax * ex + ay * ey) / lengthSquared;
+    if (t <= 0) {
+      count = 1;
+    } else if (t >= 1) {
+      keep(1, 0);
+      count = 1;
+    } else {
+      closestX = ax + ex * t;
+      closestY = ay + ey * t;
+      return SEPARATE;
+    }
+    closestX = simplexX[0];
+    closestY = simplexY[0];
+    return SEPARATE;
+  }
+
+  /**
+   * Grows a point or segment through the origin into a triangle for EPA,
+   * using supports in directions the simplex does not cover yet.
+   *
+   * @return False if A - B is too thin to enclose any area.
+   */
+  private boolean completeSimplex(Entity a, Entity b) {
+    if (count == 1) {
+      addSupport(a, b, 1, 0);
+      if (contains(simplexA[1], simplexB[1], 1)) {
+        count = 1;
+        addSupport(a, b, -1, 0);
+      }
+    }
+    if (count == 2) {
+      double normalX = -(simplexY[1] - simplexY[0]);
+      double normalY = simplexX[1] - simplexX[0];
+      addSupport(a, b, normalX, normalY);
+      if (Math.abs(triangleArea()) < 1e-12) {
+        count = 2;
+        addSupport(a, b, -normalX, -normalY);
+      }
+    }
+    return count == 3 && Math.abs(triangleArea()) >= 1e-12;
+  }
+
+  private double triangleArea() {
+    return (simplexX[1] - simplexX[0]) * (simplexY[2] - simplexY[0])
+        - (simplexY[1] - simplexY[0]) * (simplexX[2] - simplexX[0]);
+  }
+
+  /**
+   * EPA: grows the triangle around the origin towards the boundary of A - B
+   * until the edge nearest the origin is part of that boundary. Its distance
+   * is the penetration depth and its outward normal points from a to b.
+   */
+  private Separation penetration(Entity a, Entity b) {
+    int size = 3;
+    for (int i = 0; i < 3; i++) {
+      polygonX[i] = simplexX[i];
+      polygonY[i] = simplexY[i];
+    }
+    // Counter-clockwise, so every edge's outward normal is (ey, -ex)
+    if ((polygonX[1] - polygonX[0]) * (polygonY[2] - polygonY[0])
+        - (polygonY[1] - polygonY[0]) * (polygonX[2] - polygonX[0]) < 0) {
+      double x = polygonX[1], y = polygonY[1];
+      polygonX[1] = polygonX[2];
+      polygonY[1] = polygonY[2];
+      polygonX[2] = x;
+      polygonY[2] = y;
+    }
+
+    double normalX = 0, normalY = 0, depth = 0;
+    for (int iteration = 0; iteration < MAX_EPA_ITERATIONS; iteration++) {
+      // --- Step 1: Find the edge nearest the origin ---
+      int nearest = -1;
+      depth = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < size; i++) {
+        int j = i + 1 == size ? 0 : i + 1;
+        double ex = polygonX[j] - polygonX[i];
+        double ey = polygonY[j] - polygonY[i];
+        double length = Math.sqrt(ex * ex + ey * ey);
+        if (length < 1e-12) {
+          continue;
+        }
+        double nx = ey / length;
+        double ny = -ex / length;
+        double distance = nx * polygonX[i] + ny * polygonY[i];
+        if (distance < depth) {
+          depth = distance;
+          normalX = nx;
+          normalY = ny;
+          nearest = i;
+        }
+      }
+      if (nearest < 0) {
+        return null;
+      }
+
+      // --- Step 2: Stop if the boundary lies no further out along its normal ---
+      int indexA = a.support(normalX, normalY);
+      int indexB = b.support(-normalX, -normalY);
+      double pointX = a.getWorldVertexX(indexA) - b.getWorldVertexX(indexB);
+      double pointY = a.getWorldVertexY(indexA) - b.getWorldVertexY(indexB);
+      if (normalX * pointX + normalY * pointY - depth < EPA_TOLERANCE || size == polygonX.length) {
+        break;
+      }
+
+      // --- Step 3: Split the edge at the new point ---
+      for (int i = size; i > nearest + 1; i--) {
+        polygonX[i] = polygonX[i - 1];
+        polygonY[i] = polygonY[i - 1];
+      }
+      polygonX[nearest + 1] = pointX;
+      polygonY[nearest + 1] = pointY;
+      size++;
+    }
+    return new Separation(-depth, new Vector2D(normalX, normalY), -1);
+  }
+}
@@ -0,0 +1,187 @@
+package com.chaosgame.physics;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of predicted times of impact, keyed by entity pair.
+ * Each pair has at most one live prediction: scheduling a pair again replaces
+ * the old event. This lets the engine invalidate only the pairs touched by an
+ * impact instead of rebuilding the whole queue.
+ *
+ * Events live in parallel arrays, ordered by an indexed binary heap, and each
+ * pair finds its event through a PairIndex, so scheduling and cancelling
+ * allocate nothing once the arrays have grown to a frame's worth of pairs.
+ * A cancelled event leaves the heap at once rather than when it reaches the
+ * head.
+ */
+class ImpactQueue {
+
+  private static final int NONE = -1;
+
+  // --- Events by slot; a slot is reused as soon as its event leaves ---
+  private double[] times = new double[64];
+  private int[] firsts = new int[64]; // Entity indices, first < second
+  private int[] seconds = new int[64];
+  private int[] heapPosition = new int[64];
+  private int[] freeSlots = new int[64];
+  private int freeCount = 0;
+  private int slotCount = 0;
+
+  // --- A min-heap of slots by time ---
+  private int[] heap = new int[64];
+  private int heapSize = 0;
+
+  private final PairIndex slotOfPair = new PairIndex();
+
+  // The event returned by the last poll()
+  private double polledTime;
+  private int polledFirst;
+  private int polledSecond;
+
+  static long pairKey(int i, int j) {
+    int lo = Math.min(i, j);
+    int hi = Math.max(i, j);
+    return ((long) lo << 32) | (hi & 0xffffffffL);
+  }
+
+  public void clear() {
+    heapSize = 0;
+    freeCount = 0;
+    slotCount = 0;
+    slotOfPair.clear();
+  }
+
+  /**
+   * Records a predicted impact for a pair, replacing any earlier prediction.
+   */
+  public void schedule(int i, int j, double time) {
+    cancel(i, j);
+    int slot = allocate();
+    times[slot] = time;
+    firsts[slot] = Math.min(i, j);
+    seconds[slot] = Math.max(i, j);
+    slotOfPair.put(pairKey(i, j), slot);
+    heap[heapSize] = slot;
+    heapPosition[slot] = heapSize;
+    siftUp(heapSize++);
+  }
+
+  /**
+   * Drops the prediction for a pair, if there is one.
+   */
+  public void cancel(int i, int j) {
+    int slot = slotOfPair.remove(pairKey(i, j), NONE);
+    if (slot != NONE) {
+      removeAt(heapPosition[slot]);
+    }
+  }
+
+  /**
+   * Removes the earliest event, which getTime, getFirst and getSecond then
+   * describe until the next poll.
+   *
+   * @return false if no events remain.
+   */
+  public boolean poll() {
+    if (heapSize == 0) {
+      return false;
+    }
+    int slot = heap[0];
+    polledTime = times[slot];
+    polledFirst = firsts[slot];
+    polledSecond = seconds[slot];
+    slotOfPair.remove(pairKey(polledFirst, polledSecond), NONE);
+    removeAt(0);
+    return true;
+  }
+
+  public double getTime() {
+    return polledTime;
+  }
+
+  /**
+   * The lower entity index of the polled pair.
+   */
+  public int getFirst() {
+    return polledFirst;
+  }
+
+  public int getSecond() {
+    return polledSecond;
+  }
+
+  public int size() {
+    return heapSize;
+  }
+
+  private int allocate() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    if (slotCount == times.length) {
+      int capacity = slotCount * 2;
+      times = Arrays.copyOf(times, capacity);
+      firsts = Arrays.copyOf(firsts, capacity);
+      seconds = Arrays.copyOf(seconds, capacity);
+      heapPosition = Arrays.copyOf(heapPosition, capacity);
+      freeSlots = Arrays.copyOf(freeSlots, capacity);
+      heap = Arrays.copyOf(heap, capacity);
+    }
+    return slotCount++;
+  }
+
+  // Takes the event at a heap position out, moving the last one into the hole
+  private void removeAt(int position) {
+    int slot = heap[position];
+    freeSlots[freeCount++] = slot;
+    int last = heap[--heapSize];
+    if (position == heapSize) {
+      return;
+    }
+    heap[position] = last;
+    heapPosition[last] = position;
+    if (position > 0 && times[last] < times[heap[(position - 1) >>> 1]]) {
+      siftUp(position);
+    } else {
+      siftDown(position);
+    }
+  }
+
+  private void siftUp(int position) {
+    int slot = heap[position];
+    double time = times[slot];
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (times[heap[parent]] <= time) {
+        break;
+      }
+      heap[position] = heap[parent];
+      heapPosition[heap[position]] = position;
+      position = parent;
+    }
+    heap[position] = slot;
+    heapPosition[slot] = position;
+  }
+
+  private void siftDown(int position) {
+    int slot = heap[position];
+    double time = times[slot];
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && times[heap[child + 1]] < times[heap[child]]) {
+        child++;
+      }
+      if (times[heap[child]] >= time) {
+        break;
+      }
+      heap[position] = heap[child];
+      heapPosition[heap[position]] = position;
+      position = child;
+    }
+    heap[position] = slot;
+    heapPosition[slot] = position;
+  }
+}
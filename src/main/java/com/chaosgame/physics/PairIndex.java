@@ -0,0 +1,111 @@
+package com.chaosgame.physics;
+
+import java.util.Arrays;
+
+/**
+ * An int per pair of body indices, in an open-addressing table of primitive
+ * keys and values like PairTimes, but with removal. Keys are
+ * ImpactQueue.pairKey values.
+ */
+class PairIndex {
+  private static final long EMPTY = 0; // A pair's indices differ, so no pair has key 0
+
+  private long[] keys = new long[64];
+  private int[] values = new int[64];
+  private int size = 0;
+
+  /**
+   * Records the value for a pair, replacing any earlier one.
+   */
+  void put(long key, int value) {
+    if (2 * (size + 1) > keys.length) {
+      rehash(keys.length * 2);
+    }
+    int slot = find(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  /**
+   * The value recorded for a pair, or missing if there is none.
+   */
+  int get(long key, int missing) {
+    int slot = find(key);
+    return keys[slot] == EMPTY ? missing : values[slot];
+  }
+
+  /**
+   * Drops a pair and returns its value, or missing if there was none.
+   */
+  int remove(long key, int missing) {
+    int hole = find(key);
+    if (keys[hole] == EMPTY) {
+      return missing;
+    }
+    int value = values[hole];
+    // Backward-shift deletion, as in SeparatingAxisCache, so there are no
+    // tombstones
+    int mask = keys.length - 1;
+    int slot = hole;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (keys[slot] == EMPTY) {
+        break;
+      }
+      int home = (int) (mix(keys[slot]) & mask);
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        keys[hole] = keys[slot];
+        values[hole] = values[slot];
+        hole = slot;
+      }
+    }
+    keys[hole] = EMPTY;
+    size--;
+    return value;
+  }
+
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, EMPTY);
+      size = 0;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[capacity];
+    values = new int[capacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  // Linear probing; returns the key's slot or the empty slot where it belongs
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) (mix(key) & mask);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return key;
+  }
+}
@@ -0,0 +1,81 @@
+package com.chaosgame.physics;
+
+import java.util.Arrays;
+
+/**
+ * A time per pair of body indices, in an open-addressing table of primitive
+ * keys and values, so recording one allocates nothing once the table has
+ * grown to a frame's worth of pairs. Keys are ImpactQueue.pairKey values.
+ */
+class PairTimes {
+  private static final long EMPTY = 0; // A pair's indices differ, so no pair has key 0
+
+  private long[] keys = new long[64];
+  private double[] times = new double[64];
+  private int size = 0;
+
+  /**
+   * Records the time for a pair, replacing any earlier one.
+   */
+  void put(long key, double time) {
+    if (2 * (size + 1) > keys.length) {
+      rehash(keys.length * 2);
+    }
+    int slot = find(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      size++;
+    }
+    times[slot] = time;
+  }
+
+  /**
+   * The time recorded for a pair, or missing if there is none.
+   */
+  double get(long key, double missing) {
+    int slot = find(key);
+    return keys[slot] == EMPTY ? missing : times[slot];
+  }
+
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, EMPTY);
+      size = 0;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    double[] oldTimes = times;
+    keys = new long[capacity];
+    times = new double[capacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        times[slot] = oldTimes[i];
+      }
+    }
+  }
+
+  // Linear probing; returns the key's slot or the empty slot where it belongs
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) (mix(key) & mask);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return key;
+  }
+}
@@ -2,47 +2,310 @@
 package com.chaosgame.physics;
 
 import com.chaosgame.entity.Entity;
+import com.chaosgame.job.JobSystem;
 import com.chaosgame.Vector2D;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class PhysicsEngine {
 
+  /**
+   * How fast-moving pairs are advanced through a frame.
+   * SUB_STEPPED moves the whole world from one earliest impact to the next,
+   * rescanning every pair each time. At the sub-step limit (MAX_SUB_STEPS
+   * unless lowered with setMaxSubSteps) the rest of the frame is one more
+   * step with speculative contacts only.
+   * EVENT_DRIVEN keeps predicted impacts in a queue and, after each impact,
+   * only re-predicts the pairs involving the two bodies that were hit.
+   */
+  public enum ContinuousMode {
+    SUB_STEPPED, EVENT_DRIVEN
+  }
+
   private CollisionResolver collisionResolver;
-  private static final int MAX_SUB_STEPS = 5; // Prevents infinite loops
+  public static final int MAX_SUB_STEPS = 5; // Prevents infinite loops
+
+  // A body only gets swept (continuous) tests when it moves further than this
+  // fraction of its own thickness in one step. Pairs of slower bodies take the
+  // cheap discrete path with speculative contacts instead.
+  private static final double CCD_MOTION_FRACTION = 0.5;
+  private static final double CONTACT_SLOP = 0.01; // Gap that still counts as touching
+
+  // Per-entity "needs CCD" flags for the current sub-step, reused across frames
+  private boolean[] fastMoving = new boolean[0];
+
+  private ContinuousMode continuousMode = ContinuousMode.SUB_STEPPED;
+
+  // --- Event-driven state, reused across frames ---
+  private final ImpactQueue impactQueue = new ImpactQueue();
+  // The time within the frame that each entity's position is currently valid for
+  private double[] entityTime = new double[0];
+  // When each pair was last resolved this frame, so a resting pair cannot
+  // ping-pong forever at a single instant
+  private final PairTimes lastImpactTime = new PairTimes();
+  private static final double MIN_TOI = 1e-9;
+
+  // The axis that last separated each pair, tried before a full SAT test
+  private final SeparatingAxisCache axisCache = new SeparatingAxisCache();
+  private final int[] separatingAxis = new int[1];
+  private final double[] cachedDirection = new double[2];
+
+  // SAT tests every edge normal of both shapes against every vertex, so its
+  // cost grows with the square of the vertex count while GJK's grows linearly.
+  // Pairs with at least this many vertices between them are measured with GJK.
+  // Against the allocation-free Sat, NarrowPhaseBenchmark has the two within
+  // noise of each other for two triangles or two boxes, and GJK clearly ahead
+  // from two hexagons (12 vertices) on. Below that SAT is kept, as it also
+  // names the separating edge for the axis cache.
+  public static final int GJK_MIN_VERTICES = 12;
+  private final Gjk gjk = new Gjk();
+  private final Sat sat = new Sat();
+
+  // --- Bodies sorted by type at the start of every update, reused across frames ---
+  // Dynamic bodies come first, followed by the static and kinematic bodies they
+  // can hit. Pair loops only start from a dynamic body, so fixed-fixed pairs are
+  // never visited, and integration stops at dynamicCount.
+  private final ArrayList<Entity> bodies = new ArrayList<>();
+  private int dynamicCount;
+  private final ArrayList<Entity> kinematicBodies = new ArrayList<>();
+
+  // --- Level of detail ---
+  private int maxSubSteps = MAX_SUB_STEPS;
+  // Contacts between two dynamic bodies that are both further than lodRadius
+  // from the focus are only solved every farContactInterval frames
+  private int farContactInterval = 1;
+  private double lodFocusX, lodFocusY;
+  private double lodRadius = Double.POSITIVE_INFINITY;
+  private boolean[] far = new boolean[0]; // Per body, refreshed by partition
+  private int frame = 0;
+  private double frameDelta; // Of the current update, for what a skipped pair could cover
+
+  private CollisionEventBus eventBus;
+
+  // --- Parallel loops ---
+  // Loops that only touch one body at a time (CCD flags, integration) are
+  // split into chunks of PARALLEL_GRAIN bodies when a JobSystem is set and
+  // there are at least PARALLEL_MIN_BODIES of them. The pair loops stay on
+  // one thread: each resolved contact changes the velocities the pairs after
+  // it are tested with.
   //
+  // Integrating a body takes about 4 ns, while forking a chunk from a pool
+  // worker costs 1-2 us and handing it to another thread around 10 us, so a
+  // chunk only pays for itself at a few thousand bodies. Smaller loops run on
+  // the calling thread and allocate no chunks.
+  public static final int PARALLEL_GRAIN = 2048;
+  public static final int PARALLEL_MIN_BODIES = 2 * PARALLEL_GRAIN;
+  private JobSystem jobs;
+  private List<Entity> rangeBodies; // What the range tasks below work on
+  private double rangeTime;
+  private final JobSystem.RangeTask flagFastMovingRange = (from, to) -> {
+    for (int i = from; i < to; i++) {
+      fastMoving[i] = rangeBodies.get(i).isFastMoving(rangeTime, CCD_MOTION_FRACTION);
+    }
+  };
+  private final JobSystem.RangeTask integrateRange = (from, to) -> {
+    for (int i = from; i < to; i++) {
+      rangeBodies.get(i).updatePosition(rangeTime);
+    }
+  };
+  private final JobSystem.RangeTask advanceRange = (from, to) -> {
+    for (int i = from; i < to; i++) {
+      advanceTo(rangeBodies, i, rangeTime);
+    }
+  };
+
+  private final PhysicsStats stats = new PhysicsStats();
 
   public PhysicsEngine() {
     this.collisionResolver = new CollisionResolver();
   }
 
+  /**
+   * Records every impact into a bus for delivery after the step, or stops
+   * recording if null. The engine clears the bus's buffer at the start of each
+   * update; the caller publishes it afterwards.
+   */
+  public void setEventBus(CollisionEventBus eventBus) {
+    this.eventBus = eventBus;
+    collisionResolver.setEventBus(eventBus);
+  }
+
+  /**
+   * Splits the per-body loops of each update across a job system's workers,
+   * or runs them on the calling thread if null. The results are the same
+   * either way, as no two chunks touch the same body.
+   */
+  public void setJobSystem(JobSystem jobs) {
+    this.jobs = jobs;
+  }
+
+  public int getMaxSubSteps() {
+    return maxSubSteps;
+  }
+
+  /**
+   * Lowers (or restores) the number of sub-steps SUB_STEPPED mode may take per
+   * frame. Fewer sub-steps are cheaper, at the risk of fast bodies late in a
+   * busy frame getting only a speculative contact.
+   */
+  public void setMaxSubSteps(int maxSubSteps) {
+    this.maxSubSteps = Math.max(1, Math.min(maxSubSteps, MAX_SUB_STEPS));
+  }
+
+  public int getFarContactInterval() {
+    return farContactInterval;
+  }
+
+  /**
+   * Multi-rate stepping: contacts between two dynamic bodies that are both far
+   * from the focus (see setLodFocus) are only solved on one frame in every
+   * interval. Pairs are staggered across frames so the cost does not bunch up.
+   * Far bodies still integrate and still collide with static geometry every
+   * frame, so they cannot fall through walls, and a pair closing fast enough to
+   * sink into each other between its turns is solved every frame too. 1 solves
+   * every pair every frame.
+   */
+  public void setFarContactInterval(int farContactInterval) {
+    this.farContactInterval = Math.max(1, farContactInterval);
+  }
+
+  /**
+   * Sets the point fidelity is kept around, usually the player or the centre
+   * of the camera, and how far from it a body counts as far.
+   */
+  public void setLodFocus(double x, double y, double radius) {
+    this.lodFocusX = x;
+    this.lodFocusY = y;
+    this.lodRadius = radius;
+  }
+
+  public ContinuousMode getContinuousMode() {
+    return continuousMode;
+  }
+
+  public void setContinuousMode(ContinuousMode continuousMode) {
+    this.continuousMode = continuousMode;
+  }
+
+  /**
+   * Counters for the most recent update. The same instance is refilled every
+   * frame, so callers should read it before the next update.
+   */
+  public PhysicsStats getStats() {
+    return stats;
+  }
+
   public void update(List<Entity> entities, double delta) {
+    long startTime = System.nanoTime();
+    stats.reset();
+    if (eventBus != null) {
+      eventBus.beginStep();
+    }
+    frameDelta = delta;
+    partition(entities);
+
+    if (continuousMode == ContinuousMode.EVENT_DRIVEN) {
+      updateEventDriven(bodies, delta);
+    } else {
+      updateSubStepped(bodies, delta);
+    }
+
+    // Kinematic bodies are placed by their owners; they are only moved by
+    // their own velocity, never solved
+    for (int i = 0; i < kinematicBodies.size(); i++) {
+      kinematicBodies.get(i).updatePosition(delta);
+    }
+
+    for (int i = 0; i < dynamicCount; i++) {
+      if (bodies.get(i).isAwake()) {
+        stats.awakeBodies++;
+      }
+    }
+    // Pairs that never reached the narrow phase this frame are dropped
+    axisCache.endFrame();
+    stats.stepNanos = System.nanoTime() - startTime;
+  }
+
+  /**
+   * Sorts the entities into the body lists. Static and kinematic bodies that
+   * cannot collide with anything are left out of the pair loops entirely.
+   */
+  private void partition(List<Entity> entities) {
+    frame++;
+    bodies.clear();
+    kinematicBodies.clear();
+    if (far.length < entities.size()) {
+      far = new boolean[entities.size()];
+    }
+    double lodRadiusSquared = lodRadius * lodRadius;
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      if (entity.getBodyType() == BodyType.DYNAMIC) {
+        double dx = entity.getX() - lodFocusX;
+        double dy = entity.getY() - lodFocusY;
+        far[bodies.size()] = farContactInterval > 1 && dx * dx + dy * dy > lodRadiusSquared;
+        bodies.add(entity);
+      }
+    }
+    dynamicCount = bodies.size();
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      BodyType type = entity.getBodyType();
+      if (type == BodyType.KINEMATIC) {
+        kinematicBodies.add(entity);
+      }
+      if (type != BodyType.DYNAMIC && entity.isPhysical
+          && entity.getCollisionMask() != CollisionLayers.NONE) {
+        bodies.add(entity);
+      }
+    }
+  }
+
+  private void updateSubStepped(List<Entity> entities, double delta) {
     double remainingTime = delta;
     int subSteps = 0;
 
-    System.out.println(String.format("--- NEW PHYSICS FRAME (delta=%.4f) ---", delta));
+    while (remainingTime > 0 && subSteps < maxSubSteps) {
+      double elapsed = delta - remainingTime;
+      markEventTime(elapsed);
 
-    while (remainingTime > 0 && subSteps < MAX_SUB_STEPS) {
+      // --- Step 1: Decide which bodies are fast enough to need CCD ---
+      flagFastMoving(entities, remainingTime);
 
-      // --- Step 1: Find the earliest collision ---
+      // --- Step 2: Find the earliest collision ---
       double earliestToi = remainingTime;
       Entity entityA = null;
       Entity entityB = null;
 
-      for (int i = 0; i < entities.size(); i++) {
+      for (int i = 0; i < dynamicCount; i++) {
         for (int j = i + 1; j < entities.size(); j++) {
           Entity e1 = entities.get(i);
           Entity e2 = entities.get(j);
 
-          // Skip checks for non-physical entities or two walls
-          if (!e1.isPhysical || !e2.isPhysical) {// || (e1 instanceof Wall && e2 instanceof Wall)) {
+          // Skip non-physical entities and pairs filtered out by their layers
+          // or by level of detail
+          if (!shouldCollide(e1, e2) || !isPairDue(i, j)) {
+            continue;
+          }
+
+          // Slow pairs cannot tunnel, so they skip the TOI computation
+          if (!fastMoving[i] && !fastMoving[j]) {
+            handleSpeculativeContact(e1, e2, remainingTime);
+            continue;
+          }
+
+          if (!boundsMayTouch(e1, e2, remainingTime) || cachedAxisSeparates(e1, e2, remainingTime)) {
             continue;
           }
 
           // Convert toi from being relative to the whole frame (0-1) to the remaining
           // time
-          double toi = e1.collide(e2, remainingTime);
+          double toi = sweptCollide(e1, e2, remainingTime);
 
-          if (toi < earliestToi) {
+          // A pair touching after a bounce would otherwise hit again at once,
+          // every sub-step, reflecting its velocity back and forth
+          if (toi < earliestToi && (toi >= MIN_TOI || isClosing(e1, e2, computeSeparation(e1, e2)))) {
             earliestToi = toi;
             entityA = e1;
             entityB = e2;
@@ -50,26 +313,412 @@ public class PhysicsEngine {
         }
       }
 
-      // --- Step 2: Move all entities forward by the calculated time ---
+      // --- Step 3: Move all dynamic bodies forward by the calculated time ---
       double timeToSimulate = earliestToi;
-      for (Entity entity : entities) {
-        entity.updatePosition(timeToSimulate);
-      }
+      forEachDynamic(integrateRange, entities, timeToSimulate);
 
-      // --- Step 3: If a collision was found, resolve it ---
+      // --- Step 4: If a collision was found, resolve it ---
       if (entityA != null) {
-        Vector2D mtv = entityA.checkCollision(entityB).mtv;
-        collisionResolver.resolveVelocity(entityA, entityB);
-        collisionResolver.resolvePosition(entityA, entityB, mtv);
-        System.out.println(mtv.toString());
+        markEventTime(elapsed + timeToSimulate);
+        resolveImpact(entityA, entityB);
       }
 
-      // --- Step 4: Reduce the remaining time ---
+      // --- Step 5: Reduce the remaining time ---
       // System.out.println(
       // String.format("Sub-step %d: remainingTime=%.4f, timeToSimulate=%.4f",
       // subSteps, remainingTime, earliestToi));
       remainingTime -= timeToSimulate;
       subSteps++;
     }
+
+    // --- Out of sub-steps: finish the frame in one last step ---
+    // Dropping the leftover time would slow the world down under load.
+    // Without swept tests fast pairs could tunnel, so every pair gets a
+    // speculative contact instead, which stops it short of overlapping
+    if (remainingTime > 0) {
+      markEventTime(delta - remainingTime);
+      for (int i = 0; i < dynamicCount; i++) {
+        for (int j = i + 1; j < entities.size(); j++) {
+          Entity e1 = entities.get(i);
+          Entity e2 = entities.get(j);
+          if (shouldCollide(e1, e2) && isPairDue(i, j)) {
+            handleSpeculativeContact(e1, e2, remainingTime);
+          }
+        }
+      }
+      forEachDynamic(integrateRange, entities, remainingTime);
+      subSteps++;
+    }
+    stats.subSteps = subSteps;
+  }
+
+  // Stamps the time within the frame onto the impacts recorded from here on
+  private void markEventTime(double time) {
+    if (eventBus != null) {
+      eventBus.setTime(time);
+    }
+  }
+
+  /**
+   * Resolves an impact found by the swept test. The separation normal comes
+   * from the projections themselves, so unlike checkCollision's centre-to-centre
+   * guess it also points the right way for walls, whose origin is a corner, and
+   * a pair that is merely touching (where checkCollision has no MTV) still
+   * bounces.
+   */
+  private void resolveImpact(Entity a, Entity b) {
+    Separation separation = computeSeparation(a, b);
+    if (isClosing(a, b, separation)) {
+      collisionResolver.resolveVelocity(a, b);
+    }
+    if (separation.distance < 0) {
+      collisionResolver.resolvePosition(a, b, separation.normal.scale(-separation.distance));
+    }
+    stats.resolvedContacts++;
+  }
+
+  /**
+   * Whether two bodies are moving towards each other along the normal between
+   * them. The swept test reports any touching pair as an impact at time 0,
+   * including one that is already moving apart.
+   */
+  private static boolean isClosing(Entity a, Entity b, Separation separation) {
+    Vector2D normal = separation.normal;
+    return (a.getVx() - b.getVx()) * normal.x + (a.getVy() - b.getVy()) * normal.y > 0;
+  }
+
+  /**
+   * The pair filter, applied before anything else in the broad phase: only
+   * field reads and bitmask ANDs.
+   */
+  private static boolean shouldCollide(Entity e1, Entity e2) {
+    return e1.isPhysical && e2.isPhysical && e1.canCollideWith(e2);
+  }
+
+  /**
+   * Multi-rate stepping: whether a pair of bodies (by index into the body list)
+   * is solved this frame. Only pairs of two far dynamic bodies are ever
+   * skipped; each gets its turn once every farContactInterval frames, unless
+   * their relative motion over that many frames would reach past the smaller
+   * body's extent, in which case the pair is solved every frame.
+   */
+  private boolean isPairDue(int i, int j) {
+    if (i >= dynamicCount || j >= dynamicCount || !far[i] || !far[j]) {
+      return true;
+    }
+    Entity e1 = bodies.get(i);
+    Entity e2 = bodies.get(j);
+    if ((frame + e1.id + e2.id) % farContactInterval == 0) {
+      return true;
+    }
+    double relVx = e1.getVx() - e2.getVx();
+    double relVy = e1.getVy() - e2.getVy();
+    double reach = farContactInterval * frameDelta;
+    double extent = Math.min(e1.getBoundingRadius(), e2.getBoundingRadius());
+    if ((relVx * relVx + relVy * relVy) * reach * reach > extent * extent) {
+      return true;
+    }
+    stats.farPairsSkipped++;
+    return false;
+  }
+
+  /**
+   * Finds the entities containing a point, using the same layer filtering as
+   * collisions: only entities whose category is in the mask are considered.
+   *
+   * @param mask   The categories to look for, e.g. CollisionLayers.GRABBABLE.
+   * @param result Receives the matches; it is not cleared first.
+   */
+  public void queryPoint(List<Entity> entities, double x, double y, int mask, List<Entity> result) {
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      if ((entity.getCollisionCategory() & mask) == 0) {
+        continue;
+      }
+      double dx = entity.getX() - x;
+      double dy = entity.getY() - y;
+      double radius = entity.getBoundingRadius();
+      if (dx * dx + dy * dy <= radius * radius && entity.containsPoint(x, y)) {
+        result.add(entity);
+      }
+    }
+  }
+
+  /**
+   * Finds the entities whose bounding circles overlap an axis-aligned region,
+   * filtered by category like queryPoint.
+   */
+  public void queryRegion(List<Entity> entities, double minX, double minY, double maxX, double maxY, int mask,
+      List<Entity> result) {
+    for (int i = 0; i < entities.size(); i++) {
+      Entity entity = entities.get(i);
+      if ((entity.getCollisionCategory() & mask) == 0) {
+        continue;
+      }
+      double radius = entity.getBoundingRadius();
+      if (entity.getX() + radius >= minX && entity.getX() - radius <= maxX
+          && entity.getY() + radius >= minY && entity.getY() - radius <= maxY) {
+        result.add(entity);
+      }
+    }
+  }
+
+  /**
+   * Broad phase: can the bounding circles of two entities touch within the
+   * step, given how fast they are approaching each other? Only pairs that pass
+   * go on to the narrow phase (SAT).
+   */
+  private boolean boundsMayTouch(Entity e1, Entity e2, double delta) {
+    stats.broadPhasePairs++;
+    double dx = e2.getX() - e1.getX();
+    double dy = e2.getY() - e1.getY();
+    double relVx = e1.getVx() - e2.getVx();
+    double relVy = e1.getVy() - e2.getVy();
+    double reach = e1.getBoundingRadius() + e2.getBoundingRadius()
+        + Math.sqrt(relVx * relVx + relVy * relVy) * delta + CONTACT_SLOP;
+    if (dx * dx + dy * dy > reach * reach) {
+      return false;
+    }
+    stats.narrowPhasePairs++;
+    return true;
+  }
+
+  /**
+   * The discrete path for a pair of slow bodies. Overlaps are resolved
+   * directly, and a gap that would be closed within the step becomes a
+   * speculative contact: the approach velocity is clamped so the bodies arrive
+   * exactly touching instead of overlapping.
+   */
+  private void handleSpeculativeContact(Entity e1, Entity e2, double delta) {
+    if (!boundsMayTouch(e1, e2, delta) || cachedAxisSeparates(e1, e2, delta)) {
+      return;
+    }
+
+    Separation separation = computeSeparation(e1, e2);
+    if (separation.distance > 0) {
+      if (separation.axisIndex >= 0) {
+        axisCache.store(e1, e2, separation.axisIndex);
+      } else {
+        axisCache.storeDirection(e1, e2, separation.normal.x, separation.normal.y);
+      }
+    }
+    Vector2D normal = separation.normal;
+    double closingSpeed = (e1.getVx() - e2.getVx()) * normal.x + (e1.getVy() - e2.getVy()) * normal.y;
+
+    if (separation.distance <= CONTACT_SLOP) {
+      // Already touching or overlapping: this is an ordinary contact
+      if (closingSpeed > 0) {
+        collisionResolver.resolveVelocity(e1, e2);
+      }
+      if (separation.distance < 0) {
+        collisionResolver.resolvePosition(e1, e2, normal.scale(-separation.distance));
+      }
+      if (closingSpeed > 0 || separation.distance < 0) {
+        stats.resolvedContacts++;
+      }
+      return;
+    }
+
+    double allowedSpeed = separation.distance / delta;
+    if (closingSpeed > allowedSpeed) {
+      collisionResolver.resolveSpeculative(e1, e2, normal, closingSpeed - allowedSpeed);
+      stats.speculativeContacts++;
+    }
+  }
+
+  /**
+   * Temporal coherence early-out: projects the pair onto the axis that
+   * separated it last time, or for a GJK pair the direction of its last gap.
+   * If the gap along it is wider than the bodies can close within the step,
+   * they cannot touch, so neither the swept test nor a speculative contact is
+   * needed.
+   */
+  private boolean cachedAxisSeparates(Entity e1, Entity e2, double delta) {
+    int axisIndex = axisCache.lookup(e1, e2);
+    double gap;
+    double axisX;
+    double axisY;
+    if (axisIndex >= 0 && axisIndex < e1.getAxisCount(e2)) {
+      gap = sat.gapAlong(e1, e2, axisIndex);
+      axisX = sat.getAxisX();
+      axisY = sat.getAxisY();
+    } else if (axisCache.lookupDirection(e1, e2, cachedDirection)) {
+      axisX = cachedDirection[0];
+      axisY = cachedDirection[1];
+      gap = Sat.gapAlong(e1, e2, axisX, axisY);
+    } else {
+      return false;
+    }
+    double approach = Math.abs((e1.getVx() - e2.getVx()) * axisX + (e1.getVy() - e2.getVy()) * axisY) * delta;
+    if (gap > approach + CONTACT_SLOP) {
+      stats.axisCacheHits++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * The discrete narrow phase: SAT for simple pairs, GJK/EPA warm-started from
+   * the pair's previous simplex for pairs with many vertices.
+   */
+  private Separation computeSeparation(Entity e1, Entity e2) {
+    if (e1.getEdgeCount() + e2.getEdgeCount() >= GJK_MIN_VERTICES) {
+      Separation separation = gjk.separation(e1, e2, axisCache.lookupSimplex(e1, e2));
+      if (separation != null) {
+        axisCache.storeSimplex(e1, e2, gjk.getSimplex());
+        stats.gjkPairs++;
+        return separation;
+      }
+    }
+    return sat.separation(e1, e2);
+  }
+
+  // The swept test, remembering the separating axis when there is no impact
+  private double sweptCollide(Entity e1, Entity e2, double delta) {
+    separatingAxis[0] = -1;
+    double toi = e1.collide(e2, delta, separatingAxis);
+    axisCache.store(e1, e2, separatingAxis[0]);
+    return toi;
+  }
+
+  private void flagFastMoving(List<Entity> entities, double delta) {
+    if (fastMoving.length < entities.size()) {
+      fastMoving = new boolean[entities.size()];
+    }
+    forEachDynamic(flagFastMovingRange, entities, delta);
+    // Fixed bodies are only ever fast relative to a dynamic one
+    Arrays.fill(fastMoving, dynamicCount, entities.size(), false);
+  }
+
+  // Runs a per-body loop over the dynamic bodies, in chunks if there is a job
+  // system and enough bodies to be worth it
+  private void forEachDynamic(JobSystem.RangeTask task, List<Entity> entities, double time) {
+    rangeBodies = entities;
+    rangeTime = time;
+    if (jobs != null && dynamicCount >= PARALLEL_MIN_BODIES) {
+      jobs.parallelFor(dynamicCount, PARALLEL_GRAIN, task);
+    } else {
+      task.run(0, dynamicCount);
+    }
+  }
+
+  /**
+   * Event-driven continuous collision. Every fast pair's time of impact is
+   * predicted once and queued. Impacts are then processed in time order, and
+   * each one only re-predicts the pairs that involve the two bodies it changed,
+   * so there is no sub-step cap. An impact still tests both bodies against
+   * every other body, O(n) pairs of which most stop at the bounds check, and
+   * queues at most that many predictions at O(log n) each; it never rescans
+   * all O(n^2) pairs.
+   *
+   * Entities are advanced lazily: each one's position is valid at its own time
+   * within the frame, and is only moved forward when it takes part in an
+   * impact or a prediction.
+   */
+  private void updateEventDriven(List<Entity> entities, double delta) {
+    int count = entities.size();
+    if (entityTime.length < count) {
+      entityTime = new double[count];
+    }
+    Arrays.fill(entityTime, 0, count, 0.0);
+    impactQueue.clear();
+    lastImpactTime.clear();
+
+    // --- Step 1: Speculative contacts for slow pairs, predictions for fast ones ---
+    flagFastMoving(entities, delta);
+    for (int i = 0; i < dynamicCount; i++) {
+      for (int j = i + 1; j < count; j++) {
+        Entity e1 = entities.get(i);
+        Entity e2 = entities.get(j);
+        if (!shouldCollide(e1, e2) || !isPairDue(i, j)) {
+          continue;
+        }
+        if (!fastMoving[i] && !fastMoving[j]) {
+          handleSpeculativeContact(e1, e2, delta);
+        }
+      }
+    }
+    // Predictions come after all speculative clamps so they see final velocities
+    for (int i = 0; i < dynamicCount; i++) {
+      for (int j = i + 1; j < count; j++) {
+        if (fastMoving[i] || fastMoving[j]) {
+          predictImpact(entities, i, j, 0.0, delta);
+        }
+      }
+    }
+
+    // --- Step 2: Process impacts in time order ---
+    while (impactQueue.poll()) {
+      double now = impactQueue.getTime();
+      int a = impactQueue.getFirst();
+      int b = impactQueue.getSecond();
+      Entity entityA = entities.get(a);
+      Entity entityB = entities.get(b);
+      advanceTo(entities, a, now);
+      advanceTo(entities, b, now);
+
+      markEventTime(now);
+      resolveImpact(entityA, entityB);
+      lastImpactTime.put(ImpactQueue.pairKey(a, b), now);
+      stats.subSteps++;
+
+      // --- Step 3: Re-predict only the pairs whose bodies just changed ---
+      for (int k = 0; k < count; k++) {
+        if (k != a) {
+          predictImpact(entities, a, k, now, delta);
+        }
+        if (k != a && k != b) {
+          predictImpact(entities, b, k, now, delta);
+        }
+      }
+    }
+
+    // --- Step 4: Bring every dynamic body to the end of the frame ---
+    forEachDynamic(advanceRange, entities, delta);
+  }
+
+  /**
+   * Predicts when two entities will next collide after the given time and
+   * queues the result, replacing any earlier prediction for the pair.
+   */
+  private void predictImpact(List<Entity> entities, int i, int j, double now, double delta) {
+    impactQueue.cancel(i, j);
+    if (i >= dynamicCount && j >= dynamicCount) {
+      return; // Neither body can move
+    }
+    Entity e1 = entities.get(i);
+    Entity e2 = entities.get(j);
+    if (!shouldCollide(e1, e2) || !isPairDue(i, j)) {
+      return;
+    }
+    advanceTo(entities, i, now);
+    advanceTo(entities, j, now);
+    double remainingTime = delta - now;
+
+    if (!boundsMayTouch(e1, e2, remainingTime) || cachedAxisSeparates(e1, e2, remainingTime)) {
+      return;
+    }
+
+    double toi = sweptCollide(e1, e2, remainingTime);
+    if (toi > remainingTime) {
+      return;
+    }
+    // A pair already resolved at this instant must move before it can hit again
+    double lastImpact = lastImpactTime.get(ImpactQueue.pairKey(i, j), Double.NaN);
+    if (lastImpact == now && toi < MIN_TOI) {
+      return;
+    }
+    impactQueue.schedule(i, j, now + toi);
+  }
+
+  private void advanceTo(List<Entity> entities, int index, double time) {
+    if (index >= dynamicCount) {
+      return; // Static and kinematic bodies stay put until the end of the frame
+    }
+    double step = time - entityTime[index];
+    if (step > 0) {
+      entities.get(index).updatePosition(step);
+      entityTime[index] = time;
+    }
   }
 }
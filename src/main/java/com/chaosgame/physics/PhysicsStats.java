@@ -0,0 +1,31 @@
+package com.chaosgame.physics;
+
+/**
+ * Counters describing a single PhysicsEngine.update call. Plain fields, so
+ * reading them each frame costs nothing.
+ */
+public class PhysicsStats {
+  public int subSteps; // Sub-steps taken, or impacts processed in event-driven mode
+  public int broadPhasePairs; // Pairs that reached the bounding-circle test
+  public int narrowPhasePairs; // Pairs that went on to SAT
+  public int axisCacheHits; // Narrow-phase pairs ruled out by their cached separating axis
+  public int gjkPairs; // Pairs measured with GJK rather than SAT
+  public int farPairsSkipped; // Far pairs left for a later frame by multi-rate stepping
+  public int resolvedContacts; // Overlaps and impacts that were resolved
+  public int speculativeContacts; // Approaches clamped by a speculative contact
+  public int awakeBodies; // Physical bodies still moving at the end of the step
+  public long stepNanos; // Wall-clock time spent in the update
+
+  void reset() {
+    subSteps = 0;
+    broadPhasePairs = 0;
+    narrowPhasePairs = 0;
+    axisCacheHits = 0;
+    gjkPairs = 0;
+    farPairsSkipped = 0;
+    resolvedContacts = 0;
+    speculativeContacts = 0;
+    awakeBodies = 0;
+    stepNanos = 0;
+  }
+}
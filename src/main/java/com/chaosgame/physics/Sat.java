@@ -0,0 +1,144 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.Vector2D;
+import com.chaosgame.entity.Entity;
+
+/**
+ * The SAT narrow phase without allocations: the same axes, in the same order,
+ * as Entity.computeSeparation and Entity.getAxis, but computed in place from
+ * the shapes' vertices instead of as lists of vectors and projections. The
+ * answers are identical, down to the axis index, so the two can be swapped
+ * freely.
+ *
+ * An instance holds scratch space and is not thread-safe.
+ */
+public class Sat {
+
+  // Both shapes' vertices in world space, computed once per query
+  private double[] worldAX = new double[16];
+  private double[] worldAY = new double[16];
+  private double[] worldBX = new double[16];
+  private double[] worldBY = new double[16];
+
+  // The axis and projections of the last axis()/project() calls
+  private double axisX;
+  private double axisY;
+  private double min;
+  private double max;
+
+  /**
+   * As a.computeSeparation(b); only the result itself is allocated.
+   */
+  public Separation separation(Entity a, Entity b) {
+    double maxDistance = Double.NEGATIVE_INFINITY;
+    double bestX = 0;
+    double bestY = 0;
+    int bestAxis = -1;
+    transform(a, b);
+    int axisCount = a.getAxisCount(b);
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      double distance = gap(a, b, axisIndex);
+      if (distance > maxDistance) {
+        maxDistance = distance;
+        // gap() leaves the axis pointing from a towards b
+        bestX = axisX;
+        bestY = axisY;
+        bestAxis = axisIndex;
+      }
+    }
+    return new Separation(maxDistance, bestAxis < 0 ? null : new Vector2D(bestX, bestY), bestAxis);
+  }
+
+  /**
+   * As a.gapAlong(b, a.getAxis(b, axisIndex)): positive if that axis
+   * separates the pair.
+   */
+  public double gapAlong(Entity a, Entity b, int axisIndex) {
+    transform(a, b);
+    return gap(a, b, axisIndex);
+  }
+
+  /**
+   * The axis of the last gapAlong(a, b, axisIndex), pointing from a towards b.
+   */
+  public double getAxisX() {
+    return axisX;
+  }
+
+  public double getAxisY() {
+    return axisY;
+  }
+
+  /**
+   * The gap between a and b along a world-space unit direction pointing from
+   * a towards b, found with the support functions rather than a projection of
+   * every vertex. Positive only if the direction separates them.
+   */
+  public static double gapAlong(Entity a, Entity b, double directionX, double directionY) {
+    int nearA = a.support(directionX, directionY);
+    int nearB = b.support(-directionX, -directionY);
+    return (b.getWorldVertexX(nearB) - a.getWorldVertexX(nearA)) * directionX
+        + (b.getWorldVertexY(nearB) - a.getWorldVertexY(nearA)) * directionY;
+  }
+
+  // The signed gap along one axis; flips the axis to point from a towards b
+  private double gap(Entity a, Entity b, int axisIndex) {
+    axis(a, b, axisIndex);
+    project(worldAX, worldAY, a.getEdgeCount());
+    double minA = min;
+    double maxA = max;
+    project(worldBX, worldBY, b.getEdgeCount());
+    double gapAhead = min - maxA; // b lies along +axis
+    double gapBehind = minA - max; // b lies along -axis
+    if (gapAhead < gapBehind) {
+      axisX = -axisX;
+      axisY = -axisY;
+      return gapBehind;
+    }
+    return gapAhead;
+  }
+
+  // An edge normal, exactly as Entity.getAxis computes it
+  private void axis(Entity a, Entity b, int index) {
+    int edges = a.getEdgeCount();
+    Entity source = index < edges ? a : b;
+    int edge = index < edges ? index : index - edges;
+    axisX = source.getEdgeNormalX(edge);
+    axisY = source.getEdgeNormalY(edge);
+  }
+
+  private void transform(Entity a, Entity b) {
+    int countA = a.getEdgeCount();
+    int countB = b.getEdgeCount();
+    if (worldAX.length < countA || worldBX.length < countB) {
+      int size = Math.max(countA, countB);
+      worldAX = new double[size];
+      worldAY = new double[size];
+      worldBX = new double[size];
+      worldBY = new double[size];
+    }
+    for (int i = 0; i < countA; i++) {
+      worldAX[i] = a.getWorldVertexX(i);
+      worldAY[i] = a.getWorldVertexY(i);
+    }
+    for (int i = 0; i < countB; i++) {
+      worldBX[i] = b.getWorldVertexX(i);
+      worldBY[i] = b.getWorldVertexY(i);
+    }
+  }
+
+  // A shape's world vertices, projected onto the axis
+  private void project(double[] worldX, double[] worldY, int count) {
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      double projection = worldX[i] * axisX + worldY[i] * axisY;
+      if (projection < min) {
+        min = projection;
+      }
+      if (projection > max) {
+        max = projection;
+      }
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.entity.Entity;
+
+/**
+ * Remembers, for each pair of entities, which SAT axis separated them the last
+ * time they were tested. Bodies move little between frames, so the same axis
+ * usually still separates them; testing it first lets most near-miss pairs
+ * exit after a single projection instead of one per edge.
+ *
+ * Pairs measured with GJK instead keep their final simplex here, for the same
+ * reason: starting from it next frame usually converges straight away. GJK
+ * finds no SAT axis, so a GJK gap is remembered by its direction instead,
+ * which gives the same early-out through the support functions.
+ *
+ * Entries live in an open-addressing table keyed by both entities' ids. An
+ * entry is kept only while its pair keeps reaching the narrow phase: endFrame()
+ * drops every entry that was not looked up during the frame, which is exactly
+ * the pairs that have left broad-phase overlap. Entries are dropped in place,
+ * so a frame allocates nothing unless the table has to grow.
+ */
+class SeparatingAxisCache {
+  private static final long EMPTY = 0; // Entity ids start at 1, so no pair has key 0
+
+  private long[] keys = new long[256];
+  private int[] axes = new int[256];
+  private long[] simplices = new long[256];
+  // The last GJK gap's direction for the lower id towards the higher, or NaN
+  private double[] directionsX = new double[256];
+  private double[] directionsY = new double[256];
+  private boolean[] used = new boolean[256];
+  private int size = 0;
+
+  /**
+   * Returns the cached axis index for a pair, in the order Entity.getAxis(b)
+   * uses when called on a, and marks the entry as still in use.
+   *
+   * @return The axis index, or -1 if nothing is cached.
+   */
+  int lookup(Entity a, Entity b) {
+    int slot = find(pairKey(a, b));
+    if (keys[slot] == EMPTY) {
+      return -1;
+    }
+    used[slot] = true;
+    return axes[slot] < 0 ? -1 : fromCanonical(a, b, axes[slot]);
+  }
+
+  /**
+   * Returns the cached GJK simplex for a pair, oriented for a Gjk query on
+   * (a, b), and marks the entry as still in use.
+   *
+   * @return The packed simplex, or Gjk.NO_SIMPLEX if nothing is cached.
+   */
+  long lookupSimplex(Entity a, Entity b) {
+    int slot = find(pairKey(a, b));
+    if (keys[slot] == EMPTY) {
+      return Gjk.NO_SIMPLEX;
+    }
+    used[slot] = true;
+    return a.id <= b.id ? simplices[slot] : Gjk.swapSides(simplices[slot]);
+  }
+
+  /**
+   * Fills direction with the cached GJK gap direction for a pair, pointing
+   * from a towards b, and marks the entry as still in use.
+   *
+   * @return false if no direction is cached.
+   */
+  boolean lookupDirection(Entity a, Entity b, double[] direction) {
+    int slot = find(pairKey(a, b));
+    if (keys[slot] == EMPTY || Double.isNaN(directionsX[slot])) {
+      return false;
+    }
+    used[slot] = true;
+    double sign = a.id <= b.id ? 1 : -1;
+    direction[0] = directionsX[slot] * sign;
+    direction[1] = directionsY[slot] * sign;
+    return true;
+  }
+
+  /**
+   * Records the direction of a gap GJK measured from a towards b. It replaces
+   * any SAT axis cached for the pair.
+   */
+  void storeDirection(Entity a, Entity b, double directionX, double directionY) {
+    int slot = insert(pairKey(a, b));
+    double sign = a.id <= b.id ? 1 : -1;
+    directionsX[slot] = directionX * sign;
+    directionsY[slot] = directionY * sign;
+    axes[slot] = -1;
+    used[slot] = true;
+  }
+
+  /**
+   * Records the final simplex of a Gjk query on (a, b).
+   */
+  void storeSimplex(Entity a, Entity b, long simplex) {
+    int slot = insert(pairKey(a, b));
+    simplices[slot] = a.id <= b.id ? simplex : Gjk.swapSides(simplex);
+    used[slot] = true;
+  }
+
+  /**
+   * Records the axis that separated a pair, as an index for a.getAxis(b, ...).
+   */
+  void store(Entity a, Entity b, int axisIndex) {
+    if (axisIndex < 0) {
+      return;
+    }
+    int slot = insert(pairKey(a, b));
+    axes[slot] = toCanonical(a, b, axisIndex);
+    directionsX[slot] = Double.NaN;
+    used[slot] = true;
+  }
+
+  // Finds or adds the pair's slot; a new entry has nothing cached yet
+  private int insert(long key) {
+    if ((size + 1) * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+    int slot = find(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      axes[slot] = -1;
+      simplices[slot] = Gjk.NO_SIMPLEX;
+      directionsX[slot] = Double.NaN;
+      size++;
+    }
+    return slot;
+  }
+
+  /**
+   * Evicts every pair that was not looked up or stored since the previous
+   * call, then starts a new frame.
+   */
+  void endFrame() {
+    // Start just past an empty slot: no probe run crosses one, and removing an
+    // entry only shifts later entries of its run back, into slots not yet
+    // visited or the one being visited
+    int mask = keys.length - 1;
+    int start = 0;
+    while (keys[start] != EMPTY) {
+      start++; // The table is never more than half full
+    }
+    for (int n = 1; n <= keys.length; n++) {
+      int slot = (start + n) & mask;
+      while (keys[slot] != EMPTY && !used[slot]) {
+        remove(slot);
+      }
+      used[slot] = false;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  // Backward-shift deletion: later entries of the probe run that could live
+  // in the hole move into it, so lookups never need tombstones
+  private void remove(int hole) {
+    int mask = keys.length - 1;
+    int slot = hole;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (keys[slot] == EMPTY) {
+        break;
+      }
+      int home = (int) (mix(keys[slot]) & mask);
+      // The entry may move back only if its home is not in (hole, slot]
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        keys[hole] = keys[slot];
+        axes[hole] = axes[slot];
+        simplices[hole] = simplices[slot];
+        directionsX[hole] = directionsX[slot];
+        directionsY[hole] = directionsY[slot];
+        used[hole] = used[slot];
+        hole = slot;
+      }
+    }
+    keys[hole] = EMPTY;
+    used[hole] = false;
+    size--;
+  }
+
+  // Moves every entry into a table of the given size
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldAxes = axes;
+    long[] oldSimplices = simplices;
+    double[] oldDirectionsX = directionsX;
+    double[] oldDirectionsY = directionsY;
+    boolean[] oldUsed = used;
+    keys = new long[capacity];
+    axes = new int[capacity];
+    simplices = new long[capacity];
+    directionsX = new double[capacity];
+    directionsY = new double[capacity];
+    used = new boolean[capacity];
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        axes[slot] = oldAxes[i];
+        simplices[slot] = oldSimplices[i];
+        directionsX[slot] = oldDirectionsX[i];
+        directionsY[slot] = oldDirectionsY[i];
+        used[slot] = oldUsed[i];
+        size++;
+      }
+    }
+  }
+
+  // Linear probing; returns the key's slot or the empty slot where it belongs
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) (mix(key) & mask);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  // The lower id always goes first, so (a, b) and (b, a) share an entry
+  private static long pairKey(Entity a, Entity b) {
+    int low = Math.min(a.id, b.id);
+    int high = Math.max(a.id, b.id);
+    return ((long) low << 32) | (high & 0xffffffffL);
+  }
+
+  // Axis indices are stored as if the lower-id entity were the first argument.
+  // Swapping the pair moves the first entity's edges behind the second's.
+  private static int toCanonical(Entity a, Entity b, int axisIndex) {
+    return a.id <= b.id ? axisIndex : swapIndex(axisIndex, a.getEdgeCount(), b.getEdgeCount());
+  }
+
+  private static int fromCanonical(Entity a, Entity b, int canonicalIndex) {
+    return a.id <= b.id ? canonicalIndex : swapIndex(canonicalIndex, b.getEdgeCount(), a.getEdgeCount());
+  }
+
+  // Maps an index over (first, second) edges to the same edge over (second, first)
+  private static int swapIndex(int index, int firstCount, int secondCount) {
+    return index < firstCount ? index + secondCount : index - firstCount;
+  }
+}
@@ -0,0 +1,15 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.Vector2D;
+
+public class Separation {
+  public final double distance; // Positive for a gap, negative for penetration
+  public final Vector2D normal; // Unit axis pointing from the first entity to the second
+  public final int axisIndex; // Which SAT axis the normal came from (see Entity.getAxis)
+
+  public Separation(double distance, Vector2D normal, int axisIndex) {
+    this.distance = distance;
+    this.normal = normal;
+    this.axisIndex = axisIndex;
+  }
+}
@@ -0,0 +1,172 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A private copy of the part of the world around one body, simulated ahead to
+ * predict that body's path. Forks are created and run by a WorldPredictor.
+ *
+ * The copy is compact: only bodies the subject could reach within the horizon
+ * are copied, each into a pooled stand-in holding nothing but its physical
+ * state, and shapes are shared with the real entities rather than copied.
+ * The fork has its own engine and no event bus, so simulating it has no
+ * effect on the real world, its caches or its views.
+ */
+public class WorldFork implements Callable<WorldFork> {
+
+  // A stand-in for a real entity inside a fork; it has no view
+  private static final class Body extends Entity {
+    Body() {
+      super(null, 0, null);
+    }
+  }
+
+  private final PhysicsEngine physicsEngine = new PhysicsEngine();
+  private final List<Entity> bodies = new ArrayList<>();
+  private final List<Body> pool = new ArrayList<>();
+  private Entity source;
+  private Body subject;
+
+  // --- Settings for the coming run ---
+  private double horizonSeconds;
+  private int steps;
+  private double stepSeconds;
+  private long deadline; // System.nanoTime() after which no further step starts
+
+  // --- The predicted path of the subject, starting where it is now ---
+  private double[] pathX = new double[0];
+  private double[] pathY = new double[0];
+  private int pathLength = 0;
+
+  /**
+   * Copies the subject and every body within reach of it from the world. On
+   * the calling thread, as it reads the live entities.
+   *
+   * @param reach How far the subject may travel during the prediction.
+   */
+  void capture(List<Entity> world, Entity source, double vx, double vy, double reach) {
+    this.source = source;
+    bodies.clear();
+    subject = copy(source, 0);
+    subject.setVx(vx);
+    subject.setVy(vy);
+    bodies.add(subject);
+    double reachRadius = reach + source.getBoundingRadius();
+    for (int i = 0; i < world.size(); i++) {
+      Entity entity = world.get(i);
+      if (entity == source || !entity.isPhysical || !source.canCollideWith(entity)) {
+        continue;
+      }
+      // Bounding circles are conservative, like the engine's own broad phase
+      double dx = entity.getX() - source.getX();
+      double dy = entity.getY() - source.getY();
+      double limit = reachRadius + entity.getBoundingRadius();
+      if (dx * dx + dy * dy <= limit * limit) {
+        bodies.add(copy(entity, bodies.size()));
+      }
+    }
+    pathLength = 0;
+  }
+
+  private Body copy(Entity entity, int index) {
+    if (index == pool.size()) {
+      pool.add(new Body());
+    }
+    Body body = pool.get(index);
+    body.copyBodyFrom(entity);
+    return body;
+  }
+
+  void setHorizon(double horizonSeconds) {
+    this.horizonSeconds = horizonSeconds;
+  }
+
+  void prepare(double stepSeconds, long deadline) {
+    this.steps = (int) Math.ceil(horizonSeconds / stepSeconds - 1e-9);
+    this.stepSeconds = stepSeconds;
+    this.deadline = deadline;
+    if (pathX.length < steps + 1) {
+      pathX = new double[steps + 1];
+      pathY = new double[steps + 1];
+    }
+  }
+
+  /**
+   * Simulates the fork until the horizon or the deadline, whichever comes
+   * first. Only touches the fork's own state, so forks can run in parallel.
+   */
+  @Override
+  public WorldFork call() {
+    pathX[0] = subject.getX();
+    pathY[0] = subject.getY();
+    pathLength = 1;
+    for (int step = 0; step < steps && System.nanoTime() < deadline; step++) {
+      physicsEngine.update(bodies, stepSeconds);
+      pathX[pathLength] = subject.getX();
+      pathY[pathLength] = subject.getY();
+      pathLength++;
+    }
+    return this;
+  }
+
+  /**
+   * The real entity this fork predicts.
+   */
+  public Entity getSource() {
+    return source;
+  }
+
+  /**
+   * The subject's copy inside the fork, as it is at the end of the path.
+   */
+  public Entity getSubject() {
+    return subject;
+  }
+
+  /**
+   * How many bodies the fork copied, the subject included.
+   */
+  public int getBodyCount() {
+    return bodies.size();
+  }
+
+  /**
+   * Points on the predicted path: the starting position, then one per step
+   * simulated.
+   */
+  public int getPathLength() {
+    return pathLength;
+  }
+
+  public double getPathX(int index) {
+    return pathX[index];
+  }
+
+  public double getPathY(int index) {
+    return pathY[index];
+  }
+
+  /**
+   * Whether the prediction reached its horizon, rather than being cut short
+   * by the time budget.
+   */
+  public boolean isComplete() {
+    return pathLength == steps + 1;
+  }
+
+  /**
+   * Where the subject is predicted to be at the end of the path, e.g. where a
+   * thrown crate lands.
+   */
+  public double getEndX() {
+    return pathX[pathLength - 1];
+  }
+
+  public double getEndY() {
+    return pathY[pathLength - 1];
+  }
+}
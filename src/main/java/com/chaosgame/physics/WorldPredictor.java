@@ -0,0 +1,201 @@
+package com.chaosgame.physics;
+
+import com.chaosgame.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Predicts where bodies are going by forking the world and simulating ahead:
+ * the arc of a crate before it is thrown, or where a body will come to rest.
+ *
+ * Each frame, the caller forks once per body it wants predicted, then runs
+ * all forks together:
+ *
+ * <pre>
+ * predictor.begin();
+ * WorldFork arc = predictor.fork(entities, crate, throwVx, throwVy, 1.0);
+ * predictor.run(1.0 / 60, 2_000_000);
+ * // arc.getPathX(i), arc.getPathY(i), arc.getEndX() ...
+ * </pre>
+ *
+ * fork() copies state on the calling thread (see WorldFork), so the forks
+ * never read the live world. run() then simulates them in parallel, on the
+ * calling thread and the predictor's own, and returns once they have all
+ * finished or the time budget is used up; forks that run out of time keep
+ * the part of the path they got through.
+ *
+ * The predictor's threads live as long as it does and meet the caller at a
+ * Phaser twice a run, once to start and once to finish, taking forks off a
+ * shared counter in between. Forks and their buffers are pooled, so after the
+ * first few frames predicting allocates next to nothing.
+ */
+public class WorldPredictor {
+
+  private final List<WorldFork> pool = new ArrayList<>();
+  private final List<WorldFork> active = new ArrayList<>(); // Forked since the last begin()
+  private long lastRunNanos;
+
+  // --- Running forks: the caller and every worker are parties of the phaser ---
+  private final Phaser phaser;
+  private final AtomicInteger nextFork = new AtomicInteger(); // The next fork in active to claim
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final PhaseWait phaseWait = new PhaseWait();
+  private volatile boolean shutdown = false;
+
+  /**
+   * @param threads How many forks may be simulated at the same time, the
+   *                thread calling run() included.
+   */
+  public WorldPredictor(int threads) {
+    int workers = Math.max(1, threads) - 1;
+    this.phaser = new Phaser(workers + 1);
+    for (int i = 0; i < workers; i++) {
+      Thread thread = new Thread(this::work, "world-predictor-" + (i + 1));
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Starts a new set of predictions. Forks from the previous set are reused,
+   * so their results must not be read after this.
+   */
+  public void begin() {
+    active.clear();
+  }
+
+  /**
+   * Forks the world to predict one body, keeping its current velocity.
+   */
+  public WorldFork fork(List<Entity> world, Entity subject, double horizonSeconds) {
+    return fork(world, subject, subject.getVx(), subject.getVy(), horizonSeconds);
+  }
+
+  /**
+   * Forks the world to predict one body as if it were moving at the given
+   * velocity, e.g. the one it will have once thrown. The real body is not
+   * changed.
+   *
+   * @param horizonSeconds How far ahead to predict.
+   */
+  public WorldFork fork(List<Entity> world, Entity subject, double vx, double vy, double horizonSeconds) {
+    if (active.size() == pool.size()) {
+      pool.add(new WorldFork());
+    }
+    WorldFork fork = pool.get(active.size());
+    double reach = Math.sqrt(vx * vx + vy * vy) * horizonSeconds;
+    fork.capture(world, subject, vx, vy, reach);
+    fork.setHorizon(horizonSeconds);
+    active.add(fork);
+    return fork;
+  }
+
+  /**
+   * Simulates every fork made since begin(), in parallel, and waits for them.
+   *
+   * @param stepSeconds The fixed step to simulate with.
+   * @param budgetNanos How long this call may take. No fork starts a step
+   *                    after the budget has run out.
+   */
+  public void run(double stepSeconds, long budgetNanos) {
+    if (shutdown) {
+      throw new IllegalStateException("The predictor has been shut down");
+    }
+    long start = System.nanoTime();
+    long deadline = start + budgetNanos;
+    for (int i = 0; i < active.size(); i++) {
+      active.get(i).prepare(stepSeconds, deadline);
+    }
+    nextFork.set(0);
+
+    // --- Step 1: Start the workers; they wait for the last run's stragglers ---
+    await(phaser.arrive());
+
+    // --- Step 2: Take forks like any worker, then wait for the rest ---
+    runForks();
+    await(phaser.arrive());
+
+    lastRunNanos = System.nanoTime() - start;
+    Throwable thrown = failure.getAndSet(null);
+    if (thrown != null) {
+      throw new IllegalStateException("World fork failed", thrown);
+    }
+  }
+
+  // A worker's whole life: start, run forks, finish, until shut down
+  private void work() {
+    while (true) {
+      phaser.arriveAndAwaitAdvance();
+      if (shutdown) {
+        phaser.arriveAndDeregister();
+        return;
+      }
+      runForks();
+      phaser.arriveAndAwaitAdvance();
+    }
+  }
+
+  private void runForks() {
+    for (int i = nextFork.getAndIncrement(); i < active.size(); i = nextFork.getAndIncrement()) {
+      try {
+        active.get(i).call();
+      } catch (RuntimeException | Error e) {
+        failure.compareAndSet(null, e); // The other forks still finish, so the phases stay in step
+      }
+    }
+  }
+
+  // run() is called from a frame stage on a ForkJoinPool worker; as a managed
+  // block, the pool can start a spare worker while this one waits
+  private void await(int phase) {
+    phaseWait.phase = phase;
+    try {
+      ForkJoinPool.managedBlock(phaseWait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // Phaser.awaitAdvance does not throw it, so this never runs
+    }
+  }
+
+  private final class PhaseWait implements ForkJoinPool.ManagedBlocker {
+    private int phase;
+
+    @Override
+    public boolean block() {
+      phaser.awaitAdvance(phase);
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return phaser.getPhase() != phase;
+    }
+  }
+
+  public int getForkCount() {
+    return active.size();
+  }
+
+  /**
+   * How long the last run() took, budget included.
+   */
+  public long getLastRunNanos() {
+    return lastRunNanos;
+  }
+
+  /**
+   * Stops the predictor's threads. Forks can no longer be run afterwards.
+   * Must not be called while run() is running.
+   */
+  public void shutdown() {
+    if (shutdown) {
+      return;
+    }
+    shutdown = true;
+    phaser.arriveAndDeregister(); // Releases the workers from the start they wait at
+  }
+}
@@ -0,0 +1,149 @@
+package com.chaosgame.sprite;
+
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs many small sprites onto a few shared pages, so entities of the same
+ * kind share one texture instead of each holding an image of its own.
+ *
+ * Sprites are packed as levels ask for them, which happens while they are
+ * built: rows ("shelves") are filled left to right, a new shelf is opened
+ * below the last one when a sprite does not fit, and a new page when the page
+ * is full. The atlas only keeps the layout and each sprite's painter; the
+ * pixels live in a SpriteCache, which paints a page when it is first needed
+ * and again if it was evicted.
+ *
+ * Thread safe, as levels are built on a background thread.
+ */
+public class SpriteAtlas {
+
+  private static final int PADDING = 1; // Empty pixels around each sprite, against filtering bleed
+
+  // A sprite's place on its page and how to draw it there
+  private static final class Entry {
+    final SpriteRegion region;
+    final SpritePainter painter;
+
+    Entry(SpriteRegion region, SpritePainter painter) {
+      this.region = region;
+      this.painter = painter;
+    }
+  }
+
+  private final int pageSize;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final List<List<Entry>> pages = new ArrayList<>();
+
+  // --- Packing cursor on the last page ---
+  private int shelfX = 0;
+  private int shelfY = 0;
+  private int shelfHeight = 0;
+
+  /**
+   * @param pageSize Width and height of each page, in pixels.
+   */
+  public SpriteAtlas(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Returns the named sprite's region, packing the sprite first if it is new.
+   *
+   * @param pivotX Where the entity's origin is on the sprite, e.g. width / 2
+   *               for a centred shape.
+   */
+  public synchronized SpriteRegion region(String name, int width, int height, double pivotX, double pivotY,
+      SpritePainter painter) {
+    Entry entry = entries.get(name);
+    if (entry != null) {
+      return entry.region;
+    }
+    int paddedWidth = width + 2 * PADDING;
+    int paddedHeight = height + 2 * PADDING;
+    if (paddedWidth > pageSize || paddedHeight > pageSize) {
+      throw new IllegalArgumentException("Sprite " + name + " (" + width + "x" + height
+          + ") does not fit on a " + pageSize + " pixel page");
+    }
+
+    // --- Step 1: Find room, on a new shelf or a new page if need be ---
+    if (pages.isEmpty()) {
+      pages.add(new ArrayList<>());
+    }
+    if (shelfX + paddedWidth > pageSize) {
+      shelfY += shelfHeight;
+      shelfX = 0;
+      shelfHeight = 0;
+    }
+    if (shelfY + paddedHeight > pageSize) {
+      pages.add(new ArrayList<>());
+      shelfX = 0;
+      shelfY = 0;
+      shelfHeight = 0;
+    }
+
+    // --- Step 2: Claim it ---
+    int page = pages.size() - 1;
+    SpriteRegion region = new SpriteRegion(name, page, shelfX + PADDING, shelfY + PADDING, width, height, pivotX,
+        pivotY);
+    shelfX += paddedWidth;
+    shelfHeight = Math.max(shelfHeight, paddedHeight);
+    entry = new Entry(region, painter);
+    entries.put(name, entry);
+    pages.get(page).add(entry);
+    return region;
+  }
+
+  /**
+   * The region of a sprite packed earlier, or null if there is none by that
+   * name.
+   */
+  public synchronized SpriteRegion getRegion(String name) {
+    Entry entry = entries.get(name);
+    return entry == null ? null : entry.region;
+  }
+
+  public synchronized int getPageCount() {
+    return pages.size();
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public synchronized int getSpriteCount() {
+    return entries.size();
+  }
+
+  /**
+   * Paints the sprites of a page from the given one on, as pages can gain
+   * sprites after they were first painted.
+   *
+   * @return How many sprites the page has been painted with now.
+   */
+  int paintPage(int page, WritableImage image, int from) {
+    List<Entry> sprites;
+    synchronized (this) {
+      List<Entry> all = pages.get(page);
+      if (from >= all.size()) {
+        return from;
+      }
+      sprites = new ArrayList<>(all.subList(from, all.size()));
+    }
+    PixelWriter writer = image.getPixelWriter();
+    for (Entry entry : sprites) {
+      SpriteRegion region = entry.region;
+      entry.painter.paint(writer, region.x, region.y, region.width, region.height);
+    }
+    return from + sprites.size();
+  }
+
+  synchronized int getSpriteCount(int page) {
+    return pages.get(page).size();
+  }
+}
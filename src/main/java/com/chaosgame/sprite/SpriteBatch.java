@@ -0,0 +1,128 @@
+package com.chaosgame.sprite;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+
+import java.util.Arrays;
+
+/**
+ * The Canvas renderer: collects sprite draws for a frame and issues them page
+ * by page, so each page is looked up in the cache once per frame and draws
+ * from the same texture go out back to back.
+ *
+ * <pre>
+ * batch.begin();
+ * batch.draw(region, x, y, angle); // Any number of times
+ * batch.end(gc);
+ * </pre>
+ *
+ * Draws on the same page keep the order they were made in. Draws are held in
+ * parallel arrays that grow once to the busiest frame's size.
+ */
+public class SpriteBatch {
+
+  private final SpriteCache cache;
+
+  private SpriteRegion[] regions = new SpriteRegion[64];
+  private double[] x = new double[64];
+  private double[] y = new double[64];
+  private double[] angle = new double[64];
+  private int[] order = new int[64]; // Draw indices, sorted by page
+  private int[] pageStarts = new int[1];
+  private int size = 0;
+
+  // --- Counters for the last end() ---
+  private int drawCalls;
+  private int pageSwitches;
+
+  public SpriteBatch(SpriteCache cache) {
+    this.cache = cache;
+  }
+
+  public void begin() {
+    Arrays.fill(regions, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Queues a sprite with its pivot at (x, y), rotated by angle radians about
+   * it.
+   */
+  public void draw(SpriteRegion region, double x, double y, double angle) {
+    if (size == regions.length) {
+      int capacity = size * 2;
+      regions = Arrays.copyOf(regions, capacity);
+      this.x = Arrays.copyOf(this.x, capacity);
+      this.y = Arrays.copyOf(this.y, capacity);
+      this.angle = Arrays.copyOf(this.angle, capacity);
+      order = new int[capacity];
+    }
+    regions[size] = region;
+    this.x[size] = x;
+    this.y[size] = y;
+    this.angle[size] = angle;
+    size++;
+  }
+
+  /**
+   * Draws everything queued since begin() onto the canvas.
+   */
+  public void end(GraphicsContext gc) {
+    // --- Step 1: Counting sort of the draws by page, keeping their order ---
+    int pageCount = cache.getAtlas().getPageCount();
+    if (pageStarts.length < pageCount + 1) {
+      pageStarts = new int[pageCount + 1];
+    }
+    Arrays.fill(pageStarts, 0, pageCount + 1, 0);
+    for (int i = 0; i < size; i++) {
+      pageStarts[regions[i].page + 1]++;
+    }
+    for (int page = 0; page < pageCount; page++) {
+      pageStarts[page + 1] += pageStarts[page];
+    }
+    for (int i = 0; i < size; i++) {
+      order[pageStarts[regions[i].page]++] = i;
+    }
+
+    // --- Step 2: Draw page by page ---
+    drawCalls = 0;
+    pageSwitches = 0;
+    int current = -1;
+    Image image = null;
+    for (int k = 0; k < size; k++) {
+      int i = order[k];
+      SpriteRegion region = regions[i];
+      if (region.page != current) {
+        current = region.page;
+        image = cache.getPage(current);
+        pageSwitches++;
+      }
+      if (angle[i] == 0) {
+        gc.drawImage(image, region.x, region.y, region.width, region.height, x[i] - region.pivotX,
+            y[i] - region.pivotY, region.width, region.height);
+      } else {
+        gc.save();
+        gc.translate(x[i], y[i]);
+        gc.rotate(Math.toDegrees(angle[i]));
+        gc.drawImage(image, region.x, region.y, region.width, region.height, -region.pivotX, -region.pivotY,
+            region.width, region.height);
+        gc.restore();
+      }
+      drawCalls++;
+    }
+  }
+
+  /**
+   * Sprites drawn by the last end().
+   */
+  public int getDrawCalls() {
+    return drawCalls;
+  }
+
+  /**
+   * Pages the last end() drew from; each cost one cache lookup.
+   */
+  public int getPageSwitches() {
+    return pageSwitches;
+  }
+}
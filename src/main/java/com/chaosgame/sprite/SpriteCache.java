@@ -0,0 +1,207 @@
+package com.chaosgame.sprite;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the painted pages of a SpriteAtlas within a memory cap, evicting the
+ * least recently used page when a new one would go over it. An evicted page
+ * is painted again from its sprites' painters the next time it is needed.
+ *
+ * Pages shown by ImageViews from createView are pinned: a view keeps its
+ * image, so evicting the page would free nothing, and painting it again would
+ * only add a second copy. Pinned pages count toward resident bytes but are
+ * never evicted, so the cap can be exceeded if everything in use is pinned.
+ * Pages a SpriteBatch draws onto a Canvas are looked up with getPage every
+ * frame instead, and stay evictable.
+ *
+ * Thread safe. A pinned page may be on screen, so sprites packed onto it
+ * later are only painted on the JavaFX Application Thread; when a level is
+ * built on another thread, they are painted by a runLater that is queued
+ * before the level can be shown.
+ */
+public class SpriteCache {
+
+  private static final int BYTES_PER_PIXEL = 4;
+
+  private static final class Page {
+    final WritableImage image;
+    int paintedSprites; // Sprites painted so far; the atlas may have added more since
+    int pins;
+    boolean topUpQueued; // A runLater will paint the sprites added since
+
+    Page(WritableImage image) {
+      this.image = image;
+    }
+  }
+
+  private final SpriteAtlas atlas;
+  private final long maxBytes;
+  private final long pageBytes;
+  // In access order, so iteration starts at the least recently used page
+  private final LinkedHashMap<Integer, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+  // --- Counters ---
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param maxBytes How much page memory to keep before evicting.
+   */
+  public SpriteCache(SpriteAtlas atlas, long maxBytes) {
+    this.atlas = atlas;
+    this.maxBytes = maxBytes;
+    this.pageBytes = (long) atlas.getPageSize() * atlas.getPageSize() * BYTES_PER_PIXEL;
+  }
+
+  public SpriteAtlas getAtlas() {
+    return atlas;
+  }
+
+  /**
+   * The painted image of a page, painting it on a miss. Unlike a view's page,
+   * it is not pinned, so draw from it at once rather than keeping it.
+   */
+  public synchronized Image getPage(int page) {
+    return acquire(page).image;
+  }
+
+  private Page acquire(int pageIndex) {
+    Page page = pages.get(pageIndex);
+    if (page != null) {
+      hits++;
+    } else {
+      misses++;
+      evictFor(pageBytes);
+      page = new Page(new WritableImage(atlas.getPageSize(), atlas.getPageSize()));
+      pages.put(pageIndex, page);
+    }
+    topUp(pageIndex, page);
+    return page;
+  }
+
+  // Paints the sprites packed onto the page since it was painted
+  private void topUp(int pageIndex, Page page) {
+    if (page.paintedSprites >= atlas.getSpriteCount(pageIndex) || page.topUpQueued) {
+      return;
+    }
+    if (page.pins == 0 || Platform.isFxApplicationThread()) {
+      page.paintedSprites = atlas.paintPage(pageIndex, page.image, page.paintedSprites);
+      return;
+    }
+    page.topUpQueued = true;
+    try {
+      Platform.runLater(() -> {
+        synchronized (this) {
+          page.topUpQueued = false;
+          page.paintedSprites = atlas.paintPage(pageIndex, page.image, page.paintedSprites);
+        }
+      });
+    } catch (IllegalStateException e) {
+      // No JavaFX toolkit (a headless run), so nothing can be on screen
+      page.topUpQueued = false;
+      page.paintedSprites = atlas.paintPage(pageIndex, page.image, page.paintedSprites);
+    }
+  }
+
+  // Makes room for one more page, least recently used first
+  private void evictFor(long bytes) {
+    Iterator<Map.Entry<Integer, Page>> iterator = pages.entrySet().iterator();
+    while (getResidentBytesLocked() + bytes > maxBytes && iterator.hasNext()) {
+      if (iterator.next().getValue().pins == 0) {
+        iterator.remove();
+        evictions++;
+      }
+    }
+  }
+
+  /**
+   * A view showing one sprite, with its pivot on the
+   * view's origin. The sprite's page stays pinned until release is called.
+   */
+  public synchronized ImageView createView(SpriteRegion region) {
+    ImageView view = new ImageView();
+    show(view, region);
+    return view;
+  }
+
+  /**
+   * Switches a view made by createView to another sprite, moving its pin if
+   * the sprite is on a different page.
+   */
+  public synchronized void show(ImageView view, SpriteRegion region) {
+    Page page = pages.get(region.page);
+    if (page != null && view.getImage() == page.image) {
+      topUp(region.page, page); // The view already pins the page, so this is no cache lookup
+    } else {
+      page = acquire(region.page);
+    }
+    if (view.getImage() != page.image) {
+      if (view.getImage() != null) {
+        unpin(view.getImage());
+      }
+      page.pins++;
+      view.setImage(page.image);
+    }
+    view.setViewport(region.viewport);
+    view.setX(-region.pivotX);
+    view.setY(-region.pivotY);
+  }
+
+  /**
+   * Unpins the page of a view that is no longer used.
+   */
+  public synchronized void release(ImageView view) {
+    if (view.getImage() != null) {
+      unpin(view.getImage());
+      view.setImage(null);
+    }
+  }
+
+  private void unpin(Image image) {
+    for (Page page : pages.values()) { // values() does not count as an access
+      if (page.image == image) {
+        page.pins--;
+        return;
+      }
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public synchronized int getResidentPages() {
+    return pages.size();
+  }
+
+  /**
+   * Memory held by painted pages, pinned ones included.
+   */
+  public synchronized long getResidentBytes() {
+    return getResidentBytesLocked();
+  }
+
+  private long getResidentBytesLocked() {
+    return pages.size() * pageBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+}
@@ -0,0 +1,87 @@
+package com.chaosgame.sprite;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.paint.Color;
+
+import java.io.InputStream;
+
+/**
+ * Draws one sprite into its rectangle on an atlas page. A page that was
+ * evicted from the SpriteCache is rebuilt by running the painters of its
+ * sprites again, so a painter must draw the same pixels every time.
+ */
+@FunctionalInterface
+public interface SpritePainter {
+
+  void paint(PixelWriter writer, int x, int y, int width, int height);
+
+  // Samples per pixel along each axis when anti-aliasing procedural shapes
+  int SUPERSAMPLING = 4;
+
+  /**
+   * A filled circle touching the edges of the rectangle.
+   */
+  static SpritePainter circle(Color color) {
+    int argb = toArgb(color);
+    return (writer, x, y, width, height) -> {
+      double radiusX = width / 2.0;
+      double radiusY = height / 2.0;
+      for (int py = 0; py < height; py++) {
+        for (int px = 0; px < width; px++) {
+          int inside = 0;
+          for (int sy = 0; sy < SUPERSAMPLING; sy++) {
+            for (int sx = 0; sx < SUPERSAMPLING; sx++) {
+              double dx = (px + (sx + 0.5) / SUPERSAMPLING - radiusX) / radiusX;
+              double dy = (py + (sy + 0.5) / SUPERSAMPLING - radiusY) / radiusY;
+              if (dx * dx + dy * dy <= 1) {
+                inside++;
+              }
+            }
+          }
+          int alpha = (argb >>> 24) * inside / (SUPERSAMPLING * SUPERSAMPLING);
+          writer.setArgb(x + px, y + py, (alpha << 24) | (argb & 0xffffff));
+        }
+      }
+    };
+  }
+
+  /**
+   * A rectangle filled edge to edge.
+   */
+  static SpritePainter box(Color color) {
+    int argb = toArgb(color);
+    return (writer, x, y, width, height) -> {
+      for (int py = 0; py < height; py++) {
+        for (int px = 0; px < width; px++) {
+          writer.setArgb(x + px, y + py, argb);
+        }
+      }
+    };
+  }
+
+  /**
+   * An image from the class path, e.g. "/sprites/crate.png", decoded again
+   * each time its page is rebuilt. The rectangle must match its size.
+   */
+  static SpritePainter resource(String path) {
+    return (writer, x, y, width, height) -> {
+      InputStream in = SpritePainter.class.getResourceAsStream(path);
+      if (in == null) {
+        throw new IllegalArgumentException("No sprite resource " + path);
+      }
+      PixelReader reader = new Image(in).getPixelReader();
+      for (int py = 0; py < height; py++) {
+        for (int px = 0; px < width; px++) {
+          writer.setArgb(x + px, y + py, reader.getArgb(px, py));
+        }
+      }
+    };
+  }
+
+  private static int toArgb(Color color) {
+    return (int) Math.round(color.getOpacity() * 255) << 24 | (int) Math.round(color.getRed() * 255) << 16
+        | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
+  }
+}
@@ -0,0 +1,36 @@
+package com.chaosgame.sprite;
+
+import javafx.geometry.Rectangle2D;
+
+/**
+ * Where one sprite lives in a SpriteAtlas: the page, and the rectangle on it.
+ * Regions are handed out once, when the sprite is packed, and never change.
+ */
+public final class SpriteRegion {
+
+  public final String name;
+  public final int page;
+  public final int x, y; // Top-left corner on the page, in pixels
+  public final int width, height;
+  // The point of the sprite that goes on the entity's origin
+  public final double pivotX, pivotY;
+  // The same rectangle as an ImageView viewport, built once so that switching
+  // a view to this region does not allocate
+  public final Rectangle2D viewport;
+
+  SpriteRegion(String name, int page, int x, int y, int width, int height, double pivotX, double pivotY) {
+    this.name = name;
+    this.page = page;
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+    this.pivotX = pivotX;
+    this.pivotY = pivotY;
+    this.viewport = new Rectangle2D(x, y, width, height);
+  }
+
+  public String toString() {
+    return name + "@" + page + "[" + x + "," + y + " " + width + "x" + height + "]";
+  }
+}
@@ -0,0 +1,50 @@
+package com.chaosgame.sprite;
+
+import javafx.scene.paint.Color;
+
+/**
+ * The game's shared sprite atlas and page cache, and the sprites entities are
+ * drawn with. Each sprite is packed the first time an entity asks for it, so
+ * building a level packs exactly the sprites it uses.
+ *
+ * The cache's memory cap is 32 MB unless set with
+ * -Dchaosgame.spriteCacheMb=N.
+ */
+public final class Sprites {
+
+  public static final int PAGE_SIZE = 512;
+  public static final SpriteAtlas ATLAS = new SpriteAtlas(PAGE_SIZE);
+  public static final SpriteCache CACHE = new SpriteCache(ATLAS,
+      Long.getLong("chaosgame.spriteCacheMb", 32) * 1024 * 1024);
+
+  private Sprites() {
+  }
+
+  public static SpriteRegion player(double radius) {
+    return circle("player", radius, Color.WHITE);
+  }
+
+  public static SpriteRegion guard(double radius) {
+    return circle("guard", radius, Color.CRIMSON);
+  }
+
+  public static SpriteRegion crate(double side) {
+    return box("crate", side, side, Color.SADDLEBROWN);
+  }
+
+  public static SpriteRegion hand(double side, boolean grabbing) {
+    return grabbing ? box("hand-grabbing", side, side, Color.LIGHTGREEN) : box("hand", side, side, Color.LIGHTGRAY);
+  }
+
+  // Sizes are part of the name, so each size is packed once
+  private static SpriteRegion circle(String name, double radius, Color color) {
+    int size = (int) Math.round(2 * radius);
+    return ATLAS.region(name + "-" + size, size, size, size / 2.0, size / 2.0, SpritePainter.circle(color));
+  }
+
+  private static SpriteRegion box(String name, double width, double height, Color color) {
+    int w = (int) Math.round(width);
+    int h = (int) Math.round(height);
+    return ATLAS.region(name + "-" + w + "x" + h, w, h, w / 2.0, h / 2.0, SpritePainter.box(color));
+  }
+}
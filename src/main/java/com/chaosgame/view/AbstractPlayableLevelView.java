@@ -1,18 +1,52 @@
 package com.chaosgame.view;
 
+import com.chaosgame.ai.FlowFieldCache;
+import com.chaosgame.ai.NavigationGrid;
+import com.chaosgame.capture.FrameCapture;
+import com.chaosgame.inspect.StateExporter;
+import com.chaosgame.job.FrameGraph;
+import com.chaosgame.job.JobSystem;
+import com.chaosgame.physics.CollisionEventBus;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.physics.CollisionMatrix;
+import com.chaosgame.physics.FrameBudgetScheduler;
 import com.chaosgame.physics.PhysicsEngine;
+import com.chaosgame.physics.WorldFork;
+import com.chaosgame.physics.WorldPredictor;
+import com.chaosgame.sprite.SpriteBatch;
+import com.chaosgame.sprite.Sprites;
+import com.chaosgame.StartupMetrics;
 import com.chaosgame.Vector2D;
 import com.chaosgame.ViewManager;
 import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.EntityRegistry;
+import com.chaosgame.entity.Guard;
 import com.chaosgame.entity.Hand;
 import com.chaosgame.entity.Wall;
 import com.chaosgame.entity.Player;
+import com.chaosgame.particle.ParticleEmitter;
+import com.chaosgame.particle.ParticleRenderer;
+import com.chaosgame.particle.ParticleSystem;
 import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -20,42 +54,163 @@ import java.util.Set;
 /**
  * An abstract base class for any "playable" view that contains a game loop,
  * physics, entities, and player controls.
+ *
+ * The constructor only builds the level's nodes and entities, so it may run on
+ * a background thread while the menu is showing. The Scene itself is created
+ * on first use of getScene(), which must happen on the JavaFX Application
+ * Thread.
+ *
+ * The game loop only runs while the level is on screen (see ManagedView).
+ * Pausing keeps the whole level as it is, so resuming it is instant.
+ *
+ * Each frame is simulated on a pool of workers as a graph of stages (see
+ * buildFrameGraph), while the JavaFX Application Thread renders the frame
+ * before it. Stages never touch the scene graph; update() brings the nodes in
+ * line with the simulation between two frames, when nothing is moving.
  */
-public abstract class AbstractPlayableLevelView {
+public abstract class AbstractPlayableLevelView implements ManagedView {
 
   // View and Scene Management
   protected Scene scene;
   protected Pane root;
+  protected Pane world; // Entity nodes, scrolled by the camera
   protected ViewManager viewManager;
 
   // Game Engine Components
   protected AnimationTimer gameLoop;
-  protected List<Entity> entities = new ArrayList<>();
+  protected EntityRegistry registry = new EntityRegistry();
+  protected List<Entity> entities = registry.getEntities(); // Live entities, read-only
   protected Player player;
   protected PhysicsEngine physicsEngine;
+  protected CollisionMatrix collisionMatrix = CollisionMatrix.createDefault();
+  // Collisions from each step, delivered to gameplay listeners after it
+  protected CollisionEventBus collisionEvents = new CollisionEventBus();
+  private final List<Entity> grabCandidates = new ArrayList<>(); // Reused query result
+  private PerformanceHud performanceHud;
+  protected Camera camera = new Camera(WIDTH, HEIGHT, CULL_MARGIN);
+  protected FrameBudgetScheduler scheduler = new FrameBudgetScheduler(WORK_BUDGET_NANOS);
+  private double deferredDelta = 0; // Time the deferred work has yet to catch up on
+  private FrameCapture frameCapture; // Created on first use, as its buffers are large
+  // Publishes every frame for StateInspector; null unless -Dchaosgame.stateExport is set
+  private StateExporter stateExporter;
+  private long exportedFrames = 0;
+
+  // Cosmetic particles, emitted from impacts
+  protected ParticleSystem particles = new ParticleSystem(MAX_PARTICLES);
+  protected ParticleEmitter particleEmitter = new ParticleEmitter(particles);
+  private ParticleRenderer particleRenderer;
+
+  // Guards have no node of their own; the ones in view are batched onto this
+  private final Canvas guardCanvas = new Canvas(WIDTH, HEIGHT);
+  private final SpriteBatch guardBatch = new SpriteBatch(Sprites.CACHE);
+
+  // The arc a held object would follow if released now, from a forked world
+  private final WorldPredictor predictor = new WorldPredictor(
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  private final Path throwArc = new Path();
+  private final MoveTo throwArcStart = new MoveTo();
+  private final LineTo[] throwArcPoints = new LineTo[(int) Math.ceil(THROW_ARC_SECONDS * 60)];
+  private WorldFork throwArcFork; // From the last simulated frame, or null if nothing was held
+
+  // The simulation of one frame, run on the job system's work-stealing pool
+  private final JobSystem jobs = new JobSystem();
+  private final FrameGraph simulation = new FrameGraph(jobs);
+  // --- What the frame being simulated works from, set before it starts ---
+  private final Set<KeyCode> frameKeys = EnumSet.noneOf(KeyCode.class);
+  private double frameMouseX; // In world coordinates
+  private double frameMouseY;
+  private double frameDelta;
+  private boolean runDeferredWork;
+  private boolean particlesUpdated; // Whether the last simulated frame moved the particles
+
+  // Guards all chase the player through one shared flow field
+  protected final List<Guard> guards = new ArrayList<>();
+  protected NavigationGrid navigationGrid;
+  protected FlowFieldCache flowFields;
+  private final JobSystem.RangeTask steerGuardRange = (from, to) -> {
+    for (int i = from; i < to; i++) {
+      guards.get(i).chase(flowFields, player.getX(), player.getY(), frameDelta);
+    }
+  };
 
   // Input State
   private long lastUpdate = 0;
-  private double mouseX = 0;
+  private double mouseX = 0; // In screen coordinates; the camera maps them into the world
   private double mouseY = 0;
   private Set<KeyCode> pressedKeys = new HashSet<>();
+  // Mouse presses (true) and releases (false) not yet handed to a frame
+  private final ArrayDeque<Boolean> pendingGrabs = new ArrayDeque<>();
 
   // Constants
   public static final int WIDTH = 1280;
   public static final int HEIGHT = 720;
+  public static final int MAX_PARTICLES = 50_000;
+  public static final double NAV_CELL_SIZE = 16;
+  private static final double CULL_MARGIN = 64; // Entities this far off screen are still drawn
+  // How long simulating a frame may take. It overlaps rendering, but syncing
+  // the nodes and JavaFX's own pulse need the rest of a 60 FPS frame
+  private static final long WORK_BUDGET_NANOS = 10_000_000;
+  private static final double LOD_RADIUS = WIDTH; // Bodies further than this from the player are far
+  private static final int FLOW_FIELD_BUDGET = 4096; // Cells per frame spent rebuilding the field
+  private static final int GUARD_GRAIN = 64; // Guards steered per chunk
+  private static final double THROW_ARC_SECONDS = 1.0;
+  private static final long THROW_ARC_BUDGET_NANOS = 1_000_000;
+  // Frames a recording may have waiting to be written before new ones are dropped
+  private static final int CAPTURE_BUFFERS = 8;
+  private static final int STATE_EXPORT_BODIES = Integer.getInteger("chaosgame.stateExportBodies", 4096);
+  private static final DateTimeFormatter CAPTURE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
   public AbstractPlayableLevelView(ViewManager viewManager) {
     this.physicsEngine = new PhysicsEngine();
+    this.physicsEngine.setJobSystem(jobs);
     this.viewManager = viewManager;
     this.root = new Pane();
     this.root.setStyle("-fx-background-color: #1a1a1a;");
-    this.scene = new Scene(root, WIDTH, HEIGHT);
+    this.world = new Pane();
+    this.world.setManaged(false);
+    this.root.getChildren().add(world);
+    this.guardCanvas.setMouseTransparent(true);
+    this.root.getChildren().add(guardCanvas);
+    buildThrowArc();
+
+    registry.setListener(new EntityRegistry.Listener() {
+      @Override
+      public void onSpawned(Entity entity) {
+        collisionMatrix.apply(entity);
+        attachView(entity);
+      }
+
+      @Override
+      public void onDespawned(Entity entity) {
+        detachView(entity);
+        if (entity instanceof Guard) {
+          guards.remove(entity);
+        }
+      }
+    });
 
     // This abstract method must be implemented by subclasses to add entities.
     setupLevel();
+    registry.flush(); // The level starts fully populated
+
+    particles.setStaticGeometry(entities);
+    buildNavigationGrid();
+    double[] worldBounds = new double[4];
+    measureWorld(worldBounds);
+    camera.setWorldBounds(worldBounds[0], worldBounds[1], worldBounds[2], worldBounds[3]);
+    camera.centerOn(player);
+    camera.cull(physicsEngine, entities); // What the first frame shows, before anything is simulated
+    physicsEngine.setEventBus(collisionEvents);
+    collisionEvents.subscribe(CollisionLayers.ALL, null, particleEmitter);
+    this.particleRenderer = new ParticleRenderer(WIDTH, HEIGHT);
+    root.getChildren().add(particleRenderer.getCanvas());
 
-    // Setup all listeners and the game loop
-    initializeListeners();
+    // The HUD goes on last so it draws above the level
+    this.performanceHud = new PerformanceHud();
+    root.getChildren().add(performanceHud.getCanvas());
+
+    openStateExport();
+    buildFrameGraph();
     initializeGameLoop();
   }
 
@@ -77,17 +232,28 @@ public abstract class AbstractPlayableLevelView {
       mouseY = event.getSceneY();
     });
 
-    scene.setOnKeyPressed(event -> pressedKeys.add(event.getCode()));
+    scene.setOnKeyPressed(event -> {
+      if (event.getCode() == KeyCode.F3) {
+        performanceHud.toggle();
+      } else if (event.getCode() == KeyCode.ESCAPE) {
+        viewManager.showMainMenu();
+        return;
+      } else if (event.getCode() == KeyCode.F9) {
+        toggleCapture();
+      }
+      pressedKeys.add(event.getCode());
+    });
     scene.setOnKeyReleased(event -> pressedKeys.remove(event.getCode()));
 
+    // The player may be mid-simulation, so clicks wait for the next frame
     scene.setOnMousePressed(event -> {
       if (event.isPrimaryButtonDown()) {
-        player.startGrabbing();
+        pendingGrabs.add(Boolean.TRUE);
       }
     });
     scene.setOnMouseReleased(event -> {
       if (event.getButton() == javafx.scene.input.MouseButton.PRIMARY) {
-        player.releaseObject();
+        pendingGrabs.add(Boolean.FALSE);
       }
     });
   }
@@ -98,6 +264,7 @@ public abstract class AbstractPlayableLevelView {
       public void handle(long now) {
         if (lastUpdate == 0) {
           lastUpdate = now;
+          StartupMetrics.firstGameplayFrame();
           return;
         }
         double delta = (now - lastUpdate) / 1_000_000_000.0;
@@ -107,35 +274,400 @@ public abstract class AbstractPlayableLevelView {
     };
   }
 
-  protected void addEntity(Entity entity) {
-    entities.add(entity);
-    root.getChildren().add(entity.getView());
+  /**
+   * Queues an entity to join the level at the start of the next step.
+   *
+   * @return The entity's handle, which stops resolving once it is removed.
+   */
+  protected long addEntity(Entity entity) {
+    return registry.spawn(entity);
+  }
+
+  /**
+   * Queues an entity to leave the level at the start of the next step. Pooled
+   * entities go back to their pool.
+   */
+  protected void removeEntity(long handle) {
+    registry.despawn(handle);
+  }
+
+  /**
+   * Queues a guard to join the level; it will chase the player.
+   */
+  protected long addGuard(Guard guard) {
+    guards.add(guard);
+    return addEntity(guard);
+  }
+
+  /**
+   * Fills worldBounds with the extent of the level: the screen and every wall,
+   * as minX, minY, maxX, maxY.
+   */
+  protected void measureWorld(double[] worldBounds) {
+    double minX = 0, minY = 0, maxX = WIDTH, maxY = HEIGHT;
+    double[] bounds = new double[4];
+    for (Entity entity : entities) {
+      if ((entity.getCollisionCategory() & CollisionLayers.WALL) != 0) {
+        entity.getBounds(bounds);
+        minX = Math.min(minX, bounds[0]);
+        minY = Math.min(minY, bounds[1]);
+        maxX = Math.max(maxX, bounds[2]);
+        maxY = Math.max(maxY, bounds[3]);
+      }
+    }
+    worldBounds[0] = minX;
+    worldBounds[1] = minY;
+    worldBounds[2] = maxX;
+    worldBounds[3] = maxY;
+  }
+
+  /**
+   * Rasterizes the walls into the navigation grid the guards path through.
+   * The grid covers the whole world (see measureWorld). Call again if walls
+   * are added or removed after the level is built.
+   */
+  protected void buildNavigationGrid() {
+    double[] bounds = new double[4];
+    measureWorld(bounds);
+    navigationGrid = new NavigationGrid(bounds[0], bounds[1], bounds[2], bounds[3], NAV_CELL_SIZE);
+    navigationGrid.rasterize(entities, Guard.RADIUS);
+    flowFields = new FlowFieldCache(navigationGrid, 16);
+  }
+
+  // A polyline of preallocated segments, moved rather than rebuilt every frame.
+  // It sits just above the world pane rather than in it, so it stays on top of
+  // the entities without being reordered among them.
+  private void buildThrowArc() {
+    throwArc.getElements().add(throwArcStart);
+    for (int i = 0; i < throwArcPoints.length; i++) {
+      throwArcPoints[i] = new LineTo();
+      throwArc.getElements().add(throwArcPoints[i]);
+    }
+    throwArc.setStroke(Color.rgb(255, 255, 255, 0.5));
+    throwArc.getStrokeDashArray().addAll(6.0, 6.0);
+    throwArc.setManaged(false);
+    throwArc.setMouseTransparent(true);
+    throwArc.setVisible(false);
+    root.getChildren().add(throwArc);
+  }
+
+  /**
+   * Predicts where the held object would go if it were released now.
+   * Releasing keeps its velocity, so that is the velocity the fork is given.
+   */
+  private void predictThrowArc() {
+    if (!player.isHoldingObject()) {
+      throwArcFork = null;
+      return;
+    }
+    predictor.begin();
+    throwArcFork = predictor.fork(entities, player.getHeldObject(), THROW_ARC_SECONDS);
+    predictor.run(1.0 / 60, THROW_ARC_BUDGET_NANOS);
+  }
+
+  // Moves the arc onto the last prediction
+  private void showThrowArc() {
+    WorldFork arc = throwArcFork;
+    if (arc == null) {
+      throwArc.setVisible(false);
+      return;
+    }
+    throwArcStart.setX(arc.getPathX(0));
+    throwArcStart.setY(arc.getPathY(0));
+    for (int i = 0; i < throwArcPoints.length; i++) {
+      // Points past a path cut short by the budget collapse onto its end
+      int index = Math.min(i + 1, arc.getPathLength() - 1);
+      throwArcPoints[i].setX(arc.getPathX(index));
+      throwArcPoints[i].setY(arc.getPathY(index));
+    }
+    throwArc.setTranslateX(world.getTranslateX());
+    throwArc.setTranslateY(world.getTranslateY());
+    throwArc.setVisible(true);
+  }
+
+  // Draws the guards in view, page by page, in screen coordinates
+  private void drawGuards() {
+    GraphicsContext gc = guardCanvas.getGraphicsContext2D();
+    gc.clearRect(0, 0, WIDTH, HEIGHT);
+    guardBatch.begin();
+    List<Entity> visible = camera.getVisible();
+    for (int i = 0; i < visible.size(); i++) {
+      if (visible.get(i) instanceof Guard) {
+        Guard guard = (Guard) visible.get(i);
+        guardBatch.draw(guard.getSprite(), guard.getX() - camera.getX(), guard.getY() - camera.getY(),
+            guard.angle);
+      }
+    }
+    guardBatch.end(gc);
+  }
+
+  // New nodes start hidden; the camera shows them once they are in view
+  private void attachView(Entity entity) {
+    Node view = entity.getView();
+    view.setVisible(false);
+    if (view.getParent() != world) {
+      world.getChildren().add(view); // Otherwise a pooled entity whose node never left the scene
+    }
+  }
+
+  private void detachView(Entity entity) {
+    if (entity.isPooled()) {
+      // Hiding is O(1), and the node will be reused by the next spawn anyway
+      entity.getView().setVisible(false);
+    } else {
+      world.getChildren().remove(entity.getView());
+      // Only pooled entities come back, so this view's sprite page can go
+      if (entity.getView() instanceof ImageView) {
+        Sprites.CACHE.release((ImageView) entity.getView());
+      }
+    }
   }
 
-  public void start() {
+  @Override
+  public void enter() {
     gameLoop.start();
   }
 
+  /**
+   * Stops the game loop and everything that runs alongside it. The level
+   * itself is left as it is.
+   */
+  @Override
+  public void pause() {
+    gameLoop.stop();
+    simulation.join(); // Let the frame in flight finish, so nothing runs while paused
+    lastUpdate = 0; // The first frame after resuming only takes its timestamp
+    pressedKeys.clear(); // Their key-up events go to the next view
+    pendingGrabs.clear();
+    if (frameCapture != null) {
+      frameCapture.stop();
+    }
+    particles.clear(); // Cosmetic, and nothing should be left mid-flight on return
+  }
+
+  @Override
+  public void resume() {
+    gameLoop.start();
+  }
+
+  /**
+   * Stops the level for good: the job and predictor threads end, and the
+   * sprite pages the level's views pinned can be evicted again.
+   */
+  @Override
+  public void dispose() {
+    pause();
+    jobs.shutdown();
+    predictor.shutdown();
+    if (stateExporter != null) {
+      try {
+        stateExporter.close();
+      } catch (IOException e) {
+        System.err.println("[inspect] Could not close " + stateExporter.getFile() + ": " + e);
+      }
+    }
+    registry.flush();
+    // The world holds the live entities' views and those of pooled entities
+    // waiting to be reused; despawned ones released theirs on the way out
+    for (Node view : world.getChildren()) {
+      if (view instanceof ImageView) {
+        Sprites.CACHE.release((ImageView) view);
+      }
+    }
+  }
+
+  @Override
   public Scene getScene() {
+    if (this.scene == null) {
+      this.scene = new Scene(root, WIDTH, HEIGHT);
+      initializeListeners();
+    }
     return this.scene;
   }
 
+  /**
+   * Declares one simulated frame as stages and the stages each waits for:
+   *
+   * <pre>
+   * input -> player -> grab --+
+   * paths -> ai --------------+-> physics -+-> events -> particles -+
+   *                                        +-> camera --------------+-> budget
+   *                                        +-> arc -----------------+
+   * </pre>
+   *
+   * When the state is exported, an export stage after events also feeds the
+   * budget.
+   *
+   * Guards are never grabbed, so steering them runs alongside the player's
+   * input and grabbing. The guards and the bodies the engine integrates are
+   * split into chunks that idle workers can steal.
+   */
+  private void buildFrameGraph() {
+    FrameGraph.Stage input = simulation.stage("input", () -> {
+      player.handleInput(frameKeys);
+      player.updateHand(frameMouseX, frameMouseY);
+    });
+    FrameGraph.Stage playerPhysics = simulation.stage("player", () -> player.updatePhysics(frameDelta), input);
+    FrameGraph.Stage grab = simulation.stage("grab", this::handleGrabbing, playerPhysics);
+    FrameGraph.Stage paths = simulation.stage("paths", this::updateFlowField);
+    FrameGraph.Stage ai = simulation.stage("ai", this::steerGuards, paths);
+    FrameGraph.Stage physics = simulation.stage("physics", () -> {
+      physicsEngine.setLodFocus(player.getX(), player.getY(), LOD_RADIUS);
+      physicsEngine.update(entities, frameDelta);
+    }, grab, ai);
+    FrameGraph.Stage events = simulation.stage("events", collisionEvents::publish, physics);
+    // Particles are cosmetic, so under load they catch up every other frame
+    FrameGraph.Stage particleUpdate = simulation.stage("particles", () -> {
+      particlesUpdated = runDeferredWork;
+      if (runDeferredWork) {
+        particles.update(deferredDelta);
+        deferredDelta = 0;
+      }
+    }, events);
+    FrameGraph.Stage follow = simulation.stage("camera", () -> {
+      camera.follow(player, frameDelta);
+      camera.findVisible(physicsEngine, entities);
+    }, physics);
+    FrameGraph.Stage arc = simulation.stage("arc", this::predictThrowArc, physics);
+    if (stateExporter == null) {
+      simulation.stage("budget", scheduler::endFrame, particleUpdate, follow, arc);
+    } else {
+      FrameGraph.Stage export = simulation.stage("export",
+          () -> stateExporter.publish(exportedFrames++, entities, physicsEngine.getStats()), events);
+      simulation.stage("budget", scheduler::endFrame, particleUpdate, follow, arc, export);
+    }
+  }
+
+  /**
+   * Starts publishing the state to the file named by -Dchaosgame.stateExport,
+   * if there is one. The game plays on without it if the file cannot be
+   * mapped.
+   */
+  private void openStateExport() {
+    String file = System.getProperty("chaosgame.stateExport");
+    if (file == null || file.isEmpty()) {
+      return;
+    }
+    try {
+      stateExporter = new StateExporter(Paths.get(file), STATE_EXPORT_BODIES);
+    } catch (IOException e) {
+      System.err.println("[inspect] Could not export state to " + file + ": " + e);
+    }
+  }
+
+  /**
+   * One pulse of the game loop. The frame simulated since the last pulse is
+   * put on screen, then the next one starts simulating while JavaFX renders
+   * this one, so what is shown trails the input it reacts to by a frame.
+   */
   private void update(double delta) {
-    player.handleInput(pressedKeys);
-    player.updateHand(mouseX, mouseY);
-    player.updatePhysics(delta);
+    // --- Step 1: Wait for the frame simulated since the last pulse ---
+    simulation.join();
+
+    // --- Step 2: With nothing moving, bring the nodes in line with it ---
+    world.setTranslateX(-camera.getX());
+    world.setTranslateY(-camera.getY());
+    camera.showVisible();
+    drawGuards();
+    showThrowArc();
+    if (particlesUpdated) {
+      particleRenderer.render(particles, camera.getX(), camera.getY());
+    } else {
+      // The particles did not move, but the camera may have
+      particleRenderer.scrollTo(camera.getX(), camera.getY());
+    }
+
+    performanceHud.recordParticles(particles);
+    performanceHud.recordCulling(camera.getVisibleCount(), entities.size());
+    performanceHud.recordLod(scheduler.getTier());
+    performanceHud.recordSprites(Sprites.CACHE);
+    performanceHud.recordCapture(frameCapture);
+    performanceHud.recordJobs(simulation);
+    performanceHud.recordFrame(delta, physicsEngine.getStats());
 
-    handleGrabbing();
-    physicsEngine.update(entities, delta);
+    // Step boundary: apply the spawns and removals queued since the last frame
+    registry.flush();
+    applyInput();
 
+    // --- Step 3: Simulate the next frame while this one renders ---
+    scheduler.beginFrame();
+    scheduler.apply(physicsEngine);
+    runDeferredWork = scheduler.shouldRunDeferredWork();
+    deferredDelta += delta;
+    frameDelta = delta;
+    simulation.start();
+
+    // The snapshot only reads the scene graph, so it overlaps the simulation too
+    if (frameCapture != null) {
+      frameCapture.capture(scene);
+    }
+  }
+
+  // Hands the input gathered since the last frame to the next one. A press
+  // ends the handover, so the grab stage sees it before any release queued
+  // behind it; a click shorter than a frame then still grabs, and is let go
+  // of a frame later.
+  private void applyInput() {
+    while (!pendingGrabs.isEmpty()) {
+      if (pendingGrabs.poll()) {
+        player.startGrabbing();
+        break;
+      }
+      player.releaseObject();
+    }
+    frameKeys.clear();
+    frameKeys.addAll(pressedKeys);
+    frameMouseX = camera.toWorldX(mouseX);
+    frameMouseY = camera.toWorldY(mouseY);
+  }
+
+  /**
+   * Starts or stops recording frames into captures/&lt;date-time&gt;. Frames
+   * are PNG files unless -Dchaosgame.captureFormat=raw.
+   */
+  private void toggleCapture() {
+    if (frameCapture == null) {
+      FrameCapture.Format format = "raw".equalsIgnoreCase(System.getProperty("chaosgame.captureFormat"))
+          ? FrameCapture.Format.RAW
+          : FrameCapture.Format.PNG;
+      int encoderThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+      frameCapture = new FrameCapture(format, WIDTH, HEIGHT, CAPTURE_BUFFERS, encoderThreads);
+    }
+    if (frameCapture.isRecording()) {
+      frameCapture.stop();
+      return;
+    }
+    String name = LocalDateTime.now().format(CAPTURE_NAME);
+    try {
+      frameCapture.start(Paths.get("captures", name));
+    } catch (IOException e) {
+      System.err.println("[capture] Could not start recording to " + Paths.get("captures", name) + ": " + e);
+    }
+  }
+
+  // Guards keep steering every frame; only rebuilding the field can wait
+  private void updateFlowField() {
+    if (guards.isEmpty()) {
+      return;
+    }
+    flowFields.setGoal(player.getX(), player.getY());
+    if (runDeferredWork) {
+      flowFields.update(FLOW_FIELD_BUDGET);
+    }
+  }
+
+  // Each guard only writes its own velocity, so chunks of them steer in parallel
+  private void steerGuards() {
+    jobs.parallelFor(guards.size(), GUARD_GRAIN, steerGuardRange);
   }
 
   private void handleGrabbing() {
     if (player.isGrabbing() && !player.isHoldingObject()) {
-      for (Entity entity : entities) {
-        if (entity instanceof Player || !entity.isPhysical)
-          continue;
-
+      Hand hand = player.getHand();
+      grabCandidates.clear();
+      physicsEngine.queryPoint(entities, hand.getX(), hand.getY(), CollisionLayers.GRABBABLE, grabCandidates);
+      if (!grabCandidates.isEmpty()) {
+        player.grabObject(grabCandidates.get(0));
       }
     }
   }
@@ -0,0 +1,184 @@
+package com.chaosgame.view;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.physics.CollisionLayers;
+import com.chaosgame.physics.PhysicsEngine;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A scrolling camera that follows one entity around a world larger than the
+ * screen, and decides which entities are worth drawing.
+ *
+ * Every frame, cull() asks the physics engine for the entities inside the
+ * viewport plus a margin. Only those have their nodes synced to the simulation
+ * and shown; nodes that scrolled out of view are hidden, so JavaFX skips them
+ * entirely. The cost of keeping the scene graph up to date therefore follows
+ * what is on screen rather than the size of the level.
+ *
+ * A pipelined game loop calls cull()'s two halves separately: findVisible()
+ * with the simulation, and showVisible() on the JavaFX Application Thread.
+ */
+public class Camera {
+
+  // How quickly the camera closes the distance to its target, per second
+  private static final double FOLLOW_RATE = 8.0;
+
+  private final double viewportWidth;
+  private final double viewportHeight;
+  private final double margin;
+
+  // Top-left corner of the viewport, in world coordinates
+  private double x;
+  private double y;
+
+  // The camera never shows anything outside these
+  private double worldMinX = Double.NEGATIVE_INFINITY;
+  private double worldMinY = Double.NEGATIVE_INFINITY;
+  private double worldMaxX = Double.POSITIVE_INFINITY;
+  private double worldMaxY = Double.POSITIVE_INFINITY;
+
+  // --- Culling state, reused across frames ---
+  private ArrayList<Entity> visible = new ArrayList<>();
+  private ArrayList<Entity> previouslyVisible = new ArrayList<>();
+  // The frame each entity (by id) was last found in view
+  private int[] visibleFrame = new int[256];
+  private int frame = 0;
+
+  /**
+   * @param margin How far outside the viewport entities still count as
+   *               visible, so that nothing pops in at the edges.
+   */
+  public Camera(double viewportWidth, double viewportHeight, double margin) {
+    this.viewportWidth = viewportWidth;
+    this.viewportHeight = viewportHeight;
+    this.margin = margin;
+  }
+
+  /**
+   * Limits scrolling to a world-space rectangle. If the world is smaller than
+   * the viewport along an axis, the camera stays at the world's edge.
+   */
+  public void setWorldBounds(double minX, double minY, double maxX, double maxY) {
+    this.worldMinX = minX;
+    this.worldMinY = minY;
+    this.worldMaxX = maxX;
+    this.worldMaxY = maxY;
+    clamp();
+  }
+
+  /**
+   * Jumps straight to the target, e.g. when a level starts.
+   */
+  public void centerOn(Entity target) {
+    x = target.getX() - viewportWidth / 2;
+    y = target.getY() - viewportHeight / 2;
+    clamp();
+  }
+
+  /**
+   * Eases the viewport towards being centred on the target. The easing is
+   * frame-rate independent.
+   */
+  public void follow(Entity target, double delta) {
+    double blend = 1 - Math.exp(-FOLLOW_RATE * delta);
+    x += (target.getX() - viewportWidth / 2 - x) * blend;
+    y += (target.getY() - viewportHeight / 2 - y) * blend;
+    clamp();
+  }
+
+  private void clamp() {
+    x = Math.max(worldMinX, Math.min(x, worldMaxX - viewportWidth));
+    y = Math.max(worldMinY, Math.min(y, worldMaxY - viewportHeight));
+  }
+
+  /**
+   * Shows and syncs the nodes of entities in view, and hides the ones that
+   * have left it since the last call.
+   */
+  public void cull(PhysicsEngine physicsEngine, List<Entity> entities) {
+    findVisible(physicsEngine, entities);
+    showVisible();
+  }
+
+  /**
+   * The simulation half of cull(): finds the entities in view without
+   * touching any node, so it can run off the JavaFX Application Thread.
+   */
+  public void findVisible(PhysicsEngine physicsEngine, List<Entity> entities) {
+    frame++;
+    ArrayList<Entity> swap = previouslyVisible;
+    previouslyVisible = visible;
+    visible = swap;
+    visible.clear();
+    physicsEngine.queryRegion(entities, x - margin, y - margin, x + viewportWidth + margin,
+        y + viewportHeight + margin, CollisionLayers.ALL, visible);
+  }
+
+  /**
+   * The scene graph half of cull(): brings the nodes in line with the last
+   * findVisible(). Must run on the JavaFX Application Thread, while nothing is
+   * moving the entities.
+   */
+  public void showVisible() {
+    // --- Step 1: Show and sync everything in view ---
+    for (int i = 0; i < visible.size(); i++) {
+      Entity entity = visible.get(i);
+      if (entity.id >= visibleFrame.length) {
+        visibleFrame = Arrays.copyOf(visibleFrame, Math.max(entity.id + 1, visibleFrame.length * 2));
+      }
+      visibleFrame[entity.id] = frame;
+      Node view = entity.getView();
+      if (!view.isVisible()) {
+        view.setVisible(true);
+      }
+      entity.syncView();
+    }
+
+    // --- Step 2: Hide whatever was in view last frame but no longer is ---
+    for (int i = 0; i < previouslyVisible.size(); i++) {
+      Entity entity = previouslyVisible.get(i);
+      if (visibleFrame[entity.id] != frame) {
+        entity.getView().setVisible(false);
+      }
+    }
+  }
+
+  /**
+   * The entities found in view by the last findVisible().
+   */
+  public List<Entity> getVisible() {
+    return visible;
+  }
+
+  public int getVisibleCount() {
+    return visible.size();
+  }
+
+  public double getX() {
+    return x;
+  }
+
+  public double getY() {
+    return y;
+  }
+
+  public double getViewportWidth() {
+    return viewportWidth;
+  }
+
+  public double getViewportHeight() {
+    return viewportHeight;
+  }
+
+  public double toWorldX(double screenX) {
+    return screenX + x;
+  }
+
+  public double toWorldY(double screenY) {
+    return screenY + y;
+  }
+}
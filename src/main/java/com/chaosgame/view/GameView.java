@@ -2,6 +2,7 @@ package com.chaosgame.view;
 
 import com.chaosgame.ViewManager;
 import com.chaosgame.entity.Crate;
+import com.chaosgame.entity.Guard;
 import com.chaosgame.entity.Hand;
 import com.chaosgame.entity.Player;
 import com.chaosgame.entity.Wall;
@@ -31,5 +32,11 @@ public class GameView extends AbstractPlayableLevelView {
 
     addEntity(new Wall(0, 50, WIDTH * 2, 10));
     addEntity(new Wall(0, 600, WIDTH * 2, 250));
+
+    // A cover wall between the guards and the player, so they have to path around it
+    addEntity(new Wall(WIDTH / 2 - 200, 250, 400, 20));
+    addGuard(new Guard(200, 120));
+    addGuard(new Guard(WIDTH - 200, 120));
+    addGuard(new Guard(WIDTH / 2, 110));
   }
 }
@@ -8,7 +8,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 
-public class MainMenuView {
+public class MainMenuView implements ManagedView {
   private Scene scene;
   private ViewManager viewManager;
 
@@ -29,6 +29,7 @@ public class MainMenuView {
     this.scene = new Scene(root, 800, 600);
   }
 
+  @Override
   public Scene getScene() {
     return this.scene;
   }
@@ -0,0 +1,49 @@
+package com.chaosgame.view;
+
+import javafx.scene.Scene;
+
+/**
+ * A screen whose lifecycle is driven by the ViewManager:
+ *
+ * <pre>
+ * enter --> pause <--> resume
+ *   |         |
+ *   +---------+--> dispose
+ * </pre>
+ *
+ * Only the view on screen is entered or resumed; everything else is paused or
+ * gone. All calls happen on the JavaFX Application Thread.
+ */
+public interface ManagedView {
+
+  /**
+   * The scene to put on the stage. Created on first use.
+   */
+  Scene getScene();
+
+  /**
+   * Called the first time the view is shown.
+   */
+  default void enter() {
+  }
+
+  /**
+   * Called when another view replaces this one but this one may be shown
+   * again. A paused view must not keep running anything per frame.
+   */
+  default void pause() {
+  }
+
+  /**
+   * Called when a paused view is shown again.
+   */
+  default void resume() {
+  }
+
+  /**
+   * Called once the view will never be shown again, from any state; it
+   * releases whatever the view holds beyond its own object graph.
+   */
+  default void dispose() {
+  }
+}
@@ -0,0 +1,449 @@
+package com.chaosgame.view;
+
+import com.chaosgame.capture.FrameCapture;
+import com.chaosgame.job.FrameGraph;
+import com.chaosgame.particle.ParticleSystem;
+import com.chaosgame.physics.FrameBudgetScheduler;
+import com.chaosgame.physics.PhysicsStats;
+import com.chaosgame.sprite.SpriteCache;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A toggleable overlay showing where each frame's time goes.
+ *
+ * Everything is drawn onto a single Canvas from preallocated ring buffers.
+ * Numbers are drawn from a table of labels built once up front, so a visible
+ * HUD does not build any strings per frame and does not itself show up as GC
+ * pressure.
+ */
+public class PerformanceHud {
+
+  private static final int SAMPLES = 240; // About four seconds at 60 FPS
+  private static final double BUDGET_MS = 1000.0 / 60.0;
+  private static final double GRAPH_MAX_MS = 3 * BUDGET_MS;
+
+  private static final double PANEL_WIDTH = 300;
+  private static final double PANEL_HEIGHT = 370;
+  private static final double PADDING = 8;
+  private static final double LINE_HEIGHT = 15;
+  private static final double STAGE_COLUMN_WIDTH = 142; // Stage timings are listed in two columns
+  private static final double GRAPH_HEIGHT = 60;
+  private static final Font FONT = Font.font("Monospaced", 12);
+
+  // Labels for 0..999 and for tenths, so drawing a number never allocates
+  private static final String[] NUMBERS = new String[1000];
+  private static final String[] TENTHS = new String[10];
+  static {
+    for (int i = 0; i < NUMBERS.length; i++) {
+      NUMBERS[i] = Integer.toString(i);
+    }
+    for (int i = 0; i < TENTHS.length; i++) {
+      TENTHS[i] = "." + i;
+    }
+  }
+
+  private final Canvas canvas;
+  private final GraphicsContext gc;
+  private final double charWidth;
+
+  // --- Ring buffers of per-frame samples ---
+  private final double[] frameMs = new double[SAMPLES];
+  private final double[] physicsMs = new double[SAMPLES];
+  private final double[] gcMs = new double[SAMPLES];
+  private final double[] sorted = new double[SAMPLES]; // Scratch space for percentiles
+  private int head = 0; // Index the next sample will be written to
+  private int count = 0;
+
+  // --- Latest physics counters ---
+  private int subSteps;
+  private int broadPhasePairs;
+  private int narrowPhasePairs;
+  private int awakeBodies;
+
+  // --- Latest particle counters ---
+  private int particleCount;
+  private double particleMs;
+
+  // --- Latest level of detail ---
+  private FrameBudgetScheduler.Tier lodTier = FrameBudgetScheduler.Tier.FULL;
+  private int maxSubSteps = FrameBudgetScheduler.Tier.FULL.maxSubSteps;
+  private int farPairsSkipped;
+
+  // --- Latest culling counters ---
+  private int visibleEntities;
+  private int totalEntities;
+
+  // --- Latest frame capture counters ---
+  private boolean capturing;
+  private double captureMs;
+  private int queuedFrames;
+  private int capturedFrames;
+  private int droppedFrames;
+
+  // --- Latest sprite cache counters ---
+  private int spritePages;
+  private double spriteMb;
+  private long spriteHits;
+  private long spriteMisses;
+
+  // --- Latest frame job timings ---
+  private int jobThreads;
+  private double simulationMs;
+  private double workMs;
+  private double criticalPathMs;
+  private double waitMs;
+  private String[] stageNames = new String[0];
+  private double[] stageMs = new double[0];
+
+  private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+  private long lastGcTime = totalGcTime();
+
+  public PerformanceHud() {
+    this.canvas = new Canvas(PANEL_WIDTH, PANEL_HEIGHT);
+    this.canvas.setLayoutX(PADDING);
+    this.canvas.setLayoutY(PADDING);
+    this.canvas.setMouseTransparent(true);
+    this.canvas.setVisible(false);
+    this.gc = canvas.getGraphicsContext2D();
+    this.gc.setFont(FONT);
+
+    Text probe = new Text("0");
+    probe.setFont(FONT);
+    this.charWidth = probe.getLayoutBounds().getWidth();
+  }
+
+  public Canvas getCanvas() {
+    return canvas;
+  }
+
+  public boolean isVisible() {
+    return canvas.isVisible();
+  }
+
+  public void toggle() {
+    canvas.setVisible(!canvas.isVisible());
+    if (canvas.isVisible()) {
+      canvas.toFront(); // Stay above anything spawned since the last toggle
+    }
+  }
+
+  /**
+   * Records the particle system's state for the frame about to be recorded.
+   * Call before recordFrame.
+   */
+  public void recordParticles(ParticleSystem particles) {
+    particleCount = particles.getCount();
+    particleMs = particles.getUpdateNanos() / 1_000_000.0;
+  }
+
+  /**
+   * Records the level of detail tier this frame ran at. Call before
+   * recordFrame.
+   */
+  public void recordLod(FrameBudgetScheduler.Tier tier) {
+    lodTier = tier;
+    maxSubSteps = tier.maxSubSteps;
+  }
+
+  /**
+   * Records how many entities the camera found on screen out of all live
+   * ones. Call before recordFrame.
+   */
+  public void recordCulling(int visible, int total) {
+    visibleEntities = visible;
+    totalEntities = total;
+  }
+
+  /**
+   * Records the sprite cache's resident pages and lookups so far. Call before
+   * recordFrame.
+   */
+  public void recordSprites(SpriteCache cache) {
+    spritePages = cache.getResidentPages();
+    spriteMb = cache.getResidentBytes() / (1024.0 * 1024.0);
+    spriteHits = cache.getHits();
+    spriteMisses = cache.getMisses();
+  }
+
+  /**
+   * Records the state of frame capture, which may be null if it was never
+   * used. Call before recordFrame.
+   */
+  public void recordCapture(FrameCapture capture) {
+    capturing = capture != null && capture.isRecording();
+    if (capture != null) {
+      // Once stopped, these are the totals of the last recording
+      captureMs = capture.getLastCaptureMs();
+      queuedFrames = capture.getQueuedFrames();
+      capturedFrames = capture.getCapturedFrames();
+      droppedFrames = capture.getDroppedFrames();
+    }
+  }
+
+  /**
+   * Records how the last simulated frame spread across the job system's
+   * workers, stage by stage. Call before recordFrame.
+   */
+  public void recordJobs(FrameGraph graph) {
+    List<FrameGraph.Stage> stages = graph.getStages();
+    if (stageNames.length != stages.size()) {
+      stageNames = new String[stages.size()];
+      stageMs = new double[stages.size()];
+    }
+    for (int i = 0; i < stageNames.length; i++) {
+      FrameGraph.Stage stage = stages.get(i);
+      stageNames[i] = stage.getName();
+      stageMs[i] = stage.getSmoothedMs();
+    }
+    jobThreads = graph.getJobSystem().getThreadCount();
+    simulationMs = graph.getFrameNanos() / 1_000_000.0;
+    workMs = graph.getWorkNanos() / 1_000_000.0;
+    criticalPathMs = graph.getCriticalPathNanos() / 1_000_000.0;
+    waitMs = graph.getWaitNanos() / 1_000_000.0;
+  }
+
+  /**
+   * Records one frame's timings and redraws the overlay if it is showing.
+   *
+   * @param frameSeconds The time since the previous frame.
+   * @param stats        The physics counters for this frame.
+   */
+  public void recordFrame(double frameSeconds, PhysicsStats stats) {
+    long gcTime = totalGcTime();
+    frameMs[head] = frameSeconds * 1000.0;
+    physicsMs[head] = stats.stepNanos / 1_000_000.0;
+    gcMs[head] = gcTime - lastGcTime;
+    lastGcTime = gcTime;
+    head = (head + 1) % SAMPLES;
+    count = Math.min(count + 1, SAMPLES);
+
+    subSteps = stats.subSteps;
+    broadPhasePairs = stats.broadPhasePairs;
+    narrowPhasePairs = stats.narrowPhasePairs;
+    awakeBodies = stats.awakeBodies;
+    farPairsSkipped = stats.farPairsSkipped;
+
+    if (canvas.isVisible()) {
+      draw();
+    }
+  }
+
+  private long totalGcTime() {
+    long total = 0;
+    for (int i = 0; i < collectors.size(); i++) {
+      total += Math.max(0, collectors.get(i).getCollectionTime());
+    }
+    return total;
+  }
+
+  private void draw() {
+    gc.clearRect(0, 0, PANEL_WIDTH, PANEL_HEIGHT);
+    gc.setFill(Color.rgb(0, 0, 0, 0.7));
+    gc.fillRect(0, 0, PANEL_WIDTH, PANEL_HEIGHT);
+
+    // --- Frame time percentiles ---
+    System.arraycopy(frameMs, 0, sorted, 0, count);
+    Arrays.sort(sorted, 0, count);
+    double y = PADDING + LINE_HEIGHT;
+    gc.setFill(Color.WHITE);
+    double x = drawLabel("frame p50 ", PADDING, y);
+    x = drawTenths(percentile(0.50), x, y);
+    x = drawLabel(" p99 ", x, y);
+    x = drawTenths(percentile(0.99), x, y);
+    x = drawLabel(" max ", x, y);
+    x = drawTenths(percentile(1.0), x, y);
+    drawLabel(" ms", x, y);
+
+    // --- Physics ---
+    y += LINE_HEIGHT;
+    int latest = (head + SAMPLES - 1) % SAMPLES;
+    gc.setFill(physicsMs[latest] > BUDGET_MS / 2 ? Color.ORANGE : Color.WHITE);
+    x = drawLabel("physics   ", PADDING, y);
+    x = drawTenths(physicsMs[latest], x, y);
+    x = drawLabel(" ms  steps ", x, y);
+    x = drawCount(subSteps, x, y);
+    x = drawLabel("/", x, y);
+    drawCount(maxSubSteps, x, y);
+
+    y += LINE_HEIGHT;
+    gc.setFill(lodTier == FrameBudgetScheduler.Tier.FULL ? Color.WHITE : Color.ORANGE);
+    x = drawLabel("lod ", PADDING, y);
+    x = drawLabel(lodTier.name(), x, y);
+    x = drawLabel("  far skipped ", x, y);
+    drawCount(farPairsSkipped, x, y);
+
+    y += LINE_HEIGHT;
+    gc.setFill(Color.WHITE);
+    x = drawLabel("pairs broad ", PADDING, y);
+    x = drawCount(broadPhasePairs, x, y);
+    x = drawLabel(" narrow ", x, y);
+    drawCount(narrowPhasePairs, x, y);
+
+    y += LINE_HEIGHT;
+    x = drawLabel("awake ", PADDING, y);
+    x = drawCount(awakeBodies, x, y);
+    x = drawLabel("  gc ", x, y);
+    x = drawTenths(gcMs[latest], x, y);
+    x = drawLabel(" ms (max ", x, y);
+    x = drawTenths(max(gcMs), x, y);
+    drawLabel(")", x, y);
+
+    y += LINE_HEIGHT;
+    x = drawLabel("particles ", PADDING, y);
+    x = drawCount(particleCount, x, y);
+    x = drawLabel("  ", x, y);
+    x = drawTenths(particleMs, x, y);
+    drawLabel(" ms", x, y);
+
+    y += LINE_HEIGHT;
+    x = drawLabel("visible ", PADDING, y);
+    x = drawCount(visibleEntities, x, y);
+    x = drawLabel("/", x, y);
+    drawCount(totalEntities, x, y);
+
+    y += LINE_HEIGHT;
+    x = drawLabel("sprites ", PADDING, y);
+    x = drawCount(spritePages, x, y);
+    x = drawLabel(" pages ", x, y);
+    x = drawTenths(spriteMb, x, y);
+    x = drawLabel(" MB hit ", x, y);
+    x = drawCount((int) Math.min(spriteHits, Integer.MAX_VALUE), x, y);
+    x = drawLabel(" miss ", x, y);
+    drawCount((int) Math.min(spriteMisses, Integer.MAX_VALUE), x, y);
+
+    y += LINE_HEIGHT;
+    if (capturing) {
+      gc.setFill(Color.RED);
+      x = drawLabel("capture ", PADDING, y);
+      x = drawTenths(captureMs, x, y);
+      x = drawLabel(" ms  queued ", x, y);
+      x = drawCount(queuedFrames, x, y);
+      x = drawLabel(" dropped ", x, y);
+      drawCount(droppedFrames, x, y);
+    } else if (capturedFrames > 0 || droppedFrames > 0) {
+      x = drawLabel("capture off (F9)  last ", PADDING, y);
+      x = drawCount(capturedFrames, x, y);
+      x = drawLabel(" frames, dropped ", x, y);
+      drawCount(droppedFrames, x, y);
+    } else {
+      drawLabel("capture off (F9)", PADDING, y);
+    }
+
+    // --- Frame jobs: wall time against the work it held, and the stages ---
+    y += LINE_HEIGHT;
+    gc.setFill(Color.WHITE);
+    x = drawLabel("jobs ", PADDING, y);
+    x = drawCount(jobThreads, x, y);
+    x = drawLabel(" sim ", x, y);
+    x = drawTenths(simulationMs, x, y);
+    x = drawLabel(" work ", x, y);
+    x = drawTenths(workMs, x, y);
+    drawLabel(" ms", x, y);
+
+    y += LINE_HEIGHT;
+    x = drawLabel("critical ", PADDING, y);
+    x = drawTenths(criticalPathMs, x, y);
+    x = drawLabel(" ms  wait ", x, y);
+    x = drawTenths(waitMs, x, y);
+    drawLabel(" ms", x, y);
+
+    for (int i = 0; i < stageNames.length; i++) {
+      if (i % 2 == 0) {
+        y += LINE_HEIGHT;
+      }
+      double column = PADDING + (i % 2) * STAGE_COLUMN_WIDTH;
+      drawLabel(stageNames[i], column, y);
+      drawTenths(stageMs[i], column + 10 * charWidth, y);
+    }
+
+    drawGraph(y + PADDING);
+  }
+
+  /**
+   * A rolling graph of frame time (white), physics time (cyan) and GC pauses
+   * (red), against a line marking the 60 FPS budget.
+   */
+  private void drawGraph(double top) {
+    double left = PADDING;
+    double width = PANEL_WIDTH - 2 * PADDING;
+    double bottom = top + GRAPH_HEIGHT;
+    double step = width / SAMPLES;
+
+    double budgetY = bottom - GRAPH_HEIGHT * (BUDGET_MS / GRAPH_MAX_MS);
+    gc.setStroke(Color.GREEN);
+    gc.strokeLine(left, budgetY, left + width, budgetY);
+
+    for (int i = 0; i < count; i++) {
+      // Oldest sample on the left
+      int index = (head - count + i + SAMPLES) % SAMPLES;
+      double sx = left + i * step;
+      gc.setFill(frameMs[index] > BUDGET_MS * 1.1 ? Color.ORANGE : Color.WHITE);
+      gc.fillRect(sx, bottom - barHeight(frameMs[index]), step, 1);
+      gc.setFill(Color.CYAN);
+      gc.fillRect(sx, bottom - barHeight(physicsMs[index]), step, barHeight(physicsMs[index]));
+      if (gcMs[index] > 0) {
+        gc.setFill(Color.RED);
+        gc.fillRect(sx, top, step, 3);
+      }
+    }
+  }
+
+  private double barHeight(double ms) {
+    return GRAPH_HEIGHT * Math.min(ms, GRAPH_MAX_MS) / GRAPH_MAX_MS;
+  }
+
+  private double percentile(double p) {
+    if (count == 0) {
+      return 0;
+    }
+    return sorted[(int) Math.round(p * (count - 1))];
+  }
+
+  private double max(double[] samples) {
+    double max = 0;
+    for (int i = 0; i < count; i++) {
+      max = Math.max(max, samples[i]);
+    }
+    return max;
+  }
+
+  // --- Allocation-free text helpers; each returns the x after the text ---
+
+  private double drawLabel(String label, double x, double y) {
+    gc.fillText(label, x, y);
+    return x + label.length() * charWidth;
+  }
+
+  private double drawTenths(double value, double x, double y) {
+    long tenths = Math.round(Math.max(0, value) * 10);
+    // Anything that rounds up to 1000.0 or more is a count, e.g. 999.96 -> 1.0k
+    if (tenths >= NUMBERS.length * 10) {
+      return drawCount((int) Math.min(Integer.MAX_VALUE, Math.round(value)), x, y);
+    }
+    x = drawLabel(NUMBERS[(int) (tenths / 10)], x, y);
+    return drawLabel(TENTHS[(int) (tenths % 10)], x, y);
+  }
+
+  private double drawCount(int value, double x, double y) {
+    if (value < NUMBERS.length) {
+      return drawLabel(NUMBERS[Math.max(0, value)], x, y);
+    }
+    // Cut over where the tenths would round up to 1000, so 999,950 is 1.0M
+    if (value < 999_950) {
+      return drawLabel("k", drawTenths(value / 1000.0, x, y), y);
+    }
+    if (value < 999_950_000) {
+      return drawLabel("M", drawTenths(value / 1_000_000.0, x, y), y);
+    }
+    return drawLabel("G", drawTenths(value / 1_000_000_000.0, x, y), y);
+  }
+}
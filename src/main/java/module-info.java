@@ -1,4 +1,6 @@
 module com.chaosgame {
     requires javafx.controls;
+    requires java.management;
+    requires jdk.management;
     exports com.chaosgame;
 }
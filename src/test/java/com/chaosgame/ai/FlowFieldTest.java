@@ -0,0 +1,105 @@
+package com.chaosgame.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FlowFieldTest {
+
+  @Test
+  void openGridCostsAreOctileDistances() {
+    NavigationGrid grid = new NavigationGrid(0, 0, 12, 9, 1);
+    int goal = grid.cellAt(4.5, 3.5);
+    FlowField field = complete(new FlowField(grid, goal));
+
+    for (int cell = 0; cell < grid.getCellCount(); cell++) {
+      int dx = Math.abs(grid.columnOf(cell) - grid.columnOf(goal));
+      int dy = Math.abs(grid.rowOf(cell) - grid.rowOf(goal));
+      assertEquals(10 * Math.max(dx, dy) + 4 * Math.min(dx, dy), field.costAt(cell), "cell " + cell);
+    }
+    assertEquals(FlowField.NO_DIRECTION, field.directionAt(goal));
+  }
+
+  @Test
+  void followingTheFieldReachesTheGoalAroundAWall() {
+    NavigationGrid grid = new NavigationGrid(0, 0, 10, 10, 1);
+    for (int row = 0; row < 9; row++) {
+      grid.setBlocked(row * grid.getColumns() + 5, true); // A wall with a gap at the bottom
+    }
+    int goal = grid.cellAt(8.5, 0.5);
+    FlowField field = complete(new FlowField(grid, goal));
+    int start = grid.cellAt(1.5, 0.5);
+
+    int cell = start;
+    int pathCost = 0;
+    for (int steps = 0; cell != goal; steps++) {
+      assertTrue(steps < grid.getCellCount(), "the path loops");
+      int d = field.directionAt(cell);
+      assertNotEquals(FlowField.NO_DIRECTION, d, "no direction at cell " + cell);
+      int next = (grid.rowOf(cell) + FlowField.DY[d]) * grid.getColumns() + grid.columnOf(cell) + FlowField.DX[d];
+      assertFalse(grid.isBlocked(next), "stepped into a wall at cell " + next);
+      pathCost += d < 4 ? 10 : 14;
+      cell = next;
+    }
+    assertEquals(field.costAt(start), pathCost, "the path costs what the field says");
+    assertTrue(field.costAt(start) > 70, "the wall makes the goal further than in a straight line");
+  }
+
+  @Test
+  void enclosedCellsAreUnreachable() {
+    NavigationGrid grid = new NavigationGrid(0, 0, 5, 5, 1);
+    int columns = grid.getColumns();
+    for (int cell = 0; cell < grid.getCellCount(); cell++) {
+      int column = grid.columnOf(cell);
+      int row = grid.rowOf(cell);
+      if (column >= 2 && row >= 2 && (column == 2 || row == 2)) {
+        grid.setBlocked(cell, true); // Walls off the bottom-right corner
+      }
+    }
+    FlowField field = complete(new FlowField(grid, 0));
+    int enclosed = 4 * columns + 4;
+
+    assertEquals(-1, field.costAt(enclosed));
+    assertEquals(FlowField.NO_DIRECTION, field.directionAt(enclosed));
+  }
+
+  @Test
+  void budgetedBuildMatchesOneShotBuild() {
+    NavigationGrid grid = new NavigationGrid(0, 0, 40, 30, 1);
+    grid.blockRegion(10, 5, 12, 25);
+    grid.blockRegion(20, 0, 22, 20);
+    int goal = grid.cellAt(35.5, 15.5);
+    FlowField whole = complete(new FlowField(grid, goal));
+    FlowField spread = new FlowField(grid, goal);
+
+    int calls = 0;
+    while (!spread.compute(50)) {
+      calls++;
+    }
+
+    assertTrue(calls > 10, "the budget spreads the work");
+    for (int cell = 0; cell < grid.getCellCount(); cell++) {
+      assertEquals(whole.costAt(cell), spread.costAt(cell), "cost of cell " + cell);
+      assertEquals(whole.directionAt(cell), spread.directionAt(cell), "direction of cell " + cell);
+    }
+  }
+
+  @Test
+  void fieldGoesStaleWhenTheGridChanges() {
+    NavigationGrid grid = new NavigationGrid(0, 0, 5, 5, 1);
+    FlowField field = complete(new FlowField(grid, 0));
+    assertFalse(field.isStale());
+
+    grid.setBlocked(12, true);
+
+    assertTrue(field.isStale());
+  }
+
+  private static FlowField complete(FlowField field) {
+    assertTrue(field.compute(Integer.MAX_VALUE));
+    return field;
+  }
+}
@@ -0,0 +1,74 @@
+package com.chaosgame.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RegressionThresholdsTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void absoluteLimitsFallBackToTheDefault() throws IOException {
+    RegressionThresholds thresholds = RegressionThresholds.load(write("limits",
+        "default.narrowPhasePairsPerTick=100", "crate-pile.narrowPhasePairsPerTick=300"));
+
+    assertTrue(thresholds.check(result("crate-pile", 250, 0)).isEmpty());
+    List<String> failures = thresholds.check(result("wall-maze", 250, 0));
+    assertEquals(1, failures.size());
+    assertTrue(failures.get(0).startsWith("wall-maze [SUB_STEPPED]: narrowPhasePairsPerTick"), failures.get(0));
+  }
+
+  @Test
+  void relativeLimitsAllowTheToleranceAndSlack() throws IOException {
+    Path baseline = directory.resolve("baseline");
+    RegressionThresholds.recordBaseline(List.of(result("crate-pile", 100, 10000)), 42, 10, 2, baseline);
+    RegressionThresholds thresholds = RegressionThresholds.load(write("limits",
+        "tolerance.narrowPhasePairsPerTick=0.10", "tolerance.allocBytesPerTick=0.50",
+        "slack.allocBytesPerTick=4096")).withBaseline(baseline);
+
+    assertTrue(thresholds.check(result("crate-pile", 110, 19096)).isEmpty());
+    assertEquals(1, thresholds.check(result("crate-pile", 111, 0)).size());
+    assertEquals(1, thresholds.check(result("crate-pile", 100, 19200)).size());
+    assertTrue(thresholds.check(result("wall-maze", 1000, 0)).isEmpty(), "no baseline, no limit");
+  }
+
+  @Test
+  void baselineOnlyHoldsForTheRunItCameFrom() throws IOException {
+    Path baseline = directory.resolve("baseline");
+    RegressionThresholds.recordBaseline(List.of(result("crate-pile", 100, 0)), 42, 600, 120, baseline);
+    RegressionThresholds thresholds = RegressionThresholds.none().withBaseline(baseline);
+
+    assertTrue(thresholds.baselineMatches(42, 600, 120));
+    assertFalse(thresholds.baselineMatches(7, 600, 120));
+    assertFalse(thresholds.baselineMatches(42, 300, 120));
+    assertTrue(RegressionThresholds.none().baselineMatches(7, 1, 1));
+  }
+
+  @Test
+  void noThresholdsNeverFail() {
+    assertTrue(RegressionThresholds.none().check(result("crate-pile", 1e9, 1e9)).isEmpty());
+  }
+
+  private Path write(String name, String... lines) throws IOException {
+    Path file = directory.resolve(name);
+    Files.write(file, List.of(lines));
+    return file;
+  }
+
+  // A ten-tick result with the given per-tick pair count and allocation
+  private static ScenarioResult result(String scenario, double narrowPhasePairsPerTick, double allocBytesPerTick) {
+    int ticks = 10;
+    return new ScenarioResult(scenario, "SUB_STEPPED", 42, 100, new long[ticks], (long) (allocBytesPerTick * ticks),
+        0, 0, ticks, 0, (long) (narrowPhasePairsPerTick * ticks), 0);
+  }
+}
@@ -0,0 +1,63 @@
+package com.chaosgame.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.chaosgame.physics.PhysicsEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A baseline is only worth comparing against if a scenario does the same work
+ * every time it runs with the same seed. These are the checks a baseline gate
+ * relies on, on a run short enough for a unit test.
+ */
+class ScenarioRunnerTest {
+
+  private static final String SCENARIO = "grab-and-throw"; // The smallest scenario
+  private static final int TICKS = 30;
+  private static final int WARMUP = 5;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void sameSeedDoesTheSameWork() {
+    ScenarioRunner runner = new ScenarioRunner(PhysicsEngine.ContinuousMode.SUB_STEPPED, TICKS, WARMUP);
+
+    ScenarioResult first = runner.run(SCENARIO, 42);
+    ScenarioResult second = runner.run(SCENARIO, 42);
+
+    assertEquals(TICKS, first.ticks);
+    assertTrue(first.broadPhasePairsPerTick > 0);
+    assertEquals(first.entities, second.entities);
+    assertEquals(first.resolvedContacts, second.resolvedContacts);
+    assertEquals(first.speculativeContacts, second.speculativeContacts);
+    for (String metric : List.of("broadPhasePairsPerTick", "narrowPhasePairsPerTick", "gjkPairsPerTick",
+        "subStepsPerTick")) {
+      assertEquals(first.get(metric), second.get(metric), metric);
+    }
+  }
+
+  @Test
+  void runPassesTheGateOnItsOwnBaseline() throws IOException {
+    ScenarioRunner runner = new ScenarioRunner(PhysicsEngine.ContinuousMode.EVENT_DRIVEN, TICKS, WARMUP);
+    Path baseline = directory.resolve("baseline");
+    Path limits = directory.resolve("limits");
+    // Baselines are recorded to one decimal place, so allow for the rounding
+    Files.write(limits, List.of("tolerance.broadPhasePairsPerTick=0.01", "tolerance.narrowPhasePairsPerTick=0.01",
+        "tolerance.gjkPairsPerTick=0.01", "tolerance.subStepsPerTick=0.01"));
+
+    RegressionThresholds.recordBaseline(List.of(runner.run(SCENARIO, 7)), 7, TICKS, WARMUP, baseline);
+    RegressionThresholds thresholds = RegressionThresholds.load(limits).withBaseline(baseline);
+
+    assertTrue(thresholds.baselineMatches(7, TICKS, WARMUP));
+    assertEquals(List.of(), thresholds.check(runner.run(SCENARIO, 7)));
+  }
+}
@@ -0,0 +1,134 @@
+package com.chaosgame.capture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+
+class PngEncoderTest {
+
+  private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+  @Test
+  void writesAValidOpaqueRgbPng() throws Exception {
+    int[] argb = randomFrame(7, 5, new Random(42));
+    try (PngEncoder encoder = new PngEncoder()) {
+      assertArrayEquals(rgbOf(argb), decode(encode(encoder, argb, 7, 5), 7, 5));
+    }
+  }
+
+  @Test
+  void alphaIsIgnored() throws Exception {
+    int[] opaque = { 0xff102030, 0xff405060 };
+    int[] translucent = { 0x00102030, 0x7f405060 };
+    try (PngEncoder encoder = new PngEncoder()) {
+      assertArrayEquals(encode(encoder, opaque, 2, 1), encode(encoder, translucent, 2, 1));
+    }
+  }
+
+  @Test
+  void oneEncoderHandlesFramesOfAnySize() throws Exception {
+    Random random = new Random(7);
+    try (PngEncoder encoder = new PngEncoder()) {
+      for (int[] size : new int[][] { { 64, 48 }, { 3, 2 }, { 640, 360 }, { 1, 1 } }) {
+        int[] argb = randomFrame(size[0], size[1], random);
+        byte[] png = encode(encoder, argb, size[0], size[1]);
+        assertArrayEquals(rgbOf(argb), decode(png, size[0], size[1]), size[0] + "x" + size[1]);
+      }
+    }
+  }
+
+  private static byte[] encode(PngEncoder encoder, int[] argb, int width, int height) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    encoder.encode(argb, width, height, out);
+    return out.toByteArray();
+  }
+
+  // Checks the signature, every chunk's CRC and the header, then inflates and
+  // unfilters the image data
+  private static byte[] decode(byte[] png, int width, int height) throws DataFormatException {
+    ByteBuffer in = ByteBuffer.wrap(png);
+    byte[] signature = new byte[8];
+    in.get(signature);
+    assertArrayEquals(SIGNATURE, signature);
+
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    String type = "";
+    boolean sawHeader = false;
+    while (!type.equals("IEND")) {
+      int length = in.getInt();
+      byte[] typeAndData = new byte[4 + length];
+      in.get(typeAndData);
+      CRC32 crc = new CRC32();
+      crc.update(typeAndData);
+      assertEquals((int) crc.getValue(), in.getInt(), "CRC");
+      type = new String(typeAndData, 0, 4, StandardCharsets.US_ASCII);
+      ByteBuffer chunk = ByteBuffer.wrap(typeAndData, 4, length);
+      if (type.equals("IHDR")) {
+        assertEquals(width, chunk.getInt());
+        assertEquals(height, chunk.getInt());
+        assertEquals(8, chunk.get(), "bit depth");
+        assertEquals(2, chunk.get(), "colour type");
+        sawHeader = true;
+      } else if (type.equals("IDAT")) {
+        data.write(typeAndData, 4, length);
+      }
+    }
+    assertTrue(sawHeader);
+    assertEquals(0, in.remaining());
+
+    int stride = 1 + width * 3;
+    Inflater inflater = new Inflater();
+    inflater.setInput(data.toByteArray());
+    byte[] raw = new byte[stride * height];
+    int inflated = 0;
+    while (!inflater.finished()) {
+      inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+    }
+    inflater.end();
+    assertEquals(raw.length, inflated);
+
+    byte[] rgb = new byte[width * height * 3];
+    for (int y = 0; y < height; y++) {
+      int filter = raw[y * stride];
+      for (int x = 0; x < width * 3; x++) {
+        int value = raw[y * stride + 1 + x];
+        if (filter == 1 && x >= 3) {
+          value += rgb[y * width * 3 + x - 3];
+        } else if (filter != 0 && filter != 1) {
+          throw new AssertionError("unexpected filter " + filter + " on row " + y);
+        }
+        rgb[y * width * 3 + x] = (byte) value;
+      }
+    }
+    return rgb;
+  }
+
+  private static int[] randomFrame(int width, int height, Random random) {
+    int[] argb = new int[width * height];
+    for (int i = 0; i < argb.length; i++) {
+      argb[i] = random.nextInt(4) == 0 ? argb[Math.max(0, i - 1)] : random.nextInt() | 0xff000000;
+    }
+    return argb;
+  }
+
+  private static byte[] rgbOf(int[] argb) {
+    byte[] rgb = new byte[argb.length * 3];
+    for (int i = 0; i < argb.length; i++) {
+      rgb[3 * i] = (byte) (argb[i] >> 16);
+      rgb[3 * i + 1] = (byte) (argb[i] >> 8);
+      rgb[3 * i + 2] = (byte) argb[i];
+    }
+    return rgb;
+  }
+}
@@ -0,0 +1,137 @@
+package com.chaosgame.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EntityRegistryTest {
+
+  @Test
+  void spawnResolvesAtOnceButGoesLiveAtFlush() {
+    EntityRegistry registry = new EntityRegistry();
+    Entity crate = TestBody.box(10, 10);
+    long handle = registry.spawn(crate);
+
+    assertSame(crate, registry.get(handle));
+    assertEquals(handle, crate.getHandle());
+    assertEquals(0, registry.size());
+
+    registry.flush();
+    assertEquals(List.of(crate), registry.getEntities());
+  }
+
+  @Test
+  void despawnedHandleStopsResolvingWhenItsSlotIsReused() {
+    EntityRegistry registry = new EntityRegistry();
+    Entity first = TestBody.box(10, 10);
+    long firstHandle = registry.spawn(first);
+    registry.flush();
+    registry.despawn(firstHandle);
+    registry.flush();
+
+    Entity second = TestBody.box(10, 10);
+    long secondHandle = registry.spawn(second);
+    registry.flush();
+
+    assertEquals((int) firstHandle, (int) secondHandle, "the freed slot is reused");
+    assertNotEquals(firstHandle, secondHandle);
+    assertNull(registry.get(firstHandle));
+    assertSame(second, registry.get(secondHandle));
+    assertEquals(EntityRegistry.NULL_HANDLE, first.getHandle());
+  }
+
+  @Test
+  void despawnSwapsTheLastEntityIntoTheHole() {
+    EntityRegistry registry = new EntityRegistry();
+    Entity a = TestBody.box(10, 10);
+    Entity b = TestBody.box(10, 10);
+    Entity c = TestBody.box(10, 10);
+    long handleA = registry.spawn(a);
+    long handleB = registry.spawn(b);
+    long handleC = registry.spawn(c);
+    registry.flush();
+
+    registry.despawn(handleA);
+    registry.flush();
+
+    assertEquals(List.of(c, b), registry.getEntities());
+    assertSame(b, registry.get(handleB));
+    assertSame(c, registry.get(handleC));
+
+    // The moved entity must still be removable by its handle
+    registry.despawn(handleC);
+    registry.flush();
+    assertEquals(List.of(b), registry.getEntities());
+  }
+
+  @Test
+  void entitySpawnedAndDespawnedInOneStepNeverGoesLive() {
+    EntityRegistry registry = new EntityRegistry();
+    List<Entity> spawned = new ArrayList<>();
+    List<Entity> despawned = new ArrayList<>();
+    registry.setListener(new EntityRegistry.Listener() {
+      @Override
+      public void onSpawned(Entity entity) {
+        spawned.add(entity);
+      }
+
+      @Override
+      public void onDespawned(Entity entity) {
+        despawned.add(entity);
+      }
+    });
+
+    long handle = registry.spawn(TestBody.box(10, 10));
+    registry.despawn(handle);
+    registry.flush();
+
+    assertEquals(0, registry.size());
+    assertTrue(spawned.isEmpty());
+    assertTrue(despawned.isEmpty());
+    assertFalse(registry.isAlive(handle));
+  }
+
+  @Test
+  void staleAndNullHandlesAreIgnored() {
+    EntityRegistry registry = new EntityRegistry();
+    Entity kept = TestBody.box(10, 10);
+    long keptHandle = registry.spawn(kept);
+    long goneHandle = registry.spawn(TestBody.box(10, 10));
+    registry.flush();
+    registry.despawn(goneHandle);
+    registry.flush();
+
+    registry.despawn(goneHandle);
+    registry.despawn(EntityRegistry.NULL_HANDLE);
+    registry.flush();
+
+    assertNull(registry.get(EntityRegistry.NULL_HANDLE));
+    assertEquals(List.of(kept), registry.getEntities());
+    assertSame(kept, registry.get(keptHandle));
+  }
+
+  @Test
+  void slotsGrowPastTheInitialCapacity() {
+    EntityRegistry registry = new EntityRegistry();
+    long[] handles = new long[500];
+    Entity[] entities = new Entity[handles.length];
+    for (int i = 0; i < handles.length; i++) {
+      entities[i] = TestBody.box(1, 1);
+      handles[i] = registry.spawn(entities[i]);
+    }
+    registry.flush();
+
+    assertEquals(handles.length, registry.size());
+    for (int i = 0; i < handles.length; i++) {
+      assertSame(entities[i], registry.get(handles[i]));
+    }
+  }
+}
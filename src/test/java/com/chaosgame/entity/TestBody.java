@@ -0,0 +1,34 @@
+package com.chaosgame.entity;
+
+import com.chaosgame.Vector2D;
+import javafx.scene.Group;
+
+/**
+ * A plain convex body for tests, with an empty view so no sprites or toolkit
+ * are needed.
+ */
+public class TestBody extends Entity {
+
+  public TestBody(Vector2D[] vertices) {
+    super(new Group(), 1.0, vertices);
+  }
+
+  /**
+   * A regular polygon around the origin.
+   */
+  public static TestBody polygon(double radius, int sides) {
+    return new TestBody(createCircleVertices(radius, sides));
+  }
+
+  /**
+   * A box centred on the origin.
+   */
+  public static TestBody box(double width, double height) {
+    double halfWidth = width / 2;
+    double halfHeight = height / 2;
+    return new TestBody(new Vector2D[] {
+        new Vector2D(-halfWidth, -halfHeight), new Vector2D(halfWidth, -halfHeight),
+        new Vector2D(halfWidth, halfHeight), new Vector2D(-halfWidth, halfHeight)
+    });
+  }
+}
@@ -0,0 +1,165 @@
+package com.chaosgame.inspect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.TestBody;
+import com.chaosgame.physics.PhysicsStats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StateReaderTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsWhatWasPublished() throws IOException {
+    Path file = directory.resolve("state");
+    Entity crate = TestBody.box(20, 10);
+    crate.reset(12.5, -3);
+    crate.setVx(4);
+    Entity ball = TestBody.polygon(5, 8);
+    ball.reset(100, 200);
+    PhysicsStats stats = new PhysicsStats();
+    stats.subSteps = 3;
+    stats.narrowPhasePairs = 17;
+    stats.awakeBodies = 1;
+
+    try (StateExporter exporter = new StateExporter(file, 16); StateReader reader = new StateReader(file)) {
+      exporter.publish(42, List.of(crate, ball), stats);
+      StateFrame frame = new StateFrame();
+
+      assertTrue(reader.read(frame));
+      assertEquals(42, frame.tick);
+      assertEquals(2, frame.recordCount);
+      assertEquals(2, frame.bodyCount);
+      assertEquals(3, frame.subSteps);
+      assertEquals(17, frame.narrowPhasePairs);
+      assertEquals(crate.id, frame.ids[0]);
+      assertEquals(12.5, frame.x[0]);
+      assertEquals(-3, frame.y[0]);
+      assertEquals(4, frame.vx[0]);
+      assertEquals(-10, frame.minX[0]);
+      assertEquals(5, frame.maxY[0]);
+      assertEquals(ball.id, frame.ids[1]);
+      assertEquals(200, frame.y[1]);
+    }
+  }
+
+  @Test
+  void bodiesPastTheCapacityAreCountedButLeftOut() throws IOException {
+    Path file = directory.resolve("state");
+    List<Entity> bodies = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      bodies.add(TestBody.box(1, 1));
+    }
+
+    try (StateExporter exporter = new StateExporter(file, 3); StateReader reader = new StateReader(file)) {
+      exporter.publish(1, bodies, new PhysicsStats());
+      StateFrame frame = new StateFrame();
+
+      assertTrue(reader.read(frame));
+      assertEquals(3, frame.recordCount);
+      assertEquals(5, frame.bodyCount);
+    }
+  }
+
+  @Test
+  void nothingIsReadBeforeTheFirstTick() throws IOException {
+    Path file = directory.resolve("state");
+    try (StateExporter exporter = new StateExporter(file, 4); StateReader reader = new StateReader(file)) {
+      assertFalse(reader.read(new StateFrame()));
+    }
+  }
+
+  @Test
+  void tickLeftHalfWrittenIsNeverRead() throws IOException {
+    Path file = directory.resolve("state");
+    try (StateExporter exporter = new StateExporter(file, 4); StateReader reader = new StateReader(file)) {
+      exporter.publish(1, List.of(TestBody.box(1, 1)), new PhysicsStats());
+      // As if the writer died between the two sequence stores
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        ByteBuffer odd = ByteBuffer.allocate(8).order(StateLayout.ORDER);
+        odd.putLong(0, 5);
+        channel.write(odd, StateLayout.SEQUENCE_OFFSET);
+      }
+
+      assertFalse(reader.read(new StateFrame()));
+      assertTrue(reader.getRetries() > 0);
+    }
+  }
+
+  @Test
+  void readerNeverSeesAMixOfTwoTicks() throws Exception {
+    Path file = directory.resolve("state");
+    List<Entity> bodies = new ArrayList<>();
+    for (int i = 0; i < 256; i++) {
+      bodies.add(TestBody.box(1, 1));
+    }
+    int ticks = 2000;
+
+    try (StateExporter exporter = new StateExporter(file, bodies.size()); StateReader reader = new StateReader(file)) {
+      // Every body of tick t sits at x = t, so a torn copy shows up as a mix
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+      Thread writer = new Thread(() -> {
+        try {
+          PhysicsStats stats = new PhysicsStats();
+          for (int tick = 1; tick <= ticks; tick++) {
+            for (Entity body : bodies) {
+              body.x = tick;
+            }
+            stats.subSteps = tick;
+            exporter.publish(tick, bodies, stats);
+          }
+        } catch (Throwable e) {
+          failure.set(e);
+        }
+      }, "state-writer");
+      writer.start();
+
+      StateFrame frame = new StateFrame();
+      int reads = 0;
+      long lastTick = 0;
+      while (writer.isAlive() || reads == 0) {
+        if (!reader.read(frame)) {
+          continue;
+        }
+        reads++;
+        assertTrue(frame.tick >= lastTick, "ticks went backwards");
+        lastTick = frame.tick;
+        assertEquals(frame.tick, frame.subSteps, "header of tick " + frame.tick);
+        for (int i = 0; i < frame.recordCount; i++) {
+          assertEquals(frame.tick, frame.x[i], "body " + i + " of tick " + frame.tick);
+        }
+      }
+      writer.join();
+
+      assertEquals(null, failure.get());
+      assertTrue(reader.read(frame));
+      assertEquals(ticks, frame.tick);
+    }
+  }
+
+  @Test
+  void otherFilesAreRejected() throws IOException {
+    Path file = directory.resolve("not-state");
+    Files.write(file, new byte[4096]);
+
+    assertThrows(IOException.class, () -> new StateReader(file));
+  }
+}
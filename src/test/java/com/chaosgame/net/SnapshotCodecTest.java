@@ -0,0 +1,150 @@
+package com.chaosgame.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SnapshotCodecTest {
+
+  @Test
+  void fullUpdateRebuildsTheSnapshot() {
+    WorldSnapshot current = new WorldSnapshot();
+    current.add(1, 2, 30, 30, 100, -200, 900, 12, -7);
+    current.add(4, 4, 20, 10, -5, 0, 0, 0, 0);
+    current.add(9, 8, 15, 15, 70000, 3, -1, 400, 0);
+
+    WorldSnapshot received = roundTrip(current, new WorldSnapshot(), -1, 1024);
+
+    assertSame(current, received);
+  }
+
+  @Test
+  void deltaCarriesOnlyWhatChanged() {
+    WorldSnapshot baseline = new WorldSnapshot();
+    baseline.add(1, 2, 30, 30, 100, 100, 0, 0, 0);
+    baseline.add(2, 2, 30, 30, 200, 100, 0, 0, 0);
+    baseline.add(3, 2, 30, 30, 300, 100, 0, 0, 0);
+    WorldSnapshot current = new WorldSnapshot();
+    current.add(1, 2, 30, 30, 100, 100, 0, 0, 0); // Unchanged
+    current.add(3, 2, 30, 30, 305, 98, 10, 5, -2); // Moved; 2 was removed
+    current.add(5, 4, 10, 10, 0, 0, 0, 0, 0); // New
+
+    SnapshotCodec codec = new SnapshotCodec();
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    WorldSnapshot sent = new WorldSnapshot();
+    codec.encode(current, baseline, -1, buffer, sent);
+    buffer.flip();
+    WorldSnapshot received = new WorldSnapshot();
+
+    assertTrue(codec.decode(buffer, baseline, received));
+    assertEquals(3, codec.getLastEntriesWritten());
+    assertEquals(0, codec.getLastEntriesPending());
+    assertSame(current, received);
+    assertSame(current, sent);
+  }
+
+  @Test
+  void overBudgetTheReceiverGetsWhatTheSenderRecorded() {
+    Random random = new Random(42);
+    WorldSnapshot baseline = new WorldSnapshot();
+    WorldSnapshot current = new WorldSnapshot();
+    for (int id = 1; id <= 200; id++) {
+      baseline.add(id, 2, 30, 30, random.nextInt(10000), random.nextInt(10000), 0, 0, 0);
+    }
+    int priorityId = 150;
+    move(baseline, current, random);
+
+    SnapshotCodec codec = new SnapshotCodec();
+    ByteBuffer buffer = ByteBuffer.allocate(256);
+    WorldSnapshot sent = new WorldSnapshot();
+    codec.encode(current, baseline, priorityId, buffer, sent);
+    buffer.flip();
+    WorldSnapshot received = new WorldSnapshot();
+
+    assertTrue(codec.decode(buffer, baseline, received));
+    assertTrue(codec.getLastEntriesPending() > 0);
+    assertSame(sent, received);
+    int priority = received.indexOf(priorityId);
+    assertEquals(current.xs[current.indexOf(priorityId)], received.xs[priority], "the player goes first");
+
+    // Each further delta against what was received carries the rest
+    for (int round = 0; round < 100 && codec.getLastEntriesPending() > 0; round++) {
+      WorldSnapshot next = new WorldSnapshot();
+      buffer.clear();
+      codec.encode(current, received, priorityId, buffer, sent);
+      buffer.flip();
+      assertTrue(codec.decode(buffer, received, next));
+      received = next;
+    }
+    assertSame(current, received);
+  }
+
+  @Test
+  void truncatedDeltaIsRejected() {
+    WorldSnapshot current = new WorldSnapshot();
+    current.add(1, 2, 30, 30, 100, -200, 900, 12, -7);
+    current.add(2, 2, 30, 30, 300, 100, 0, 0, 0);
+    SnapshotCodec codec = new SnapshotCodec();
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    codec.encode(current, new WorldSnapshot(), -1, buffer, new WorldSnapshot());
+    buffer.flip();
+    buffer.limit(buffer.limit() - 2);
+
+    assertFalse(codec.decode(buffer, new WorldSnapshot(), new WorldSnapshot()));
+  }
+
+  @Test
+  void deltaAgainstTheWrongBaselineIsRejected() {
+    WorldSnapshot baseline = new WorldSnapshot();
+    baseline.add(1, 2, 30, 30, 100, 100, 0, 0, 0);
+    WorldSnapshot current = new WorldSnapshot();
+    current.add(1, 2, 30, 30, 150, 100, 0, 0, 0);
+    SnapshotCodec codec = new SnapshotCodec();
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    codec.encode(current, baseline, -1, buffer, new WorldSnapshot());
+    buffer.flip();
+
+    assertFalse(codec.decode(buffer, new WorldSnapshot(), new WorldSnapshot()));
+  }
+
+  private static WorldSnapshot roundTrip(WorldSnapshot current, WorldSnapshot baseline, int priorityId,
+      int budget) {
+    SnapshotCodec codec = new SnapshotCodec();
+    ByteBuffer buffer = ByteBuffer.allocate(budget);
+    WorldSnapshot sent = new WorldSnapshot();
+    codec.encode(current, baseline, priorityId, buffer, sent);
+    buffer.flip();
+    WorldSnapshot received = new WorldSnapshot();
+    assertTrue(codec.decode(buffer, baseline, received));
+    assertSame(sent, received);
+    return received;
+  }
+
+  private static void move(WorldSnapshot from, WorldSnapshot to, Random random) {
+    for (int i = 0; i < from.count; i++) {
+      to.add(from.ids[i], from.kinds[i], from.widths[i], from.heights[i], from.xs[i] + random.nextInt(41) - 20,
+          from.ys[i] + random.nextInt(41) - 20, random.nextInt(6283), random.nextInt(200), random.nextInt(200));
+    }
+  }
+
+  // Same entities with the same fields; ticks are left to the caller
+  private static void assertSame(WorldSnapshot expected, WorldSnapshot actual) {
+    assertEquals(expected.count, actual.count);
+    int n = expected.count;
+    assertTrue(Arrays.equals(expected.ids, 0, n, actual.ids, 0, n), "ids");
+    assertTrue(Arrays.equals(expected.kinds, 0, n, actual.kinds, 0, n), "kinds");
+    assertTrue(Arrays.equals(expected.widths, 0, n, actual.widths, 0, n), "widths");
+    assertTrue(Arrays.equals(expected.heights, 0, n, actual.heights, 0, n), "heights");
+    assertTrue(Arrays.equals(expected.xs, 0, n, actual.xs, 0, n), "xs");
+    assertTrue(Arrays.equals(expected.ys, 0, n, actual.ys, 0, n), "ys");
+    assertTrue(Arrays.equals(expected.angles, 0, n, actual.angles, 0, n), "angles");
+    assertTrue(Arrays.equals(expected.vxs, 0, n, actual.vxs, 0, n), "vxs");
+    assertTrue(Arrays.equals(expected.vys, 0, n, actual.vys, 0, n), "vys");
+  }
+}
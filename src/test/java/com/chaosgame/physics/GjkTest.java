@@ -0,0 +1,101 @@
+package com.chaosgame.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.TestBody;
+
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The checks NarrowPhaseBenchmark makes before timing: Sat gives exactly
+ * Entity.computeSeparation's answers, and GJK/EPA agrees with SAT on
+ * unrotated pairs, where SAT is exact for penetration and a lower bound for
+ * gaps.
+ */
+class GjkTest {
+
+  private static final double RADIUS = 20;
+  private static final int PAIRS = 200;
+
+  @ParameterizedTest
+  @ValueSource(ints = { 3, 4, 6, 8, 12, 16, 32 })
+  void satInPlaceMatchesComputeSeparation(int sides) {
+    Random random = new Random(42);
+    Sat sat = new Sat();
+    for (int i = 0; i < PAIRS; i++) {
+      Entity a = TestBody.polygon(RADIUS, sides);
+      Entity b = TestBody.polygon(RADIUS, sides);
+      place(a, b, random);
+      a.angle = random.nextDouble() * 2 * Math.PI;
+      b.angle = random.nextDouble() * 2 * Math.PI;
+
+      Separation expected = a.computeSeparation(b);
+      Separation actual = sat.separation(a, b);
+
+      assertEquals(expected.distance, actual.distance, "pair " + i);
+      assertEquals(expected.axisIndex, actual.axisIndex, "pair " + i);
+      assertEquals(expected.normal.x, actual.normal.x, "pair " + i);
+      assertEquals(expected.normal.y, actual.normal.y, "pair " + i);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 3, 4, 6, 8, 12, 16, 32 })
+  void gjkAgreesWithSat(int sides) {
+    Random random = new Random(42);
+    Gjk gjk = new Gjk();
+    for (int i = 0; i < PAIRS; i++) {
+      Entity a = TestBody.polygon(RADIUS, sides);
+      Entity b = TestBody.polygon(RADIUS, sides);
+      place(a, b, random);
+
+      Separation sat = a.computeSeparation(b);
+      Separation separation = gjk.separation(a, b, Gjk.NO_SIMPLEX);
+
+      assertNotNull(separation, "pair " + i);
+      if (sat.distance < 0) {
+        assertEquals(sat.distance, separation.distance, 1e-6, "penetration of pair " + i);
+        assertTrue(separation.normal.dot(sat.normal) > 1 - 1e-6, "normal of pair " + i);
+      } else {
+        assertTrue(separation.distance >= sat.distance - 1e-6, "gap of pair " + i);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 8, 32 })
+  void warmStartGivesTheColdAnswer(int sides) {
+    Random random = new Random(7);
+    Gjk gjk = new Gjk();
+    Gjk cold = new Gjk();
+    for (int i = 0; i < PAIRS; i++) {
+      Entity a = TestBody.polygon(RADIUS, sides);
+      Entity b = TestBody.polygon(RADIUS, sides);
+      place(a, b, random);
+      gjk.separation(a, b, Gjk.NO_SIMPLEX);
+      long simplex = gjk.getSimplex();
+      b.x += 0.25; // As between two frames
+      b.angle += 0.005;
+
+      Separation warm = gjk.separation(a, b, simplex);
+      Separation expected = cold.separation(a, b, Gjk.NO_SIMPLEX);
+
+      assertNotNull(warm, "pair " + i);
+      assertEquals(expected.distance, warm.distance, 1e-6, "pair " + i);
+    }
+  }
+
+  // From clearly overlapping to clearly apart, in every direction
+  private static void place(Entity a, Entity b, Random random) {
+    double direction = random.nextDouble() * 2 * Math.PI;
+    double distance = RADIUS * (1.2 + random.nextDouble() * 1.6);
+    a.reset(0, 0);
+    b.reset(Math.cos(direction) * distance, Math.sin(direction) * distance);
+  }
+}
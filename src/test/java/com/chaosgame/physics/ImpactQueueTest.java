@@ -0,0 +1,129 @@
+package com.chaosgame.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ImpactQueueTest {
+
+  @Test
+  void eventsComeOutInTimeOrder() {
+    ImpactQueue queue = new ImpactQueue();
+    Random random = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      queue.schedule(i, i + 1, random.nextDouble());
+    }
+
+    double last = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < 100; i++) {
+      assertTrue(queue.poll());
+      assertTrue(queue.getTime() >= last, "event " + i + " came out of order");
+      last = queue.getTime();
+    }
+    assertFalse(queue.poll());
+  }
+
+  @Test
+  void reschedulingAPairReplacesItsPrediction() {
+    ImpactQueue queue = new ImpactQueue();
+    queue.schedule(3, 7, 0.25);
+    queue.schedule(7, 3, 0.75);
+
+    assertEquals(1, queue.size());
+    assertTrue(queue.poll());
+    assertEquals(0.75, queue.getTime());
+    assertEquals(3, queue.getFirst());
+    assertEquals(7, queue.getSecond());
+    assertFalse(queue.poll());
+  }
+
+  @Test
+  void cancelledPairsLeaveTheQueue() {
+    ImpactQueue queue = new ImpactQueue();
+    queue.schedule(1, 2, 0.1);
+    queue.schedule(2, 3, 0.2);
+    queue.schedule(3, 4, 0.3);
+
+    queue.cancel(2, 1);
+    queue.cancel(4, 3);
+
+    assertEquals(1, queue.size());
+    assertTrue(queue.poll());
+    assertEquals(0.2, queue.getTime());
+    assertFalse(queue.poll());
+  }
+
+  @Test
+  void aPairCanBeScheduledAgainOnceItsEventIsPolled() {
+    ImpactQueue queue = new ImpactQueue();
+    queue.schedule(1, 2, 0.1);
+    queue.poll();
+
+    queue.schedule(1, 2, 0.4);
+    queue.cancel(5, 6); // Unknown pairs are ignored
+
+    assertTrue(queue.poll());
+    assertEquals(0.4, queue.getTime());
+  }
+
+  @Test
+  void orderSurvivesCancellingAndReschedulingFromTheMiddle() {
+    ImpactQueue queue = new ImpactQueue();
+    Random random = new Random(7);
+    double[] expected = new double[500];
+    for (int i = 0; i < 500; i++) {
+      expected[i] = random.nextDouble();
+      queue.schedule(i, i + 1000, expected[i]);
+    }
+    for (int i = 0; i < 500; i += 3) {
+      queue.cancel(i + 1000, i);
+      expected[i] = Double.NaN;
+    }
+    for (int i = 1; i < 500; i += 3) {
+      expected[i] = random.nextDouble();
+      queue.schedule(i, i + 1000, expected[i]);
+    }
+
+    List<Double> times = new ArrayList<>();
+    for (double time : expected) {
+      if (!Double.isNaN(time)) {
+        times.add(time);
+      }
+    }
+    Collections.sort(times);
+    for (double time : times) {
+      assertTrue(queue.poll());
+      assertEquals(time, queue.getTime());
+      assertEquals(time, expected[queue.getFirst()]);
+      assertEquals(queue.getFirst() + 1000, queue.getSecond());
+    }
+    assertFalse(queue.poll());
+  }
+
+  @Test
+  void clearDropsEveryEvent() {
+    ImpactQueue queue = new ImpactQueue();
+    queue.schedule(1, 2, 0.1);
+    queue.schedule(3, 4, 0.2);
+
+    queue.clear();
+    queue.schedule(1, 2, 0.5);
+
+    assertTrue(queue.poll());
+    assertEquals(0.5, queue.getTime());
+    assertFalse(queue.poll());
+  }
+
+  @Test
+  void pairKeyIgnoresOrder() {
+    assertEquals(ImpactQueue.pairKey(4, 9), ImpactQueue.pairKey(9, 4));
+    assertEquals((4L << 32) | 9, ImpactQueue.pairKey(9, 4));
+  }
+}
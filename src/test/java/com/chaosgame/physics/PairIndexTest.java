@@ -0,0 +1,40 @@
+package com.chaosgame.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PairIndexTest {
+
+  @Test
+  void removedPairsAreGoneAndTheRestStayFindable() {
+    PairIndex index = new PairIndex();
+    for (int i = 0; i < 1000; i++) {
+      index.put(ImpactQueue.pairKey(i, i + 1), i);
+    }
+    for (int i = 0; i < 1000; i += 2) {
+      assertEquals(i, index.remove(ImpactQueue.pairKey(i + 1, i), -1));
+    }
+
+    assertEquals(500, index.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i % 2 == 0 ? -1 : i, index.get(ImpactQueue.pairKey(i, i + 1), -1));
+    }
+    assertEquals(-1, index.remove(ImpactQueue.pairKey(0, 1), -1));
+  }
+
+  @Test
+  void putReplacesAndClearEmpties() {
+    PairIndex index = new PairIndex();
+    long key = ImpactQueue.pairKey(2, 5);
+    index.put(key, 1);
+    index.put(key, 2);
+
+    assertEquals(1, index.size());
+    assertEquals(2, index.get(key, -1));
+
+    index.clear();
+    assertEquals(0, index.size());
+    assertEquals(-1, index.get(key, -1));
+  }
+}
@@ -0,0 +1,43 @@
+package com.chaosgame.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PairTimesTest {
+
+  @Test
+  void keepsTheLatestTimePerPair() {
+    PairTimes times = new PairTimes();
+    times.put(ImpactQueue.pairKey(1, 2), 0.5);
+    times.put(ImpactQueue.pairKey(2, 1), 0.75);
+
+    assertEquals(0.75, times.get(ImpactQueue.pairKey(1, 2), Double.NaN));
+    assertEquals(1, times.size());
+  }
+
+  @Test
+  void missingPairsGetTheGivenValue() {
+    PairTimes times = new PairTimes();
+    times.put(ImpactQueue.pairKey(1, 2), 0.5);
+
+    assertEquals(-1.0, times.get(ImpactQueue.pairKey(1, 3), -1.0));
+  }
+
+  @Test
+  void growsAndClears() {
+    PairTimes times = new PairTimes();
+    for (int i = 0; i < 1000; i++) {
+      times.put(ImpactQueue.pairKey(i, i + 1), i);
+    }
+    assertEquals(1000, times.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, times.get(ImpactQueue.pairKey(i, i + 1), Double.NaN));
+    }
+
+    times.clear();
+
+    assertEquals(0, times.size());
+    assertEquals(Double.NaN, times.get(ImpactQueue.pairKey(0, 1), Double.NaN));
+  }
+}
@@ -0,0 +1,107 @@
+package com.chaosgame.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.TestBody;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Selective CCD: only bodies moving further than half their thickness in a
+ * step get swept tests, and slow pairs closing a gap within the step get a
+ * speculative contact instead.
+ */
+class PhysicsEngineTest {
+
+  private static final double TICK = 1.0 / 60;
+
+  @Test
+  void bodyIsFastOnlyPastHalfItsThickness() {
+    Entity box = TestBody.box(10, 10);
+
+    box.setVx(290); // 4.8 px in a tick
+    assertFalse(box.isFastMoving(TICK, 0.5));
+
+    box.setVx(310); // 5.2 px
+    assertTrue(box.isFastMoving(TICK, 0.5));
+  }
+
+  @Test
+  void slowPairClosingAGapGetsASpeculativeContact() {
+    Entity moving = TestBody.box(10, 10);
+    Entity resting = TestBody.box(10, 10);
+    moving.reset(0, 0);
+    resting.reset(12, 0); // A 2 px gap
+    moving.setVx(180); // 3 px in a tick: too slow for CCD, fast enough to overlap
+    PhysicsEngine engine = new PhysicsEngine();
+
+    engine.update(List.of(moving, resting), TICK);
+
+    assertEquals(1, engine.getStats().speculativeContacts);
+    assertEquals(0, engine.getStats().resolvedContacts);
+    double gap = (resting.getX() - 5) - (moving.getX() + 5);
+    assertTrue(gap >= -1e-9, "the bodies overlap by " + -gap);
+    assertTrue(gap < 0.1, "the bodies stopped short, " + gap + " px apart");
+  }
+
+  @Test
+  void slowPairFarApartIsLeftAlone() {
+    Entity moving = TestBody.box(10, 10);
+    Entity resting = TestBody.box(10, 10);
+    moving.reset(0, 0);
+    resting.reset(40, 0);
+    moving.setVx(180);
+    PhysicsEngine engine = new PhysicsEngine();
+
+    engine.update(List.of(moving, resting), TICK);
+
+    assertEquals(0, engine.getStats().narrowPhasePairs);
+    assertEquals(0, engine.getStats().speculativeContacts);
+    assertEquals(3, moving.getX(), 1e-9);
+  }
+
+  @Test
+  void fastBodyDoesNotTunnelThroughAThinWall() {
+    Entity bullet = TestBody.box(6, 6);
+    Entity wall = TestBody.box(2, 100);
+    wall.setBodyType(BodyType.STATIC);
+    bullet.reset(0, 0);
+    wall.reset(30, 0);
+    bullet.setVx(3000); // 50 px in a tick: straight through the wall without CCD
+    PhysicsEngine engine = new PhysicsEngine();
+
+    engine.update(List.of(bullet, wall), TICK);
+
+    assertTrue(bullet.getX() + 3 <= wall.getX() - 1 + 1e-6, "the bullet ended up at " + bullet.getX());
+    assertTrue(bullet.getVx() <= 0, "the bullet kept going");
+    assertEquals(1, engine.getStats().resolvedContacts);
+    assertEquals(0, engine.getStats().speculativeContacts);
+    assertEquals(30, wall.getX());
+  }
+
+  @Test
+  void timeLeftAtTheSubStepLimitIsStillSimulated() {
+    Entity bullet = TestBody.box(6, 6);
+    Entity wall = TestBody.box(2, 100);
+    Entity drifter = TestBody.box(6, 6);
+    wall.setBodyType(BodyType.STATIC);
+    bullet.reset(0, 0);
+    wall.reset(30, 0);
+    drifter.reset(0, 500);
+    bullet.setVx(3000);
+    drifter.setVx(60);
+    PhysicsEngine engine = new PhysicsEngine();
+    engine.setMaxSubSteps(1); // Used up by the bullet hitting the wall
+
+    engine.update(List.of(bullet, wall, drifter), TICK);
+
+    assertEquals(1, drifter.getX(), 1e-9);
+    assertTrue(bullet.getX() < 20, "the bullet stopped at the wall, at " + bullet.getX());
+    assertEquals(2, engine.getStats().subSteps);
+  }
+}
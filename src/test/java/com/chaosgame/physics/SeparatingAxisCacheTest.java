@@ -0,0 +1,102 @@
+package com.chaosgame.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.chaosgame.Vector2D;
+import com.chaosgame.entity.Entity;
+import com.chaosgame.entity.TestBody;
+import org.junit.jupiter.api.Test;
+
+class SeparatingAxisCacheTest {
+
+  @Test
+  void axisIsRememberedForEitherOrderOfThePair() {
+    SeparatingAxisCache cache = new SeparatingAxisCache();
+    Entity triangle = TestBody.polygon(10, 3);
+    Entity box = TestBody.box(10, 10);
+    box.reset(40, 0);
+
+    cache.store(triangle, box, 1);
+    int swapped = cache.lookup(box, triangle);
+
+    assertEquals(1, cache.lookup(triangle, box));
+    assertEquals(5, swapped, "the triangle's edges come after the box's four");
+    Vector2D axis = triangle.getAxis(box, 1);
+    Vector2D same = box.getAxis(triangle, swapped);
+    assertEquals(axis.x, same.x);
+    assertEquals(axis.y, same.y);
+  }
+
+  @Test
+  void nothingIsCachedForAnUnknownPair() {
+    SeparatingAxisCache cache = new SeparatingAxisCache();
+    Entity a = TestBody.box(10, 10);
+    Entity b = TestBody.box(10, 10);
+
+    assertEquals(-1, cache.lookup(a, b));
+    assertEquals(Gjk.NO_SIMPLEX, cache.lookupSimplex(a, b));
+    assertFalse(cache.lookupDirection(a, b, new double[2]));
+  }
+
+  @Test
+  void gjkDirectionFlipsWithThePairAndReplacesTheAxis() {
+    SeparatingAxisCache cache = new SeparatingAxisCache();
+    Entity a = TestBody.polygon(10, 16);
+    Entity b = TestBody.polygon(10, 16);
+    cache.store(a, b, 3);
+
+    cache.storeDirection(a, b, 0.6, 0.8);
+    double[] direction = new double[2];
+
+    assertTrue(cache.lookupDirection(b, a, direction));
+    assertEquals(-0.6, direction[0]);
+    assertEquals(-0.8, direction[1]);
+    assertEquals(-1, cache.lookup(a, b));
+
+    cache.store(a, b, 2);
+    assertFalse(cache.lookupDirection(a, b, direction), "a SAT axis replaces the direction");
+  }
+
+  @Test
+  void simplexIsOrientedForTheQuery() {
+    SeparatingAxisCache cache = new SeparatingAxisCache();
+    Entity a = TestBody.polygon(10, 16);
+    Entity b = TestBody.polygon(10, 16);
+    b.reset(15, 5);
+    Gjk gjk = new Gjk();
+    gjk.separation(a, b, Gjk.NO_SIMPLEX);
+    long simplex = gjk.getSimplex();
+
+    cache.storeSimplex(a, b, simplex);
+
+    assertEquals(simplex, cache.lookupSimplex(a, b));
+    assertEquals(Gjk.swapSides(simplex), cache.lookupSimplex(b, a));
+  }
+
+  @Test
+  void endFrameDropsOnlyThePairsNotLookedUp() {
+    SeparatingAxisCache cache = new SeparatingAxisCache();
+    int pairs = 400; // Enough to grow the table and make long probe runs
+    Entity[] a = new Entity[pairs];
+    Entity[] b = new Entity[pairs];
+    for (int i = 0; i < pairs; i++) {
+      a[i] = TestBody.box(10, 10);
+      b[i] = TestBody.box(10, 10);
+      cache.store(a[i], b[i], i % 8);
+    }
+    cache.endFrame(); // Everything was stored this frame, so it all stays
+    assertEquals(pairs, cache.size());
+
+    for (int i = 0; i < pairs; i += 2) {
+      cache.lookup(a[i], b[i]);
+    }
+    cache.endFrame();
+
+    assertEquals(pairs / 2, cache.size());
+    for (int i = 0; i < pairs; i++) {
+      assertEquals(i % 2 == 0 ? i % 8 : -1, cache.lookup(a[i], b[i]), "pair " + i);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.chaosgame.sprite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+
+import org.junit.jupiter.api.Test;
+
+class SpriteBatchTest {
+
+  @Test
+  void drawsAreGroupedByPage() {
+    SpriteAtlas atlas = new SpriteAtlas(32); // One 20 px sprite per page
+    SpriteRegion red = atlas.region("red", 20, 20, 10, 10, SpritePainter.box(Color.RED));
+    SpriteRegion blue = atlas.region("blue", 20, 20, 10, 10, SpritePainter.box(Color.BLUE));
+    SpriteCache cache = new SpriteCache(atlas, Long.MAX_VALUE);
+    SpriteBatch batch = new SpriteBatch(cache);
+    Canvas canvas = new Canvas(100, 100);
+
+    batch.begin();
+    for (int i = 0; i < 3; i++) {
+      batch.draw(red, 10 + i, 10, 0);
+      batch.draw(blue, 10 + i, 50, Math.PI / 4);
+    }
+    batch.end(canvas.getGraphicsContext2D());
+
+    assertEquals(2, atlas.getPageCount());
+    assertEquals(6, batch.getDrawCalls());
+    assertEquals(2, batch.getPageSwitches());
+    assertEquals(2, cache.getMisses()); // Each page looked up once in the frame
+    assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  void batchedPagesStayEvictable() {
+    SpriteAtlas atlas = new SpriteAtlas(32);
+    SpriteRegion red = atlas.region("red", 20, 20, 10, 10, SpritePainter.box(Color.RED));
+    SpriteRegion blue = atlas.region("blue", 20, 20, 10, 10, SpritePainter.box(Color.BLUE));
+    SpriteCache cache = new SpriteCache(atlas, 32 * 32 * 4); // Room for one page
+    SpriteBatch batch = new SpriteBatch(cache);
+    Canvas canvas = new Canvas(100, 100);
+
+    batch.begin();
+    batch.draw(red, 10, 10, 0);
+    batch.draw(blue, 50, 10, 0);
+    batch.end(canvas.getGraphicsContext2D());
+
+    assertEquals(1, cache.getResidentPages());
+    assertEquals(1, cache.getEvictions());
+  }
+}